@@ -0,0 +1,98 @@
+package org.netlight.habit_tracker.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Frequency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding and decoding of the habit DTOs, using an object mapper configured the
+ * way Spring Boot configures the one used by the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HabitJsonBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int habits;
+
+    private ObjectWriter habitListWriter;
+    private ObjectReader habitListReader;
+    private ObjectReader habitRequestReader;
+    private List<HabitResponse> habitList;
+    private byte[] habitListJson;
+    private byte[] habitRequestJson;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        // Spring Boot additionally writes dates as ISO strings
+        final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+        final TypeReference<List<HabitResponse>> listType = new TypeReference<>() {};
+        habitListWriter = objectMapper.writerFor(listType);
+        habitListReader = objectMapper.readerFor(listType);
+        habitRequestReader = objectMapper.readerFor(HabitRequest.class);
+
+        habitList = new ArrayList<>(habits);
+        for (int i = 0; i < habits; i++) {
+            habitList.add(HabitResponse.builder()
+                .id(TimeOrderedUuid.next())
+                .name("Habit " + i)
+                .description("Description of habit " + i)
+                .frequency(Frequency.values()[i % Frequency.values().length])
+                .startDate(LocalDate.of(2024, 1, 1).plusDays(i))
+                .build());
+        }
+        habitListJson = habitListWriter.writeValueAsBytes(habitList);
+        habitRequestJson = objectMapper.writeValueAsBytes(HabitRequest.builder()
+            .name("Read for 20 minutes")
+            .description("Any book, no screens")
+            .frequency(Frequency.DAILY)
+            .startDate(LocalDate.of(2024, 1, 1))
+            .build());
+    }
+
+    @Benchmark
+    public byte[] writeHabitResponses() throws JsonProcessingException {
+        return habitListWriter.writeValueAsBytes(habitList);
+    }
+
+    @Benchmark
+    public List<HabitResponse> readHabitResponses() throws Exception {
+        return habitListReader.readValue(habitListJson);
+    }
+
+    @Benchmark
+    public HabitRequest readHabitRequest() throws Exception {
+        return habitRequestReader.readValue(habitRequestJson);
+    }
+
+}
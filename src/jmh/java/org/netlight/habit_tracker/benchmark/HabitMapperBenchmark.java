@@ -0,0 +1,70 @@
+package org.netlight.habit_tracker.benchmark;
+
+import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.mapper.HabitMapper;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to response mapping and the Lombok builders it relies on.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HabitMapperBenchmark {
+
+    private Habit habit;
+    private HabitResponse habitResponse;
+
+    @Setup
+    public void setUp() {
+        habit = Habit.builder()
+            .id(TimeOrderedUuid.next())
+            .name("Read for 20 minutes")
+            .description("Any book, no screens")
+            .frequency(Frequency.DAILY)
+            .startDate(LocalDate.of(2024, 1, 1))
+            .build();
+        habitResponse = HabitMapper.mapToHabitResponse(habit);
+    }
+
+    @Benchmark
+    public HabitResponse mapToHabitResponse() {
+        return HabitMapper.mapToHabitResponse(habit);
+    }
+
+    @Benchmark
+    public Habit buildHabit() {
+        return Habit.builder()
+            .name(habit.getName())
+            .description(habit.getDescription())
+            .frequency(habit.getFrequency())
+            .startDate(habit.getStartDate())
+            .build();
+    }
+
+    @Benchmark
+    public HabitResponse copyHabitResponseWithToBuilder() {
+        return habitResponse.toBuilder()
+            .name("Read for 30 minutes")
+            .build();
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.netlight.habit_tracker.benchmark;
+
+import org.netlight.HabitTrackerApplication;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.response.HabitPage;
+import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.service.HabitService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link HabitService} operations against the embedded H2 database, with the full
+ * application context (Liquibase schema, Hibernate, caches) but without the web layer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HabitServiceBenchmark {
+
+    private static final int HABITS = 1_000;
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    private final AtomicLong created = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private HabitService habitService;
+    private List<UUID> habitIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(HabitTrackerApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("h2")
+            .run("--habit-tracker.cache.enabled=" + cacheEnabled, "--logging.level.root=WARN");
+        habitService = context.getBean(HabitService.class);
+
+        habitIds = new ArrayList<>(HABITS);
+        for (int i = 0; i < HABITS; i++) {
+            habitIds.add(habitService.createHabit(habitRequest("Seeded habit " + i)).id());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public HabitResponse getHabitResponseById() {
+        return habitService.getHabitResponseById(randomHabitId());
+    }
+
+    @Benchmark
+    public HabitPage getAllHabitsFirstPage() {
+        return habitService.getAllHabits(null, null);
+    }
+
+    @Benchmark
+    public HabitResponse createHabit() {
+        return habitService.createHabit(habitRequest("Benchmark habit " + created.incrementAndGet()));
+    }
+
+    @Benchmark
+    public Tracking addTrackingEntry() {
+        return habitService.addTrackingEntry(randomHabitId(), "Benchmark entry");
+    }
+
+    private UUID randomHabitId() {
+        return habitIds.get(ThreadLocalRandom.current().nextInt(habitIds.size()));
+    }
+
+    private static HabitRequest habitRequest(final String name) {
+        return HabitRequest.builder()
+            .name(name)
+            .frequency(Frequency.DAILY)
+            .startDate(LocalDate.now())
+            .build();
+    }
+
+}
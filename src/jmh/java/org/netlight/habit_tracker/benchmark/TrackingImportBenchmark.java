@@ -0,0 +1,95 @@
+package org.netlight.habit_tracker.benchmark;
+
+import org.netlight.HabitTrackerApplication;
+import org.netlight.habit_tracker.dto.response.ImportJobResponse;
+import org.netlight.habit_tracker.importer.ImportFormat;
+import org.netlight.habit_tracker.model.ImportJobStatus;
+import org.netlight.habit_tracker.service.TrackingImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports a generated CSV of historical check-ins into the embedded H2 database, from
+ * submission until the job completes, reported per imported row. Every import creates its
+ * own habits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TrackingImportBenchmark {
+
+    private static final int HABITS = 200;
+    private static final int ROWS = 200_000;
+
+    private ConfigurableApplicationContext context;
+    private TrackingImportService importService;
+    private byte[] csv;
+    private int imports;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(HabitTrackerApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("h2")
+            .run("--spring.datasource.url=jdbc:h2:mem:import_benchmark;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--habit-tracker.import.directory=target/benchmark-imports",
+                "--logging.level.root=WARN");
+        importService = context.getBean(TrackingImportService.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void generateCsv() {
+        final StringBuilder content = new StringBuilder("habit,timestamp,note\n");
+        final LocalDateTime start = LocalDateTime.of(2020, 1, 1, 7, 0);
+        imports++;
+        for (int row = 0; row < ROWS; row++) {
+            content.append("Imported habit ").append(imports).append('-').append(row % HABITS).append(',')
+                .append(start.plusHours(row / HABITS)).append(",row ").append(row).append('\n');
+        }
+        csv = content.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public ImportJobResponse importCsv() throws IOException, InterruptedException {
+        ImportJobResponse job = importService.submit(ImportFormat.CSV, "benchmark.csv", new ByteArrayInputStream(csv));
+        while (job.status() == ImportJobStatus.QUEUED || job.status() == ImportJobStatus.RUNNING) {
+            Thread.sleep(10);
+            job = importService.getJob(job.id());
+        }
+        if (job.status() != ImportJobStatus.COMPLETED || job.importedRows() != ROWS) {
+            throw new IllegalStateException("Import ended " + job.status() + " after " + job.importedRows()
+                + " rows: " + job.error());
+        }
+        return job;
+    }
+
+}
@@ -0,0 +1,146 @@
+package org.netlight.habit_tracker.benchmark;
+
+import org.netlight.HabitTrackerApplication;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.netlight.habit_tracker.service.HabitService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends trackings to the {@code jpa} and the {@code log} tracking store and scans them back
+ * per habit, in trackings per second. Runs against the embedded H2 database unless the
+ * {@code benchmark.datasource.url} (and {@code .username}, {@code .password}) system properties
+ * point it at a database server, e.g.
+ * {@code -Djmh.args="TrackingStoreBenchmark -jvmArgsAppend -Dbenchmark.datasource.url=jdbc:mariadb://..."}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TrackingStoreBenchmark {
+
+    private static final int HABITS = 100;
+    private static final int TRACKINGS_PER_HABIT = 2_000;
+    private static final int BATCH_SIZE = 500;
+    private static final Path LOG_DIRECTORY = Path.of("target/benchmark-tracking-log");
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 7, 0);
+
+    @Param({"jpa", "log"})
+    private String storeType;
+
+    private ConfigurableApplicationContext context;
+    private TrackingStore trackingStore;
+    private List<Habit> scannedHabits;
+    private List<Habit> appendedHabits;
+    private long appended;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        FileSystemUtils.deleteRecursively(LOG_DIRECTORY);
+        context = new SpringApplicationBuilder(HabitTrackerApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("h2")
+            .run("--spring.datasource.url=" + System.getProperty("benchmark.datasource.url",
+                    "jdbc:h2:mem:tracking_store_benchmark;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"),
+                "--spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "sa"),
+                "--spring.datasource.password=" + System.getProperty("benchmark.datasource.password", ""),
+                "--habit-tracker.tracking-store.type=" + storeType,
+                "--habit-tracker.tracking-store.directory=" + LOG_DIRECTORY,
+                "--logging.level.root=WARN");
+        final HabitService habitService = context.getBean(HabitService.class);
+        trackingStore = context.getBean(TrackingStore.class);
+        scannedHabits = createHabits(habitService);
+        appendedHabits = createHabits(habitService);
+
+        final List<Tracking> batch = new ArrayList<>(BATCH_SIZE);
+        for (int day = 0; day < TRACKINGS_PER_HABIT; day++) {
+            for (final Habit habit : scannedHabits) {
+                batch.add(tracking(habit, START.plusDays(day)));
+                if (batch.size() == BATCH_SIZE) {
+                    trackingStore.saveAll(batch);
+                    batch.clear();
+                }
+            }
+        }
+        trackingStore.saveAll(batch);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(LOG_DIRECTORY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void appendBatch() {
+        final List<Tracking> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final long sequence = appended++;
+            batch.add(tracking(appendedHabits.get((int) (sequence % HABITS)), START.plusMinutes(sequence)));
+        }
+        trackingStore.saveAll(batch);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRACKINGS_PER_HABIT)
+    public List<TrackingExportRow> scanHabit() {
+        return trackingStore.findByHabitId(scannedHabits.get(ThreadLocalRandom.current().nextInt(HABITS)).getId());
+    }
+
+    private static List<Habit> createHabits(final HabitService habitService) {
+        final List<Habit> habits = new ArrayList<>(HABITS);
+        for (int i = 0; i < HABITS; i++) {
+            habits.add(Habit.builder().id(habitService.createHabit(HabitRequest.builder()
+                .name("Benchmark habit " + UUID.randomUUID())
+                .frequency(Frequency.DAILY)
+                .startDate(LocalDate.now())
+                .build()).id()).build());
+        }
+        return habits;
+    }
+
+    private static Tracking tracking(final Habit habit, final LocalDateTime timestamp) {
+        return Tracking.builder()
+            .id(TimeOrderedUuid.next())
+            .habit(habit)
+            .timestamp(timestamp)
+            .note("Benchmark entry")
+            .build();
+    }
+
+}
@@ -0,0 +1,173 @@
+package org.netlight.habit_tracker.benchmark;
+
+import org.netlight.HabitTrackerApplication;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.service.HabitService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares request handling on platform threads with request handling on virtual threads
+ * under a load that mostly waits on the database, with every benchmark thread acting as an
+ * HTTP client. H2 answers far faster than a networked MariaDB, so every statement is delayed
+ * by a fixed round trip while it holds its pooled connection. The servlet pool is deliberately
+ * smaller than the connection pool, as on our nodes, so platform threads run out first.
+ * <p>
+ * Needs a Java 21 runtime first on the {@code PATH}:
+ * {@code mvn -Pjdk21,jmh verify -DskipTests -Djmh.args=VirtualThreadLoadBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Threads(VirtualThreadLoadBenchmark.CLIENTS)
+@Fork(1)
+public class VirtualThreadLoadBenchmark {
+
+    static final int CLIENTS = 400;
+
+    private static final int HABITS = 100;
+    private static final int SERVLET_THREADS = 50;
+    private static final int POOL_SIZE = 100;
+    private static final long STATEMENT_LATENCY_MILLIS = 10;
+
+    @Param({"false", "true"})
+    private boolean virtualThreads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private List<URI> habitUris;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (virtualThreads && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version());
+        }
+        context = new SpringApplicationBuilder(HabitTrackerApplication.class)
+            .profiles("h2")
+            .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new StatementLatencyPostProcessor()))
+            .run("--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + SERVLET_THREADS,
+                "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                "--spring.datasource.url=jdbc:h2:mem:load_" + virtualThreads
+                    + ";MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--habit-tracker.cache.enabled=false",
+                "--logging.level.root=WARN");
+        final HabitService habitService = context.getBean(HabitService.class);
+        final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        habitUris = new ArrayList<>(HABITS);
+        for (int i = 0; i < HABITS; i++) {
+            final UUID id = habitService.createHabit(HabitRequest.builder()
+                .name("Load habit " + i)
+                .frequency(Frequency.DAILY)
+                .startDate(LocalDate.now())
+                .build()).id();
+            habitUris.add(URI.create("http://localhost:" + port + "/api/habits/" + id));
+        }
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getHabit() throws IOException, InterruptedException {
+        final HttpRequest request = HttpRequest.newBuilder(
+            habitUris.get(ThreadLocalRandom.current().nextInt(HABITS))).build();
+        final int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status != 200) {
+            throw new IllegalStateException("GET " + request.uri() + " answered " + status);
+        }
+        return status;
+    }
+
+    /**
+     * Adds a fixed round trip to every executed statement, while the statement's pooled
+     * connection is held.
+     */
+    private static final class StatementLatencyPostProcessor implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+            if (!(bean instanceof DataSource dataSource) || bean instanceof DelegatingDataSource) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return delayStatements(super.getConnection());
+                }
+            };
+        }
+
+        private static Connection delayStatements(final Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    final Object result = invoke(connection, method, args);
+                    return result instanceof PreparedStatement statement ? delayExecution(statement) : result;
+                });
+        }
+
+        private static PreparedStatement delayExecution(final PreparedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        Thread.sleep(STATEMENT_LATENCY_MILLIS);
+                    }
+                    return invoke(statement, method, args);
+                });
+        }
+
+        private static Object invoke(final Object target, final Method method, final Object[] args)
+                throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+package org.netlight.habit_tracker.loadtest;
+
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Seeds the habits and trackings of a load test. Ids are derived from the index of the user,
+ * habit or tracking, so the load driver can address them without reading them back and a
+ * seeded database can be reused by the next run with the same volumes.
+ */
+final class DataSeeder {
+
+    private static final long USER_BITS = 0x6C6F6164_0000_1000L;
+    private static final long HABIT_BITS = 0x6C6F6164_0000_2000L;
+    private static final long TRACKING_BITS = 0x6C6F6164_0000_3000L;
+    private static final LocalDate START_DATE = LocalDate.of(2020, 1, 1);
+    private static final int HABIT_CHUNK = 1_000;
+    private static final int TRACKING_BATCH = 5_000;
+
+    private static final String INSERT_HABIT_SQL = "insert into habits"
+        + " (id, user_id, name, description, frequency, start_date, version) values (?, ?, ?, ?, ?, ?, 0)";
+
+    private final LoadTestSettings settings;
+    private final JdbcTemplate jdbcTemplate;
+    private final TrackingStore trackingStore;
+
+    DataSeeder(final LoadTestSettings settings, final JdbcTemplate jdbcTemplate, final TrackingStore trackingStore) {
+        this.settings = settings;
+        this.jdbcTemplate = jdbcTemplate;
+        this.trackingStore = trackingStore;
+    }
+
+    static UUID userId(final int user) {
+        return new UUID(USER_BITS, user);
+    }
+
+    static UUID habitId(final int habit) {
+        return new UUID(HABIT_BITS, habit);
+    }
+
+    int userOf(final int habit) {
+        return habit / settings.habitsPerUser();
+    }
+
+    /**
+     * Seeds the data set unless a previous run already did. Returns whether it seeded.
+     *
+     * @throws IllegalStateException when the database holds a partly seeded or different data set
+     */
+    boolean seed() {
+        if (isSeeded()) {
+            return false;
+        }
+        if (habitExists(0)) {
+            throw new IllegalStateException("The database holds a partly seeded or differently sized data set;"
+                + " remove it or point loadtest.datasource.url elsewhere");
+        }
+        final long started = System.nanoTime();
+        long tracking = 0;
+        long reported = 0;
+        for (int from = 0; from < settings.habits(); from += HABIT_CHUNK) {
+            final int to = Math.min(from + HABIT_CHUNK, settings.habits());
+            insertHabits(from, to);
+            final List<Tracking> batch = new ArrayList<>(TRACKING_BATCH);
+            for (int habit = from; habit < to; habit++) {
+                final Habit owner = Habit.builder().id(habitId(habit)).userId(userId(userOf(habit))).build();
+                final long count = trackingsOf(habit);
+                for (long i = 0; i < count; i++) {
+                    batch.add(Tracking.builder()
+                        .id(new UUID(TRACKING_BITS, tracking++))
+                        .habit(owner)
+                        .timestamp(START_DATE.atTime(7, 0).plusMinutes(i * 90))
+                        .note("Seeded check-in " + i)
+                        .build());
+                    if (batch.size() == TRACKING_BATCH) {
+                        trackingStore.saveAll(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                trackingStore.saveAll(batch);
+            }
+            if (tracking - reported >= settings.trackings() / 10 || to == settings.habits()) {
+                reported = tracking;
+                System.out.printf("Seeded %,d of %,d habits and %,d of %,d trackings after %ds%n",
+                    to, settings.habits(), tracking, settings.trackings(), (System.nanoTime() - started) / 1_000_000_000);
+            }
+        }
+        return true;
+    }
+
+    private void insertHabits(final int from, final int to) {
+        final List<Integer> habits = new ArrayList<>(to - from);
+        for (int habit = from; habit < to; habit++) {
+            habits.add(habit);
+        }
+        jdbcTemplate.batchUpdate(INSERT_HABIT_SQL, habits, habits.size(), (statement, habit) -> {
+            statement.setBytes(1, UuidBytes.toBytes(habitId(habit)));
+            statement.setBytes(2, UuidBytes.toBytes(userId(userOf(habit))));
+            statement.setString(3, "Load habit " + habit);
+            statement.setString(4, "Seeded by the load test");
+            statement.setString(5, (habit % 3 == 0 ? Frequency.WEEKLY : Frequency.DAILY).name());
+            statement.setDate(6, Date.valueOf(START_DATE));
+        });
+    }
+
+    /**
+     * The first {@code trackings % habits} habits get one tracking more than the others.
+     */
+    private long trackingsOf(final int habit) {
+        final long base = settings.trackings() / settings.habits();
+        return habit < settings.trackings() % settings.habits() ? base + 1 : base;
+    }
+
+    private boolean isSeeded() {
+        if (settings.trackings() == 0) {
+            return habitExists(settings.habits() - 1);
+        }
+        final long last = settings.trackings() - 1;
+        final int owner = settings.trackings() >= settings.habits()
+            ? settings.habits() - 1
+            : (int) last;
+        final Habit habit = Habit.builder().id(habitId(owner)).userId(userId(userOf(owner))).build();
+        return habitExists(owner) && trackingStore.findById(habit, new UUID(TRACKING_BITS, last)).isPresent();
+    }
+
+    private boolean habitExists(final int habit) {
+        final Integer count = jdbcTemplate.queryForObject(
+            "select count(*) from habits where id = ?", Integer.class, (Object) UuidBytes.toBytes(habitId(habit)));
+        return count != null && count > 0;
+    }
+
+}
@@ -0,0 +1,168 @@
+package org.netlight.habit_tracker.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends the weighted mix of operations from {@code concurrency} clients for a fixed time and
+ * records every latency in a histogram per operation.
+ * <p>
+ * Without a target rate each client sends its next request as soon as the previous one is
+ * answered. With one, each client sends on a fixed schedule and latencies are measured from
+ * when a request was due rather than when it was sent, so a stalled server shows up in the
+ * percentiles instead of just slowing the clients down.
+ */
+final class LoadDriver {
+
+    private static final long HIGHEST_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final LoadTestSettings settings;
+    private final DataSeeder seeder;
+    private final URI base;
+    private final HttpClient client;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    LoadDriver(final LoadTestSettings settings, final DataSeeder seeder, final URI base) {
+        this.settings = settings;
+        this.seeder = seeder;
+        this.base = base;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        this.operations = settings.mix().keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += settings.mix().get(operations[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("loadtest.mix must give at least one operation a positive weight");
+        }
+    }
+
+    /**
+     * Runs one phase and returns its results. Phases use different seeds, so the warmup does
+     * not pre-load exactly the habits the measurement reads.
+     */
+    LoadPhaseResult run(final Duration duration, final long seed) throws InterruptedException {
+        final List<Client> clients = new ArrayList<>(settings.concurrency());
+        final ExecutorService executor = Executors.newFixedThreadPool(settings.concurrency());
+        final long start = System.nanoTime();
+        final long end = start + duration.toNanos();
+        for (int c = 0; c < settings.concurrency(); c++) {
+            final Client client = new Client(new SplittableRandom(seed * 31 + c), start, end);
+            clients.add(client);
+            executor.execute(client);
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(duration.toNanos() + Operation.REQUEST_TIMEOUT.toNanos() * 2, TimeUnit.NANOSECONDS)) {
+            executor.shutdownNow();
+            throw new IllegalStateException("Load test clients did not finish");
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+
+        final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        for (final Operation operation : operations) {
+            final Histogram merged = newHistogram();
+            long failed = 0;
+            for (final Client client : clients) {
+                merged.add(client.latencies.get(operation));
+                failed += client.errors.getOrDefault(operation, 0L);
+            }
+            latencies.put(operation, merged);
+            errors.put(operation, failed);
+        }
+        return new LoadPhaseResult(seconds, latencies, errors);
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(HIGHEST_LATENCY_NANOS, 3);
+    }
+
+    private final class Client implements Runnable {
+
+        private final SplittableRandom random;
+        private final long start;
+        private final long end;
+        private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+
+        private Client(final SplittableRandom random, final long start, final long end) {
+            this.random = random;
+            this.start = start;
+            this.end = end;
+            for (final Operation operation : operations) {
+                latencies.put(operation, newHistogram());
+            }
+        }
+
+        @Override
+        public void run() {
+            final long interval = settings.rate() > 0
+                ? (long) (1e9 * settings.concurrency() / settings.rate())
+                : 0;
+            // Spread the clients' schedules over one interval instead of starting them together
+            long due = start + (interval > 0 ? random.nextLong(interval) : 0);
+            while (due < end) {
+                if (interval > 0) {
+                    final long wait = due - System.nanoTime();
+                    if (wait > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                } else {
+                    due = System.nanoTime();
+                }
+                final Operation operation = nextOperation();
+                final int habit = random.nextInt(settings.habits());
+                final HttpRequest request = operation.request(
+                    base, DataSeeder.userId(seeder.userOf(habit)), DataSeeder.habitId(habit));
+                boolean failed;
+                try {
+                    final HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    failed = response.statusCode() >= 400;
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (final Exception e) {
+                    failed = true;
+                }
+                final long latency = System.nanoTime() - due;
+                latencies.get(operation).recordValue(Math.min(latency, HIGHEST_LATENCY_NANOS));
+                if (failed) {
+                    errors.merge(operation, 1L, Long::sum);
+                }
+                due += interval;
+            }
+        }
+
+        private Operation nextOperation() {
+            final int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (pick < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException("Unreachable");
+        }
+
+    }
+
+}
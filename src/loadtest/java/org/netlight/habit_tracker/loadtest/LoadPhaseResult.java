@@ -0,0 +1,14 @@
+package org.netlight.habit_tracker.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * Latencies in nanoseconds and failed requests per operation of one phase of a load test.
+ */
+record LoadPhaseResult(
+    double seconds,
+    Map<Operation, Histogram> latencies,
+    Map<Operation, Long> errors
+) {}
@@ -0,0 +1,123 @@
+package org.netlight.habit_tracker.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles of the measured phase, checked against the SLOs. Written
+ * to the console, as {@code report.json} and as one HdrHistogram percentile distribution per
+ * operation ({@code <operation>.hgrm}), which plots directly in the HdrHistogram plotter.
+ */
+final class LoadReport {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final LoadTestSettings settings;
+    private final LoadPhaseResult result;
+    private final List<Row> rows = new ArrayList<>();
+
+    LoadReport(final LoadTestSettings settings, final LoadPhaseResult result) {
+        this.settings = settings;
+        this.result = result;
+        result.latencies().forEach((operation, histogram) -> {
+            final long errors = result.errors().get(operation);
+            final Duration slo = settings.slo().get(operation);
+            final double p99 = histogram.getValueAtPercentile(99) / NANOS_PER_MILLI;
+            final double errorRate = histogram.getTotalCount() > 0 ? (double) errors / histogram.getTotalCount() : 0;
+            final List<String> violations = new ArrayList<>();
+            if (histogram.getTotalCount() == 0) {
+                violations.add("no requests");
+            }
+            if (slo != null && p99 > slo.toNanos() / NANOS_PER_MILLI) {
+                violations.add(String.format("p99 %.1f ms > %d ms", p99, slo.toMillis()));
+            }
+            if (errorRate > settings.maxErrorRate()) {
+                violations.add(String.format("error rate %.4f > %.4f", errorRate, settings.maxErrorRate()));
+            }
+            rows.add(new Row(
+                operation.key(),
+                histogram.getTotalCount(),
+                errors,
+                histogram.getTotalCount() / result.seconds(),
+                histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                p99,
+                histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                histogram.getMaxValue() / NANOS_PER_MILLI,
+                slo != null ? slo.toMillis() : null,
+                violations));
+        });
+    }
+
+    boolean passed() {
+        return rows.stream().allMatch(row -> row.violations().isEmpty());
+    }
+
+    void print(final PrintStream out) {
+        out.printf("%-16s %10s %8s %10s %9s %9s %9s %9s %9s %8s  %s%n",
+            "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "SLO ms", "result");
+        for (final Row row : rows) {
+            out.printf("%-16s %,10d %,8d %,10.0f %9.2f %9.2f %9.2f %9.2f %9.2f %8s  %s%n",
+                row.operation(), row.requests(), row.errors(), row.requestsPerSecond(),
+                row.p50Millis(), row.p90Millis(), row.p99Millis(), row.p999Millis(), row.maxMillis(),
+                row.sloP99Millis() != null ? row.sloP99Millis() : "-",
+                row.violations().isEmpty() ? "PASS" : "FAIL (" + String.join(", ", row.violations()) + ")");
+        }
+        final long total = rows.stream().mapToLong(Row::requests).sum();
+        out.printf("%,d requests in %.1f s, %,.0f req/s from %d clients%s%n", total, result.seconds(),
+            total / result.seconds(), settings.concurrency(),
+            settings.rate() > 0 ? String.format(" at a target of %,.0f req/s", settings.rate()) : "");
+    }
+
+    void write(final Path directory) throws IOException {
+        Files.createDirectories(directory);
+        final Map<String, Object> report = new LinkedHashMap<>();
+        final Map<String, Object> run = new LinkedHashMap<>();
+        run.put("habits", settings.habits());
+        run.put("trackings", settings.trackings());
+        run.put("concurrency", settings.concurrency());
+        run.put("rate", settings.rate());
+        run.put("durationSeconds", settings.duration().toSeconds());
+        run.put("trackingStore", settings.trackingStore());
+        run.put("seed", settings.seed());
+        report.put("settings", run);
+        report.put("seconds", result.seconds());
+        report.put("passed", passed());
+        report.put("operations", rows);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(directory.resolve("report.json").toFile(), report);
+
+        for (final Map.Entry<Operation, Histogram> entry : result.latencies().entrySet()) {
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(directory.resolve(entry.getKey().key() + ".hgrm")))) {
+                entry.getValue().outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+
+    record Row(
+        String operation,
+        long requests,
+        long errors,
+        double requestsPerSecond,
+        double p50Millis,
+        double p90Millis,
+        double p99Millis,
+        double p999Millis,
+        double maxMillis,
+        Long sloP99Millis,
+        List<String> violations
+    ) {}
+
+}
@@ -0,0 +1,62 @@
+package org.netlight.habit_tracker.loadtest;
+
+import org.netlight.HabitTrackerApplication;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+
+/**
+ * Starts the application on a random port, seeds it with {@code loadtest.habits} habits and
+ * {@code loadtest.trackings} trackings, drives the operation mix over HTTP for a warmup and a
+ * measured phase and reports throughput and latency percentiles. Exits with status 1 when an
+ * operation misses its p99 SLO or fails too often, which fails the Maven build:
+ * <pre>
+ * mvn -Pload-test verify -DskipTests -Dloadtest.habits=1000000 -Dloadtest.trackings=100000000
+ * </pre>
+ * The database defaults to a file-backed H2 in MariaDB mode under {@code target/loadtest/db},
+ * kept between runs so large data sets are only seeded once; point
+ * {@code loadtest.datasource.url} at a MariaDB server to measure against the real thing.
+ */
+public final class LoadTest {
+
+    private LoadTest() {}
+
+    public static void main(final String[] args) throws Exception {
+        final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        final boolean passed;
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(HabitTrackerApplication.class)
+                .profiles("h2")
+                .run("--server.port=0",
+                    "--spring.datasource.url=" + settings.datasourceUrl(),
+                    "--spring.datasource.username=" + settings.datasourceUsername(),
+                    "--spring.datasource.password=" + settings.datasourcePassword(),
+                    "--spring.datasource.hikari.maximum-pool-size=" + Math.max(20, settings.concurrency() / 2),
+                    "--server.tomcat.threads.max=" + Math.max(200, settings.concurrency()),
+                    "--habit-tracker.tracking-store.type=" + settings.trackingStore(),
+                    "--habit-tracker.tracking-store.directory=" + settings.reportDirectory().resolve("tracking-log"),
+                    "--logging.level.root=WARN")) {
+            final DataSeeder seeder = new DataSeeder(
+                settings, context.getBean(JdbcTemplate.class), context.getBean(TrackingStore.class));
+            System.out.printf("%s %,d habits and %,d trackings%n",
+                seeder.seed() ? "Seeded" : "Reusing", settings.habits(), settings.trackings());
+
+            final int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            final LoadDriver driver = new LoadDriver(settings, seeder, URI.create("http://localhost:" + port));
+            System.out.printf("Warming up for %ds, then measuring for %ds with %d clients%n",
+                settings.warmup().toSeconds(), settings.duration().toSeconds(), settings.concurrency());
+            driver.run(settings.warmup(), settings.seed());
+            final LoadReport report = new LoadReport(settings, driver.run(settings.duration(), settings.seed() + 1));
+
+            report.print(System.out);
+            report.write(settings.reportDirectory());
+            System.out.println("Reports written to " + settings.reportDirectory().toAbsolutePath());
+            passed = report.passed();
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+}
@@ -0,0 +1,87 @@
+package org.netlight.habit_tracker.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Settings of a load test run, read from {@code loadtest.*} system properties; the
+ * {@code load-test} Maven profile passes them on from the command line.
+ *
+ * @param habits        habits seeded, spread over users in groups of {@code habitsPerUser}
+ * @param trackings     trackings seeded, spread evenly over the habits
+ * @param concurrency   clients sending requests at the same time
+ * @param rate          total requests per second to aim for; 0 sends each client's next request as
+ *                      soon as the previous one is answered
+ * @param mix           relative weight of each operation
+ * @param slo           p99 latency each operation must stay within for the run to pass
+ * @param maxErrorRate  share of failed requests per operation above which the run fails
+ * @param seed          seeds the choice of operations and habits, so runs are repeatable
+ */
+record LoadTestSettings(
+    int habits,
+    long trackings,
+    int habitsPerUser,
+    int concurrency,
+    double rate,
+    Duration warmup,
+    Duration duration,
+    Map<Operation, Integer> mix,
+    Map<Operation, Duration> slo,
+    double maxErrorRate,
+    String trackingStore,
+    String datasourceUrl,
+    String datasourceUsername,
+    String datasourcePassword,
+    Path reportDirectory,
+    long seed
+) {
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+            Integer.parseInt(property("habits", "10000")),
+            Long.parseLong(property("trackings", "1000000")),
+            Integer.parseInt(property("habits-per-user", "10")),
+            Integer.parseInt(property("concurrency", "32")),
+            Double.parseDouble(property("rate", "0")),
+            DurationStyle.detectAndParse(property("warmup", "10s")),
+            DurationStyle.detectAndParse(property("duration", "30s")),
+            perOperation(property("mix", "list-habits=20,get-habit=30,list-trackings=30,add-tracking=20"),
+                Integer::parseInt),
+            perOperation(property("slo", "list-habits=100ms,get-habit=50ms,list-trackings=100ms,add-tracking=100ms"),
+                DurationStyle::detectAndParse),
+            Double.parseDouble(property("max-error-rate", "0.001")),
+            property("tracking-store", "jpa"),
+            property("datasource.url",
+                "jdbc:h2:file:./target/loadtest/db/habit-tracker;MODE=MariaDB"),
+            property("datasource.username", "sa"),
+            property("datasource.password", ""),
+            Path.of(property("report", "target/loadtest")),
+            Long.parseLong(property("seed", "42")));
+    }
+
+    private static String property(final String name, final String defaultValue) {
+        final String value = System.getProperty("loadtest." + name);
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+
+    /**
+     * Parses {@code key=value} pairs separated by commas, e.g. {@code get-habit=50ms,add-tracking=100ms}.
+     */
+    private static <T> Map<Operation, T> perOperation(final String pairs, final Function<String, T> parser) {
+        final Map<Operation, T> values = new EnumMap<>(Operation.class);
+        for (final String pair : pairs.split(",")) {
+            final String[] parts = pair.trim().split("=", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=value, got '" + pair + "'");
+            }
+            values.put(Operation.fromKey(parts[0].trim()), parser.apply(parts[1].trim()));
+        }
+        return values;
+    }
+
+}
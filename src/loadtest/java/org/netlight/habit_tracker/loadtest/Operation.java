@@ -0,0 +1,75 @@
+package org.netlight.habit_tracker.loadtest;
+
+import org.netlight.habit_tracker.shard.UserContextFilter;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * The requests of the load test's workload, named as in {@code loadtest.mix} and
+ * {@code loadtest.slo}.
+ */
+enum Operation {
+
+    LIST_HABITS("list-habits") {
+        @Override
+        HttpRequest.Builder request(final URI base, final UUID habitId) {
+            return HttpRequest.newBuilder(base.resolve("/api/habits?limit=20")).GET();
+        }
+    },
+    GET_HABIT("get-habit") {
+        @Override
+        HttpRequest.Builder request(final URI base, final UUID habitId) {
+            return HttpRequest.newBuilder(base.resolve("/api/habits/" + habitId)).GET();
+        }
+    },
+    LIST_TRACKINGS("list-trackings") {
+        @Override
+        HttpRequest.Builder request(final URI base, final UUID habitId) {
+            return HttpRequest.newBuilder(base.resolve("/api/habits/" + habitId + "/tracking?limit=50")).GET();
+        }
+    },
+    ADD_TRACKING("add-tracking") {
+        @Override
+        HttpRequest.Builder request(final URI base, final UUID habitId) {
+            return HttpRequest.newBuilder(base.resolve("/api/habits/" + habitId + "/tracking"))
+                .POST(HttpRequest.BodyPublishers.ofString("Load test check-in"));
+        }
+    };
+
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String key;
+
+    Operation(final String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    /**
+     * The request for a habit of the given user; every operation is issued as that user.
+     */
+    HttpRequest request(final URI base, final UUID userId, final UUID habitId) {
+        return request(base, habitId)
+            .header(UserContextFilter.USER_ID_HEADER, userId.toString())
+            .timeout(REQUEST_TIMEOUT)
+            .build();
+    }
+
+    abstract HttpRequest.Builder request(URI base, UUID habitId);
+
+    static Operation fromKey(final String key) {
+        return Arrays.stream(values())
+            .filter(operation -> operation.key.equals(key))
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("Unknown operation '" + key + "', expected one of "
+                + Arrays.stream(values()).map(Operation::key).toList()));
+    }
+
+}
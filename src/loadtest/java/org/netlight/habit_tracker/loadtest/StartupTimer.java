@@ -0,0 +1,198 @@
+package org.netlight.habit_tracker.loadtest;
+
+import org.netlight.habit_tracker.shard.UserContextFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the time to first request of the application extracted by the fast-start build:
+ * from launching the JVM until {@code GET /api/habits} answers, for each startup variant, on
+ * top of the one before it. The schema is migrated once beforehand by the migration job, into
+ * a file-backed H2 database in MariaDB mode:
+ * <pre>
+ * mvn -Pfast-start verify -DskipTests -Dstartup.runs=10
+ * </pre>
+ */
+public final class StartupTimer {
+
+    private static final String APPLICATION_JAR = "habit-tracker.jar";
+    private static final String MAIN_CLASS = "org.netlight.HabitTrackerApplication";
+    private static final String CDS_ARCHIVE = "application.jsa";
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    private enum Variant {
+        BASELINE("changelog checked on boot", List.of(), List.of()),
+        MIGRATION_JOB("migrations run as a job", List.of(), List.of("--spring.liquibase.enabled=false")),
+        AOT("+ AOT", List.of("-Dspring.aot.enabled=true"), List.of("--spring.liquibase.enabled=false")),
+        AOT_CDS("+ AOT + CDS", List.of("-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + CDS_ARCHIVE),
+            List.of("--spring.liquibase.enabled=false"));
+
+        private final String label;
+        private final List<String> jvmArguments;
+        private final List<String> arguments;
+
+        Variant(final String label, final List<String> jvmArguments, final List<String> arguments) {
+            this.label = label;
+            this.jvmArguments = jvmArguments;
+            this.arguments = arguments;
+        }
+    }
+
+    private final Path directory;
+    private final String classpath;
+    private final List<String> databaseArguments;
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(1))
+        .build();
+
+    private StartupTimer(final Path directory, final Path database) throws URISyntaxException {
+        this.directory = directory;
+        // H2 is only a test dependency, so it goes next to the application jar. Appending it
+        // keeps the class path the archive was recorded with a prefix of the one it is used with.
+        final Path h2 = Path.of(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        this.classpath = APPLICATION_JAR + File.pathSeparator + h2;
+        this.databaseArguments = List.of(
+            "--spring.datasource.url=jdbc:h2:file:" + database.toAbsolutePath() + ";MODE=MariaDB",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+            "--spring.jpa.show-sql=false",
+            "--logging.level.root=WARN",
+            "--logging.level.org.hibernate.SQL=WARN",
+            "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: StartupTimer <directory of the extracted application>");
+        }
+        final Path directory = Path.of(args[0]);
+        final int runs = Integer.getInteger("startup.runs", 5);
+        final Path database = directory.resolve("startup-db");
+        deleteRecursively(database);
+
+        final StartupTimer timer = new StartupTimer(directory, database.resolve("habit-tracker"));
+        System.out.printf("Migration job: %d ms%n", timer.migrate());
+        System.out.printf("%-28s %10s %10s %10s  (%d runs, time to first request)%n",
+            "variant", "median ms", "min ms", "max ms", runs);
+        for (final Variant variant : Variant.values()) {
+            if (variant.jvmArguments.stream().anyMatch(argument -> argument.endsWith(CDS_ARCHIVE))
+                    && !Files.exists(directory.resolve(CDS_ARCHIVE))) {
+                System.out.printf("%-28s skipped, %s was not recorded%n", variant.label, CDS_ARCHIVE);
+                continue;
+            }
+            final long[] millis = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                millis[run] = timer.timeToFirstRequest(variant);
+            }
+            Arrays.sort(millis);
+            System.out.printf("%-28s %10d %10d %10d%n",
+                variant.label, millis[runs / 2], millis[0], millis[runs - 1]);
+        }
+    }
+
+    private long migrate() throws IOException, InterruptedException {
+        final long started = System.nanoTime();
+        final Process process = start(List.of(), List.of("--spring.profiles.active=migrate"))
+            .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        if (!process.waitFor(STARTUP_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("The migration job did not finish within " + STARTUP_TIMEOUT);
+        }
+        if (process.exitValue() != 0) {
+            throw new IllegalStateException("The migration job failed with exit code " + process.exitValue());
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+
+    private long timeToFirstRequest(final Variant variant) throws IOException, InterruptedException {
+        final int port = freePort();
+        final HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/habits"))
+            .header(UserContextFilter.USER_ID_HEADER, UUID.randomUUID().toString())
+            .timeout(Duration.ofSeconds(5))
+            .build();
+        final List<String> arguments = new ArrayList<>(variant.arguments);
+        arguments.add("--server.port=" + port);
+
+        final long started = System.nanoTime();
+        final Process process = start(variant.jvmArguments, arguments)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        try {
+            while (System.nanoTime() - started < STARTUP_TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(variant.label + " exited with code " + process.exitValue());
+                }
+                try {
+                    final HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException(variant.label + " answered " + response.statusCode());
+                    }
+                    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                } catch (final ConnectException e) {
+                    Thread.sleep(POLL_INTERVAL.toMillis());
+                }
+            }
+            throw new IllegalStateException(variant.label + " did not answer within " + STARTUP_TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private ProcessBuilder start(final List<String> jvmArguments, final List<String> arguments) {
+        final List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmArguments);
+        command.add("-cp");
+        command.add(classpath);
+        command.add(MAIN_CLASS);
+        command.addAll(databaseArguments);
+        command.addAll(arguments);
+        return new ProcessBuilder(command)
+            .directory(directory.toFile())
+            .redirectError(ProcessBuilder.Redirect.INHERIT);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void deleteRecursively(final Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+}
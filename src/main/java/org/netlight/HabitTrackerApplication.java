@@ -1,15 +1,23 @@
 package org.netlight;
 
+import org.netlight.habit_tracker.dto.request.TrackingImportRecord;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
 @EntityScan(basePackages = "org.netlight.habit_tracker")
+@ConfigurationPropertiesScan(basePackages = "org.netlight.habit_tracker")
+// Exports and imports bind these outside of the controllers' signatures, so a native image
+// does not see them without a hint
+@RegisterReflectionForBinding({TrackingExportRow.class, TrackingImportRecord.class})
 public class HabitTrackerApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(HabitTrackerApplication.class, args);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+package org.netlight.habit_tracker.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Archived trackings deleted since they were archived, kept in a text file next to the
+ * immutable segments. Each line is either {@code habit <habit id>}, covering every tracking
+ * of a deleted habit, or {@code tracking <habit id> <tracking id>}. Readers skip covered rows
+ * until the segments holding them are rewritten without them, after which the entries are
+ * {@linkplain #remove removed}. Safe for concurrent use.
+ */
+public final class ArchiveTombstones {
+
+    private static final String HABIT = "habit";
+    private static final String TRACKING = "tracking";
+
+    private final Path path;
+    private final Set<UUID> habits = ConcurrentHashMap.newKeySet();
+    // Tracking ids mapped to their habit
+    private final Map<UUID, UUID> trackings = new ConcurrentHashMap<>();
+
+    public ArchiveTombstones(final Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Reads the tombstones recorded so far, if any. A last line without a line break is the
+     * remainder of an interrupted append and is ignored.
+     */
+    public synchronized void load() throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        final String[] lines = Files.readString(path, StandardCharsets.UTF_8).split("\n", -1);
+        for (int i = 0; i < lines.length - 1; i++) {
+            final String[] fields = lines[i].split(" ");
+            if (fields.length == 2 && fields[0].equals(HABIT)) {
+                habits.add(UUID.fromString(fields[1]));
+            } else if (fields.length == 3 && fields[0].equals(TRACKING)) {
+                trackings.put(UUID.fromString(fields[2]), UUID.fromString(fields[1]));
+            } else {
+                throw new CorruptSegmentException("Malformed tombstone '" + lines[i] + "' in " + path);
+            }
+        }
+    }
+
+    public synchronized void addHabit(final UUID habitId) throws IOException {
+        append(HABIT + " " + habitId + "\n");
+        habits.add(habitId);
+    }
+
+    public synchronized void addTracking(final UUID habitId, final UUID trackingId) throws IOException {
+        append(TRACKING + " " + habitId + " " + trackingId + "\n");
+        trackings.put(trackingId, habitId);
+    }
+
+    public boolean coversHabit(final UUID habitId) {
+        return habits.contains(habitId);
+    }
+
+    public boolean covers(final UUID habitId, final UUID trackingId) {
+        return habits.contains(habitId) || trackings.containsKey(trackingId);
+    }
+
+    /**
+     * Returns the tombstones recorded so far, to rewrite segments against.
+     */
+    public Snapshot snapshot() {
+        final Map<UUID, UUID> deletedTrackings = Map.copyOf(trackings);
+        return new Snapshot(Set.copyOf(habits), deletedTrackings, Set.copyOf(deletedTrackings.values()));
+    }
+
+    /**
+     * Forgets the tombstones of a snapshot once no segment holds their rows any more, keeping
+     * those recorded since.
+     */
+    public synchronized void remove(final Snapshot applied) throws IOException {
+        habits.removeAll(applied.habits());
+        trackings.keySet().removeAll(applied.trackings().keySet());
+        if (habits.isEmpty() && trackings.isEmpty()) {
+            Files.deleteIfExists(path);
+            return;
+        }
+        final StringBuilder content = new StringBuilder();
+        habits.forEach(habitId -> content.append(HABIT).append(' ').append(habitId).append('\n'));
+        trackings.forEach((trackingId, habitId) ->
+            content.append(TRACKING).append(' ').append(habitId).append(' ').append(trackingId).append('\n'));
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(channel, content.toString());
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void append(final String line) throws IOException {
+        Files.createDirectories(path.getParent());
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            write(channel, line);
+        }
+    }
+
+    private static void write(final FileChannel channel, final String content) throws IOException {
+        final ByteBuffer buffer = StandardCharsets.UTF_8.encode(content);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(true);
+    }
+
+    /**
+     * Tombstones as of one point in time; {@code trackingHabits} are the habits of the
+     * deleted trackings.
+     */
+    public record Snapshot(Set<UUID> habits, Map<UUID, UUID> trackings, Set<UUID> trackingHabits) {
+
+        public boolean isEmpty() {
+            return habits.isEmpty() && trackings.isEmpty();
+        }
+
+        /**
+         * Whether the habit has trackings this snapshot covers.
+         */
+        public boolean affects(final UUID habitId) {
+            return habits.contains(habitId) || trackingHabits.contains(habitId);
+        }
+
+        public boolean covers(final UUID habitId, final UUID trackingId) {
+            return habits.contains(habitId) || trackings.containsKey(trackingId);
+        }
+
+    }
+
+}
@@ -0,0 +1,16 @@
+package org.netlight.habit_tracker.archive;
+
+/**
+ * A segment file that does not have the expected layout, or a block that cannot be decoded.
+ */
+public class CorruptSegmentException extends RuntimeException {
+
+    public CorruptSegmentException(String message) {
+        super(message);
+    }
+
+    public CorruptSegmentException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
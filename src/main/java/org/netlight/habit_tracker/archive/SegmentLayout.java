@@ -0,0 +1,70 @@
+package org.netlight.habit_tracker.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Layout of a tracking segment file, shared by {@link TrackingSegmentWriter} and
+ * {@link TrackingSegment}. All numbers are big-endian.
+ * <pre>
+ * header   magic "HTSG" (int), version (int)
+ * blocks   one Deflate-compressed block per habit, rows sorted by timestamp and stored
+ *          column by column: ids (2 longs each), timestamps (zig-zag varint deltas of
+ *          epoch microseconds), note lengths (varint, length + 1, 0 for null), note bytes (UTF-8)
+ * index    one fixed-size entry per habit, sorted by habit id in unsigned byte order:
+ *          habit id (2 longs), rows (int), min and max timestamp (epoch micros, long),
+ *          block offset (long), compressed and raw block length (int)
+ * footer   index offset (long), index entries (int), rows (long), magic (int)
+ * </pre>
+ */
+final class SegmentLayout {
+
+    static final int MAGIC = 0x48545347;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int INDEX_ENTRY_SIZE = 52;
+    static final int FOOTER_SIZE = 24;
+
+    private SegmentLayout() {}
+
+    static long toMicros(final LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(final long micros) {
+        return LocalDateTime.ofEpochSecond(
+            Math.floorDiv(micros, 1_000_000L), (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    static void writeVarLong(final ByteArrayOutputStream out, final long value) {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    static long readVarLong(final ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new CorruptSegmentException("Malformed varint");
+    }
+
+    static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
@@ -0,0 +1,202 @@
+package org.netlight.habit_tracker.archive;
+
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.UuidBytes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.netlight.habit_tracker.archive.SegmentLayout.*;
+
+/**
+ * An immutable segment file of archived trackings, memory-mapped read-only. Lookups
+ * binary-search the index in the mapping and inflate only the block of the requested
+ * habit, so the page cache rather than the heap holds the archive. Safe for concurrent use.
+ */
+public final class TrackingSegment {
+
+    // Field offsets within an index entry
+    private static final int ROWS = 16;
+    private static final int MIN_MICROS = 20;
+    private static final int MAX_MICROS = 28;
+    private static final int BLOCK_OFFSET = 36;
+    private static final int COMPRESSED_LENGTH = 44;
+    private static final int RAW_LENGTH = 48;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int indexOffset;
+    private final int entryCount;
+    private final long rowCount;
+
+    private TrackingSegment(final Path path, final MappedByteBuffer buffer) {
+        this.path = path;
+        this.buffer = buffer;
+        final int footer = buffer.capacity() - FOOTER_SIZE;
+        if (footer < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(footer + 20) != MAGIC) {
+            throw new CorruptSegmentException("Not a tracking segment: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new CorruptSegmentException("Unsupported version " + buffer.getInt(4) + " of segment " + path);
+        }
+        this.indexOffset = (int) buffer.getLong(footer);
+        this.entryCount = buffer.getInt(footer + 8);
+        this.rowCount = buffer.getLong(footer + 12);
+        if (indexOffset < HEADER_SIZE || indexOffset + (long) entryCount * INDEX_ENTRY_SIZE != footer) {
+            throw new CorruptSegmentException("Index of segment " + path + " is out of bounds");
+        }
+    }
+
+    public static TrackingSegment open(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new CorruptSegmentException("Segment " + path + " is larger than 2 GiB");
+            }
+            // The mapping stays valid after the channel is closed
+            return new TrackingSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    public long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns the habits that have trackings in this segment, in index order.
+     */
+    public List<UUID> habitIds() {
+        final List<UUID> habitIds = new ArrayList<>(entryCount);
+        for (int index = 0; index < entryCount; index++) {
+            final int entry = indexOffset + index * INDEX_ENTRY_SIZE;
+            habitIds.add(new UUID(buffer.getLong(entry), buffer.getLong(entry + 8)));
+        }
+        return habitIds;
+    }
+
+    public boolean contains(final UUID habitId) {
+        return findEntry(habitId) >= 0;
+    }
+
+    /**
+     * Returns the habit's trackings with {@code from <= timestamp < to}, oldest first.
+     */
+    public List<TrackingExportRow> read(final UUID habitId, final LocalDateTime from, final LocalDateTime to) {
+        return read(habitId, toMicros(from), toMicros(to));
+    }
+
+    /**
+     * Returns every tracking of the habit, oldest first.
+     */
+    public List<TrackingExportRow> readAll(final UUID habitId) {
+        return read(habitId, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private List<TrackingExportRow> read(final UUID habitId, final long fromMicros, final long toMicros) {
+        final int entry = findEntry(habitId);
+        if (entry < 0) {
+            return List.of();
+        }
+        if (buffer.getLong(entry + MAX_MICROS) < fromMicros || buffer.getLong(entry + MIN_MICROS) >= toMicros) {
+            return List.of();
+        }
+        final int rows = buffer.getInt(entry + ROWS);
+        final ByteBuffer block = inflate(entry);
+
+        final ByteBuffer ids = block.slice(0, rows * 16);
+        block.position(rows * 16);
+        final long[] micros = new long[rows];
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            previous += unZigZag(readVarLong(block));
+            micros[row] = previous;
+        }
+        final int[] noteLengths = new int[rows];
+        for (int row = 0; row < rows; row++) {
+            noteLengths[row] = (int) readVarLong(block);
+        }
+
+        final List<TrackingExportRow> result = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            final int noteLength = noteLengths[row] - 1;
+            String note = null;
+            if (noteLength >= 0) {
+                if (micros[row] >= fromMicros && micros[row] < toMicros) {
+                    note = StandardCharsets.UTF_8.decode(block.slice(block.position(), noteLength)).toString();
+                }
+                block.position(block.position() + noteLength);
+            }
+            if (micros[row] >= fromMicros && micros[row] < toMicros) {
+                result.add(new TrackingExportRow(
+                    new UUID(ids.getLong(row * 16), ids.getLong(row * 16 + 8)), fromMicros(micros[row]), note));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the buffer position of the habit's index entry, or -1 if the segment has none.
+     */
+    private int findEntry(final UUID habitId) {
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int entry = indexOffset + middle * INDEX_ENTRY_SIZE;
+            final int comparison = UuidBytes.compare(new UUID(buffer.getLong(entry), buffer.getLong(entry + 8)), habitId);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    private ByteBuffer inflate(final int entry) {
+        final int offset = (int) buffer.getLong(entry + BLOCK_OFFSET);
+        final int compressedLength = buffer.getInt(entry + COMPRESSED_LENGTH);
+        final byte[] raw = new byte[buffer.getInt(entry + RAW_LENGTH)];
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice(offset, compressedLength));
+            int inflated = 0;
+            while (inflated < raw.length && !inflater.finished()) {
+                final int read = inflater.inflate(raw, inflated, raw.length - inflated);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += read;
+            }
+            if (inflated != raw.length) {
+                throw new CorruptSegmentException("Truncated block at " + offset + " in segment " + path);
+            }
+        } catch (final DataFormatException e) {
+            throw new CorruptSegmentException("Corrupt block at " + offset + " in segment " + path, e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+}
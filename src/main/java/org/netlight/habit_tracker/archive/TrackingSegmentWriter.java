@@ -0,0 +1,169 @@
+package org.netlight.habit_tracker.archive;
+
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.UuidBytes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.Deflater;
+
+import static org.netlight.habit_tracker.archive.SegmentLayout.*;
+
+/**
+ * Writes a new segment file. Trackings must be appended grouped by habit; only the
+ * trackings of the current habit are held in memory. Call {@link #finish()} to write the
+ * index and sync the file, then {@link #close()}.
+ */
+public final class TrackingSegmentWriter implements Closeable {
+
+    private static final Comparator<TrackingExportRow> ROW_ORDER = Comparator
+        .comparing(TrackingExportRow::timestamp)
+        .thenComparing(TrackingExportRow::id, UuidBytes::compare);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final Deflater deflater = new Deflater();
+    private final List<IndexEntry> entries = new ArrayList<>();
+    private final Set<UUID> writtenHabits = new HashSet<>();
+    private final List<TrackingExportRow> habitRows = new ArrayList<>();
+    private UUID habitId;
+    private long rowCount;
+
+    private TrackingSegmentWriter(final Path path, final FileChannel channel) {
+        this.path = path;
+        this.channel = channel;
+    }
+
+    /**
+     * Creates the segment file, which must not exist yet.
+     */
+    public static TrackingSegmentWriter create(final Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        final TrackingSegmentWriter writer = new TrackingSegmentWriter(path, channel);
+        writer.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip());
+        return writer;
+    }
+
+    public void append(final UUID habitId, final TrackingExportRow row) throws IOException {
+        if (!habitId.equals(this.habitId)) {
+            flushHabit();
+            if (!writtenHabits.add(habitId)) {
+                throw new IllegalStateException("Trackings of habit " + habitId + " are not contiguous in " + path);
+            }
+            this.habitId = habitId;
+        }
+        habitRows.add(row);
+        rowCount++;
+    }
+
+    public long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the index and footer and forces the file to disk.
+     */
+    public void finish() throws IOException {
+        flushHabit();
+        final long indexOffset = channel.position();
+        entries.sort(Comparator.comparing(IndexEntry::habitId, UuidBytes::compare));
+        final ByteBuffer index = ByteBuffer.allocate(entries.size() * INDEX_ENTRY_SIZE + FOOTER_SIZE);
+        for (final IndexEntry entry : entries) {
+            index.putLong(entry.habitId().getMostSignificantBits())
+                .putLong(entry.habitId().getLeastSignificantBits())
+                .putInt(entry.rows())
+                .putLong(entry.minMicros())
+                .putLong(entry.maxMicros())
+                .putLong(entry.offset())
+                .putInt(entry.compressedLength())
+                .putInt(entry.rawLength());
+        }
+        index.putLong(indexOffset).putInt(entries.size()).putLong(rowCount).putInt(MAGIC);
+        write(index.flip());
+        channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        channel.close();
+    }
+
+    private void flushHabit() throws IOException {
+        if (habitRows.isEmpty()) {
+            return;
+        }
+        habitRows.sort(ROW_ORDER);
+        final byte[] raw = encodeColumns(habitRows);
+        final byte[] compressed = compress(raw);
+        final long offset = channel.position();
+        write(ByteBuffer.wrap(compressed));
+        entries.add(new IndexEntry(habitId, habitRows.size(),
+            toMicros(habitRows.get(0).timestamp()),
+            toMicros(habitRows.get(habitRows.size() - 1).timestamp()),
+            offset, compressed.length, raw.length));
+        habitRows.clear();
+    }
+
+    private static byte[] encodeColumns(final List<TrackingExportRow> rows) {
+        final ByteBuffer ids = ByteBuffer.allocate(rows.size() * 16);
+        final ByteArrayOutputStream timestamps = new ByteArrayOutputStream();
+        final ByteArrayOutputStream noteLengths = new ByteArrayOutputStream();
+        final ByteArrayOutputStream notes = new ByteArrayOutputStream();
+        long previousMicros = 0;
+        for (final TrackingExportRow row : rows) {
+            ids.putLong(row.id().getMostSignificantBits()).putLong(row.id().getLeastSignificantBits());
+            final long micros = toMicros(row.timestamp());
+            writeVarLong(timestamps, zigZag(micros - previousMicros));
+            previousMicros = micros;
+            if (row.note() == null) {
+                writeVarLong(noteLengths, 0);
+            } else {
+                final byte[] note = row.note().getBytes(StandardCharsets.UTF_8);
+                writeVarLong(noteLengths, note.length + 1L);
+                notes.writeBytes(note);
+            }
+        }
+        final ByteArrayOutputStream columns = new ByteArrayOutputStream(
+            ids.capacity() + timestamps.size() + noteLengths.size() + notes.size());
+        columns.writeBytes(ids.array());
+        columns.writeBytes(timestamps.toByteArray());
+        columns.writeBytes(noteLengths.toByteArray());
+        columns.writeBytes(notes.toByteArray());
+        return columns.toByteArray();
+    }
+
+    private byte[] compress(final byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        final byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return compressed.toByteArray();
+    }
+
+    private void write(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private record IndexEntry(UUID habitId, int rows, long minMicros, long maxMicros,
+                              long offset, int compressedLength, int rawLength) {}
+
+}
@@ -0,0 +1,23 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Cold storage of old trackings. When {@code enabled}, trackings older than {@code horizon}
+ * are moved every {@code interval} into segment files of at most {@code segmentRows} rows in
+ * {@code directory}. Segments found in the directory are read whether or not the job is enabled;
+ * trackings deleted after they were archived are only purged from them by the job.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.archive")
+public record ArchiveProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("data/archive") Path directory,
+    @DefaultValue("365d") Duration horizon,
+    @DefaultValue("1d") Duration interval,
+    @DefaultValue("1000000") int segmentRows,
+    @DefaultValue("1000") int fetchSize
+) {}
@@ -0,0 +1,19 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the in-memory completion calendars. {@code maxPeriods} bounds the number of
+ * most recent periods kept per habit, and with it the memory each calendar may use.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.calendar")
+public record CalendarProperties(
+    @DefaultValue("4096") int maxPeriods
+) {
+
+    public int maxWords() {
+        return Math.max(1, (maxPeriods + Long.SIZE - 1) / Long.SIZE);
+    }
+
+}
@@ -0,0 +1,17 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Size and expiry limits of the near-cache in front of the habit read endpoints.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.cache")
+public record HabitCacheProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("10000") long maxHabits,
+    @DefaultValue("1000") long maxPages,
+    @DefaultValue("30s") Duration timeToLive
+) {}
@@ -0,0 +1,28 @@
+package org.netlight.habit_tracker.config;
+
+import org.netlight.habit_tracker.idempotency.IdempotencyFilter;
+import org.netlight.habit_tracker.service.IdempotencyService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Applies {@code Idempotency-Key} handling to the habit endpoints. Imports are not covered,
+ * as they stream their upload and are resumable by their job id instead.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "habit-tracker.idempotency", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(final IdempotencyService idempotencyService) {
+        final FilterRegistrationBean<IdempotencyFilter> registration =
+            new FilterRegistrationBean<>(new IdempotencyFilter(idempotencyService));
+        registration.addUrlPatterns("/api/habits", "/api/habits/*");
+        // Keys are scoped to the user, so the user must be known first
+        registration.setOrder(UserContextConfig.USER_CONTEXT_FILTER_ORDER + 1);
+        return registration;
+    }
+
+}
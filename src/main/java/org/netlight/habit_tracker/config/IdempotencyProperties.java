@@ -0,0 +1,22 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@code Idempotency-Key} handling on the habit write endpoints. Keys are kept
+ * for {@code timeToLive}; the most recent responses, up to {@code cacheSize} in total, are
+ * replayed from memory. A retry waits up to {@code waitTimeout} for a concurrent request with
+ * the same key to finish.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.idempotency")
+public record IdempotencyProperties(
+    @DefaultValue("true") boolean enabled,
+    @DefaultValue("24h") Duration timeToLive,
+    @DefaultValue("64MB") DataSize cacheSize,
+    @DefaultValue("10s") Duration waitTimeout,
+    @DefaultValue("1h") Duration purgeInterval
+) {}
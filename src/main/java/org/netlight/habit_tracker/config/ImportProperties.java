@@ -0,0 +1,18 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+
+/**
+ * Settings for bulk imports. Uploaded files are kept in {@code directory} until their import
+ * completes. Each chunk of {@code chunkSize} records is committed in one transaction together
+ * with the job's progress, which is where a failed or interrupted import resumes.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.import")
+public record ImportProperties(
+    Path directory,
+    @DefaultValue("5000") int chunkSize,
+    @DefaultValue("true") boolean resumeOnStartup
+) {}
@@ -0,0 +1,24 @@
+package org.netlight.habit_tracker.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@link io.micrometer.core.annotation.Timed @Timed} on services and JDBC repositories.
+ * Every public method of an annotated class gets a timer tagged with its class, method and
+ * exception, which yields latency, rate and error count per method.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "habit_tracker.service";
+    public static final String REPOSITORY_TIMER = "habit_tracker.repository";
+
+    @Bean
+    public TimedAspect timedAspect(final MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+}
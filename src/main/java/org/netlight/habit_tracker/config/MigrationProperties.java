@@ -0,0 +1,14 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for running the application as a one-shot migration job. With {@code runAndExit}
+ * the application applies the Liquibase changelog on startup and exits instead of serving
+ * requests; the {@code migrate} profile sets it.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.migrations")
+public record MigrationProperties(
+    @DefaultValue("false") boolean runAndExit
+) {}
@@ -0,0 +1,26 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for the change event outbox. With {@code enabled}, habit and tracking changes
+ * write change events in their own transactions. With {@code relayEnabled}, this instance
+ * reads the events in batches of up to {@code batchSize}, publishes each batch to the sink
+ * on up to {@code parallelism} threads and deletes it. The relay waits {@code linger}
+ * between reads unless the previous read returned a full batch. With {@code sink} set to
+ * anything but {@code log}, events go to the application's own {@code ChangeEventSink} bean.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.outbox")
+public record OutboxProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("false") boolean relayEnabled,
+    @DefaultValue("500") int batchSize,
+    @DefaultValue("200ms") Duration linger,
+    @DefaultValue("4") int parallelism,
+    @DefaultValue("log") String sink,
+    @DefaultValue("data/change-events.log") Path logFile
+) {}
@@ -0,0 +1,22 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Page size limits for the keyset-paginated habit listing
+ */
+@ConfigurationProperties(prefix = "habit-tracker.pagination")
+public record PaginationProperties(
+    @DefaultValue("100") int defaultPageSize,
+    @DefaultValue("1000") int maxPageSize
+) {
+
+    public int resolvePageSize(final Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+}
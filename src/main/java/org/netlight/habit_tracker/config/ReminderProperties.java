@@ -0,0 +1,27 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Settings for due-habit reminders. A reminder is due {@code leadTime} before the end of a
+ * period that has no tracking yet. Due habits are checked every {@code tick} and handed to
+ * the sink in batches of up to {@code batchSize}, which is also the page size for loading
+ * habits; a failed batch is retried after {@code retryDelay}. Habits created by other
+ * instances are picked up every {@code catchUpInterval}. With {@code sink} set to anything
+ * but {@code log}, reminders go to the application's own {@code ReminderSink} bean.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.reminders")
+public record ReminderProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("1s") Duration tick,
+    @DefaultValue("6h") Duration leadTime,
+    @DefaultValue("1000") int batchSize,
+    @DefaultValue("1m") Duration retryDelay,
+    @DefaultValue("1m") Duration catchUpInterval,
+    @DefaultValue("log") String sink,
+    @DefaultValue("data/reminders.log") Path logFile
+) {}
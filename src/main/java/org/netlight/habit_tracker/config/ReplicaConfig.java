@@ -0,0 +1,51 @@
+package org.netlight.habit_tracker.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.netlight.habit_tracker.replica.ReplicaRouter;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Sends read-only transactions to read replicas. With sharding, {@link ShardConfig} puts the
+ * replicas in front of each shard; without it the single data source is replaced here.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "habit-tracker.replicas", name = "enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "habit-tracker.shards", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public DataSource dataSource(final DataSourceProperties dataSourceProperties,
+                                 final ReplicaRouter replicaRouter,
+                                 final Environment environment) {
+        final HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+            .type(HikariDataSource.class)
+            .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        return replicaRouter.withReplicas(ShardRouter.DEFAULT_SHARD, primary);
+    }
+
+    /**
+     * With open session in view the session would otherwise hold on to the connection it
+     * first got, which may be a replica, for writes later in the same request.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+            PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+}
@@ -0,0 +1,33 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas that read-only transactions are spread over. Every replica belongs to one
+ * {@code shard}, or to the single {@code default} shard without sharding. Connection pool
+ * settings are taken from {@code spring.datasource.hikari}.
+ * <p>
+ * Every {@code healthCheckInterval} each replica is checked and its lag behind the primary
+ * measured, to within one interval. Replicas that fail the check or lag more than
+ * {@code maxLag} get no reads until they recover. A user who wrote within the last
+ * {@code readYourWritesWindow} reads from the primary, so it should exceed {@code maxLag}
+ * plus one check interval. Up to {@code maxWriters} recent writers are remembered per node.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.replicas")
+public record ReplicaProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("2s") Duration healthCheckInterval,
+    @DefaultValue("1s") Duration healthCheckTimeout,
+    @DefaultValue("5s") Duration maxLag,
+    @DefaultValue("10s") Duration readYourWritesWindow,
+    @DefaultValue("100000") long maxWriters,
+    @DefaultValue List<Replica> instances
+) {
+
+    public record Replica(String name, @DefaultValue("default") String shard, String url, String username, String password) {}
+
+}
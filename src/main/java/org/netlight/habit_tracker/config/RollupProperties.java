@@ -0,0 +1,14 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the per-period completion rollups. Enable {@code rebuildOnStartup} once to
+ * backfill rollups for trackings that were written before the rollups existed.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.rollups")
+public record RollupProperties(
+    @DefaultValue("false") boolean rebuildOnStartup,
+    @DefaultValue("500") int rebuildPageSize
+) {}
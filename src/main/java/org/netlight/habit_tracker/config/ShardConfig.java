@@ -0,0 +1,70 @@
+package org.netlight.habit_tracker.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.netlight.habit_tracker.replica.ReplicaRouter;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.netlight.habit_tracker.shard.ShardRoutingDataSource;
+import org.netlight.habit_tracker.shard.ShardedLiquibase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replaces the single data source with one connection pool per shard behind a
+ * {@link ShardRoutingDataSource}, each with its read replicas if any, and migrates every shard
+ * on startup unless {@code spring.liquibase.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "habit-tracker.shards", name = "enabled", havingValue = "true")
+public class ShardConfig {
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(final ShardProperties properties,
+                                             final ShardRouter shardRouter,
+                                             final ReplicaRouter replicaRouter,
+                                             final Environment environment) {
+        if (properties.instances().isEmpty()) {
+            throw new IllegalStateException("habit-tracker.shards.instances must list at least one shard");
+        }
+        final Map<String, DataSource> shards = new LinkedHashMap<>();
+        for (final ShardProperties.Shard shard : properties.instances()) {
+            final HikariConfig config = Binder.get(environment)
+                .bind("spring.datasource.hikari", Bindable.ofInstance(new HikariConfig()))
+                .orElseGet(HikariConfig::new);
+            config.setPoolName("shard-" + shard.name());
+            config.setJdbcUrl(shard.url());
+            config.setUsername(shard.username());
+            config.setPassword(shard.password());
+            shards.put(shard.name(), replicaRouter.withReplicas(shard.name(), new HikariDataSource(config)));
+        }
+        return new ShardRoutingDataSource(shardRouter, shards);
+    }
+
+    @Bean
+    public SpringLiquibase liquibase(final ShardRoutingDataSource dataSource,
+                                     final TrackingPartitionProperties trackingPartitionProperties,
+                                     @Value("${spring.liquibase.change-log}") final String changeLog,
+                                     @Value("${spring.liquibase.enabled:true}") final boolean enabled) {
+        final ShardedLiquibase liquibase = new ShardedLiquibase(dataSource.shards().values());
+        liquibase.setChangeLog(changeLog);
+        // Instances may leave the migrations to the migration job
+        liquibase.setShouldRun(enabled);
+        liquibase.setChangeLogParameters(Map.of(
+            "trackings-partitioned", String.valueOf(trackingPartitionProperties.enabled()),
+            "trackings-first-month", String.valueOf(trackingPartitionProperties.firstMonth())));
+        return liquibase;
+    }
+
+}
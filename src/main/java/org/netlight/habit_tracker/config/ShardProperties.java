@@ -0,0 +1,30 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * Shards that habits and trackings are spread over by user. When {@code enabled}, every user
+ * is assigned to one of the {@code instances} by a consistent hash of their id, with
+ * {@code virtualNodes} points per shard on the ring; otherwise everything is stored in the
+ * single {@code spring.datasource}. Connection pool settings are taken from
+ * {@code spring.datasource.hikari} for every shard.
+ * <p>
+ * With {@code rebalanceOnStartup}, users stored on another shard than the one they are
+ * assigned to, e.g. after a shard was added, are moved on startup, {@code rebalanceBatchSize}
+ * rows at a time.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.shards")
+public record ShardProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("128") int virtualNodes,
+    @DefaultValue("false") boolean rebalanceOnStartup,
+    @DefaultValue("1000") int rebalanceBatchSize,
+    @DefaultValue List<Shard> instances
+) {
+
+    public record Shard(String name, String url, String username, String password) {}
+
+}
@@ -0,0 +1,14 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Limits for the bulk tracking ingestion endpoint. {@code batchSize} is the number of
+ * trackings handed to the tracking store at once, one JDBC batch with the database store.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.tracking-batch")
+public record TrackingBatchProperties(
+    @DefaultValue("500") int batchSize,
+    @DefaultValue("10000") int maxEntries
+) {}
@@ -0,0 +1,14 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the tracking history export. {@code fetchSize} is the number of rows the
+ * JDBC driver fetches per round trip while the export cursor is open, which bounds the
+ * rows held in memory at any time.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.tracking-export")
+public record TrackingExportProperties(
+    @DefaultValue("1000") int fetchSize
+) {}
@@ -0,0 +1,29 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.YearMonth;
+
+/**
+ * Monthly range partitioning of the trackings table on MariaDB. Enabling it also enables the
+ * Liquibase changeset that partitions the table, which drops its foreign key to habits and
+ * puts every tracking before {@code firstMonth} into a history partition. Set
+ * {@code firstMonth} to the month partitioning is enabled in, or a later one, so that no
+ * tracking has to be moved when monthly partitions are split off. Partitions are kept
+ * {@code monthsAhead} months ahead of the current month.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.tracking-partitions")
+public record TrackingPartitionProperties(
+    @DefaultValue("false") boolean enabled,
+    YearMonth firstMonth,
+    @DefaultValue("3") int monthsAhead
+) {
+
+    public TrackingPartitionProperties {
+        if (enabled && firstMonth == null) {
+            throw new IllegalArgumentException("habit-tracker.tracking-partitions.first-month must be set to partition trackings");
+        }
+    }
+
+}
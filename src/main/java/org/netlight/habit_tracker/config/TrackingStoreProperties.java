@@ -0,0 +1,33 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Where trackings are stored. {@code jpa} keeps them in the {@code trackings} table; {@code log}
+ * keeps them in an append-only log of {@code segmentSize} memory-mapped segments in
+ * {@code directory}, for deployments without a database server for them. With {@code fsync}
+ * every append is forced to disk, otherwise the log survives crashes of the process but not
+ * of the machine. Every {@code compactionInterval} segments in which deleted trackings take up
+ * at least {@code compactionThreshold} of the records are rewritten and the index is
+ * checkpointed, which bounds how much of the log is replayed on startup.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.tracking-store")
+public record TrackingStoreProperties(
+    @DefaultValue("jpa") Type type,
+    @DefaultValue("data/tracking-log") Path directory,
+    @DefaultValue("64MB") DataSize segmentSize,
+    @DefaultValue("false") boolean fsync,
+    @DefaultValue("1m") Duration compactionInterval,
+    @DefaultValue("0.5") double compactionThreshold
+) {
+
+    public enum Type {
+        JPA, LOG
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.netlight.habit_tracker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings for the asynchronous (write-behind) tracking ingest mode. When enabled, new
+ * trackings are queued in memory and committed in groups of up to {@code maxBatchSize}
+ * entries, or after {@code maxLinger} when fewer entries are waiting.
+ */
+@ConfigurationProperties(prefix = "habit-tracker.tracking-write-behind")
+public record TrackingWriteBehindProperties(
+    @DefaultValue("false") boolean enabled,
+    @DefaultValue("10000") int queueCapacity,
+    @DefaultValue("500") int maxBatchSize,
+    @DefaultValue("20ms") Duration maxLinger,
+    @DefaultValue("1s") Duration offerTimeout,
+    @DefaultValue("30s") Duration shutdownTimeout
+) {}
@@ -0,0 +1,32 @@
+package org.netlight.habit_tracker.config;
+
+import org.netlight.habit_tracker.shard.UserContext;
+import org.netlight.habit_tracker.shard.UserContextFilter;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Runs requests for the user named in their {@code X-User-Id} header, including the parts
+ * of a request that run on the application task executor, like streamed responses.
+ */
+@Configuration
+public class UserContextConfig {
+
+    public static final int USER_CONTEXT_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    @Bean
+    public FilterRegistrationBean<UserContextFilter> userContextFilter() {
+        final FilterRegistrationBean<UserContextFilter> registration = new FilterRegistrationBean<>(new UserContextFilter());
+        registration.setOrder(USER_CONTEXT_FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public TaskDecorator userContextTaskDecorator() {
+        return UserContext::propagate;
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.netlight.habit_tracker.controller;
+
+import org.netlight.habit_tracker.exception.HabitVersionConflictException;
+
+/**
+ * Strong entity tags, {@code If-None-Match} evaluation for the conditional GET endpoints and
+ * {@code If-Match} parsing for the conditional writes.
+ */
+final class EntityTags {
+
+    private EntityTags() {}
+
+    static String of(final long version) {
+        return "\"" + version + "\"";
+    }
+
+    static String of(final String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Evaluates an {@code If-None-Match} header against the current tag, using weak comparison
+     * as RFC 9110 requires for this header: a {@code W/} prefix is ignored.
+     */
+    static boolean noneMatchFails(final String ifNoneMatch, final String currentTag) {
+        for (final String candidate : ifNoneMatch.split(",")) {
+            final String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(currentTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Turns an {@code If-Match} header into the habit version a write is conditional on, or
+     * {@code null} for an absent header or {@code *}, which any existing habit matches. The
+     * header uses strong comparison, so weak tags never match; neither do several tags, as
+     * a habit has exactly one current version.
+     */
+    static Long expectedVersion(final String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        final String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.valueOf(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Not one of our tags, handled below
+            }
+        }
+        throw new HabitVersionConflictException("If-Match " + ifMatch + " does not match the habit's version");
+    }
+
+}
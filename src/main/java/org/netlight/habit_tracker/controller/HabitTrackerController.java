@@ -1,14 +1,42 @@
 package org.netlight.habit_tracker.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import lombok.extern.log4j.Log4j2;
 import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.request.TrackingEntryRequest;
+import org.netlight.habit_tracker.dto.response.HabitCalendarResponse;
+import org.netlight.habit_tracker.dto.response.HabitPage;
 import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.dto.response.HabitStatsResponse;
+import org.netlight.habit_tracker.dto.response.TrackingBatchResponse;
+import org.netlight.habit_tracker.dto.response.TrackingResponse;
+import org.netlight.habit_tracker.export.TrackingExportFormat;
+import org.netlight.habit_tracker.mapper.TrackingMapper;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.pagination.HabitPageTag;
+import org.netlight.habit_tracker.service.HabitRollupService;
 import org.netlight.habit_tracker.service.HabitService;
+import org.netlight.habit_tracker.service.TrackingBatchService;
+import org.netlight.habit_tracker.service.TrackingExportService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * The controller defines the API endpoints available to the client
@@ -18,33 +46,257 @@ import java.util.UUID;
 @RequestMapping("/api/habits")
 public class HabitTrackerController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
     @Autowired
     private HabitService habitService;
 
+    @Autowired
+    private TrackingBatchService trackingBatchService;
+
+    @Autowired
+    private HabitRollupService habitRollupService;
+
+    @Autowired
+    private TrackingExportService trackingExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Returns one page of habits. When more habits follow, the continuation token
+     * for the next page is returned in the {@value #NEXT_CURSOR_HEADER} header.
+     * <p>
+     * The ETag covers the page's habits and versions. A request whose {@code If-None-Match}
+     * still matches it gets 304 Not Modified, decided from the ids and versions alone.
+     */
     @GetMapping
-    public List<HabitResponse> getAllHabits() {
-        log.info("Fetching all habits");
-        return habitService.getAllHabits();
+    public ResponseEntity<List<HabitResponse>> getAllHabits(
+        @RequestParam(name = "cursor", required = false) final String cursor,
+        @RequestParam(name = "limit", required = false) final Integer limit,
+        @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            final String tag = EntityTags.of(habitService.getHabitPageTag(cursor, limit));
+            if (EntityTags.noneMatchFails(ifNoneMatch, tag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CacheControl.noCache()).build();
+            }
+        }
+        log.info("Fetching habits page");
+        final HabitPage page = habitService.getAllHabits(cursor, limit);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .eTag(EntityTags.of(HabitPageTag.of(page)))
+            .cacheControl(CacheControl.noCache());
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.habits());
+    }
+
+    /**
+     * Opt-in streaming variant of {@link #getAllHabits}: writes every habit as
+     * newline-delimited JSON while the rows are read from the database.
+     */
+    @GetMapping(params = "stream=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllHabits() {
+        log.info("Streaming all habits");
+        final StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(outputStream)) {
+                habitService.streamAllHabits(habit -> {
+                    try {
+                        writer.write(habit);
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
     }
 
     @PostMapping
     public HabitResponse addHabit(@RequestBody final HabitRequest habitRequest) {
-        System.out.println("Adding habit");
+        log.info("Adding habit");
         return habitService.createHabit(habitRequest);
     }
 
+    /**
+     * Returns a habit with its version as a strong ETag. A request whose {@code If-None-Match}
+     * still matches the current version gets 304 Not Modified without the habit being loaded.
+     */
     @GetMapping("/{id}")
-    public HabitResponse getHabitById(@PathVariable("id") final UUID id) {
-        System.out.println("Get habit by id");
-        return habitService.getHabitResponseById(id);
+    public ResponseEntity<HabitResponse> getHabitById(
+        @PathVariable("id") final UUID id,
+        @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            final String tag = EntityTags.of(habitService.getHabitVersion(id));
+            if (EntityTags.noneMatchFails(ifNoneMatch, tag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CacheControl.noCache()).build();
+            }
+        }
+        log.info("Fetching habit {}", id);
+        final HabitResponse habit = habitService.getHabitResponseById(id);
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        if (habit.version() != null) {
+            response.eTag(EntityTags.of(habit.version()));
+        }
+        return response.body(habit);
     }
 
-    // TODO: Add endpoint PATCH /habits/{id}: Update information for a specific habit.
+    /**
+     * Applies the request's non-null fields. With an {@code If-Match} header the update only
+     * applies to that version of the habit, and 412 Precondition Failed is returned otherwise.
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<HabitResponse> updateHabit(
+        @PathVariable("id") final UUID id,
+        @RequestBody final HabitRequest habitRequest,
+        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+        log.info("Updating habit {}", id);
+        final HabitResponse habit = habitService.updateHabit(id, habitRequest, EntityTags.expectedVersion(ifMatch));
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (habit.version() != null) {
+            response.eTag(EntityTags.of(habit.version()));
+        }
+        return response.body(habit);
+    }
 
-    // TODO: Add endpoint DELETE /habits/{id}: Delete a specific habit.
+    /**
+     * Deletes a habit with its trackings, conditional on an {@code If-Match} header as for
+     * {@link #updateHabit}.
+     */
+    @DeleteMapping("/{id}")
+    public void deleteHabit(@PathVariable("id") final UUID id,
+                            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) final String ifMatch) {
+        log.info("Deleting habit {}", id);
+        habitService.deleteHabit(id, EntityTags.expectedVersion(ifMatch));
+    }
 
-    // TODO: Add endpoint POST /habits/{id}/tracking: Add a new tracking for a specific habit.
+    @GetMapping("/{id}/stats")
+    public HabitStatsResponse getHabitStats(@PathVariable("id") final UUID id) {
+        log.info("Fetching stats for habit {}", id);
+        return habitRollupService.getStats(id);
+    }
 
-    // TODO: Add endpoint GET /habits/{id}/tracking: Retrieve all trackings for a specific habit.
+    /**
+     * Returns heatmap data for a habit, by default for the last year.
+     */
+    @GetMapping("/{id}/calendar")
+    public HabitCalendarResponse getHabitCalendar(
+        @PathVariable("id") final UUID id,
+        @RequestParam(name = "from", required = false) final LocalDate from,
+        @RequestParam(name = "to", required = false) final LocalDate to) {
+        log.info("Fetching calendar for habit {}", id);
+        final LocalDate end = to != null ? to : LocalDate.now();
+        final LocalDate start = from != null ? from : end.minusYears(1).plusDays(1);
+        return habitRollupService.getCalendar(id, start, end);
+    }
+
+    /**
+     * Adds a tracking to a habit. Pass {@code durable=true} to have the entry committed
+     * before the response is sent, even when write-behind ingest is enabled.
+     */
+    @PostMapping("/{id}/tracking")
+    public TrackingResponse addTracking(@PathVariable("id") final UUID id,
+                                        @RequestParam(name = "durable", defaultValue = "false") final boolean durable,
+                                        @RequestBody(required = false) final String note) {
+        log.info("Adding tracking to habit {}", id);
+        final Tracking tracking = durable
+            ? habitService.addTrackingEntryDurably(id, note)
+            : habitService.addTrackingEntry(id, note);
+        return TrackingMapper.mapToTrackingResponse(tracking);
+    }
+
+    /**
+     * Adds tracking entries for any number of habits in one request, e.g. when a client
+     * syncs offline check-ins. Every entry gets its own result in the response.
+     */
+    @PostMapping("/tracking/batch")
+    public TrackingBatchResponse addTrackingBatch(@RequestBody final List<TrackingEntryRequest> entries) {
+        log.info("Adding batch of {} trackings", entries.size());
+        return trackingBatchService.addTrackingEntries(entries);
+    }
+
+    /**
+     * Streams the full tracking history of a habit, oldest first, as newline-delimited JSON
+     * or CSV. The response is gzip-compressed when the client accepts it.
+     */
+    @GetMapping("/{id}/tracking/export")
+    public ResponseEntity<StreamingResponseBody> exportTrackings(
+        @PathVariable("id") final UUID id,
+        @RequestParam(name = "format", defaultValue = "ndjson") final String formatName,
+        @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) final String acceptEncoding) {
+        log.info("Exporting trackings of habit {} as {}", id, formatName);
+        final TrackingExportFormat format = TrackingExportFormat.fromName(formatName);
+        trackingExportService.requireHabit(id);
+
+        final boolean gzip = acceptsGzip(acceptEncoding);
+        final StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+                trackingExportService.exportTrackings(id, format, gzipOutputStream);
+                gzipOutputStream.finish();
+            } else {
+                trackingExportService.exportTrackings(id, format, outputStream);
+            }
+        };
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(format.mediaType()))
+            .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("trackings-" + id + "." + format.fileExtension())
+                .build()
+                .toString())
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
+    /**
+     * Returns the trackings of a habit. With {@code from} and/or {@code to} (ISO date-times,
+     * {@code to} exclusive) or a {@code limit}, only that range is read, oldest first and at
+     * most one page of it; without them the full history is returned.
+     */
+    @GetMapping("/{id}/tracking")
+    public List<TrackingResponse> getTrackings(
+        @PathVariable("id") final UUID id,
+        @RequestParam(name = "from", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+        @RequestParam(name = "to", required = false)
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+        @RequestParam(name = "limit", required = false) final Integer limit) {
+        if (from == null && to == null && limit == null) {
+            log.info("Fetching trackings for habit {}", id);
+            return habitService.getAllTrackingsForHabit(id);
+        }
+        log.info("Fetching trackings for habit {} from {} to {}", id, from, to);
+        return habitService.getTrackingsForHabit(id, from, to, limit);
+    }
+
+    @DeleteMapping("/{id}/tracking/{trackingId}")
+    public void deleteTracking(@PathVariable("id") final UUID id,
+                               @PathVariable("trackingId") final UUID trackingId) {
+        log.info("Deleting tracking {} of habit {}", trackingId, id);
+        habitService.deleteTrackingEntry(id, trackingId);
+    }
+
+    private static boolean acceptsGzip(final String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (final String coding : acceptEncoding.split(",")) {
+            final String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 
 }
@@ -0,0 +1,63 @@
+package org.netlight.habit_tracker.controller;
+
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.dto.response.ImportJobResponse;
+import org.netlight.habit_tracker.importer.ImportFormat;
+import org.netlight.habit_tracker.service.TrackingImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Bulk import of habits and trackings from CSV or NDJSON files
+ */
+@Log4j2
+@RestController
+@RequestMapping("/api/imports")
+public class TrackingImportController {
+
+    @Autowired
+    private TrackingImportService trackingImportService;
+
+    /**
+     * Uploads a file as the raw request body and starts importing it in the background.
+     * The format is taken from the {@code format} parameter ({@code csv} or {@code ndjson}),
+     * or else from the content type. Poll the returned location for progress.
+     */
+    @PostMapping
+    public ResponseEntity<ImportJobResponse> submitImport(
+        @RequestParam(name = "format", required = false) final String formatName,
+        @RequestParam(name = "name", required = false) final String sourceName,
+        @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) final String contentType,
+        final InputStream content) throws IOException {
+        final ImportFormat format = formatName != null
+            ? ImportFormat.fromName(formatName)
+            : ImportFormat.fromMediaType(contentType);
+        log.info("Importing {} file {}", format, sourceName);
+        final ImportJobResponse job = trackingImportService.submit(format, sourceName, content);
+        return ResponseEntity.accepted()
+            .location(ServletUriComponentsBuilder.fromCurrentRequestUri()
+                .path("/{id}")
+                .buildAndExpand(job.id())
+                .toUri())
+            .body(job);
+    }
+
+    @GetMapping("/{id}")
+    public ImportJobResponse getImport(@PathVariable("id") final UUID id) {
+        return trackingImportService.getJob(id);
+    }
+
+    @PostMapping("/{id}/resume")
+    public ImportJobResponse resumeImport(@PathVariable("id") final UUID id) {
+        log.info("Resuming import {}", id);
+        return trackingImportService.resume(id);
+    }
+
+}
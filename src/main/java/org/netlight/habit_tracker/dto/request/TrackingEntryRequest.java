@@ -0,0 +1,17 @@
+package org.netlight.habit_tracker.dto.request;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A single entry of a bulk tracking upload. A missing timestamp defaults to the time
+ * the batch is received.
+ */
+@Builder(toBuilder = true)
+public record TrackingEntryRequest(
+    UUID habitId,
+    LocalDateTime timestamp,
+    String note
+) {}
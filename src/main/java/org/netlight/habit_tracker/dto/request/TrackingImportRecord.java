@@ -0,0 +1,17 @@
+package org.netlight.habit_tracker.dto.request;
+
+import lombok.Builder;
+
+/**
+ * One record of an import file, as read from it. The habit is referenced by name and is
+ * created with the given frequency and start date when it does not exist yet. A record
+ * without a timestamp only makes sure the habit exists. Values are validated on import.
+ */
+@Builder(toBuilder = true)
+public record TrackingImportRecord(
+    String habit,
+    String frequency,
+    String startDate,
+    String timestamp,
+    String note
+) {}
@@ -0,0 +1,18 @@
+package org.netlight.habit_tracker.dto.response;
+
+import org.netlight.habit_tracker.model.Frequency;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Heatmap data of a habit: the first day of every completed period between {@code from} and {@code to}.
+ */
+public record HabitCalendarResponse(
+    UUID habitId,
+    Frequency frequency,
+    LocalDate from,
+    LocalDate to,
+    List<LocalDate> completed
+) {}
@@ -0,0 +1,11 @@
+package org.netlight.habit_tracker.dto.response;
+
+import java.util.List;
+
+/**
+ * A single keyset page of habits. {@code nextCursor} is null on the last page.
+ */
+public record HabitPage(
+    List<HabitResponse> habits,
+    String nextCursor
+) {}
@@ -12,5 +12,6 @@ public record HabitResponse(
     String name,
     String description,
     Frequency frequency,
-    LocalDate startDate
+    LocalDate startDate,
+    Long version
 ) {}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package org.netlight.habit_tracker.dto.response;
+
+import lombok.Builder;
+import org.netlight.habit_tracker.model.Frequency;
+
+import java.util.UUID;
+
+/**
+ * Completion statistics of a habit. Periods are days, ISO weeks or months depending on the
+ * habit's frequency, counted from its start date up to and including the current period.
+ */
+@Builder(toBuilder = true)
+public record HabitStatsResponse(
+    UUID habitId,
+    Frequency frequency,
+    int currentStreak,
+    int longestStreak,
+    int completedPeriods,
+    int elapsedPeriods,
+    double completionRate
+) {}
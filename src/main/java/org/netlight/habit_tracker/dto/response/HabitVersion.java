@@ -0,0 +1,11 @@
+package org.netlight.habit_tracker.dto.response;
+
+import java.util.UUID;
+
+/**
+ * The id and version of a habit, all that is needed to tell whether a client's copy is current.
+ */
+public record HabitVersion(
+    UUID id,
+    long version
+) {}
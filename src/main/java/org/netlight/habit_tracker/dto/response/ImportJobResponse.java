@@ -0,0 +1,29 @@
+package org.netlight.habit_tracker.dto.response;
+
+import lombok.Builder;
+import org.netlight.habit_tracker.importer.ImportFormat;
+import org.netlight.habit_tracker.model.ImportJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of a bulk import. {@code rowsPerSecond} is measured over the time spent
+ * processing chunks, across all runs of the job.
+ */
+@Builder(toBuilder = true)
+public record ImportJobResponse(
+    UUID id,
+    ImportFormat format,
+    ImportJobStatus status,
+    String sourceName,
+    long processedRows,
+    long importedRows,
+    long rejectedRows,
+    long createdHabits,
+    double rowsPerSecond,
+    String lastRejection,
+    String error,
+    LocalDateTime createdAt,
+    LocalDateTime updatedAt
+) {}
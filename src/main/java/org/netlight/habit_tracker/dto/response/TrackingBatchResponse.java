@@ -0,0 +1,9 @@
+package org.netlight.habit_tracker.dto.response;
+
+import java.util.List;
+
+public record TrackingBatchResponse(
+    int created,
+    int rejected,
+    List<TrackingEntryResult> results
+) {}
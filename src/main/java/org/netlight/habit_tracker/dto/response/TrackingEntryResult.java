@@ -0,0 +1,27 @@
+package org.netlight.habit_tracker.dto.response;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one entry of a bulk tracking upload, identified by its position in the request.
+ */
+public record TrackingEntryResult(
+    int index,
+    Status status,
+    UUID trackingId,
+    String message
+) {
+
+    public enum Status {
+        CREATED, HABIT_NOT_FOUND, INVALID
+    }
+
+    public static TrackingEntryResult created(final int index, final UUID trackingId) {
+        return new TrackingEntryResult(index, Status.CREATED, trackingId, null);
+    }
+
+    public static TrackingEntryResult rejected(final int index, final Status status, final String message) {
+        return new TrackingEntryResult(index, status, null, message);
+    }
+
+}
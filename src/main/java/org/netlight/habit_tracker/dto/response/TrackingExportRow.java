@@ -0,0 +1,14 @@
+package org.netlight.habit_tracker.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One tracking, read straight from the result set without an entity, as exported and as
+ * read by the tracking endpoints.
+ */
+public record TrackingExportRow(
+    UUID id,
+    LocalDateTime timestamp,
+    String note
+) {}
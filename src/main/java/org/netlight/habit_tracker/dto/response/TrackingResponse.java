@@ -0,0 +1,14 @@
+package org.netlight.habit_tracker.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A tracking as returned by the tracking endpoints, together with the habit it belongs to.
+ */
+public record TrackingResponse(
+    UUID id,
+    HabitResponse habit,
+    LocalDateTime timestamp,
+    String note
+) {}
@@ -0,0 +1,13 @@
+package org.netlight.habit_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class HabitConflictException extends RuntimeException {
+
+    public HabitConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -1,9 +1,13 @@
 package org.netlight.habit_tracker.exception;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
 public class HabitNotFoundException extends RuntimeException {
 
     public HabitNotFoundException(String message) {
         super(message);
     }
 
-}
\ No newline at end of file
+}
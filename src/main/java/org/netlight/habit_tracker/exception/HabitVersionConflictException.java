@@ -0,0 +1,13 @@
+package org.netlight.habit_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class HabitVersionConflictException extends RuntimeException {
+
+    public HabitVersionConflictException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,13 @@
+package org.netlight.habit_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidTrackingRangeException extends RuntimeException {
+
+    public InvalidTrackingRangeException(String message) {
+        super(message);
+    }
+
+}
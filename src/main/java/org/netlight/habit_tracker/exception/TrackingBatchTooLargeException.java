@@ -0,0 +1,13 @@
+package org.netlight.habit_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.PAYLOAD_TOO_LARGE)
+public class TrackingBatchTooLargeException extends RuntimeException {
+
+    public TrackingBatchTooLargeException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,13 @@
+package org.netlight.habit_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class TrackingNotFoundException extends RuntimeException {
+
+    public TrackingNotFoundException(String message) {
+        super(message);
+    }
+
+}
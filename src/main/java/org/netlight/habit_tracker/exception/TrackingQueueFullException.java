@@ -0,0 +1,13 @@
+package org.netlight.habit_tracker.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class TrackingQueueFullException extends RuntimeException {
+
+    public TrackingQueueFullException(String message) {
+        super(message);
+    }
+
+}
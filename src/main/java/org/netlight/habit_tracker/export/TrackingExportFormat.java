@@ -0,0 +1,110 @@
+package org.netlight.habit_tracker.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.exception.UnsupportedFormatException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+
+public enum TrackingExportFormat {
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        public TrackingExportWriter newWriter(final OutputStream out, final ObjectMapper objectMapper) throws IOException {
+            final SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                // Let the generator fill its buffer instead of flushing the response per row
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(out);
+            return new TrackingExportWriter() {
+                @Override
+                public void write(final TrackingExportRow row) throws IOException {
+                    writer.write(row);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.close();
+                }
+            };
+        }
+    },
+    CSV("text/csv", "csv") {
+        @Override
+        public TrackingExportWriter newWriter(final OutputStream out, final ObjectMapper objectMapper) throws IOException {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("id,timestamp,note\r\n");
+            return new TrackingExportWriter() {
+                @Override
+                public void write(final TrackingExportRow row) throws IOException {
+                    writer.write(row.id().toString());
+                    writer.write(',');
+                    writer.write(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(row.timestamp()));
+                    writer.write(',');
+                    if (row.note() != null) {
+                        writer.write(csvField(row.note()));
+                    }
+                    writer.write("\r\n");
+                }
+
+                @Override
+                public void close() throws IOException {
+                    writer.flush();
+                }
+            };
+        }
+    };
+
+    private final String mediaType;
+    private final String fileExtension;
+
+    TrackingExportFormat(final String mediaType, final String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    /**
+     * Resolves a format from its case-insensitive name, e.g. {@code csv}.
+     */
+    public static TrackingExportFormat fromName(final String name) {
+        for (final TrackingExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new UnsupportedFormatException("Unsupported export format: " + name);
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    public String fileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Starts writing trackings in this format to {@code out}.
+     */
+    public abstract TrackingExportWriter newWriter(OutputStream out, ObjectMapper objectMapper) throws IOException;
+
+    /**
+     * Quotes a CSV field as described in RFC 4180 when it contains a separator, quote or line break.
+     */
+    static String csvField(final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+}
@@ -0,0 +1,16 @@
+package org.netlight.habit_tracker.export;
+
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Writes exported trackings one at a time. Closing the writer flushes it but leaves the
+ * underlying stream open.
+ */
+public interface TrackingExportWriter extends Closeable {
+
+    void write(TrackingExportRow row) throws IOException;
+
+}
@@ -0,0 +1,24 @@
+package org.netlight.habit_tracker.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+
+/**
+ * Hibernate generator behind {@link TimeOrderedId}.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    public TimeOrderedIdGenerator(final TimeOrderedId config,
+                                  final Member idMember,
+                                  final CustomIdGeneratorCreationContext creationContext) {
+    }
+
+    @Override
+    public Object generate(final SharedSessionContractImplementor session, final Object object) {
+        return TimeOrderedUuid.next();
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.netlight.habit_tracker.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates UUIDv7-style identifiers: the 48 most significant bits hold the Unix epoch
+ * milliseconds, followed by the version nibble, a 12-bit sequence counter, the variant
+ * bits and 62 random bits.
+ * <p>
+ * Ids are strictly increasing (compared as unsigned big-endian bytes, which is how they
+ * are stored in the {@code BINARY(16)} primary keys) across all threads of the JVM, so new
+ * rows are appended to the right-hand edge of the clustered index instead of being
+ * scattered over it. When more than 4096 ids are requested within one millisecond the
+ * counter carries into the timestamp, which then runs slightly ahead of the wall clock.
+ */
+public final class TimeOrderedUuid {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence), advanced lock-free with CAS
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimeOrderedUuid() {}
+
+    public static UUID next() {
+        return fromState(nextState(System.currentTimeMillis()), ThreadLocalRandom.current().nextLong());
+    }
+
+    static long nextState(final long currentMillis) {
+        final long candidate = currentMillis << SEQUENCE_BITS;
+        return LAST.updateAndGet(last -> Math.max(candidate, last + 1));
+    }
+
+    static UUID fromState(final long state, final long random) {
+        final long timestamp = state >>> SEQUENCE_BITS;
+        final long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        final long mostSignificantBits = (timestamp << 16) | VERSION | sequence;
+        final long leastSignificantBits = VARIANT | (random & RANDOM_MASK);
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    /**
+     * Returns the creation time in epoch milliseconds encoded in a time-ordered id.
+     */
+    public static long timestamp(final UUID uuid) {
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+
+    /**
+     * Returns an id that sorts before every time-ordered id generated at or after
+     * {@code millis}, for range scans by creation time.
+     */
+    public static UUID lowerBound(final long millis) {
+        return new UUID(millis << 16, 0);
+    }
+
+}
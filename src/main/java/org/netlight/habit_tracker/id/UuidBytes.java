@@ -0,0 +1,34 @@
+package org.netlight.habit_tracker.id;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Converts between {@link UUID} and the big-endian 16-byte form stored in {@code BINARY(16)} columns.
+ */
+public final class UuidBytes {
+
+    private UuidBytes() {}
+
+    public static byte[] toBytes(final UUID uuid) {
+        return ByteBuffer.allocate(16)
+            .putLong(uuid.getMostSignificantBits())
+            .putLong(uuid.getLeastSignificantBits())
+            .array();
+    }
+
+    /**
+     * Compares two UUIDs by their unsigned byte order, which is how the database orders
+     * {@code BINARY(16)} values. {@link UUID#compareTo} compares signed values instead.
+     */
+    public static int compare(final UUID a, final UUID b) {
+        final int high = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    public static UUID fromBytes(final byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+}
@@ -0,0 +1,17 @@
+package org.netlight.habit_tracker.idempotency;
+
+/**
+ * The response to a request sent with an {@code Idempotency-Key}, replayed to every retry of
+ * that request. The fingerprint identifies the request, so that a key reused for a different
+ * request is detected.
+ */
+public record IdempotentResponse(byte[] fingerprint, int status, String contentType, byte[] body) {
+
+    /**
+     * Approximate heap size, used to bound the in-memory cache.
+     */
+    public int weight() {
+        return 64 + fingerprint.length + body.length + (contentType != null ? contentType.length() : 0);
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.netlight.habit_tracker.importer;
+
+import org.netlight.habit_tracker.dto.request.TrackingImportRecord;
+import org.netlight.habit_tracker.exception.InvalidImportFileException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads RFC 4180 CSV with a header row. Columns are matched by name, ignoring case and
+ * underscores ({@code habit}, {@code frequency}, {@code start_date}, {@code timestamp},
+ * {@code note}); only {@code habit} is required and unknown columns are ignored. Quoted
+ * fields may contain separators, doubled quotes and line breaks. Empty fields are read as
+ * null and blank lines are skipped.
+ */
+class CsvImportRecordReader implements ImportRecordReader {
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final BufferedReader reader;
+    private final int habitColumn;
+    private final int frequencyColumn;
+    private final int startDateColumn;
+    private final int timestampColumn;
+    private final int noteColumn;
+
+    CsvImportRecordReader(final BufferedReader reader) throws IOException {
+        this.reader = reader;
+        final List<String> header = readFields();
+        if (header == null) {
+            throw new InvalidImportFileException("CSV file is empty");
+        }
+        final List<String> columns = header.stream()
+            .map(column -> column == null ? "" : column.replace("_", "").toLowerCase(Locale.ROOT).trim())
+            .toList();
+        this.habitColumn = columns.indexOf("habit");
+        this.frequencyColumn = columns.indexOf("frequency");
+        this.startDateColumn = columns.indexOf("startdate");
+        this.timestampColumn = columns.indexOf("timestamp");
+        this.noteColumn = columns.indexOf("note");
+        if (habitColumn < 0) {
+            throw new InvalidImportFileException("CSV header has no habit column: " + String.join(",", columns));
+        }
+    }
+
+    @Override
+    public TrackingImportRecord next() throws IOException {
+        final List<String> fields = readFields();
+        if (fields == null) {
+            return null;
+        }
+        return TrackingImportRecord.builder()
+            .habit(field(fields, habitColumn))
+            .frequency(field(fields, frequencyColumn))
+            .startDate(field(fields, startDateColumn))
+            .timestamp(field(fields, timestampColumn))
+            .note(field(fields, noteColumn))
+            .build();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static String field(final List<String> fields, final int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column) : null;
+    }
+
+    /**
+     * Reads the fields of the next non-blank record, or returns null at the end of the file.
+     */
+    private List<String> readFields() throws IOException {
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+        } while (fields.size() == 1 && fields.get(0) == null);
+        return fields;
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new MalformedImportRecordException("Unterminated quoted CSV field at end of file");
+                }
+                if (c == '"') {
+                    c = reader.read();
+                    if (c == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c < 0 || c == '\n' || c == '\r' || c == ',') {
+                fields.add(field.isEmpty() && !wasQuoted ? null : field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                if (c != ',') {
+                    return fields;
+                }
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c != BYTE_ORDER_MARK || !fields.isEmpty() || !field.isEmpty()) {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.netlight.habit_tracker.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.netlight.habit_tracker.exception.UnsupportedFormatException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+public enum ImportFormat {
+    CSV("text/csv") {
+        @Override
+        public ImportRecordReader newReader(final BufferedReader reader, final ObjectMapper objectMapper) throws IOException {
+            return new CsvImportRecordReader(reader);
+        }
+    },
+    NDJSON("application/x-ndjson") {
+        @Override
+        public ImportRecordReader newReader(final BufferedReader reader, final ObjectMapper objectMapper) {
+            return new NdjsonImportRecordReader(reader, objectMapper);
+        }
+    };
+
+    private final String mediaType;
+
+    ImportFormat(final String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Resolves a format from its case-insensitive name, e.g. {@code csv}.
+     */
+    public static ImportFormat fromName(final String name) {
+        for (final ImportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new UnsupportedFormatException("Unsupported import format: " + name);
+    }
+
+    /**
+     * Resolves a format from the media type of an upload, e.g. {@code text/csv}.
+     */
+    public static ImportFormat fromMediaType(final String mediaType) {
+        for (final ImportFormat format : values()) {
+            if (mediaType != null && mediaType.toLowerCase().startsWith(format.mediaType)) {
+                return format;
+            }
+        }
+        throw new UnsupportedFormatException("Unsupported import media type: " + mediaType);
+    }
+
+    public String mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Starts reading records in this format. Fails with
+     * {@link org.netlight.habit_tracker.exception.InvalidImportFileException} when the file
+     * cannot be in this format at all, e.g. because a CSV header lacks the habit column.
+     */
+    public abstract ImportRecordReader newReader(BufferedReader reader, ObjectMapper objectMapper) throws IOException;
+
+}
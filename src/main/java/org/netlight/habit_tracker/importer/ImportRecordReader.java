@@ -0,0 +1,20 @@
+package org.netlight.habit_tracker.importer;
+
+import org.netlight.habit_tracker.dto.request.TrackingImportRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the records of an import file one at a time, without loading the file into memory.
+ */
+public interface ImportRecordReader extends Closeable {
+
+    /**
+     * Returns the next record, or null at the end of the file. A record that cannot be parsed
+     * is consumed and reported with a {@link MalformedImportRecordException}, so reading can
+     * continue with the record after it.
+     */
+    TrackingImportRecord next() throws IOException;
+
+}
@@ -0,0 +1,12 @@
+package org.netlight.habit_tracker.importer;
+
+/**
+ * A record of an import file that could not be parsed. The reader has already moved past it.
+ */
+public class MalformedImportRecordException extends RuntimeException {
+
+    public MalformedImportRecordException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.netlight.habit_tracker.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.netlight.habit_tracker.dto.request.TrackingImportRecord;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads one JSON object per line. Blank lines are skipped.
+ */
+class NdjsonImportRecordReader implements ImportRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader recordReader;
+
+    NdjsonImportRecordReader(final BufferedReader reader, final ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.recordReader = objectMapper.readerFor(TrackingImportRecord.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public TrackingImportRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        try {
+            return recordReader.readValue(line);
+        } catch (final JsonProcessingException e) {
+            throw new MalformedImportRecordException("Malformed JSON record: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
@@ -1,8 +1,13 @@
 package org.netlight.habit_tracker.mapper;
 
+import jakarta.persistence.Tuple;
 import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.model.Frequency;
 import org.netlight.habit_tracker.model.Habit;
 
+import java.time.LocalDate;
+import java.util.UUID;
+
 public final class HabitMapper {
 
     private HabitMapper() {}
@@ -14,6 +19,21 @@ public final class HabitMapper {
             .description(habit.getDescription())
             .frequency(habit.getFrequency())
             .startDate(habit.getStartDate())
+            .version(habit.getVersion())
+            .build();
+    }
+
+    /**
+     * Maps a habit selected with {@link org.netlight.habit_tracker.repository.HabitRepository#RESPONSE_COLUMNS}.
+     */
+    public static HabitResponse mapToHabitResponse(final Tuple habit) {
+        return HabitResponse.builder()
+            .id(habit.get("id", UUID.class))
+            .name(habit.get("name", String.class))
+            .description(habit.get("description", String.class))
+            .frequency(habit.get("frequency", Frequency.class))
+            .startDate(habit.get("startDate", LocalDate.class))
+            .version(habit.get("version", Long.class))
             .build();
     }
 
@@ -0,0 +1,30 @@
+package org.netlight.habit_tracker.mapper;
+
+import org.netlight.habit_tracker.dto.response.ImportJobResponse;
+import org.netlight.habit_tracker.model.ImportJob;
+
+public final class ImportJobMapper {
+
+    private ImportJobMapper() {}
+
+    public static ImportJobResponse mapToImportJobResponse(final ImportJob importJob) {
+        return ImportJobResponse.builder()
+            .id(importJob.getId())
+            .format(importJob.getFormat())
+            .status(importJob.getStatus())
+            .sourceName(importJob.getSourceName())
+            .processedRows(importJob.getProcessedRows())
+            .importedRows(importJob.getImportedRows())
+            .rejectedRows(importJob.getRejectedRows())
+            .createdHabits(importJob.getCreatedHabits())
+            .rowsPerSecond(importJob.getProcessingMillis() > 0
+                ? importJob.getProcessedRows() * 1000.0 / importJob.getProcessingMillis()
+                : 0)
+            .lastRejection(importJob.getLastRejection())
+            .error(importJob.getError())
+            .createdAt(importJob.getCreatedAt())
+            .updatedAt(importJob.getUpdatedAt())
+            .build();
+    }
+
+}
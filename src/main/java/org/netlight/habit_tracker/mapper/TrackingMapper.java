@@ -0,0 +1,21 @@
+package org.netlight.habit_tracker.mapper;
+
+import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.dto.response.TrackingResponse;
+import org.netlight.habit_tracker.model.Tracking;
+
+public final class TrackingMapper {
+
+    private TrackingMapper() {}
+
+    public static TrackingResponse mapToTrackingResponse(final HabitResponse habit, final TrackingExportRow row) {
+        return new TrackingResponse(row.id(), habit, row.timestamp(), row.note());
+    }
+
+    public static TrackingResponse mapToTrackingResponse(final Tracking tracking) {
+        return new TrackingResponse(tracking.getId(), HabitMapper.mapToHabitResponse(tracking.getHabit()),
+            tracking.getTimestamp(), tracking.getNote());
+    }
+
+}
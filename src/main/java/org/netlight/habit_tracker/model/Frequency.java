@@ -1,5 +1,55 @@
 package org.netlight.habit_tracker.model;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+
 public enum Frequency {
-    DAILY, WEEKLY, MONTHLY
+    DAILY {
+        @Override
+        public int periodIndex(final LocalDate startDate, final LocalDate date) {
+            return Math.toIntExact(ChronoUnit.DAYS.between(startDate, date));
+        }
+
+        @Override
+        public LocalDate periodStart(final LocalDate startDate, final int periodIndex) {
+            return startDate.plusDays(periodIndex);
+        }
+    },
+    WEEKLY {
+        @Override
+        public int periodIndex(final LocalDate startDate, final LocalDate date) {
+            return Math.toIntExact(ChronoUnit.WEEKS.between(
+                startDate.with(DayOfWeek.MONDAY), date.with(DayOfWeek.MONDAY)));
+        }
+
+        @Override
+        public LocalDate periodStart(final LocalDate startDate, final int periodIndex) {
+            return startDate.with(DayOfWeek.MONDAY).plusWeeks(periodIndex);
+        }
+    },
+    MONTHLY {
+        @Override
+        public int periodIndex(final LocalDate startDate, final LocalDate date) {
+            return Math.toIntExact(ChronoUnit.MONTHS.between(YearMonth.from(startDate), YearMonth.from(date)));
+        }
+
+        @Override
+        public LocalDate periodStart(final LocalDate startDate, final int periodIndex) {
+            return YearMonth.from(startDate).plusMonths(periodIndex).atDay(1);
+        }
+    };
+
+    /**
+     * Returns the zero-based period containing {@code date}, counted from the period that
+     * contains {@code startDate}: days, ISO weeks (Monday to Sunday) or calendar months.
+     * Dates before the start period give a negative index.
+     */
+    public abstract int periodIndex(LocalDate startDate, LocalDate date);
+
+    /**
+     * Returns the first day of the given period.
+     */
+    public abstract LocalDate periodStart(LocalDate startDate, int periodIndex);
 }
@@ -6,7 +6,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.hibernate.annotations.GenericGenerator;
+import org.netlight.habit_tracker.id.TimeOrderedId;
 
 import java.time.LocalDate;
 import java.util.UUID;
@@ -17,15 +17,20 @@ import java.util.UUID;
 @NoArgsConstructor
 @Getter
 @Setter
-@Table(name = "habits")
+@Table(name = "habits", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "name"}))
 public class Habit {
 
     @Id
-    @GeneratedValue(generator = "uuid2")
-    @GenericGenerator(name = "uuid2", strategy = "uuid2")
+    @TimeOrderedId
     private UUID id;
 
-    @Column(nullable = false, unique = true)
+    /**
+     * The user the habit belongs to; it is only visible to them and stored on their shard.
+     */
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private UUID userId;
+
+    @Column(nullable = false)
     private String name;
 
     private String description;
@@ -37,6 +42,13 @@ public class Habit {
     @Column(name = "start_date", nullable = false)
     private LocalDate startDate;
 
+    /**
+     * Incremented by Hibernate on every update; exposed to clients as the habit's ETag.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,181 @@
+package org.netlight.habit_tracker.model;
+
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable completion bitmap of a habit: bit {@code n} is set when the habit was tracked in
+ * period {@code n} since its start date. Bits are packed into a {@code long[]} that covers a
+ * sliding window of at most {@code maxWords * 64} periods; when a newer period falls outside
+ * the window, the oldest words are dropped.
+ * <p>
+ * Streaks and counts are computed with word-level bit operations.
+ */
+public final class HabitCalendar {
+
+    private static final int BITS_PER_WORD = 64;
+    private static final int OBJECT_OVERHEAD_BYTES = 64;
+
+    @Getter
+    private final Frequency frequency;
+
+    @Getter
+    private final LocalDate startDate;
+
+    // Absolute index of the word stored in words[0]
+    private final int baseWord;
+    private final long[] words;
+
+    private HabitCalendar(final Frequency frequency, final LocalDate startDate, final int baseWord, final long[] words) {
+        this.frequency = frequency;
+        this.startDate = startDate;
+        this.baseWord = baseWord;
+        this.words = words;
+    }
+
+    public static HabitCalendar empty(final Frequency frequency, final LocalDate startDate) {
+        return new HabitCalendar(frequency, startDate, 0, new long[0]);
+    }
+
+    /**
+     * Returns a copy with the given periods marked as completed. Negative periods are ignored.
+     */
+    public HabitCalendar withCompleted(final Collection<Integer> periods, final int maxWords) {
+        int topWord = baseWord + words.length - 1;
+        for (final int period : periods) {
+            if (period >= 0) {
+                topWord = Math.max(topWord, period / BITS_PER_WORD);
+            }
+        }
+        if (topWord < 0) {
+            return this;
+        }
+        final int newBaseWord = Math.max(baseWord, topWord - maxWords + 1);
+        final long[] newWords = new long[topWord - newBaseWord + 1];
+        for (int word = Math.max(baseWord, newBaseWord); word < baseWord + words.length; word++) {
+            newWords[word - newBaseWord] = words[word - baseWord];
+        }
+        for (final int period : periods) {
+            final int local = period / BITS_PER_WORD - newBaseWord;
+            if (period >= 0 && local >= 0) {
+                newWords[local] |= 1L << (period % BITS_PER_WORD);
+            }
+        }
+        return new HabitCalendar(frequency, startDate, newBaseWord, newWords);
+    }
+
+    public boolean isCompleted(final int period) {
+        return period >= 0 && (word(period / BITS_PER_WORD) & (1L << (period % BITS_PER_WORD))) != 0;
+    }
+
+    /**
+     * Whether the window still reaches back to period 0, i.e. no completions were dropped.
+     */
+    public boolean coversFromStart() {
+        return baseWord == 0;
+    }
+
+    /**
+     * Returns the completed periods in {@code [from, to]} in ascending order.
+     */
+    public List<Integer> completedPeriods(final int from, final int to) {
+        final List<Integer> periods = new ArrayList<>();
+        final int first = Math.max(from, 0);
+        for (int word = first / BITS_PER_WORD; word <= to / BITS_PER_WORD && to >= first; word++) {
+            long bits = maskedWord(word, first, to);
+            while (bits != 0) {
+                periods.add(word * BITS_PER_WORD + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+        return periods;
+    }
+
+    /**
+     * Counts the completed periods up to and including {@code upTo}.
+     */
+    public int completedCount(final int upTo) {
+        int count = 0;
+        for (int word = 0; word <= upTo / BITS_PER_WORD && upTo >= 0; word++) {
+            count += Long.bitCount(maskedWord(word, 0, upTo));
+        }
+        return count;
+    }
+
+    /**
+     * Length of the run of completed periods ending in {@code currentPeriod}, or in the
+     * period before it while the current period is still open.
+     */
+    public int currentStreak(final int currentPeriod) {
+        int period = isCompleted(currentPeriod) ? currentPeriod : currentPeriod - 1;
+        int streak = 0;
+        while (period >= 0) {
+            final int bit = period % BITS_PER_WORD;
+            // Move bits [bit..0] to the top and count the leading ones
+            final int ones = Math.min(Long.numberOfLeadingZeros(~word(period / BITS_PER_WORD) << (63 - bit)), bit + 1);
+            streak += ones;
+            if (ones <= bit) {
+                break;
+            }
+            period -= ones;
+        }
+        return streak;
+    }
+
+    /**
+     * Longest run of completed periods up to and including {@code upTo}.
+     */
+    public int longestStreak(final int upTo) {
+        int longest = 0;
+        int run = 0;
+        for (int word = 0; word <= upTo / BITS_PER_WORD && upTo >= 0; word++) {
+            final long bits = maskedWord(word, 0, upTo);
+            if (bits == -1L) {
+                run += BITS_PER_WORD;
+                continue;
+            }
+            longest = Math.max(longest, run + Long.numberOfTrailingZeros(~bits));
+            longest = Math.max(longest, longestRunWithin(bits));
+            run = Long.numberOfLeadingZeros(~bits);
+        }
+        return Math.max(longest, run);
+    }
+
+    /**
+     * Approximate heap footprint of this calendar.
+     */
+    public long memoryBytes() {
+        return OBJECT_OVERHEAD_BYTES + (long) words.length * Long.BYTES;
+    }
+
+    private long word(final int absoluteWord) {
+        final int local = absoluteWord - baseWord;
+        return local >= 0 && local < words.length ? words[local] : 0L;
+    }
+
+    private long maskedWord(final int absoluteWord, final int from, final int to) {
+        long bits = word(absoluteWord);
+        final int firstBit = absoluteWord * BITS_PER_WORD;
+        if (from > firstBit) {
+            bits &= -1L << (from - firstBit);
+        }
+        if (to < firstBit + BITS_PER_WORD - 1) {
+            bits &= -1L >>> (BITS_PER_WORD - 1 - (to - firstBit));
+        }
+        return bits;
+    }
+
+    private static int longestRunWithin(long bits) {
+        int run = 0;
+        while (bits != 0) {
+            bits &= bits << 1;
+            run++;
+        }
+        return run;
+    }
+
+}
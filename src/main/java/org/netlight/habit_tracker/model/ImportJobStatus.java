@@ -0,0 +1,5 @@
+package org.netlight.habit_tracker.model;
+
+public enum ImportJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
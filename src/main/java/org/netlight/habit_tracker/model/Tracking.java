@@ -3,8 +3,6 @@ package org.netlight.habit_tracker.model;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -14,6 +12,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.netlight.habit_tracker.id.TimeOrderedId;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -25,11 +24,11 @@ import java.util.UUID;
 @NoArgsConstructor
 @Getter
 @Setter
-// @Table(name = "trackings") TODO: Create this database-table in /resources/db.changelog-master.xml
+@Table(name = "trackings")
 public class Tracking {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO) // Ensure this works with UUID
+    @TimeOrderedId
     private UUID id;
 
     @ManyToOne(fetch = FetchType.LAZY)
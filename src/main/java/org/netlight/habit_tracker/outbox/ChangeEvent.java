@@ -0,0 +1,26 @@
+package org.netlight.habit_tracker.outbox;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A change to a habit or one of its trackings, with a JSON payload depending on its
+ * {@link ChangeEventType}. The time-ordered id tells when the change was made and orders the
+ * events of one habit.
+ */
+public record ChangeEvent(UUID id,
+                          ChangeEventType type,
+                          UUID userId,
+                          UUID habitId,
+                          @JsonRawValue String payload) {
+
+    @JsonProperty
+    public Instant occurredAt() {
+        return Instant.ofEpochMilli(TimeOrderedUuid.timestamp(id));
+    }
+
+}
@@ -0,0 +1,16 @@
+package org.netlight.habit_tracker.outbox;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Publishes change events downstream, e.g. to a log file or a message broker. The relay calls
+ * it from several threads at once, each with the events of different habits in the order
+ * they were made. A batch that fails is published again, together with the other batches
+ * read with it, so consumers may see an event more than once.
+ */
+public interface ChangeEventSink {
+
+    void publish(List<ChangeEvent> events) throws IOException;
+
+}
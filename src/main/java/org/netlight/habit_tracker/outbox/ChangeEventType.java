@@ -0,0 +1,18 @@
+package org.netlight.habit_tracker.outbox;
+
+/**
+ * The habit and tracking changes published to downstream consumers. The payload of each
+ * event type is described with its constant.
+ */
+public enum ChangeEventType {
+    /** The created habit, as returned by the API */
+    HABIT_CREATED,
+    /** The fields set by the update; absent or null fields were left unchanged */
+    HABIT_UPDATED,
+    /** No payload; the habit's trackings are deleted with it */
+    HABIT_DELETED,
+    /** The tracking's id, timestamp and note */
+    TRACKING_ADDED,
+    /** The deleted tracking's id, timestamp and note */
+    TRACKING_DELETED
+}
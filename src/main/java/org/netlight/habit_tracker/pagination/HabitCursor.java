@@ -0,0 +1,37 @@
+package org.netlight.habit_tracker.pagination;
+
+import org.netlight.habit_tracker.exception.InvalidCursorException;
+import org.netlight.habit_tracker.id.UuidBytes;
+
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Encodes the keyset position of a habit page as an opaque continuation token.
+ * The token is the URL-safe Base64 form of the last returned habit id.
+ */
+public final class HabitCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private HabitCursor() {}
+
+    public static String encode(final UUID lastId) {
+        return ENCODER.encodeToString(UuidBytes.toBytes(lastId));
+    }
+
+    public static UUID decode(final String cursor) {
+        final byte[] bytes;
+        try {
+            bytes = DECODER.decode(cursor);
+        } catch (final IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
+        if (bytes.length != 16) {
+            throw new InvalidCursorException("Malformed cursor: " + cursor);
+        }
+        return UuidBytes.fromBytes(bytes);
+    }
+
+}
@@ -0,0 +1,45 @@
+package org.netlight.habit_tracker.pagination;
+
+import org.netlight.habit_tracker.dto.response.HabitPage;
+import org.netlight.habit_tracker.dto.response.HabitVersion;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Version tag of a keyset page of habits: a digest of the ids and versions on the page and
+ * of whether another page follows. Any created, updated or deleted habit within the page's
+ * range changes it, as does a habit appended after a formerly last page.
+ */
+public final class HabitPageTag {
+
+    private static final int TAG_BYTES = 16;
+
+    private HabitPageTag() {}
+
+    public static String of(final HabitPage page) {
+        return of(page.habits().stream()
+            .map(habit -> new HabitVersion(habit.id(), habit.version() != null ? habit.version() : 0))
+            .toList(), page.nextCursor() != null);
+    }
+
+    public static String of(final List<HabitVersion> habits, final boolean hasNext) {
+        final ByteBuffer buffer = ByteBuffer.allocate(habits.size() * 24 + 1);
+        for (final HabitVersion habit : habits) {
+            buffer.putLong(habit.id().getMostSignificantBits())
+                .putLong(habit.id().getLeastSignificantBits())
+                .putLong(habit.version());
+        }
+        buffer.put((byte) (hasNext ? 1 : 0));
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(buffer.array());
+            return HexFormat.of().formatHex(digest, 0, TAG_BYTES);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+}
@@ -0,0 +1,37 @@
+package org.netlight.habit_tracker.reminder;
+
+import org.netlight.habit_tracker.model.Frequency;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * The columns of a habit that decide when its reminders are due.
+ */
+public record HabitSchedule(UUID id,
+                            UUID userId,
+                            String name,
+                            Frequency frequency,
+                            LocalDate startDate) {
+
+    /**
+     * Returns the period containing {@code date}, or 0 while the habit has not started.
+     */
+    public int currentPeriod(final LocalDate date) {
+        return Math.max(frequency.periodIndex(startDate, date), 0);
+    }
+
+    /**
+     * Returns when the reminder for a period is due: {@code leadTime} before the period ends,
+     * but not before it starts.
+     */
+    public Instant due(final int period, final Duration leadTime, final ZoneId zone) {
+        final Instant start = frequency.periodStart(startDate, period).atStartOfDay(zone).toInstant();
+        final Instant due = frequency.periodStart(startDate, period + 1).atStartOfDay(zone).toInstant().minus(leadTime);
+        return due.isBefore(start) ? start : due;
+    }
+
+}
@@ -0,0 +1,18 @@
+package org.netlight.habit_tracker.reminder;
+
+import org.netlight.habit_tracker.model.Frequency;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * A reminder that the period starting on {@code periodStart} has no tracking yet and is
+ * about to end.
+ */
+public record Reminder(UUID userId,
+                       UUID habitId,
+                       String habitName,
+                       Frequency frequency,
+                       LocalDate periodStart,
+                       Instant due) {}
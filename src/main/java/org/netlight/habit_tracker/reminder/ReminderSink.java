@@ -0,0 +1,15 @@
+package org.netlight.habit_tracker.reminder;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Delivers due reminders, e.g. to a log file, a message queue or a push service. Batches are
+ * handed over from a single thread. A batch that fails is retried as a whole, so a sink may
+ * deliver some reminders more than once.
+ */
+public interface ReminderSink {
+
+    void send(List<Reminder> reminders) throws IOException;
+
+}
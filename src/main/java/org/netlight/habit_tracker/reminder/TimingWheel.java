@@ -0,0 +1,196 @@
+package org.netlight.habit_tracker.reminder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel of keyed deadlines, after Varghese and Lauck. Time advances in
+ * ticks; every level has {@code 2^slotBits} slots, and a slot of level {@code L} spans
+ * {@code 2^(slotBits * L)} ticks. A deadline is placed on the lowest level whose range
+ * reaches it and moves down one level or more whenever the lower wheels wrap around to its
+ * slot, so each entry is touched at most once per level.
+ * <p>
+ * Scheduling, rescheduling and cancelling are O(1), and advancing by one tick costs only
+ * the entries that expire on it plus, at wheel boundaries, those that cascade down. Each key
+ * has at most one deadline; scheduling it again replaces the previous one. Deadlines beyond
+ * the range of the top level are parked in its farthest slot and placed again when it comes
+ * round. An entry never expires before its deadline, but up to one tick after it.
+ * <p>
+ * Not thread-safe.
+ */
+public final class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final int slotBits;
+    private final int slotMask;
+    private final int levels;
+    private final long maxDelta;
+    private final Entry<K>[] slots;
+    private final int overdue;
+    private final Map<K, Entry<K>> entries = new HashMap<>();
+    // The next tick to expire; all ticks before it have been handed out
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(final long tickMillis, final int slotBits, final int levels, final long startMillis) {
+        if (tickMillis <= 0 || slotBits <= 0 || levels <= 0 || (long) slotBits * levels >= Long.SIZE - 2) {
+            throw new IllegalArgumentException("Invalid timing wheel dimensions");
+        }
+        this.tickMillis = tickMillis;
+        this.slotBits = slotBits;
+        this.slotMask = (1 << slotBits) - 1;
+        this.levels = levels;
+        this.maxDelta = (1L << (slotBits * levels)) - 1;
+        // Plus one list for deadlines of ticks that have already been expired
+        this.slots = new Entry[(levels << slotBits) + 1];
+        this.overdue = levels << slotBits;
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules {@code key} to expire at {@code deadlineMillis}, replacing any deadline it
+     * already has. Deadlines that have passed expire on the next {@link #advance}.
+     */
+    public void schedule(final K key, final long deadlineMillis) {
+        Entry<K> entry = entries.get(key);
+        if (entry != null) {
+            unlink(entry);
+        } else {
+            entry = new Entry<>(key);
+            entries.put(key, entry);
+        }
+        entry.deadlineTick = -Math.floorDiv(-deadlineMillis, tickMillis);
+        place(entry);
+    }
+
+    /**
+     * Removes the deadline of {@code key}. Returns whether it had one.
+     */
+    public boolean cancel(final K key) {
+        final Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    public boolean contains(final K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Returns the deadline of {@code key} rounded up to a whole tick, or -1 if it has none.
+     */
+    public long deadline(final K key) {
+        final Entry<K> entry = entries.get(key);
+        return entry != null ? entry.deadlineTick * tickMillis : -1;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Expires every tick up to and including the one containing {@code nowMillis} and hands
+     * the keys whose deadlines have been reached to {@code expired}, which must not modify
+     * this wheel.
+     */
+    public void advance(final long nowMillis, final Consumer<K> expired) {
+        final long nowTick = Math.floorDiv(nowMillis, tickMillis);
+        if (entries.isEmpty()) {
+            currentTick = Math.max(currentTick, nowTick + 1);
+            return;
+        }
+        while (currentTick <= nowTick) {
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (slotBits * level)) - 1)) == 0) {
+                    cascade(level, slotOf(currentTick, level));
+                }
+            }
+            expire(slotOf(currentTick, 0), expired);
+            currentTick++;
+            if (entries.isEmpty()) {
+                currentTick = Math.max(currentTick, nowTick + 1);
+            }
+        }
+        expire(overdue, expired);
+    }
+
+    private void expire(final int index, final Consumer<K> expired) {
+        Entry<K> entry = slots[index];
+        slots[index] = null;
+        while (entry != null) {
+            final Entry<K> next = entry.next;
+            entry.next = null;
+            entries.remove(entry.key);
+            expired.accept(entry.key);
+            entry = next;
+        }
+    }
+
+    private void cascade(final int level, final int slot) {
+        final int index = (level << slotBits) | slot;
+        Entry<K> entry = slots[index];
+        slots[index] = null;
+        while (entry != null) {
+            final Entry<K> next = entry.next;
+            entry.next = null;
+            place(entry);
+            entry = next;
+        }
+    }
+
+    private void place(final Entry<K> entry) {
+        final int index;
+        if (entry.deadlineTick < currentTick) {
+            index = overdue;
+        } else {
+            final long delta = Math.min(entry.deadlineTick - currentTick, maxDelta);
+            int level = 0;
+            while (level < levels - 1 && delta >> (slotBits * (level + 1)) != 0) {
+                level++;
+            }
+            index = (level << slotBits) | slotOf(currentTick + delta, level);
+        }
+        final Entry<K> head = slots[index];
+        entry.index = index;
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        slots[index] = entry;
+    }
+
+    private void unlink(final Entry<K> entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            slots[entry.index] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    private int slotOf(final long tick, final int level) {
+        return (int) (tick >>> (slotBits * level)) & slotMask;
+    }
+
+    private static final class Entry<K> {
+        private final K key;
+        private long deadlineTick;
+        private int index;
+        private Entry<K> prev;
+        private Entry<K> next;
+
+        private Entry(final K key) {
+            this.key = key;
+        }
+    }
+
+}
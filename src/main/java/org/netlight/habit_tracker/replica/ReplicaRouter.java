@@ -0,0 +1,191 @@
+package org.netlight.habit_tracker.replica;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.ReplicaProperties;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.netlight.habit_tracker.service.TransactionHooks.afterCommit;
+
+/**
+ * Puts the read replicas of each shard in front of its primary, checks them in the
+ * background and remembers which users wrote recently, so that they read their own writes
+ * from the primary until the replicas have caught up.
+ */
+@Log4j2
+@Component
+public class ReplicaRouter implements ApplicationRunner {
+
+    public enum ReadRoute {
+        REPLICA, PRIMARY_RECENT_WRITE, PRIMARY_NO_REPLICA
+    }
+
+    private final ReplicaProperties properties;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Cache<UUID, Boolean> recentWriters;
+    private final Map<ReadRoute, Counter> reads = new EnumMap<>(ReadRoute.class);
+    private final List<ReplicaRoutingDataSource> dataSources = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "replica-health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaRouter(final ReplicaProperties properties,
+                         final Environment environment,
+                         final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.recentWriters = Caffeine.newBuilder()
+            .expireAfterWrite(properties.readYourWritesWindow())
+            .maximumSize(properties.maxWriters())
+            .build();
+        for (final ReadRoute route : ReadRoute.values()) {
+            reads.put(route, Counter.builder("habit_tracker.replica.reads")
+                .description("Read-only transactions by where they read from")
+                .tag("route", route.name().toLowerCase())
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Returns a data source that sends read-only transactions on the given shard to its
+     * replicas, or the primary itself when no replicas are configured for the shard.
+     */
+    public DataSource withReplicas(final String shard, final DataSource primary) {
+        if (!properties.enabled()) {
+            return primary;
+        }
+        final List<ReplicaRoutingDataSource.Replica> replicas = properties.instances().stream()
+            .filter(replica -> replica.shard().equals(shard))
+            .map(replica -> new ReplicaRoutingDataSource.Replica(replica.name(), createPool(replica)))
+            .toList();
+        if (replicas.isEmpty()) {
+            return primary;
+        }
+        final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(shard, primary, replicas, this);
+        for (final ReplicaRoutingDataSource.Replica replica : replicas) {
+            Gauge.builder("habit_tracker.replica.lag", replica, ReplicaRoutingDataSource.Replica::lagMillis)
+                .description("How far the replica was behind its primary at the last health check")
+                .baseUnit("milliseconds")
+                .tag("shard", shard)
+                .tag("replica", replica.name())
+                .register(meterRegistry);
+            Gauge.builder("habit_tracker.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                .description("Whether the replica passed its last health check")
+                .tag("shard", shard)
+                .tag("replica", replica.name())
+                .register(meterRegistry);
+        }
+        dataSources.add(routing);
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Checks all replicas once right away, so that reads can use them as soon as the
+     * application serves requests, then keeps checking them in the background.
+     */
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (dataSources.isEmpty()) {
+            return;
+        }
+        final Set<String> routedShards = dataSources.stream()
+            .map(ReplicaRoutingDataSource::getShard)
+            .collect(Collectors.toSet());
+        final List<String> unrouted = properties.instances().stream()
+            .filter(replica -> !routedShards.contains(replica.shard()))
+            .map(ReplicaProperties.Replica::name)
+            .toList();
+        if (!unrouted.isEmpty()) {
+            throw new IllegalStateException("Replicas " + unrouted + " belong to no configured shard");
+        }
+        if (properties.readYourWritesWindow().compareTo(properties.maxLag().plus(properties.healthCheckInterval())) < 0) {
+            log.warn("Read-your-writes window {} is shorter than the maximum lag plus one health check interval;"
+                + " users may not see their own writes", properties.readYourWritesWindow());
+        }
+        checkReplicas();
+        final long interval = properties.healthCheckInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void checkReplicas() {
+        final int timeoutSeconds = (int) Math.max(1, properties.healthCheckTimeout().toSeconds());
+        for (final ReplicaRoutingDataSource dataSource : dataSources) {
+            try {
+                dataSource.checkReplicas(timeoutSeconds);
+            } catch (final RuntimeException e) {
+                log.error("Checking the replicas of shard {} failed", dataSource.getShard(), e);
+            }
+        }
+    }
+
+    /**
+     * Remembers that the current user changed data, once the change is committed.
+     */
+    void recordWrite() {
+        final UUID userId = UserContext.currentUser();
+        afterCommit(() -> recentWriters.put(userId, Boolean.TRUE));
+    }
+
+    boolean wroteRecently() {
+        return recentWriters.getIfPresent(UserContext.currentUser()) != null;
+    }
+
+    void recordRead(final ReadRoute route) {
+        reads.get(route).increment();
+    }
+
+    long maxLagMillis() {
+        return properties.maxLag().toMillis();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        dataSources.forEach(ReplicaRoutingDataSource::close);
+    }
+
+    private HikariDataSource createPool(final ReplicaProperties.Replica replica) {
+        final HikariConfig config = Binder.get(environment)
+            .bind("spring.datasource.hikari", Bindable.ofInstance(new HikariConfig()))
+            .orElseGet(HikariConfig::new);
+        config.setPoolName("replica-" + replica.name());
+        config.setJdbcUrl(replica.url());
+        config.setUsername(replica.username());
+        config.setPassword(replica.password());
+        config.setReadOnly(true);
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new HikariDataSource(config);
+    }
+
+}
@@ -0,0 +1,246 @@
+package org.netlight.habit_tracker.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections of the primary of one shard, or of one of its replicas for read-only
+ * transactions. Reads go to the available replicas in turn; a replica is available while its
+ * last health check passed and it lagged no more than the maximum lag. Reads go to the
+ * primary when no replica is available, or when the current user wrote recently.
+ * <p>
+ * A transaction is only known to be read-only once it has begun, after the transaction
+ * manager asked for its connection, so {@link ReplicaRouter} puts this data source behind a
+ * proxy that obtains the real connection on first use. Statements that change data on the
+ * primary are reported to the router once they are committed.
+ */
+@Log4j2
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    static final String READ_HEARTBEAT_SQL = "select beat from replication_heartbeat where id = 1";
+    static final String WRITE_HEARTBEAT_SQL = "update replication_heartbeat set beat = ? where id = 1";
+
+    private static final Set<String> WRITE_METHODS =
+        Set.of("executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final String shard;
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaRouter router;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReplicaRoutingDataSource(final String shard,
+                             final DataSource primary,
+                             final List<Replica> replicas,
+                             final ReplicaRouter router) {
+        this.shard = shard;
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.router = router;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return trackingWrites(primary.getConnection());
+        }
+        if (router.wroteRecently()) {
+            router.recordRead(ReplicaRouter.ReadRoute.PRIMARY_RECENT_WRITE);
+            return primary.getConnection();
+        }
+        final int first = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            final Replica replica = replicas.get(Math.floorMod(first + i, replicas.size()));
+            if (replica.isAvailable(router.maxLagMillis())) {
+                try {
+                    final Connection connection = replica.pool().getConnection();
+                    router.recordRead(ReplicaRouter.ReadRoute.REPLICA);
+                    return connection;
+                } catch (final SQLException e) {
+                    log.warn("Replica {} of shard {} failed, trying the next one", replica.name(), shard, e);
+                    replica.markDown();
+                }
+            }
+        }
+        router.recordRead(ReplicaRouter.ReadRoute.PRIMARY_NO_REPLICA);
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) {
+        throw new UnsupportedOperationException("Replica routing only uses the credentials of its pools");
+    }
+
+    public String getShard() {
+        return shard;
+    }
+
+    List<Replica> replicas() {
+        return replicas;
+    }
+
+    /**
+     * Checks every replica and measures how far its heartbeat is behind the primary's, then
+     * writes the next heartbeat to the primary. Lag is therefore known to within the time
+     * between two heartbeats, from this or any other node.
+     */
+    void checkReplicas(final int timeoutSeconds) {
+        Long primaryBeat = null;
+        try (Connection connection = primary.getConnection()) {
+            primaryBeat = readHeartbeat(connection);
+        } catch (final SQLException e) {
+            log.warn("Could not read the replication heartbeat of shard {}", shard, e);
+        }
+        for (final Replica replica : replicas) {
+            replica.check(primaryBeat, timeoutSeconds, shard);
+        }
+        try (Connection connection = primary.getConnection();
+             PreparedStatement statement = connection.prepareStatement(WRITE_HEARTBEAT_SQL)) {
+            statement.setLong(1, System.currentTimeMillis());
+            statement.executeUpdate();
+        } catch (final SQLException e) {
+            log.warn("Could not write the replication heartbeat of shard {}", shard, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (primary instanceof HikariDataSource pool) {
+            pool.close();
+        }
+        for (final Replica replica : replicas) {
+            replica.pool().close();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    static long readHeartbeat(final Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(READ_HEARTBEAT_SQL)) {
+            if (!resultSet.next()) {
+                throw new SQLException("No replication heartbeat row");
+            }
+            return resultSet.getLong(1);
+        }
+    }
+
+    private Connection trackingWrites(final Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+            new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                final Object result = invoke(connection, method, args);
+                return result instanceof Statement statement ? trackingWrites(statement, method.getReturnType()) : result;
+            });
+    }
+
+    private Object trackingWrites(final Statement statement, final Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            final Object result = invoke(statement, method, args);
+            // A plain execute() returns false when the statement produced an update count
+            if (WRITE_METHODS.contains(method.getName()) || method.getName().equals("execute") && Boolean.FALSE.equals(result)) {
+                router.recordWrite();
+            }
+            return result;
+        });
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * One replica with the outcome of its last health check. Replicas start out unavailable
+     * until their first check passed.
+     */
+    static final class Replica {
+
+        private final String name;
+        private final HikariDataSource pool;
+        private volatile boolean healthy;
+        private volatile long lagMillis;
+
+        Replica(final String name, final HikariDataSource pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        String name() {
+            return name;
+        }
+
+        HikariDataSource pool() {
+            return pool;
+        }
+
+        boolean isHealthy() {
+            return healthy;
+        }
+
+        long lagMillis() {
+            return lagMillis;
+        }
+
+        boolean isAvailable(final long maxLagMillis) {
+            return healthy && lagMillis <= maxLagMillis;
+        }
+
+        void markDown() {
+            healthy = false;
+        }
+
+        /**
+         * Checks the replica and measures its lag against the given primary heartbeat; with
+         * no primary heartbeat the previous lag is kept.
+         */
+        void check(final Long primaryBeat, final int timeoutSeconds, final String shard) {
+            try (Connection connection = pool.getConnection()) {
+                if (!connection.isValid(timeoutSeconds)) {
+                    throw new SQLException("Connection not valid within " + timeoutSeconds + "s");
+                }
+                final long beat = readHeartbeat(connection);
+                if (primaryBeat != null) {
+                    lagMillis = Math.max(0, primaryBeat - beat);
+                }
+                if (!healthy) {
+                    log.info("Replica {} of shard {} is available, {} ms behind", name, shard, lagMillis);
+                }
+                healthy = true;
+            } catch (final SQLException e) {
+                if (healthy) {
+                    log.warn("Replica {} of shard {} failed its health check", name, shard, e);
+                }
+                healthy = false;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,66 @@
+package org.netlight.habit_tracker.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.outbox.ChangeEvent;
+import org.netlight.habit_tracker.outbox.ChangeEventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.REPOSITORY_TIMER;
+
+/**
+ * The {@code change_events} outbox table.
+ */
+@Timed(REPOSITORY_TIMER)
+@Repository
+@AllArgsConstructor
+public class ChangeEventRepository {
+
+    @Autowired
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(final List<ChangeEvent> events) {
+        jdbcTemplate.batchUpdate(
+            "insert into change_events (id, event_type, user_id, habit_id, payload) values (?, ?, ?, ?, ?)",
+            events.stream()
+                .map(event -> new Object[] {
+                    UuidBytes.toBytes(event.id()),
+                    event.type().name(),
+                    UuidBytes.toBytes(event.userId()),
+                    UuidBytes.toBytes(event.habitId()),
+                    event.payload()})
+                .toList());
+    }
+
+    /**
+     * Returns up to {@code limit} of the oldest events, oldest first.
+     */
+    public List<ChangeEvent> findOldest(final int limit) {
+        return jdbcTemplate.query(
+            "select id, event_type, user_id, habit_id, payload from change_events order by id limit ?",
+            (rs, rowNum) -> new ChangeEvent(
+                UuidBytes.fromBytes(rs.getBytes("id")),
+                ChangeEventType.valueOf(rs.getString("event_type")),
+                UuidBytes.fromBytes(rs.getBytes("user_id")),
+                UuidBytes.fromBytes(rs.getBytes("habit_id")),
+                rs.getString("payload")),
+            limit);
+    }
+
+    public void delete(final Collection<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(
+            "delete from change_events where id in (" + String.join(", ", Collections.nCopies(events.size(), "?")) + ")",
+            events.stream().map(event -> UuidBytes.toBytes(event.id())).toArray());
+    }
+
+}
@@ -0,0 +1,85 @@
+package org.netlight.habit_tracker.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.REPOSITORY_TIMER;
+
+/**
+ * Single-statement writes to the habits table, without reading the row first. Each call is
+ * one round trip and, outside of a transaction, holds the row lock only while its statement
+ * runs. Versions are incremented here as Hibernate would for {@code @Version}.
+ */
+@Timed(REPOSITORY_TIMER)
+@Repository
+@AllArgsConstructor
+public class HabitJdbcRepository {
+
+    @Autowired
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Sets the non-null fields of {@code changes} and increments the version, provided the
+     * habit exists for the user and, if {@code expectedVersion} is given, still has that
+     * version. Returns the number of updated rows, 0 or 1.
+     */
+    public int update(final UUID id, final UUID userId, final HabitRequest changes, final Long expectedVersion) {
+        final StringBuilder sql = new StringBuilder("update habits set ");
+        final List<Object> args = new ArrayList<>(7);
+        if (changes.name() != null) {
+            sql.append("name = ?, ");
+            args.add(changes.name());
+        }
+        if (changes.description() != null) {
+            sql.append("description = ?, ");
+            args.add(changes.description());
+        }
+        if (changes.frequency() != null) {
+            sql.append("frequency = ?, ");
+            args.add(changes.frequency().name());
+        }
+        if (changes.startDate() != null) {
+            sql.append("start_date = ?, ");
+            args.add(Date.valueOf(changes.startDate()));
+        }
+        sql.append("version = version + 1 where id = ? and user_id = ?");
+        args.add(UuidBytes.toBytes(id));
+        args.add(UuidBytes.toBytes(userId));
+        return jdbcTemplate.update(withVersionCondition(sql, expectedVersion, args), args.toArray());
+    }
+
+    /**
+     * Deletes the habit, provided it exists for the user and, if {@code expectedVersion} is
+     * given, still has that version. Its rollups go with it through the foreign key's cascade,
+     * its trackings only while they are kept in an unpartitioned table; callers remove them
+     * with {@link TrackingStore#deleteByHabitId}. Returns the number of deleted rows, 0 or 1.
+     */
+    public int delete(final UUID id, final UUID userId, final Long expectedVersion) {
+        final List<Object> args = new ArrayList<>(3);
+        args.add(UuidBytes.toBytes(id));
+        args.add(UuidBytes.toBytes(userId));
+        return jdbcTemplate.update(
+            withVersionCondition(new StringBuilder("delete from habits where id = ? and user_id = ?"), expectedVersion, args),
+            args.toArray());
+    }
+
+    private static String withVersionCondition(final StringBuilder sql, final Long expectedVersion,
+                                               final List<Object> args) {
+        if (expectedVersion != null) {
+            sql.append(" and version = ?");
+            args.add(expectedVersion);
+        }
+        return sql.toString();
+    }
+
+}
@@ -0,0 +1,96 @@
+package org.netlight.habit_tracker.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.reminder.HabitSchedule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.REPOSITORY_TIMER;
+
+/**
+ * Batched reads of the habit columns and rollups that due-habit reminders depend on, across
+ * all users of a shard.
+ */
+@Timed(REPOSITORY_TIMER)
+@Repository
+@AllArgsConstructor
+public class HabitReminderRepository {
+
+    private static final String COLUMNS = "select id, user_id, name, frequency, start_date from habits";
+
+    private static final RowMapper<HabitSchedule> HABIT_SCHEDULE = (rs, rowNum) -> new HabitSchedule(
+        UuidBytes.fromBytes(rs.getBytes("id")),
+        UuidBytes.fromBytes(rs.getBytes("user_id")),
+        rs.getString("name"),
+        Frequency.valueOf(rs.getString("frequency")),
+        rs.getObject("start_date", LocalDate.class));
+
+    @Autowired
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns up to {@code limit} habits with ids greater than {@code afterId}, or from the
+     * first one when it is null, in id order.
+     */
+    public List<HabitSchedule> findPage(final UUID afterId, final int limit) {
+        if (afterId == null) {
+            return jdbcTemplate.query(COLUMNS + " order by id limit ?", HABIT_SCHEDULE, limit);
+        }
+        return jdbcTemplate.query(COLUMNS + " where id > ? order by id limit ?",
+            HABIT_SCHEDULE, UuidBytes.toBytes(afterId), limit);
+    }
+
+    /**
+     * Returns the habits with the given ids that still exist.
+     */
+    public List<HabitSchedule> findByIds(final Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.query(COLUMNS + " where id in (" + placeholders(ids.size(), "?") + ")",
+            HABIT_SCHEDULE, ids.stream().map(UuidBytes::toBytes).toArray());
+    }
+
+    /**
+     * Returns which of the habits have at least one tracking in the period given for them.
+     */
+    public Set<UUID> findCompleted(final Map<UUID, Integer> periodByHabit) {
+        if (periodByHabit.isEmpty()) {
+            return Set.of();
+        }
+        final List<Object> args = new ArrayList<>(periodByHabit.size() * 2);
+        periodByHabit.forEach((habitId, period) -> {
+            args.add(UuidBytes.toBytes(habitId));
+            args.add(period);
+        });
+        final Set<UUID> completed = new HashSet<>();
+        jdbcTemplate.query(
+            "select habit_id from habit_period_rollups where tracking_count > 0 and (habit_id, period_index) in ("
+                + placeholders(periodByHabit.size(), "(?, ?)") + ")",
+            rs -> {
+                completed.add(UuidBytes.fromBytes(rs.getBytes(1)));
+            },
+            args.toArray());
+        return completed;
+    }
+
+    private static String placeholders(final int count, final String placeholder) {
+        return String.join(", ", Collections.nCopies(count, placeholder));
+    }
+
+}
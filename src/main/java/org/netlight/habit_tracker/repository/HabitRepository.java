@@ -1,9 +1,110 @@
 package org.netlight.habit_tracker.repository;
 
+import jakarta.persistence.QueryHint;
+import jakarta.persistence.Tuple;
+import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.dto.response.HabitVersion;
 import org.netlight.habit_tracker.model.Habit;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface HabitRepository extends JpaRepository<Habit, UUID> {
+
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * First keyset page of all users' habits on the current shard, for jobs that work
+     * through the whole table.
+     */
+    List<Habit> findAllByOrderByIdAsc(Limit limit);
+
+    List<Habit> findByIdGreaterThanOrderByIdAsc(UUID id, Limit limit);
+
+    @Transactional(readOnly = true)
+    Optional<Habit> findByIdAndUserId(UUID id, UUID userId);
+
+    @Transactional(readOnly = true)
+    boolean existsByIdAndUserId(UUID id, UUID userId);
+
+    List<Habit> findByUserIdAndIdIn(UUID userId, Collection<UUID> ids);
+
+    List<Habit> findByUserIdAndNameIn(UUID userId, Collection<String> names);
+
+    /**
+     * The columns of a {@link HabitResponse}, selected as a tuple for
+     * {@link org.netlight.habit_tracker.mapper.HabitMapper#mapToHabitResponse(Tuple)}. A
+     * constructor expression cannot be used, as Hibernate does not match {@code Frequency},
+     * whose constants have bodies, against the constructor's parameter.
+     */
+    String RESPONSE_COLUMNS = "h.id as id, h.name as name, h.description as description,"
+        + " h.frequency as frequency, h.startDate as startDate, h.version as version";
+
+    /**
+     * A habit projected straight into a tuple, without hydrating the entity.
+     */
+    @Query("select " + RESPONSE_COLUMNS + " from Habit h where h.id = :id and h.userId = :userId")
+    @Transactional(readOnly = true)
+    Optional<Tuple> findResponseByIdAndUserId(UUID id, UUID userId);
+
+    /**
+     * First keyset page of a user's habits, projected like {@link #findResponseByIdAndUserId}.
+     */
+    @Query("select " + RESPONSE_COLUMNS + " from Habit h where h.userId = :userId order by h.id")
+    @Transactional(readOnly = true)
+    List<Tuple> findAllResponses(UUID userId, Limit limit);
+
+    @Query("select " + RESPONSE_COLUMNS + " from Habit h where h.userId = :userId and h.id > :id order by h.id")
+    @Transactional(readOnly = true)
+    List<Tuple> findResponsesAfter(UUID userId, UUID id, Limit limit);
+
+    @Transactional(readOnly = true)
+    @Query("select h.version from Habit h where h.id = :id and h.userId = :userId")
+    Optional<Long> findVersionByIdAndUserId(UUID id, UUID userId);
+
+    /**
+     * Ids and versions of the first keyset page of a user's habits, for deciding conditional
+     * requests without hydrating entities.
+     */
+    @Query("""
+        select new org.netlight.habit_tracker.dto.response.HabitVersion(h.id, h.version)
+        from Habit h
+        where h.userId = :userId
+        order by h.id
+        """)
+    @Transactional(readOnly = true)
+    List<HabitVersion> findAllVersions(UUID userId, Limit limit);
+
+    @Query("""
+        select new org.netlight.habit_tracker.dto.response.HabitVersion(h.id, h.version)
+        from Habit h
+        where h.userId = :userId and h.id > :id
+        order by h.id
+        """)
+    @Transactional(readOnly = true)
+    List<HabitVersion> findVersionsAfter(UUID userId, UUID id, Limit limit);
+
+    /**
+     * Streams every habit of a user as tuples, projected like {@link #findResponseByIdAndUserId},
+     * so no entities are hydrated or kept in the persistence context. Must be consumed inside
+     * a transaction and closed afterwards.
+     */
+    @Query("select " + RESPONSE_COLUMNS + " from Habit h where h.userId = :userId order by h.id")
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+        @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    Stream<Tuple> streamAllHabitResponses(UUID userId);
+
 }
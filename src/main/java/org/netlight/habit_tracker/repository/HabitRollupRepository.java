@@ -0,0 +1,65 @@
+package org.netlight.habit_tracker.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.REPOSITORY_TIMER;
+
+/**
+ * Per-habit, per-period tracking counters in the {@code habit_period_rollups} table.
+ */
+@Timed(REPOSITORY_TIMER)
+@Repository
+@AllArgsConstructor
+public class HabitRollupRepository {
+
+    private static final String INCREMENT_SQL = """
+        insert into habit_period_rollups (habit_id, period_index, tracking_count) values (?, ?, ?)
+        on duplicate key update tracking_count = tracking_count + values(tracking_count)
+        """;
+
+    private static final String DECREMENT_SQL = """
+        update habit_period_rollups set tracking_count = tracking_count - 1
+        where habit_id = ? and period_index = ? and tracking_count > 0
+        """;
+
+    @Autowired
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the given counts to the rollups of one habit, keyed by period index.
+     */
+    public void increment(final UUID habitId, final Map<Integer, Integer> countsByPeriod) {
+        final byte[] habitIdBytes = UuidBytes.toBytes(habitId);
+        final List<Object[]> rows = new ArrayList<>(countsByPeriod.size());
+        countsByPeriod.forEach((periodIndex, count) -> rows.add(new Object[] {habitIdBytes, periodIndex, count}));
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, rows);
+    }
+
+    public void decrement(final UUID habitId, final int periodIndex) {
+        jdbcTemplate.update(DECREMENT_SQL, UuidBytes.toBytes(habitId), periodIndex);
+    }
+
+    /**
+     * Returns the indexes of all periods with at least one tracking, in ascending order.
+     */
+    public List<Integer> findCompletedPeriods(final UUID habitId) {
+        return jdbcTemplate.queryForList(
+            "select period_index from habit_period_rollups where habit_id = ? and tracking_count > 0 order by period_index",
+            Integer.class, UuidBytes.toBytes(habitId));
+    }
+
+    public void deleteByHabitId(final UUID habitId) {
+        jdbcTemplate.update("delete from habit_period_rollups where habit_id = ?", UuidBytes.toBytes(habitId));
+    }
+
+}
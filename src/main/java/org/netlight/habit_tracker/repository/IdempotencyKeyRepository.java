@@ -0,0 +1,92 @@
+package org.netlight.habit_tracker.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.idempotency.IdempotentResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.REPOSITORY_TIMER;
+
+/**
+ * Idempotency keys and the responses stored for them. The key is the primary key, so
+ * inserting it is what decides which of several concurrent requests, on any node, handles
+ * the request. A row without a status is still being handled.
+ */
+@Timed(REPOSITORY_TIMER)
+@Repository
+@AllArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private static final String INSERT_SQL =
+        "insert into idempotency_keys (idempotency_key, fingerprint, created_at) values (?, ?, ?)";
+
+    private static final String SELECT_COMPLETED_SQL =
+        "select fingerprint, status, content_type, body from idempotency_keys"
+            + " where idempotency_key = ? and status is not null and created_at >= ?";
+
+    private static final String COMPLETE_SQL =
+        "update idempotency_keys set status = ?, content_type = ?, body = ? where idempotency_key = ?";
+
+    private static final String DELETE_SQL = "delete from idempotency_keys where idempotency_key = ?";
+
+    private static final String DELETE_EXPIRED_KEY_SQL =
+        "delete from idempotency_keys where idempotency_key = ? and created_at < ?";
+
+    private static final String DELETE_EXPIRED_SQL = "delete from idempotency_keys where created_at < ?";
+
+    @Autowired
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Claims a key. Returns false when the key already exists, expired or not.
+     */
+    public boolean insert(final String key, final byte[] fingerprint, final LocalDateTime createdAt) {
+        try {
+            return jdbcTemplate.update(INSERT_SQL, key, fingerprint, Timestamp.valueOf(createdAt)) == 1;
+        } catch (final DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The stored response of a key created at or after {@code notBefore}, if its request has completed.
+     */
+    public Optional<IdempotentResponse> findCompleted(final String key, final LocalDateTime notBefore) {
+        return jdbcTemplate.query(SELECT_COMPLETED_SQL, (resultSet, rowNum) -> new IdempotentResponse(
+                resultSet.getBytes(1),
+                resultSet.getInt(2),
+                resultSet.getString(3),
+                resultSet.getBytes(4)),
+            key, Timestamp.valueOf(notBefore)).stream().findFirst();
+    }
+
+    public void complete(final String key, final IdempotentResponse response) {
+        jdbcTemplate.update(COMPLETE_SQL, response.status(), response.contentType(), response.body(), key);
+    }
+
+    public void delete(final String key) {
+        jdbcTemplate.update(DELETE_SQL, key);
+    }
+
+    /**
+     * Deletes the key if it was created before {@code cutoff}. Returns whether it was deleted.
+     */
+    public boolean deleteExpired(final String key, final LocalDateTime cutoff) {
+        return jdbcTemplate.update(DELETE_EXPIRED_KEY_SQL, key, Timestamp.valueOf(cutoff)) > 0;
+    }
+
+    /**
+     * Deletes all keys created before {@code cutoff}. Returns the number of deleted keys.
+     */
+    public int deleteExpired(final LocalDateTime cutoff) {
+        return jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.valueOf(cutoff));
+    }
+
+}
@@ -0,0 +1,21 @@
+package org.netlight.habit_tracker.repository;
+
+import org.netlight.habit_tracker.model.ImportJob;
+import org.netlight.habit_tracker.model.ImportJobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, UUID> {
+
+    /**
+     * Jobs of all users on the current shard with one of the given statuses.
+     */
+    List<ImportJob> findByStatusInOrderByIdAsc(Collection<ImportJobStatus> statuses);
+
+    Optional<ImportJob> findByIdAndUserId(UUID id, UUID userId);
+
+}
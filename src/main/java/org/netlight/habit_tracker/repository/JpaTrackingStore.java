@@ -0,0 +1,97 @@
+package org.netlight.habit_tracker.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.config.TrackingPartitionProperties;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.REPOSITORY_TIMER;
+
+/**
+ * Keeps trackings in the {@code trackings} table, the default {@link TrackingStore}.
+ */
+@Timed(REPOSITORY_TIMER)
+@Repository
+@ConditionalOnProperty(prefix = "habit-tracker.tracking-store", name = "type", havingValue = "jpa", matchIfMissing = true)
+@AllArgsConstructor
+public class JpaTrackingStore implements TrackingStore {
+
+    @Autowired
+    private final TrackingRepository trackingRepository;
+
+    @Autowired
+    private final TrackingJdbcRepository trackingJdbcRepository;
+
+    @Autowired
+    private final TrackingPartitionProperties trackingPartitionProperties;
+
+    @Override
+    public Tracking save(final Tracking tracking) {
+        return trackingRepository.save(tracking);
+    }
+
+    @Override
+    public void saveAll(final List<Tracking> trackings) {
+        trackingJdbcRepository.batchInsert(trackings);
+    }
+
+    @Override
+    public Optional<Tracking> findById(final Habit habit, final UUID trackingId) {
+        return trackingRepository.findByIdAndHabitIdAndHabitUserId(trackingId, habit.getId(), habit.getUserId());
+    }
+
+    @Override
+    public List<TrackingExportRow> findByHabitId(final UUID habitId) {
+        return trackingRepository.findRowsByHabitId(habitId);
+    }
+
+    @Override
+    public List<TrackingExportRow> findByHabitIdInRange(final UUID habitId,
+                                                        final LocalDateTime from,
+                                                        final LocalDateTime to,
+                                                        final int limit) {
+        return trackingRepository.findRowsByHabitIdInRange(habitId, from, to, Limit.of(limit));
+    }
+
+    @Override
+    public void forEachByHabitId(final UUID habitId,
+                                 final int fetchSize,
+                                 final Consumer<TrackingExportRow> consumer) {
+        trackingJdbcRepository.forEachByHabitId(habitId, fetchSize, consumer);
+    }
+
+    @Override
+    public Stream<LocalDateTime> streamTimestamps(final UUID habitId) {
+        return trackingRepository.streamTimestampsByHabitId(habitId);
+    }
+
+    @Override
+    public void delete(final Tracking tracking) {
+        trackingRepository.delete(tracking);
+    }
+
+    /**
+     * Only issues a statement on a partitioned table; otherwise the foreign key already
+     * cascaded the delete of the habit.
+     */
+    @Override
+    public void deleteByHabitId(final UUID habitId) {
+        if (trackingPartitionProperties.enabled()) {
+            trackingRepository.deleteByHabitId(habitId);
+        }
+    }
+
+}
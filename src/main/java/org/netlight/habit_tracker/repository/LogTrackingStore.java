@@ -0,0 +1,182 @@
+package org.netlight.habit_tracker.repository;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.ShardProperties;
+import org.netlight.habit_tracker.config.TrackingStoreProperties;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.trackinglog.TrackingLog;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.REPOSITORY_TIMER;
+import static org.netlight.habit_tracker.service.TransactionHooks.afterCommit;
+
+/**
+ * Keeps trackings in a {@link TrackingLog} on local disk instead of the database, and
+ * compacts it in the background. The log is not part of database transactions: a tracking
+ * is stored once it is appended, even if the surrounding transaction rolls back. Deleting a
+ * habit's trackings cannot be undone, so it waits until the transaction commits.
+ */
+@Log4j2
+@Timed(REPOSITORY_TIMER)
+@Repository
+@ConditionalOnProperty(prefix = "habit-tracker.tracking-store", name = "type", havingValue = "log")
+public class LogTrackingStore implements TrackingStore, ApplicationRunner {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final TrackingStoreProperties properties;
+    private final TrackingLog trackingLog;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "tracking-log-compaction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LogTrackingStore(final TrackingStoreProperties properties,
+                            final ShardProperties shardProperties,
+                            final MeterRegistry meterRegistry) {
+        if (shardProperties.enabled()) {
+            throw new IllegalStateException("The log tracking store keeps trackings on local disk and cannot be sharded");
+        }
+        if (properties.segmentSize().toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Tracking log segments must be smaller than 2 GiB");
+        }
+        this.properties = properties;
+        try {
+            this.trackingLog = TrackingLog.open(
+                properties.directory(), (int) properties.segmentSize().toBytes(), properties.fsync());
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not open the tracking log in " + properties.directory(), e);
+        }
+        Gauge.builder("habit_tracker.tracking_log.trackings", trackingLog, TrackingLog::trackingCount)
+            .description("Live trackings in the tracking log")
+            .register(meterRegistry);
+        Gauge.builder("habit_tracker.tracking_log.segments", trackingLog, TrackingLog::segmentCount)
+            .description("Segment files of the tracking log")
+            .register(meterRegistry);
+        Gauge.builder("habit_tracker.tracking_log.size", trackingLog, TrackingLog::sizeBytes)
+            .description("Size of the tracking log segments")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("habit_tracker.tracking_log.dead", trackingLog, TrackingLog::deadBytes)
+            .description("Bytes of deleted trackings awaiting compaction")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        final long interval = properties.compactionInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::compact, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lets a running compaction finish before the log is closed with a last checkpoint.
+     */
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        scheduler.shutdown();
+        if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Tracking log compaction did not finish within {} seconds, interrupting it", SHUTDOWN_TIMEOUT_SECONDS);
+            scheduler.shutdownNow();
+        }
+        trackingLog.close();
+    }
+
+    @Override
+    public Tracking save(final Tracking tracking) {
+        if (tracking.getId() == null) {
+            tracking.setId(TimeOrderedUuid.next());
+        }
+        trackingLog.append(List.of(tracking));
+        return tracking;
+    }
+
+    @Override
+    public void saveAll(final List<Tracking> trackings) {
+        trackingLog.append(trackings);
+    }
+
+    @Override
+    public Optional<Tracking> findById(final Habit habit, final UUID trackingId) {
+        return trackingLog.find(habit.getId(), trackingId).map(row -> toTracking(habit, row));
+    }
+
+    @Override
+    public List<TrackingExportRow> findByHabitId(final UUID habitId) {
+        return trackingLog.find(habitId);
+    }
+
+    @Override
+    public List<TrackingExportRow> findByHabitIdInRange(final UUID habitId,
+                                                        final LocalDateTime from,
+                                                        final LocalDateTime to,
+                                                        final int limit) {
+        return trackingLog.find(habitId, from, to, limit);
+    }
+
+    @Override
+    public void forEachByHabitId(final UUID habitId,
+                                 final int fetchSize,
+                                 final Consumer<TrackingExportRow> consumer) {
+        trackingLog.find(habitId).forEach(consumer);
+    }
+
+    @Override
+    public Stream<LocalDateTime> streamTimestamps(final UUID habitId) {
+        return trackingLog.timestamps(habitId).stream();
+    }
+
+    @Override
+    public void delete(final Tracking tracking) {
+        trackingLog.delete(tracking.getHabit().getId(), tracking.getId());
+    }
+
+    @Override
+    public void deleteByHabitId(final UUID habitId) {
+        afterCommit(() -> trackingLog.deleteHabit(habitId));
+    }
+
+    void compact() {
+        try {
+            final int compacted = trackingLog.compact(properties.compactionThreshold());
+            if (compacted > 0) {
+                log.info("Compacted {} tracking log segments", compacted);
+            }
+        } catch (final IOException | RuntimeException e) {
+            log.error("Compacting the tracking log failed", e);
+        }
+    }
+
+    private static Tracking toTracking(final Habit habit, final TrackingExportRow row) {
+        return Tracking.builder()
+            .id(row.id())
+            .habit(habit)
+            .timestamp(row.timestamp())
+            .note(row.note())
+            .build();
+    }
+
+}
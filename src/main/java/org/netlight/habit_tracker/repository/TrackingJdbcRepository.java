@@ -0,0 +1,106 @@
+package org.netlight.habit_tracker.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.model.Tracking;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.REPOSITORY_TIMER;
+
+/**
+ * Plain JDBC access to the trackings table for paths that bypass the persistence context:
+ * batch writes of trackings that already carry their id, streaming reads, and the
+ * reads and deletes of the archival job.
+ */
+@Timed(REPOSITORY_TIMER)
+@Repository
+@AllArgsConstructor
+public class TrackingJdbcRepository {
+
+    private static final String INSERT_SQL =
+        "insert into trackings (id, habit_id, timestamp, note) values (?, ?, ?, ?)";
+
+    private static final String SELECT_BY_HABIT_SQL =
+        "select id, timestamp, note from trackings where habit_id = ? order by timestamp, id";
+
+    private static final String SELECT_OLDER_THAN_SQL =
+        "select habit_id, id, timestamp, note from trackings where timestamp < ?"
+            + " order by habit_id, timestamp, id limit ?";
+
+    private static final String DELETE_BY_ID_SQL = "delete from trackings where id = ?";
+
+    @Autowired
+    private final JdbcTemplate jdbcTemplate;
+
+    public void batchInsert(final List<Tracking> trackings) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, trackings, trackings.size(), (statement, tracking) -> {
+            statement.setBytes(1, UuidBytes.toBytes(tracking.getId()));
+            statement.setBytes(2, UuidBytes.toBytes(tracking.getHabit().getId()));
+            statement.setTimestamp(3, Timestamp.valueOf(tracking.getTimestamp()));
+            statement.setString(4, tracking.getNote());
+        });
+    }
+
+    /**
+     * Hands every tracking of a habit, oldest first, to the consumer while the rows are read
+     * through a forward-only, read-only cursor. At most {@code fetchSize} rows are buffered
+     * by the driver at a time.
+     */
+    public void forEachByHabitId(final UUID habitId,
+                                 final int fetchSize,
+                                 final Consumer<TrackingExportRow> consumer) {
+        jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(
+                SELECT_BY_HABIT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setBytes(1, UuidBytes.toBytes(habitId));
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(new TrackingExportRow(
+            UuidBytes.fromBytes(resultSet.getBytes(1)),
+            resultSet.getTimestamp(2).toLocalDateTime(),
+            resultSet.getString(3))));
+    }
+
+    /**
+     * Hands up to {@code limit} trackings older than {@code cutoff} to the consumer, ordered by
+     * habit and then timestamp, together with the id of their habit.
+     */
+    public void forEachOlderThan(final LocalDateTime cutoff,
+                                 final int limit,
+                                 final int fetchSize,
+                                 final BiConsumer<UUID, TrackingExportRow> consumer) {
+        jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(
+                SELECT_OLDER_THAN_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            statement.setTimestamp(1, Timestamp.valueOf(cutoff));
+            statement.setInt(2, limit);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(
+            UuidBytes.fromBytes(resultSet.getBytes(1)),
+            new TrackingExportRow(
+                UuidBytes.fromBytes(resultSet.getBytes(2)),
+                resultSet.getTimestamp(3).toLocalDateTime(),
+                resultSet.getString(4))));
+    }
+
+    public void batchDelete(final List<UUID> ids, final int batchSize) {
+        jdbcTemplate.batchUpdate(DELETE_BY_ID_SQL, ids, batchSize,
+            (statement, id) -> statement.setBytes(1, UuidBytes.toBytes(id)));
+    }
+
+}
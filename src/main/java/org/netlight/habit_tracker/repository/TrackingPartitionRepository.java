@@ -0,0 +1,44 @@
+package org.netlight.habit_tracker.repository;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.REPOSITORY_TIMER;
+
+/**
+ * Reads and changes the range partitions of the trackings table. MariaDB only.
+ */
+@Timed(REPOSITORY_TIMER)
+@Repository
+@AllArgsConstructor
+public class TrackingPartitionRepository {
+
+    private static final String SELECT_PARTITIONS_SQL =
+        "select partition_name from information_schema.partitions"
+            + " where table_schema = database() and table_name = 'trackings' and partition_name is not null"
+            + " order by partition_ordinal_position";
+
+    @Autowired
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Names of the partitions of the trackings table in range order; empty when it is not partitioned.
+     */
+    public List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(SELECT_PARTITIONS_SQL, String.class);
+    }
+
+    /**
+     * Splits the last partition into the given ones. The definitions are generated, never user input.
+     */
+    public void reorganizePartition(final String partition, final List<String> definitions) {
+        jdbcTemplate.execute("alter table trackings reorganize partition " + partition
+            + " into (" + String.join(", ", definitions) + ")");
+    }
+
+}
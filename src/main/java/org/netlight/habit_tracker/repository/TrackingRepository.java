@@ -1,13 +1,74 @@
 package org.netlight.habit_tracker.repository;
 
+import jakarta.persistence.QueryHint;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
 import org.netlight.habit_tracker.model.Tracking;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface TrackingRepository extends JpaRepository<Tracking, UUID> {
 
+    @Transactional(readOnly = true)
     List<Tracking> findByHabitId(UUID habitId);
 
+    /**
+     * A tracking of one of a user's habits, with the habit fetched in the same statement so
+     * that rollups can read it without another query.
+     */
+    @Query("select t from Tracking t join fetch t.habit h where t.id = :id and h.id = :habitId and h.userId = :userId")
+    Optional<Tracking> findByIdAndHabitIdAndHabitUserId(UUID id, UUID habitId, UUID userId);
+
+    /**
+     * Every tracking of a habit, oldest first, projected straight into rows without
+     * hydrating entities or loading the habit.
+     */
+    @Query("""
+        select new org.netlight.habit_tracker.dto.response.TrackingExportRow(t.id, t.timestamp, t.note)
+        from Tracking t
+        where t.habit.id = :habitId
+        order by t.timestamp, t.id
+        """)
+    @Transactional(readOnly = true)
+    List<TrackingExportRow> findRowsByHabitId(UUID habitId);
+
+    /**
+     * Trackings of a habit with {@code from <= timestamp < to}, oldest first, projected like
+     * {@link #findRowsByHabitId}. Both bounds are required so the query is a range scan on
+     * {@code idx_trackings_habit_timestamp} and, when the table is partitioned, only touches
+     * the months in range.
+     */
+    @Query("""
+        select new org.netlight.habit_tracker.dto.response.TrackingExportRow(t.id, t.timestamp, t.note)
+        from Tracking t
+        where t.habit.id = :habitId and t.timestamp >= :from and t.timestamp < :to
+        order by t.timestamp, t.id
+        """)
+    @Transactional(readOnly = true)
+    List<TrackingExportRow> findRowsByHabitIdInRange(UUID habitId, LocalDateTime from, LocalDateTime to, Limit limit);
+
+    /**
+     * Deletes every tracking of a habit. The foreign key cascades this as well, except on a
+     * partitioned {@code trackings} table, which cannot have foreign keys.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from Tracking t where t.habit.id = :habitId")
+    int deleteByHabitId(UUID habitId);
+
+    @Query("select t.timestamp from Tracking t where t.habit.id = :habitId")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<LocalDateTime> streamTimestampsByHabitId(UUID habitId);
+
 }
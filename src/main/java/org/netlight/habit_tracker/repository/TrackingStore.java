@@ -0,0 +1,63 @@
+package org.netlight.habit_tracker.repository;
+
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Storage of live trackings, chosen with {@code habit-tracker.tracking-store.type}. Callers
+ * check that habits belong to the current user before handing them in; trackings returned
+ * refer to the given habit. Reads of many trackings return rows rather than entities.
+ */
+public interface TrackingStore {
+
+    /**
+     * Stores a tracking, giving it an id when it has none.
+     */
+    Tracking save(Tracking tracking);
+
+    /**
+     * Stores trackings that already carry their id in one batch.
+     */
+    void saveAll(List<Tracking> trackings);
+
+    Optional<Tracking> findById(Habit habit, UUID trackingId);
+
+    /**
+     * Every tracking of a habit, oldest first.
+     */
+    List<TrackingExportRow> findByHabitId(UUID habitId);
+
+    /**
+     * Trackings of a habit with {@code from <= timestamp < to}, oldest first and at most
+     * {@code limit} of them.
+     */
+    List<TrackingExportRow> findByHabitIdInRange(UUID habitId, LocalDateTime from, LocalDateTime to, int limit);
+
+    /**
+     * Hands every tracking of a habit, oldest first, to the consumer without keeping them all
+     * in memory at once.
+     */
+    void forEachByHabitId(UUID habitId, int fetchSize, Consumer<TrackingExportRow> consumer);
+
+    /**
+     * Timestamps of every tracking of a habit. Must be closed after use.
+     */
+    Stream<LocalDateTime> streamTimestamps(UUID habitId);
+
+    void delete(Tracking tracking);
+
+    /**
+     * Removes the trackings of a habit that was just deleted. Stores outside the database do
+     * so only once the surrounding transaction commits.
+     */
+    void deleteByHabitId(UUID habitId);
+
+}
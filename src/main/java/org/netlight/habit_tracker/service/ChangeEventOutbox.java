@@ -0,0 +1,100 @@
+package org.netlight.habit_tracker.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.netlight.habit_tracker.config.OutboxProperties;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.mapper.HabitMapper;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.outbox.ChangeEvent;
+import org.netlight.habit_tracker.outbox.ChangeEventType;
+import org.netlight.habit_tracker.repository.ChangeEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Records habit and tracking changes as change events in the outbox table, in the
+ * transaction making the change, so an event is published if and only if its change is
+ * committed. {@link ChangeEventRelay} publishes them. Does nothing unless the outbox is
+ * enabled.
+ */
+@Component
+public class ChangeEventOutbox {
+
+    private final OutboxProperties properties;
+    private final ChangeEventRepository changeEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public ChangeEventOutbox(final OutboxProperties properties,
+                             final ChangeEventRepository changeEventRepository,
+                             final ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.changeEventRepository = changeEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void habitCreated(final Habit habit) {
+        if (properties.enabled()) {
+            record(ChangeEventType.HABIT_CREATED, habit.getUserId(), habit.getId(), HabitMapper.mapToHabitResponse(habit));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void habitUpdated(final UUID habitId, final UUID userId, final HabitRequest changes) {
+        if (properties.enabled()) {
+            record(ChangeEventType.HABIT_UPDATED, userId, habitId, changes);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void habitDeleted(final UUID habitId, final UUID userId) {
+        if (properties.enabled()) {
+            record(ChangeEventType.HABIT_DELETED, userId, habitId, null);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void trackingsAdded(final Collection<Tracking> trackings) {
+        if (properties.enabled()) {
+            changeEventRepository.insert(trackings.stream()
+                .map(tracking -> trackingEvent(ChangeEventType.TRACKING_ADDED, tracking))
+                .toList());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void trackingDeleted(final Tracking tracking) {
+        if (properties.enabled()) {
+            changeEventRepository.insert(List.of(trackingEvent(ChangeEventType.TRACKING_DELETED, tracking)));
+        }
+    }
+
+    private void record(final ChangeEventType type, final UUID userId, final UUID habitId, final Object payload) {
+        changeEventRepository.insert(List.of(
+            new ChangeEvent(TimeOrderedUuid.next(), type, userId, habitId, payload != null ? json(payload) : null)));
+    }
+
+    private ChangeEvent trackingEvent(final ChangeEventType type, final Tracking tracking) {
+        final Habit habit = tracking.getHabit();
+        return new ChangeEvent(TimeOrderedUuid.next(), type, habit.getUserId(), habit.getId(),
+            json(new TrackingExportRow(tracking.getId(), tracking.getTimestamp(), tracking.getNote())));
+    }
+
+    private String json(final Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (final JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change event payload " + payload, e);
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.OutboxProperties;
+import org.netlight.habit_tracker.outbox.ChangeEvent;
+import org.netlight.habit_tracker.outbox.ChangeEventSink;
+import org.netlight.habit_tracker.repository.ChangeEventRepository;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the change events of the outbox and deletes them once published, shard by shard.
+ * Each read takes the oldest {@code batchSize} events; they are split by habit over up to
+ * {@code parallelism} threads, so the events of one habit are published in order by one
+ * thread. A batch is deleted only when all of its parts were published, so after a failure
+ * or a crash some events are published again.
+ * <p>
+ * Reads follow each other immediately while they return full batches, and are otherwise
+ * {@code linger} apart, which bounds how long an event waits in the outbox when the sink
+ * keeps up. How long the oldest unpublished event has been waiting is exported as
+ * {@code habit_tracker.outbox.lag}.
+ * <p>
+ * Only one instance should relay the outbox of a shard; a second one would publish its
+ * events twice.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(prefix = "habit-tracker.outbox", name = "relay-enabled", havingValue = "true")
+public class ChangeEventRelay implements ApplicationRunner {
+
+    private static final String METRIC_PREFIX = "habit_tracker.outbox";
+
+    private final OutboxProperties properties;
+    private final ChangeEventRepository changeEventRepository;
+    private final ChangeEventSink changeEventSink;
+    private final ShardRouter shardRouter;
+    private final Counter published;
+    private final Counter failed;
+    private final Timer publishTimer;
+    private final Timer deliveryLag;
+    // Epoch milliseconds of the oldest unpublished event per shard, as of its last read
+    private final Map<String, Long> oldestPending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService publishers;
+
+    public ChangeEventRelay(final OutboxProperties properties,
+                            final ChangeEventRepository changeEventRepository,
+                            final ChangeEventSink changeEventSink,
+                            final ShardRouter shardRouter,
+                            final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.changeEventRepository = changeEventRepository;
+        this.changeEventSink = changeEventSink;
+        this.shardRouter = shardRouter;
+        final AtomicInteger threads = new AtomicInteger();
+        this.publishers = Executors.newFixedThreadPool(properties.parallelism(), runnable -> {
+            final Thread thread = new Thread(runnable, "outbox-publisher-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.published = Counter.builder(METRIC_PREFIX + ".published")
+            .description("Change events published and deleted from the outbox")
+            .register(meterRegistry);
+        this.failed = Counter.builder(METRIC_PREFIX + ".failed")
+            .description("Change events read from the outbox whose batch could not be published")
+            .register(meterRegistry);
+        this.publishTimer = Timer.builder(METRIC_PREFIX + ".publish")
+            .description("Time to publish and delete one batch of change events")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.deliveryLag = Timer.builder(METRIC_PREFIX + ".delivery_lag")
+            .description("Time from a change until its event was published")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".lag", this, relay -> relay.lag().toMillis() / 1000.0)
+            .description("Age of the oldest change event waiting in the outbox")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        final long linger = properties.linger().toMillis();
+        scheduler.scheduleWithFixedDelay(this::relayAll, linger, linger, TimeUnit.MILLISECONDS);
+        log.info("Relaying the change event outbox (batch size {}, linger {}, parallelism {})",
+            properties.batchSize(), properties.linger(), properties.parallelism());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        publishers.shutdownNow();
+    }
+
+    /**
+     * Returns how long the oldest change event not yet published has been waiting, as of
+     * the last read of each shard.
+     */
+    public Duration lag() {
+        final long now = System.currentTimeMillis();
+        return Duration.ofMillis(oldestPending.values().stream()
+            .mapToLong(oldest -> Math.max(now - oldest, 0))
+            .max()
+            .orElse(0));
+    }
+
+    void relayAll() {
+        shardRouter.forEachShard(shard -> {
+            try {
+                relay(shard);
+            } catch (final IOException | RuntimeException e) {
+                log.error("Relaying change events on shard {} failed, retrying in {}", shard, properties.linger(), e);
+            }
+        });
+    }
+
+    /**
+     * Publishes batches from the current shard until a read returns less than a full batch.
+     * Returns the number of events published.
+     */
+    int relay(final String shard) throws IOException {
+        int relayed = 0;
+        List<ChangeEvent> batch;
+        do {
+            batch = changeEventRepository.findOldest(properties.batchSize());
+            if (batch.isEmpty()) {
+                break;
+            }
+            oldestPending.put(shard, batch.get(0).occurredAt().toEpochMilli());
+            final long started = System.nanoTime();
+            try {
+                publish(batch);
+            } catch (final IOException | RuntimeException e) {
+                failed.increment(batch.size());
+                throw e;
+            }
+            changeEventRepository.delete(batch);
+            publishTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            published.increment(batch.size());
+            final long now = System.currentTimeMillis();
+            batch.forEach(event -> deliveryLag.record(
+                Math.max(now - event.occurredAt().toEpochMilli(), 0), TimeUnit.MILLISECONDS));
+            relayed += batch.size();
+        } while (batch.size() == properties.batchSize());
+        // Everything that was waiting when the last batch was read has been published
+        oldestPending.remove(shard);
+        return relayed;
+    }
+
+    private void publish(final List<ChangeEvent> batch) throws IOException {
+        final int parallelism = Math.min(properties.parallelism(), batch.size());
+        if (parallelism <= 1) {
+            changeEventSink.publish(batch);
+            return;
+        }
+        final List<List<ChangeEvent>> parts = new ArrayList<>(parallelism);
+        for (int part = 0; part < parallelism; part++) {
+            parts.add(new ArrayList<>());
+        }
+        batch.forEach(event -> parts.get(Math.floorMod(event.habitId().hashCode(), parallelism)).add(event));
+
+        final List<Future<?>> futures = new ArrayList<>(parallelism);
+        for (final List<ChangeEvent> part : parts) {
+            if (!part.isEmpty()) {
+                futures.add(publishers.submit(() -> {
+                    changeEventSink.publish(part);
+                    return null;
+                }));
+            }
+        }
+        // Wait for every part, so no part of this batch is still being published when it is read again
+        Throwable failure = null;
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final ExecutionException e) {
+                failure = failure != null ? failure : e.getCause();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while publishing change events", e);
+            }
+        }
+        if (failure instanceof IOException ioException) {
+            throw ioException;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Publishing change events failed", failure);
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+package org.netlight.habit_tracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.netlight.habit_tracker.config.HabitCacheProperties;
+import org.netlight.habit_tracker.dto.response.HabitPage;
+import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.pagination.HabitCursor;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.netlight.habit_tracker.service.TransactionHooks.afterCommit;
+
+/**
+ * Bounded near-cache for single habits and keyset pages of habits. Entries expire after
+ * the configured time to live and are invalidated after every committed habit change.
+ * <p>
+ * Loads run outside of the cache's locks, so a database read never blocks other keys or
+ * pins a virtual thread's carrier; concurrent misses on the same key may load twice. Loads
+ * that overlap with any committed change are not kept. A page covers the id range between
+ * its cursor and its last habit; a change to a habit only invalidates the pages whose range
+ * contains that habit's id.
+ * <p>
+ * All keys include the current user, so one user's entries are never served to another.
+ */
+@Component
+public class HabitCache {
+
+    private final boolean enabled;
+    private final Cache<HabitKey, HabitResponse> habits;
+    private final Cache<PageKey, CachedPage> pages;
+    private final AtomicLong changes = new AtomicLong();
+
+    public HabitCache(final HabitCacheProperties properties, final MeterRegistry meterRegistry) {
+        this.enabled = properties.enabled();
+        this.habits = Caffeine.newBuilder()
+            .maximumSize(properties.maxHabits())
+            .expireAfterWrite(properties.timeToLive())
+            .recordStats()
+            .build();
+        this.pages = Caffeine.newBuilder()
+            .maximumSize(properties.maxPages())
+            .expireAfterWrite(properties.timeToLive())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, habits, "habits");
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, "habit_pages");
+    }
+
+    public HabitResponse getHabit(final UUID id, final Supplier<HabitResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        final HabitKey key = new HabitKey(UserContext.currentUser(), id);
+        final HabitResponse cached = habits.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final long changesBeforeLoad = changes.get();
+        final HabitResponse habit = loader.get();
+        habits.put(key, habit);
+        // A change committed during the load may have missed this entry, so drop it again
+        if (changes.get() != changesBeforeLoad) {
+            habits.asMap().remove(key, habit);
+        }
+        return habit;
+    }
+
+    public HabitPage getPage(final String cursor, final int pageSize, final Supplier<HabitPage> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        final PageKey key = new PageKey(UserContext.currentUser(), cursor, pageSize);
+        final CachedPage cached = pages.getIfPresent(key);
+        if (cached != null) {
+            return cached.page();
+        }
+
+        final long changesBeforeLoad = changes.get();
+        final HabitPage page = loader.get();
+        final CachedPage loaded = new CachedPage(
+            cursor != null ? HabitCursor.decode(cursor) : null,
+            page.nextCursor() != null ? page.habits().get(page.habits().size() - 1).id() : null,
+            page);
+        pages.put(key, loaded);
+        // A change committed during the load may have missed this entry, so drop it again
+        if (changes.get() != changesBeforeLoad) {
+            pages.asMap().remove(key, loaded);
+        }
+        return page;
+    }
+
+    /**
+     * Returns the cached habit without loading it, or null.
+     */
+    public HabitResponse peekHabit(final UUID id) {
+        return enabled ? habits.getIfPresent(new HabitKey(UserContext.currentUser(), id)) : null;
+    }
+
+    /**
+     * Returns the cached page without loading it, or null.
+     */
+    public HabitPage peekPage(final String cursor, final int pageSize) {
+        if (!enabled) {
+            return null;
+        }
+        final CachedPage cached = pages.getIfPresent(new PageKey(UserContext.currentUser(), cursor, pageSize));
+        return cached != null ? cached.page() : null;
+    }
+
+    /**
+     * Invalidates everything that may contain the given habit once the current transaction
+     * commits. Call this for every created, updated or deleted habit, as its owner.
+     */
+    public void invalidate(final UUID id) {
+        if (!enabled) {
+            return;
+        }
+        final UUID userId = UserContext.currentUser();
+        afterCommit(() -> {
+            changes.incrementAndGet();
+            habits.invalidate(new HabitKey(userId, id));
+            pages.asMap().entrySet().removeIf(entry ->
+                entry.getKey().userId().equals(userId) && entry.getValue().covers(id));
+        });
+    }
+
+    public void invalidateAll() {
+        changes.incrementAndGet();
+        habits.invalidateAll();
+        pages.invalidateAll();
+    }
+
+    private record HabitKey(UUID userId, UUID id) {}
+
+    private record PageKey(UUID userId, String cursor, int pageSize) {}
+
+    /**
+     * A cached page covering the ids after {@code after} (exclusive) up to {@code upTo}
+     * (inclusive). A null bound is open.
+     */
+    private record CachedPage(UUID after, UUID upTo, HabitPage page) {
+
+        boolean covers(final UUID id) {
+            return (after == null || UuidBytes.compare(id, after) > 0)
+                && (upTo == null || UuidBytes.compare(id, upTo) <= 0);
+        }
+
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.netlight.habit_tracker.config.CalendarProperties;
+import org.netlight.habit_tracker.exception.HabitNotFoundException;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.HabitCalendar;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.repository.HabitRollupRepository;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.netlight.habit_tracker.service.TransactionHooks.afterCommit;
+
+/**
+ * In-memory store of {@link HabitCalendar} bitmaps. A habit's calendar is loaded from its
+ * rollups the first time it is requested and then kept current by the tracking write paths.
+ * <p>
+ * Changes are applied only after the surrounding transaction commits. Calendars are loaded
+ * outside of any map lock, so a database read never blocks other habits or pins a virtual
+ * thread's carrier. A load that overlaps with a committed change is not kept, because the
+ * change may have been applied before the loaded calendar was published.
+ * <p>
+ * Each calendar remembers the user owning its habit and is only returned to that user.
+ */
+@Component
+public class HabitCalendarStore {
+
+    private final HabitRepository habitRepository;
+    private final HabitRollupRepository habitRollupRepository;
+    private final int maxWords;
+    private final Map<UUID, OwnedCalendar> calendars = new ConcurrentHashMap<>();
+    private final AtomicLong memoryBytes = new AtomicLong();
+    private final AtomicLong changes = new AtomicLong();
+
+    public HabitCalendarStore(final HabitRepository habitRepository,
+                              final HabitRollupRepository habitRollupRepository,
+                              final CalendarProperties calendarProperties,
+                              final MeterRegistry meterRegistry) {
+        this.habitRepository = habitRepository;
+        this.habitRollupRepository = habitRollupRepository;
+        this.maxWords = calendarProperties.maxWords();
+        Gauge.builder("habit_tracker.calendar.habits", calendars, Map::size)
+            .description("Habits with a loaded completion calendar")
+            .register(meterRegistry);
+        Gauge.builder("habit_tracker.calendar.memory", memoryBytes, AtomicLong::get)
+            .description("Approximate heap used by the loaded completion calendars")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Returns the calendar of a habit, loading it from the database on first access.
+     */
+    public HabitCalendar getCalendar(final UUID habitId) {
+        final UUID userId = UserContext.currentUser();
+        final OwnedCalendar calendar = calendars.get(habitId);
+        if (calendar != null) {
+            return calendar.ownedBy(userId, habitId);
+        }
+
+        final long changesBeforeLoad = changes.get();
+        final OwnedCalendar loaded = new OwnedCalendar(userId, load(habitId, userId));
+        final OwnedCalendar existing = calendars.putIfAbsent(habitId, loaded);
+        if (existing != null) {
+            return existing.ownedBy(userId, habitId);
+        }
+        track(null, loaded);
+        // A change committed during the load may have missed this calendar, so drop it again
+        if (changes.get() != changesBeforeLoad) {
+            calendars.computeIfPresent(habitId, (id, current) -> track(current, null));
+        }
+        return loaded.calendar();
+    }
+
+    /**
+     * Marks periods of a habit as completed once the current transaction commits. Calendars
+     * that are not loaded are left alone; they will include the periods when loaded.
+     */
+    public void recordCompleted(final UUID habitId, final Collection<Integer> periods) {
+        afterCommit(() -> {
+            changes.incrementAndGet();
+            calendars.computeIfPresent(habitId, (id, owned) -> track(owned,
+                new OwnedCalendar(owned.userId(), owned.calendar().withCompleted(periods, maxWords))));
+        });
+    }
+
+    /**
+     * Drops the calendar of a habit once the current transaction commits, e.g. because a
+     * tracking was deleted or the habit's periods changed. It is reloaded on next access.
+     */
+    public void evict(final UUID habitId) {
+        afterCommit(() -> {
+            changes.incrementAndGet();
+            calendars.computeIfPresent(habitId, (id, calendar) -> track(calendar, null));
+        });
+    }
+
+    public long memoryBytes() {
+        return memoryBytes.get();
+    }
+
+    private HabitCalendar load(final UUID habitId, final UUID userId) {
+        final Habit habit = habitRepository.findByIdAndUserId(habitId, userId)
+            .orElseThrow(() -> new HabitNotFoundException("No habit with id " + habitId));
+        return HabitCalendar.empty(habit.getFrequency(), habit.getStartDate())
+            .withCompleted(habitRollupRepository.findCompletedPeriods(habitId), maxWords);
+    }
+
+    private OwnedCalendar track(final OwnedCalendar previous, final OwnedCalendar next) {
+        memoryBytes.addAndGet((next != null ? next.calendar().memoryBytes() : 0)
+            - (previous != null ? previous.calendar().memoryBytes() : 0));
+        return next;
+    }
+
+    private record OwnedCalendar(UUID userId, HabitCalendar calendar) {
+
+        HabitCalendar ownedBy(final UUID requestingUser, final UUID habitId) {
+            if (!userId.equals(requestingUser)) {
+                throw new HabitNotFoundException("No habit with id " + habitId);
+            }
+            return calendar;
+        }
+
+    }
+
+}
@@ -0,0 +1,381 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.ReminderProperties;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.reminder.HabitSchedule;
+import org.netlight.habit_tracker.reminder.Reminder;
+import org.netlight.habit_tracker.reminder.ReminderSink;
+import org.netlight.habit_tracker.reminder.TimingWheel;
+import org.netlight.habit_tracker.repository.HabitReminderRepository;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.netlight.habit_tracker.service.TransactionHooks.afterCommit;
+
+/**
+ * Sends a reminder for every habit whose current period is about to end without a tracking.
+ * Each habit has one deadline in a {@link TimingWheel}: when the reminder for its current
+ * period is due, or, once the period is completed, when the one for the next period is. The
+ * habit and tracking write paths move a habit's deadline after their transaction commits, so
+ * a tick only touches the habits that are due, however many habits there are.
+ * <p>
+ * Due habits are handed out in batches. Each batch is checked against the database, so a
+ * habit that was deleted, moved to other periods or completed on another instance gets no
+ * reminder. Reminders are delivered at least once: a batch the sink fails on is retried,
+ * and after a restart habits that are already due are reminded again.
+ * <p>
+ * The wheel is filled from all shards on startup and then kept current by the write paths.
+ * Habits created through other instances are picked up by periodic scans of the newest
+ * habit ids. Reminders are meant to be sent by a single instance.
+ */
+@Log4j2
+@Component
+public class HabitReminderScheduler implements ApplicationRunner {
+
+    private static final String METRIC_PREFIX = "habit_tracker.reminders";
+    // 512 slots on each of 3 levels cover 2^27 ticks, about 4 years at one tick per second
+    private static final int SLOT_BITS = 9;
+    private static final int LEVELS = 3;
+
+    private final ReminderProperties properties;
+    private final HabitReminderRepository habitReminderRepository;
+    private final ShardRouter shardRouter;
+    private final ObjectProvider<ReminderSink> reminderSinkProvider;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final TimingWheel<UUID> wheel;
+    private final Counter sent;
+    private final Counter skipped;
+    private final Counter failed;
+    private final Timer tickTimer;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "habit-reminders");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ReminderSink reminderSink;
+    // Start of the last completed scan for new habits, in epoch milliseconds
+    private long lastScan;
+
+    public HabitReminderScheduler(final ReminderProperties properties,
+                                  final HabitReminderRepository habitReminderRepository,
+                                  final ShardRouter shardRouter,
+                                  final ObjectProvider<ReminderSink> reminderSinkProvider,
+                                  final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.habitReminderRepository = habitReminderRepository;
+        this.shardRouter = shardRouter;
+        this.reminderSinkProvider = reminderSinkProvider;
+        this.wheel = new TimingWheel<>(properties.tick().toMillis(), SLOT_BITS, LEVELS, System.currentTimeMillis());
+        this.sent = Counter.builder(METRIC_PREFIX + ".sent")
+            .description("Reminders handed to the sink")
+            .register(meterRegistry);
+        this.skipped = Counter.builder(METRIC_PREFIX + ".skipped")
+            .description("Due habits without a reminder because their period was already completed")
+            .register(meterRegistry);
+        this.failed = Counter.builder(METRIC_PREFIX + ".failed")
+            .description("Due habits whose reminder could not be sent and is retried")
+            .register(meterRegistry);
+        this.tickTimer = Timer.builder(METRIC_PREFIX + ".tick")
+            .description("Time to hand out the habits due on one tick")
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".scheduled", this, HabitReminderScheduler::scheduledCount)
+            .description("Habits with a pending reminder deadline")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (!properties.enabled()) {
+            return;
+        }
+        reminderSink = reminderSinkProvider.getObject();
+        final long tick = properties.tick().toMillis();
+        final long catchUp = properties.catchUpInterval().toMillis();
+        scheduler.execute(this::loadAll);
+        scheduler.scheduleWithFixedDelay(this::tick, tick, tick, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::catchUp, catchUp, catchUp, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Schedules the reminder for the habit's current period once the current transaction
+     * commits, e.g. because it was created or its periods changed.
+     */
+    public void schedule(final Habit habit) {
+        if (!properties.enabled()) {
+            return;
+        }
+        final HabitSchedule schedule = toSchedule(habit);
+        afterCommit(() -> {
+            final LocalDate today = LocalDate.now(zone);
+            schedule(habit.getId(), schedule.due(schedule.currentPeriod(today), properties.leadTime(), zone));
+        });
+    }
+
+    /**
+     * Moves the habit on to the next period's reminder once the current transaction commits,
+     * if the periods include the current one.
+     */
+    public void recordCompleted(final Habit habit, final Collection<Integer> periods) {
+        if (!properties.enabled()) {
+            return;
+        }
+        final HabitSchedule schedule = toSchedule(habit);
+        afterCommit(() -> {
+            final int current = schedule.currentPeriod(LocalDate.now(zone));
+            if (periods.contains(current)) {
+                schedule(habit.getId(), schedule.due(current + 1, properties.leadTime(), zone));
+            }
+        });
+    }
+
+    /**
+     * Brings back the reminder for the current period once the current transaction commits,
+     * if a tracking was removed from it. Whether the period still holds other trackings is
+     * checked when the reminder is due.
+     */
+    public void recordRemoved(final Habit habit, final int period) {
+        if (!properties.enabled()) {
+            return;
+        }
+        final HabitSchedule schedule = toSchedule(habit);
+        afterCommit(() -> {
+            if (period == schedule.currentPeriod(LocalDate.now(zone))) {
+                schedule(habit.getId(), schedule.due(period, properties.leadTime(), zone));
+            }
+        });
+    }
+
+    /**
+     * Drops the habit's reminder once the current transaction commits.
+     */
+    public void remove(final UUID habitId) {
+        if (!properties.enabled()) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (wheel) {
+                wheel.cancel(habitId);
+            }
+        });
+    }
+
+    public int scheduledCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+
+    /**
+     * Returns when the habit's next reminder is due, or null if it has none scheduled.
+     */
+    public Instant nextDue(final UUID habitId) {
+        final long deadline;
+        synchronized (wheel) {
+            deadline = wheel.deadline(habitId);
+        }
+        return deadline >= 0 ? Instant.ofEpochMilli(deadline) : null;
+    }
+
+    void tick() {
+        try {
+            tickTimer.record(() -> dispatchDue(Instant.now()));
+        } catch (final RuntimeException e) {
+            log.error("Sending due habit reminders failed", e);
+        }
+    }
+
+    /**
+     * Hands out every habit due by {@code now} in batches and schedules each one's next
+     * deadline. A batch that cannot be checked or sent is retried after the retry delay.
+     */
+    void dispatchDue(final Instant now) {
+        final List<UUID> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(now.toEpochMilli(), due::add);
+        }
+        for (int from = 0; from < due.size(); from += properties.batchSize()) {
+            final List<UUID> batch = due.subList(from, Math.min(from + properties.batchSize(), due.size()));
+            try {
+                dispatch(batch, now);
+            } catch (final RuntimeException e) {
+                log.error("Checking {} due habits failed, retrying in {}", batch.size(), properties.retryDelay(), e);
+                failed.increment(batch.size());
+                final Map<UUID, Instant> retries = new HashMap<>();
+                batch.forEach(habitId -> retries.put(habitId, now.plus(properties.retryDelay())));
+                scheduleIfAbsent(retries);
+            }
+        }
+    }
+
+    private void dispatch(final List<UUID> batch, final Instant now) {
+        final LocalDate today = LocalDate.ofInstant(now, zone);
+        final List<HabitSchedule> habits = new ArrayList<>(batch.size());
+        final Set<UUID> completed = new HashSet<>();
+        shardRouter.forEachShard(shard -> {
+            final List<HabitSchedule> found = habitReminderRepository.findByIds(batch);
+            habits.addAll(found);
+            completed.addAll(habitReminderRepository.findCompleted(currentPeriods(found, today)));
+        });
+
+        final Map<UUID, Instant> next = new HashMap<>();
+        final List<Reminder> reminders = new ArrayList<>();
+        for (final HabitSchedule habit : habits) {
+            final int period = habit.currentPeriod(today);
+            final Instant due = habit.due(period, properties.leadTime(), zone);
+            if (due.isAfter(now)) {
+                // Its periods changed since it was scheduled
+                next.put(habit.id(), due);
+                continue;
+            }
+            next.put(habit.id(), habit.due(period + 1, properties.leadTime(), zone));
+            if (completed.contains(habit.id())) {
+                skipped.increment();
+            } else {
+                reminders.add(new Reminder(habit.userId(), habit.id(), habit.name(), habit.frequency(),
+                    habit.frequency().periodStart(habit.startDate(), period), due));
+            }
+        }
+        if (!reminders.isEmpty()) {
+            try {
+                reminderSink.send(reminders);
+                sent.increment(reminders.size());
+            } catch (final IOException | RuntimeException e) {
+                log.error("Sending {} habit reminders failed, retrying in {}", reminders.size(), properties.retryDelay(), e);
+                failed.increment(reminders.size());
+                reminders.forEach(reminder -> next.put(reminder.habitId(), now.plus(properties.retryDelay())));
+            }
+        }
+        // Habits the write paths rescheduled in the meantime keep their new deadline
+        scheduleIfAbsent(next);
+    }
+
+    void loadAll() {
+        final long started = System.currentTimeMillis();
+        try {
+            final int scheduled = scheduleFrom(null);
+            lastScan = started;
+            log.info("Scheduled reminders for {} habits", scheduled);
+        } catch (final RuntimeException e) {
+            log.error("Loading habits for reminders failed", e);
+        }
+    }
+
+    /**
+     * Schedules habits created since shortly before the previous scan that are not in the
+     * wheel yet. The overlap covers habits whose transactions committed after the scan read
+     * past their ids.
+     */
+    void catchUp() {
+        if (lastScan == 0) {
+            loadAll();
+            return;
+        }
+        final long started = System.currentTimeMillis();
+        try {
+            final int scheduled = scheduleFrom(
+                TimeOrderedUuid.lowerBound(lastScan - properties.catchUpInterval().toMillis()));
+            lastScan = started;
+            if (scheduled > 0) {
+                log.info("Scheduled reminders for {} habits created on other instances", scheduled);
+            }
+        } catch (final RuntimeException e) {
+            log.error("Scanning for new habits to remind failed", e);
+        }
+    }
+
+    private int scheduleFrom(final UUID fromId) {
+        final int[] scheduled = {0};
+        shardRouter.forEachShard(shard -> {
+            List<HabitSchedule> page = habitReminderRepository.findPage(fromId, properties.batchSize());
+            while (!page.isEmpty()) {
+                scheduled[0] += schedulePage(page);
+                if (page.size() < properties.batchSize()) {
+                    break;
+                }
+                page = habitReminderRepository.findPage(page.get(page.size() - 1).id(), properties.batchSize());
+            }
+        });
+        return scheduled[0];
+    }
+
+    private int schedulePage(final List<HabitSchedule> page) {
+        final List<HabitSchedule> unscheduled;
+        synchronized (wheel) {
+            unscheduled = page.stream().filter(habit -> !wheel.contains(habit.id())).toList();
+        }
+        if (unscheduled.isEmpty()) {
+            return 0;
+        }
+        final LocalDate today = LocalDate.now(zone);
+        final Set<UUID> completed = habitReminderRepository.findCompleted(currentPeriods(unscheduled, today));
+        final Map<UUID, Instant> deadlines = new HashMap<>();
+        for (final HabitSchedule habit : unscheduled) {
+            final int period = habit.currentPeriod(today) + (completed.contains(habit.id()) ? 1 : 0);
+            deadlines.put(habit.id(), habit.due(period, properties.leadTime(), zone));
+        }
+        return scheduleIfAbsent(deadlines);
+    }
+
+    private void schedule(final UUID habitId, final Instant due) {
+        synchronized (wheel) {
+            wheel.schedule(habitId, due.toEpochMilli());
+        }
+    }
+
+    private int scheduleIfAbsent(final Map<UUID, Instant> deadlines) {
+        int scheduled = 0;
+        synchronized (wheel) {
+            for (final Map.Entry<UUID, Instant> deadline : deadlines.entrySet()) {
+                if (!wheel.contains(deadline.getKey())) {
+                    wheel.schedule(deadline.getKey(), deadline.getValue().toEpochMilli());
+                    scheduled++;
+                }
+            }
+        }
+        return scheduled;
+    }
+
+    private static Map<UUID, Integer> currentPeriods(final List<HabitSchedule> habits, final LocalDate today) {
+        final Map<UUID, Integer> periods = new HashMap<>(habits.size() * 2);
+        habits.forEach(habit -> periods.put(habit.id(), habit.currentPeriod(today)));
+        return periods;
+    }
+
+    private static HabitSchedule toSchedule(final Habit habit) {
+        return new HabitSchedule(habit.getId(), habit.getUserId(), habit.getName(),
+            habit.getFrequency(), habit.getStartDate());
+    }
+
+}
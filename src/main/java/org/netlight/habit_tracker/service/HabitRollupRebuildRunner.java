@@ -0,0 +1,40 @@
+package org.netlight.habit_tracker.service;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.RollupProperties;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backfills the completion rollups from the existing trackings when the application starts
+ * with {@code habit-tracker.rollups.rebuild-on-startup=true}, one shard after the other.
+ */
+@Log4j2
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(prefix = "habit-tracker.rollups", name = "rebuild-on-startup", havingValue = "true")
+public class HabitRollupRebuildRunner implements ApplicationRunner {
+
+    @Autowired
+    private final HabitRollupService habitRollupService;
+
+    @Autowired
+    private final RollupProperties rollupProperties;
+
+    @Autowired
+    private final ShardRouter shardRouter;
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        shardRouter.forEachShard(shard -> {
+            log.info("Rebuilding habit completion rollups on shard {}", shard);
+            habitRollupService.rebuildAll(rollupProperties.rebuildPageSize());
+        });
+    }
+
+}
@@ -0,0 +1,232 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.dto.response.HabitCalendarResponse;
+import org.netlight.habit_tracker.dto.response.HabitStatsResponse;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.exception.HabitNotFoundException;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.HabitCalendar;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.repository.HabitRollupRepository;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.SERVICE_TIMER;
+
+/**
+ * Maintains per-period tracking counters for every habit and serves streak and completion
+ * statistics from them, so no request has to scan a habit's full tracking history.
+ * <p>
+ * The counters are updated in the same transaction as the tracking writes they reflect.
+ */
+@Log4j2
+@Timed(SERVICE_TIMER)
+@Service
+@AllArgsConstructor
+public class HabitRollupService {
+
+    @Autowired
+    private final HabitRepository habitRepository;
+
+    @Autowired
+    private final TrackingStore trackingStore;
+
+    @Autowired
+    private final HabitRollupRepository habitRollupRepository;
+
+    @Autowired
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private final HabitCalendarStore habitCalendarStore;
+
+    @Autowired
+    private final TrackingArchive trackingArchive;
+
+    @Autowired
+    private final HabitReminderScheduler habitReminderScheduler;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTrackings(final Collection<Tracking> trackings) {
+        final Map<Habit, List<Tracking>> byHabit = trackings.stream()
+            .collect(Collectors.groupingBy(Tracking::getHabit));
+        byHabit.forEach((habit, habitTrackings) ->
+            incrementPeriods(habit, habitTrackings.stream().map(Tracking::getTimestamp)));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeTracking(final Tracking tracking) {
+        final Habit habit = tracking.getHabit();
+        final int periodIndex = periodIndex(habit, tracking.getTimestamp());
+        if (periodIndex >= 0) {
+            habitRollupRepository.decrement(habit.getId(), periodIndex);
+            // The period may still hold other trackings, so let the calendar reload
+            habitCalendarStore.evict(habit.getId());
+            habitReminderScheduler.recordRemoved(habit, periodIndex);
+        }
+    }
+
+    public void removeHabit(final UUID habitId) {
+        habitCalendarStore.evict(habitId);
+        habitReminderScheduler.remove(habitId);
+    }
+
+    /**
+     * Recomputes the rollups of one habit from its live and archived trackings, e.g. after
+     * its frequency or start date changed.
+     */
+    @Transactional
+    public void rebuild(final Habit habit) {
+        habitRollupRepository.deleteByHabitId(habit.getId());
+        // Before the rollups are recorded, which move it past a completed current period
+        habitReminderScheduler.schedule(habit);
+        try (Stream<LocalDateTime> timestamps = Stream.concat(
+                trackingArchive.findAll(habit.getId()).stream().map(TrackingExportRow::timestamp),
+                trackingStore.streamTimestamps(habit.getId()))) {
+            incrementPeriods(habit, timestamps);
+        }
+        habitCalendarStore.evict(habit.getId());
+    }
+
+    /**
+     * Rebuilds the rollups of every habit, one habit per transaction.
+     */
+    public void rebuildAll(final int pageSize) {
+        int rebuilt = 0;
+        List<Habit> page = habitRepository.findAllByOrderByIdAsc(Limit.of(pageSize));
+        while (!page.isEmpty()) {
+            for (final Habit habit : page) {
+                transactionTemplate.executeWithoutResult(status -> rebuild(habit));
+            }
+            rebuilt += page.size();
+            log.info("Rebuilt rollups for {} habits", rebuilt);
+            final UUID lastId = page.get(page.size() - 1).getId();
+            page = habitRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize));
+        }
+    }
+
+    /**
+     * Serves the statistics from the habit's in-memory calendar. Only when the calendar
+     * window no longer reaches back to the start date are they computed from the rollups.
+     */
+    public HabitStatsResponse getStats(final UUID habitId) {
+        final HabitCalendar calendar = habitCalendarStore.getCalendar(habitId);
+        final LocalDate today = LocalDate.now();
+        if (calendar.coversFromStart()) {
+            return computeStats(habitId, calendar, today);
+        }
+        final Habit habit = habitRepository.findByIdAndUserId(habitId, UserContext.currentUser())
+            .orElseThrow(() -> new HabitNotFoundException("No habit with id " + habitId));
+        return computeStats(habit, habitRollupRepository.findCompletedPeriods(habitId), today);
+    }
+
+    /**
+     * Returns the completed periods between {@code from} and {@code to} from the habit's
+     * in-memory calendar.
+     */
+    public HabitCalendarResponse getCalendar(final UUID habitId, final LocalDate from, final LocalDate to) {
+        final HabitCalendar calendar = habitCalendarStore.getCalendar(habitId);
+        final Frequency frequency = calendar.getFrequency();
+        final LocalDate startDate = calendar.getStartDate();
+        final List<LocalDate> completed = calendar.completedPeriods(
+                frequency.periodIndex(startDate, from), frequency.periodIndex(startDate, to)).stream()
+            .map(period -> frequency.periodStart(startDate, period))
+            .toList();
+        return new HabitCalendarResponse(habitId, frequency, from, to, completed);
+    }
+
+    static HabitStatsResponse computeStats(final UUID habitId,
+                                           final HabitCalendar calendar,
+                                           final LocalDate today) {
+        final int currentPeriod = calendar.getFrequency().periodIndex(calendar.getStartDate(), today);
+        final int elapsedPeriods = Math.max(currentPeriod + 1, 0);
+        final int completed = calendar.completedCount(currentPeriod);
+        return HabitStatsResponse.builder()
+            .habitId(habitId)
+            .frequency(calendar.getFrequency())
+            .currentStreak(calendar.currentStreak(currentPeriod))
+            .longestStreak(calendar.longestStreak(currentPeriod))
+            .completedPeriods(completed)
+            .elapsedPeriods(elapsedPeriods)
+            .completionRate(elapsedPeriods == 0 ? 0.0 : (double) completed / elapsedPeriods)
+            .build();
+    }
+
+    /**
+     * Derives the statistics from the ascending indexes of all completed periods in a
+     * single pass. The current period still counts as open: a streak that ended in the
+     * previous period is still current.
+     */
+    static HabitStatsResponse computeStats(final Habit habit,
+                                           final List<Integer> completedPeriods,
+                                           final LocalDate today) {
+        final int currentPeriod = habit.getFrequency().periodIndex(habit.getStartDate(), today);
+        final int elapsedPeriods = Math.max(currentPeriod + 1, 0);
+
+        int completed = 0;
+        int longestStreak = 0;
+        int run = 0;
+        int previous = Integer.MIN_VALUE;
+        for (final int period : completedPeriods) {
+            if (period > currentPeriod) {
+                break;
+            }
+            completed++;
+            run = period == previous + 1 ? run + 1 : 1;
+            longestStreak = Math.max(longestStreak, run);
+            previous = period;
+        }
+        final int currentStreak = previous >= currentPeriod - 1 ? run : 0;
+
+        return HabitStatsResponse.builder()
+            .habitId(habit.getId())
+            .frequency(habit.getFrequency())
+            .currentStreak(currentStreak)
+            .longestStreak(longestStreak)
+            .completedPeriods(completed)
+            .elapsedPeriods(elapsedPeriods)
+            .completionRate(elapsedPeriods == 0 ? 0.0 : (double) completed / elapsedPeriods)
+            .build();
+    }
+
+    private void incrementPeriods(final Habit habit, final Stream<LocalDateTime> timestamps) {
+        final Map<Integer, Integer> counts = new HashMap<>();
+        timestamps.forEach(timestamp -> {
+            final int periodIndex = periodIndex(habit, timestamp);
+            if (periodIndex >= 0) {
+                counts.merge(periodIndex, 1, Integer::sum);
+            }
+        });
+        if (!counts.isEmpty()) {
+            habitRollupRepository.increment(habit.getId(), counts);
+            habitCalendarStore.recordCompleted(habit.getId(), List.copyOf(counts.keySet()));
+            habitReminderScheduler.recordCompleted(habit, List.copyOf(counts.keySet()));
+        }
+    }
+
+    private static int periodIndex(final Habit habit, final LocalDateTime timestamp) {
+        return habit.getFrequency().periodIndex(habit.getStartDate(), timestamp.toLocalDate());
+    }
+
+}
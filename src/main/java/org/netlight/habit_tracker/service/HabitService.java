@@ -1,86 +1,437 @@
 package org.netlight.habit_tracker.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Tuple;
 import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.config.PaginationProperties;
 import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.response.HabitPage;
 import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.dto.response.HabitVersion;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.dto.response.TrackingResponse;
+import org.netlight.habit_tracker.exception.HabitConflictException;
+import org.netlight.habit_tracker.exception.HabitNotFoundException;
+import org.netlight.habit_tracker.exception.HabitVersionConflictException;
+import org.netlight.habit_tracker.exception.InvalidTrackingRangeException;
+import org.netlight.habit_tracker.exception.TrackingNotFoundException;
+import org.netlight.habit_tracker.id.UuidBytes;
 import org.netlight.habit_tracker.mapper.HabitMapper;
+import org.netlight.habit_tracker.mapper.TrackingMapper;
 import org.netlight.habit_tracker.model.Habit;
 import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.HabitJdbcRepository;
 import org.netlight.habit_tracker.repository.HabitRepository;
-import org.netlight.habit_tracker.repository.TrackingRepository;
+import org.netlight.habit_tracker.pagination.HabitCursor;
+import org.netlight.habit_tracker.pagination.HabitPageTag;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.netlight.habit_tracker.shard.UserContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.SERVICE_TIMER;
+import static org.netlight.habit_tracker.service.TransactionHooks.afterCommit;
 
 /**
- * This service will contain the business logic for the habit tracker.
- * Implement the service by completing the TODOs below.
+ * This service contains the business logic for the habit tracker. Every habit it reads or
+ * changes belongs to the {@link UserContext#currentUser() current user}; other users' habits
+ * are reported as not found.
  */
+@Timed(SERVICE_TIMER)
 @Service
 @AllArgsConstructor
 public class HabitService {
 
+    // The DATETIME range of MariaDB, used in place of missing bounds so range queries stay sargable
+    static final LocalDateTime EARLIEST_TIMESTAMP = LocalDateTime.of(1000, 1, 1, 0, 0);
+    static final LocalDateTime LATEST_TIMESTAMP = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    static final Comparator<TrackingExportRow> TRACKING_ORDER = Comparator
+        .comparing(TrackingExportRow::timestamp)
+        .thenComparing(TrackingExportRow::id, UuidBytes::compare);
+
     @Autowired
     private final HabitRepository habitRepository;
 
     @Autowired
-    private final TrackingRepository trackingRepository;
+    private final HabitJdbcRepository habitJdbcRepository;
 
-    public List<HabitResponse> getAllHabits() {
-        return habitRepository.findAll().stream()
-            .map(HabitMapper::mapToHabitResponse)
-            .toList();
+    @Autowired
+    private final TrackingStore trackingStore;
+
+    @Autowired
+    private final PaginationProperties paginationProperties;
+
+    @Autowired
+    private final TrackingWriteBehindQueue trackingWriteBehindQueue;
+
+    @Autowired
+    private final HabitRollupService habitRollupService;
+
+    @Autowired
+    private final HabitCache habitCache;
+
+    @Autowired
+    private final TrackingArchive trackingArchive;
+
+    @Autowired
+    private final HabitReminderScheduler habitReminderScheduler;
+
+    @Autowired
+    private final ChangeEventOutbox changeEventOutbox;
+
+    @Autowired
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Returns one keyset page of habits ordered by id. Pass the {@code nextCursor} of the
+     * previous page to continue; a null cursor starts from the beginning.
+     */
+    public HabitPage getAllHabits(final String cursor, final Integer limit) {
+        final int pageSize = paginationProperties.resolvePageSize(limit);
+        return habitCache.getPage(cursor, pageSize, () -> loadHabitPage(cursor, pageSize));
+    }
+
+    /**
+     * Hands every habit to the consumer as it is read from the database cursor,
+     * keeping memory usage independent of the number of habits.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllHabits(final Consumer<HabitResponse> consumer) {
+        try (Stream<Tuple> habits = habitRepository.streamAllHabitResponses(UserContext.currentUser())) {
+            habits.map(HabitMapper::mapToHabitResponse).forEach(consumer);
+        }
     }
 
+    /**
+     * Creates a habit for the current user.
+     *
+     * @throws HabitConflictException  when the user already has a habit with that name
+     */
     public HabitResponse createHabit(final HabitRequest habitRequest) {
         final Habit habit = Habit.builder()
+            .userId(UserContext.currentUser())
             .name(habitRequest.name())
             .description(habitRequest.description())
             .frequency(habitRequest.frequency())
             .startDate(habitRequest.startDate())
             .build();
 
+        final Habit savedHabit;
         try {
-            final Habit savedHabit = habitRepository.save(habit);
-            return HabitMapper.mapToHabitResponse(savedHabit);
-        } catch (final Exception e) {
-            return null;
+            savedHabit = transactionTemplate.execute(status -> {
+                final Habit saved = habitRepository.save(habit);
+                changeEventOutbox.habitCreated(saved);
+                return saved;
+            });
+        } catch (final DataIntegrityViolationException e) {
+            throw nameConflict(habitRequest.name(), e);
         }
-
+        habitCache.invalidate(savedHabit.getId());
+        habitReminderScheduler.schedule(savedHabit);
+        return HabitMapper.mapToHabitResponse(savedHabit);
     }
 
+    /**
+     * Returns a habit from the near-cache, or else projected straight from the database
+     * without hydrating the entity.
+     */
     public HabitResponse getHabitResponseById(final UUID id) {
-        // TODO: Return the habit with the provided id from the database
-        // Remember to consider what happens if there is no habit that matches
-        // the provided id
-        return HabitResponse.builder().build();
+        return habitCache.getHabit(id, () -> habitRepository.findResponseByIdAndUserId(id, UserContext.currentUser())
+            .map(HabitMapper::mapToHabitResponse)
+            .orElseThrow(() -> new HabitNotFoundException("No habit with id " + id)));
+    }
+
+    /**
+     * Returns the current version of a habit, from the near-cache when it holds the habit and
+     * otherwise with a query for the version column alone.
+     */
+    public long getHabitVersion(final UUID id) {
+        final HabitResponse cached = habitCache.peekHabit(id);
+        if (cached != null && cached.version() != null) {
+            return cached.version();
+        }
+        return habitRepository.findVersionByIdAndUserId(id, UserContext.currentUser())
+            .orElseThrow(() -> new HabitNotFoundException("No habit with id " + id));
+    }
+
+    /**
+     * Returns the {@link HabitPageTag} of the page {@link #getAllHabits} would return, from the
+     * near-cache or else from the ids and versions of the page alone.
+     */
+    public String getHabitPageTag(final String cursor, final Integer limit) {
+        final int pageSize = paginationProperties.resolvePageSize(limit);
+        final HabitPage cached = habitCache.peekPage(cursor, pageSize);
+        if (cached != null) {
+            return HabitPageTag.of(cached);
+        }
+        // Fetch one extra row to find out whether another page follows
+        final Limit fetchLimit = Limit.of(pageSize + 1);
+        final List<HabitVersion> versions = cursor == null
+            ? habitRepository.findAllVersions(UserContext.currentUser(), fetchLimit)
+            : habitRepository.findVersionsAfter(UserContext.currentUser(), HabitCursor.decode(cursor), fetchLimit);
+        return HabitPageTag.of(versions.subList(0, Math.min(pageSize, versions.size())), versions.size() > pageSize);
     }
 
     public HabitResponse updateHabit(final UUID id,
-                             final HabitRequest habitRequest) {
-        // TODO: Update the habit with the provided id in the database
-        // Remember to consider what happens if there is no habit that matches
-        // the provided id
-        return HabitResponse.builder().build();
+                                     final HabitRequest habitRequest) {
+        return updateHabit(id, habitRequest, null);
+    }
+
+    /**
+     * Applies the non-null fields of the request with a single conditional UPDATE, without
+     * reading the habit first. With an {@code expectedVersion} (from {@code If-Match}) the
+     * update only applies to that version of the habit.
+     * <p>
+     * The statement and the change event it writes form a short transaction, so the row lock
+     * is released right after; the response is read afterwards. Rollups are rebuilt whenever the request
+     * sets the frequency or start date, as the previous values are not read.
+     *
+     * @throws HabitNotFoundException         when there is no such habit
+     * @throws HabitVersionConflictException  when the habit no longer has the expected version
+     * @throws HabitConflictException         when the user already has a habit with the new name
+     */
+    public HabitResponse updateHabit(final UUID id,
+                                     final HabitRequest habitRequest,
+                                     final Long expectedVersion) {
+        if (habitRequest.name() == null && habitRequest.description() == null
+            && habitRequest.frequency() == null && habitRequest.startDate() == null) {
+            final Habit habit = getHabitById(id);
+            if (expectedVersion != null && !expectedVersion.equals(habit.getVersion())) {
+                throw versionConflict(id, expectedVersion);
+            }
+            return HabitMapper.mapToHabitResponse(habit);
+        }
+        final UUID userId = UserContext.currentUser();
+        final boolean updated;
+        try {
+            updated = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                if (habitJdbcRepository.update(id, userId, habitRequest, expectedVersion) == 0) {
+                    return false;
+                }
+                changeEventOutbox.habitUpdated(id, userId, habitRequest);
+                return true;
+            }));
+        } catch (final DataIntegrityViolationException e) {
+            throw nameConflict(habitRequest.name(), e);
+        }
+        if (!updated) {
+            throw notFoundOrConflict(id, expectedVersion);
+        }
+        habitCache.invalidate(id);
+        final Habit habit = getHabitById(id);
+        if (habitRequest.frequency() != null || habitRequest.startDate() != null) {
+            habitRollupService.rebuild(habit);
+        }
+        return HabitMapper.mapToHabitResponse(habit);
     }
 
     public void deleteHabit(final UUID id) {
-        // TODO: Delete the habit with the provided id in the database
-        // Remember to consider what happens if there is no habit that matches
-        // the provided id
+        deleteHabit(id, null);
+    }
+
+    /**
+     * Deletes a habit with a single DELETE statement, conditional on {@code expectedVersion}
+     * when one is given. Rollups are removed by the foreign key's cascade, trackings by the
+     * {@link TrackingStore}: in the same transaction when they live in the database, so a
+     * habit is never gone while its trackings are left behind, and after the commit when they
+     * live in the tracking log, so a rolled back delete keeps them. Archived trackings are
+     * marked deleted in the {@link TrackingArchive} once the delete is committed.
+     *
+     * @throws HabitNotFoundException         when there is no such habit
+     * @throws HabitVersionConflictException  when the habit no longer has the expected version
+     */
+    public void deleteHabit(final UUID id, final Long expectedVersion) {
+        final UUID userId = UserContext.currentUser();
+        final boolean deleted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (habitJdbcRepository.delete(id, userId, expectedVersion) == 0) {
+                return false;
+            }
+            trackingStore.deleteByHabitId(id);
+            changeEventOutbox.habitDeleted(id, userId);
+            return true;
+        }));
+        if (!deleted) {
+            throw notFoundOrConflict(id, expectedVersion);
+        }
+        trackingArchive.deleteHabit(id);
+        habitCache.invalidate(id);
+        habitRollupService.removeHabit(id);
     }
 
+    /**
+     * Adds a tracking entry. When the write-behind mode is enabled, the entry is queued and
+     * committed together with other entries shortly afterwards; the returned tracking
+     * already carries its final id.
+     */
+    @Transactional
     public Tracking addTrackingEntry(final UUID habitId,
                                      final String note) {
-        // TODO: Create a new tracking entry in the database and return it
-        return Tracking.builder().build();
+        final Tracking tracking = newTracking(habitId, note);
+        if (trackingWriteBehindQueue.isEnabled()) {
+            return trackingWriteBehindQueue.enqueue(tracking);
+        }
+        return saveTracking(tracking);
+    }
+
+    /**
+     * Adds a tracking entry and commits it before returning, regardless of the ingest mode.
+     */
+    @Transactional
+    public Tracking addTrackingEntryDurably(final UUID habitId,
+                                            final String note) {
+        return saveTracking(newTracking(habitId, note));
+    }
+
+    /**
+     * Deletes a live or archived tracking. Archive segments are immutable, so an archived
+     * tracking is marked deleted in the {@link TrackingArchive} once the transaction commits.
+     */
+    @Transactional
+    public void deleteTrackingEntry(final UUID habitId,
+                                    final UUID trackingId) {
+        final Habit habit = getHabitById(habitId);
+        final Optional<Tracking> live = trackingStore.findById(habit, trackingId);
+        final Tracking tracking;
+        if (live.isPresent()) {
+            tracking = live.get();
+            trackingStore.delete(tracking);
+        } else {
+            tracking = trackingArchive.findById(habitId, trackingId)
+                .map(row -> Tracking.builder()
+                    .id(row.id())
+                    .habit(habit)
+                    .timestamp(row.timestamp())
+                    .note(row.note())
+                    .build())
+                .orElseThrow(() -> new TrackingNotFoundException(
+                    "No tracking with id " + trackingId + " for habit " + habitId));
+            afterCommit(() -> trackingArchive.deleteTracking(habitId, trackingId));
+        }
+        habitRollupService.removeTracking(tracking);
+        changeEventOutbox.trackingDeleted(tracking);
+    }
+
+    /**
+     * Returns every tracking of a habit, including archived ones, oldest first. The habit and
+     * its trackings are projected into responses, so one query reads the habit (none when it
+     * is cached) and one its trackings, however many there are.
+     */
+    @Transactional(readOnly = true)
+    public List<TrackingResponse> getAllTrackingsForHabit(final UUID habitId) {
+        final HabitResponse habit = getHabitResponseById(habitId);
+        final List<TrackingExportRow> trackings = trackingStore.findByHabitId(habitId);
+        final List<TrackingExportRow> archived = trackingArchive.findAll(habitId);
+        return toResponses(habit, archived.isEmpty() ? trackings : mergeArchived(archived, trackings, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns the trackings of a habit with {@code from <= timestamp < to}, oldest first and
+     * at most {@code limit} of them. Either bound may be null to leave that side open.
+     */
+    @Transactional(readOnly = true)
+    public List<TrackingResponse> getTrackingsForHabit(final UUID habitId,
+                                               final LocalDateTime from,
+                                               final LocalDateTime to,
+                                               final Integer limit) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidTrackingRangeException("'from' must be before 'to', got " + from + " and " + to);
+        }
+        final HabitResponse habit = getHabitResponseById(habitId);
+        final LocalDateTime lower = from != null ? from : EARLIEST_TIMESTAMP;
+        final LocalDateTime upper = to != null ? to : LATEST_TIMESTAMP;
+        final int pageSize = paginationProperties.resolvePageSize(limit);
+        final List<TrackingExportRow> trackings = trackingStore.findByHabitIdInRange(habitId, lower, upper, pageSize);
+        final List<TrackingExportRow> archived = trackingArchive.find(habitId, lower, upper);
+        return toResponses(habit, archived.isEmpty() ? trackings : mergeArchived(archived, trackings, pageSize));
+    }
+
+    private HabitPage loadHabitPage(final String cursor, final int pageSize) {
+        // Fetch one extra row to find out whether another page follows
+        final Limit fetchLimit = Limit.of(pageSize + 1);
+        final List<Tuple> habits = cursor == null
+            ? habitRepository.findAllResponses(UserContext.currentUser(), fetchLimit)
+            : habitRepository.findResponsesAfter(UserContext.currentUser(), HabitCursor.decode(cursor), fetchLimit);
+
+        final boolean hasNext = habits.size() > pageSize;
+        final List<HabitResponse> page = habits.stream()
+            .limit(pageSize)
+            .map(HabitMapper::mapToHabitResponse)
+            .toList();
+        final String nextCursor = hasNext ? HabitCursor.encode(page.get(page.size() - 1).id()) : null;
+        return new HabitPage(page, nextCursor);
+    }
+
+    /**
+     * Merges archived trackings into live ones, oldest first. A tracking that is still live
+     * while it is being archived is only returned once.
+     */
+    private static List<TrackingExportRow> mergeArchived(final List<TrackingExportRow> archived,
+                                                         final List<TrackingExportRow> trackings,
+                                                         final int limit) {
+        final Set<UUID> liveIds = trackings.stream().map(TrackingExportRow::id).collect(Collectors.toSet());
+        return Stream.concat(archived.stream().filter(row -> !liveIds.contains(row.id())), trackings.stream())
+            .sorted(TRACKING_ORDER)
+            .limit(limit)
+            .toList();
+    }
+
+    private static List<TrackingResponse> toResponses(final HabitResponse habit, final List<TrackingExportRow> rows) {
+        return rows.stream().map(row -> TrackingMapper.mapToTrackingResponse(habit, row)).toList();
+    }
+
+    private Tracking saveTracking(final Tracking tracking) {
+        final Tracking savedTracking = trackingStore.save(tracking);
+        habitRollupService.recordTrackings(List.of(tracking));
+        changeEventOutbox.trackingsAdded(List.of(savedTracking));
+        return savedTracking;
+    }
+
+    private Tracking newTracking(final UUID habitId,
+                                 final String note) {
+        return Tracking.builder()
+            .habit(getHabitById(habitId))
+            .timestamp(LocalDateTime.now())
+            .note(note)
+            .build();
+    }
+
+    /**
+     * Tells apart the two reasons a conditional write can match no row. Only runs after a
+     * write failed, so the successful path stays a single statement.
+     */
+    private RuntimeException notFoundOrConflict(final UUID id, final Long expectedVersion) {
+        if (expectedVersion != null && habitRepository.existsByIdAndUserId(id, UserContext.currentUser())) {
+            return versionConflict(id, expectedVersion);
+        }
+        return new HabitNotFoundException("No habit with id " + id);
+    }
+
+    private static HabitVersionConflictException versionConflict(final UUID id, final Long expectedVersion) {
+        return new HabitVersionConflictException("Habit " + id + " no longer has version " + expectedVersion);
+    }
+
+    private static HabitConflictException nameConflict(final String name, final DataIntegrityViolationException e) {
+        return new HabitConflictException("Habit " + name + " conflicts with another habit of the user or misses a required field", e);
     }
 
-    public List<Tracking> getAllTrackingsForHabit(final UUID habitId) {
-        // TODO: Return all tracking entries in the database
-        return List.of();
+    private Habit getHabitById(final UUID id) {
+        return habitRepository.findByIdAndUserId(id, UserContext.currentUser())
+            .orElseThrow(() -> new HabitNotFoundException("No habit with id " + id));
     }
 
 }
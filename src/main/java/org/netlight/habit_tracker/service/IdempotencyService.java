@@ -0,0 +1,229 @@
+package org.netlight.habit_tracker.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.IdempotencyProperties;
+import org.netlight.habit_tracker.exception.IdempotencyKeyInProgressException;
+import org.netlight.habit_tracker.exception.IdempotencyKeyReusedException;
+import org.netlight.habit_tracker.idempotency.IdempotentResponse;
+import org.netlight.habit_tracker.repository.IdempotencyKeyRepository;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deduplicates requests by their {@code Idempotency-Key}. The first request with a key claims
+ * it and is handled; every later request with that key gets the first one's response.
+ * <p>
+ * Recent keys live in a bounded, expiring in-memory map from key to the future response, so
+ * concurrent retries on the same node wait for the original instead of running again, and
+ * replays do not touch the database. Claims are also recorded in the
+ * {@code idempotency_keys} table, whose primary key settles races between nodes and keeps
+ * keys across restarts and evictions. A key whose request is still running on another node,
+ * or did not complete before a crash, is answered with 409 until it expires.
+ * <p>
+ * Expired keys are purged on startup and then every {@code purgeInterval}, on every shard.
+ */
+@Log4j2
+@Service
+public class IdempotencyService implements ApplicationRunner {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final IdempotencyProperties properties;
+    private final ShardRouter shardRouter;
+    private final Cache<String, CompletableFuture<IdempotentResponse>> entries;
+    private final Counter memoryReplays;
+    private final Counter databaseReplays;
+    private final ScheduledExecutorService scheduler;
+
+    public IdempotencyService(final IdempotencyKeyRepository idempotencyKeyRepository,
+                              final IdempotencyProperties properties,
+                              final ShardRouter shardRouter,
+                              final MeterRegistry meterRegistry) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.entries = Caffeine.newBuilder()
+            .maximumWeight(properties.cacheSize().toBytes())
+            .weigher((String key, CompletableFuture<IdempotentResponse> response) -> key.length() + weight(response))
+            .expireAfterWrite(properties.timeToLive())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "idempotency_keys");
+        this.memoryReplays = Counter.builder("habit_tracker.idempotency.replays")
+            .tag("source", "memory")
+            .register(meterRegistry);
+        this.databaseReplays = Counter.builder("habit_tracker.idempotency.replays")
+            .tag("source", "database")
+            .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "idempotency-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        final long interval = properties.purgeInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::purgeExpired, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Claims a key for a request. Returns null when the caller now owns the key and must
+     * call {@link #complete} or {@link #release} once it has handled the request, or the
+     * stored response when a request with this key has already completed.
+     *
+     * @throws IdempotencyKeyReusedException     when the key was used for a different request
+     * @throws IdempotencyKeyInProgressException when a request with this key is still running
+     */
+    public IdempotentResponse claim(final String key, final byte[] fingerprint) {
+        while (true) {
+            final CompletableFuture<IdempotentResponse> owned = new CompletableFuture<>();
+            final CompletableFuture<IdempotentResponse> existing = entries.asMap().putIfAbsent(key, owned);
+            if (existing != null) {
+                final IdempotentResponse response = await(key, existing);
+                if (response == null) {
+                    // The original request failed and released the key, so try to claim it again
+                    continue;
+                }
+                memoryReplays.increment();
+                return replay(key, fingerprint, response);
+            }
+            try {
+                final Optional<IdempotentResponse> stored = claimInDatabase(key, fingerprint);
+                if (stored.isEmpty()) {
+                    return null;
+                }
+                owned.complete(stored.get());
+                // Re-insert the completed entry so that its weight is updated
+                entries.asMap().replace(key, owned, owned);
+                databaseReplays.increment();
+                return replay(key, fingerprint, stored.get());
+            } catch (final RuntimeException e) {
+                entries.asMap().remove(key, owned);
+                owned.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stores the response of a claimed key and hands it to the requests waiting for it.
+     */
+    public void complete(final String key, final IdempotentResponse response) {
+        idempotencyKeyRepository.complete(key, response);
+        final CompletableFuture<IdempotentResponse> completed = CompletableFuture.completedFuture(response);
+        final CompletableFuture<IdempotentResponse> owned = entries.asMap().put(key, completed);
+        if (owned != null) {
+            owned.complete(response);
+        }
+    }
+
+    /**
+     * Gives up a claimed key, e.g. after a server error, so that a retry is handled again.
+     */
+    public void release(final String key) {
+        try {
+            idempotencyKeyRepository.delete(key);
+        } finally {
+            final CompletableFuture<IdempotentResponse> owned = entries.asMap().remove(key);
+            if (owned != null) {
+                owned.complete(null);
+            }
+        }
+    }
+
+    void purgeExpired() {
+        shardRouter.forEachShard(shard -> {
+            try {
+                final int purged = idempotencyKeyRepository.deleteExpired(cutoff());
+                if (purged > 0) {
+                    log.info("Purged {} expired idempotency keys on shard {}", purged, shard);
+                }
+            } catch (final RuntimeException e) {
+                log.error("Could not purge expired idempotency keys on shard {}", shard, e);
+            }
+        });
+    }
+
+    /**
+     * Inserts the key, or returns the stored response when another request, possibly on
+     * another node or before a restart, has already completed with it.
+     */
+    private Optional<IdempotentResponse> claimInDatabase(final String key, final byte[] fingerprint) {
+        while (true) {
+            if (idempotencyKeyRepository.insert(key, fingerprint, LocalDateTime.now())) {
+                return Optional.empty();
+            }
+            final LocalDateTime cutoff = cutoff();
+            final Optional<IdempotentResponse> stored = idempotencyKeyRepository.findCompleted(key, cutoff);
+            if (stored.isPresent()) {
+                return stored;
+            }
+            if (!idempotencyKeyRepository.deleteExpired(key, cutoff)) {
+                throw new IdempotencyKeyInProgressException("A request with idempotency key " + key + " is in progress");
+            }
+        }
+    }
+
+    private IdempotentResponse await(final String key, final CompletableFuture<IdempotentResponse> response) {
+        try {
+            return response.get(properties.waitTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("A request with idempotency key " + key + " is in progress");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException("Interrupted while waiting for idempotency key " + key);
+        }
+    }
+
+    private static IdempotentResponse replay(final String key, final byte[] fingerprint,
+                                             final IdempotentResponse response) {
+        if (!Arrays.equals(response.fingerprint(), fingerprint)) {
+            throw new IdempotencyKeyReusedException("Idempotency key " + key + " was used for a different request");
+        }
+        return response;
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().minus(properties.timeToLive());
+    }
+
+    /**
+     * Responses that are still pending are weighed as a small fixed size.
+     */
+    private static int weight(final CompletableFuture<IdempotentResponse> response) {
+        final IdempotentResponse completed = response.isDone() && !response.isCompletedExceptionally()
+            ? response.getNow(null)
+            : null;
+        return completed != null ? completed.weight() : 256;
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.netlight.habit_tracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.netlight.habit_tracker.config.OutboxProperties;
+import org.netlight.habit_tracker.outbox.ChangeEvent;
+import org.netlight.habit_tracker.outbox.ChangeEventSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends change events to a local file, one JSON object per line, with the payload
+ * embedded as JSON. Batches from parallel publishers are written one after the other; each
+ * is flushed before it counts as published.
+ */
+@Component
+@ConditionalOnProperty(prefix = "habit-tracker.outbox", name = "sink", havingValue = "log", matchIfMissing = true)
+public class LogFileChangeEventSink implements ChangeEventSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private Writer writer;
+
+    public LogFileChangeEventSink(final OutboxProperties properties, final ObjectMapper objectMapper) {
+        this.file = properties.logFile();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(final List<ChangeEvent> events) throws IOException {
+        if (writer == null) {
+            final Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        for (final ChangeEvent event : events) {
+            writer.write(objectMapper.writeValueAsString(event));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+}
@@ -0,0 +1,62 @@
+package org.netlight.habit_tracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.netlight.habit_tracker.config.ReminderProperties;
+import org.netlight.habit_tracker.reminder.Reminder;
+import org.netlight.habit_tracker.reminder.ReminderSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends reminders to a local file, one JSON object per line, for deployments that ship
+ * their logs elsewhere. The file is opened on the first batch; every batch is flushed before
+ * it counts as sent.
+ */
+@Component
+@ConditionalOnProperty(prefix = "habit-tracker.reminders", name = "sink", havingValue = "log", matchIfMissing = true)
+public class LogFileReminderSink implements ReminderSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private Writer writer;
+
+    public LogFileReminderSink(final ReminderProperties properties, final ObjectMapper objectMapper) {
+        this.file = properties.logFile();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void send(final List<Reminder> reminders) throws IOException {
+        if (writer == null) {
+            final Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        for (final Reminder reminder : reminders) {
+            writer.write(objectMapper.writeValueAsString(reminder));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.netlight.habit_tracker.service;
+
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.MigrationProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ends the application once the changelog is applied when it runs as the migration job:
+ * <pre>
+ * java -jar habit-tracker.jar --spring.profiles.active=migrate
+ * </pre>
+ * Liquibase migrates the database, every shard of it when sharding is enabled, while the
+ * context starts. Exiting from the first runner keeps the other runners from starting
+ * background work in the job. Instances that leave migrations to the job start with
+ * {@code spring.liquibase.enabled=false} and skip the changelog check on boot.
+ * <p>
+ * The flag is checked at runtime rather than by a condition, so the job also runs from an
+ * ahead-of-time processed build, whose bean definitions are fixed at build time.
+ */
+@Log4j2
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MigrationJob implements ApplicationRunner {
+
+    private final MigrationProperties properties;
+    private final ConfigurableApplicationContext applicationContext;
+    private final ObjectProvider<SpringLiquibase> liquibase;
+    private final boolean liquibaseEnabled;
+
+    public MigrationJob(final MigrationProperties properties,
+                        final ConfigurableApplicationContext applicationContext,
+                        final ObjectProvider<SpringLiquibase> liquibase,
+                        @Value("${spring.liquibase.enabled:true}") final boolean liquibaseEnabled) {
+        this.properties = properties;
+        this.applicationContext = applicationContext;
+        this.liquibase = liquibase;
+        this.liquibaseEnabled = liquibaseEnabled;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (!properties.runAndExit()) {
+            return;
+        }
+        // With lazy initialization, this is where the changelog is applied
+        final SpringLiquibase applied = liquibase.getIfAvailable();
+        if (applied == null || !liquibaseEnabled) {
+            throw new IllegalStateException("The migration job cannot run with spring.liquibase.enabled=false");
+        }
+        log.info("Applied the database changelog {}, exiting", applied.getChangeLog());
+        System.exit(SpringApplication.exit(applicationContext));
+    }
+
+}
@@ -0,0 +1,180 @@
+package org.netlight.habit_tracker.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.ShardProperties;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.netlight.habit_tracker.shard.ShardRoutingDataSource;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Moves users to the shard the hash ring assigns them to, e.g. after a shard was added to
+ * the configuration. Runs on startup with {@code habit-tracker.shards.rebalance-on-startup}.
+ * <p>
+ * A user's habits and trackings are copied to the target shard in one transaction there and
+ * then deleted from the source shard; the rollups of the moved habits are rebuilt on the
+ * target. Rows that already exist on the target, from an interrupted earlier move or written
+ * there since the configuration changed, are kept, so a move can simply be run again. While a
+ * user is being moved, their habits on the source shard are not visible to requests.
+ * Import jobs and idempotency keys are not moved.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(prefix = "habit-tracker.shards", name = "enabled", havingValue = "true")
+public class ShardRebalancer implements ApplicationRunner {
+
+    private static final String SELECT_USERS_SQL = "select distinct user_id from habits";
+
+    private static final String SELECT_HABITS_SQL =
+        "select id, user_id, name, description, frequency, start_date, version from habits where user_id = ?";
+
+    private static final String INSERT_HABIT_SQL =
+        "insert into habits (id, user_id, name, description, frequency, start_date, version) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_TRACKINGS_SQL = "select id, habit_id, timestamp, note from trackings where habit_id = ?";
+
+    private static final String SELECT_TRACKING_IDS_SQL = "select id from trackings where habit_id = ?";
+
+    private static final String INSERT_TRACKING_SQL =
+        "insert into trackings (id, habit_id, timestamp, note) values (?, ?, ?, ?)";
+
+    private static final String DELETE_TRACKINGS_SQL =
+        "delete from trackings where habit_id in (select id from habits where user_id = ?)";
+
+    private static final String DELETE_HABITS_SQL = "delete from habits where user_id = ?";
+
+    private final ShardRoutingDataSource dataSource;
+    private final ShardRouter shardRouter;
+    private final ShardProperties properties;
+    private final HabitRepository habitRepository;
+    private final HabitRollupService habitRollupService;
+
+    public ShardRebalancer(final ShardRoutingDataSource dataSource,
+                           final ShardRouter shardRouter,
+                           final ShardProperties properties,
+                           final HabitRepository habitRepository,
+                           final HabitRollupService habitRollupService) {
+        this.dataSource = dataSource;
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+        this.habitRepository = habitRepository;
+        this.habitRollupService = habitRollupService;
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (properties.rebalanceOnStartup()) {
+            log.info("Moved {} users to their assigned shards", rebalance());
+        }
+    }
+
+    /**
+     * Moves every user that is stored on another shard than their assigned one and returns
+     * the number of moved users.
+     */
+    public int rebalance() {
+        int moved = 0;
+        for (final String shard : shardRouter.shards()) {
+            final List<UUID> users = jdbcTemplate(shard)
+                .query(SELECT_USERS_SQL, (resultSet, rowNum) -> UuidBytes.fromBytes(resultSet.getBytes(1)));
+            for (final UUID userId : users) {
+                final String assigned = shardRouter.shardFor(userId);
+                if (!assigned.equals(shard)) {
+                    moveUser(userId, shard, assigned);
+                    moved++;
+                }
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Moves the habits and trackings of one user from one shard to another.
+     */
+    public void moveUser(final UUID userId, final String from, final String to) {
+        final JdbcTemplate source = jdbcTemplate(from);
+        final JdbcTemplate target = jdbcTemplate(to);
+        final byte[] userIdBytes = UuidBytes.toBytes(userId);
+
+        final List<UUID> habitIds = new TransactionTemplate(new DataSourceTransactionManager(dataSource.shard(to)))
+            .execute(status -> copyHabits(source, target, userIdBytes));
+        shardRouter.runOnShard(to, () -> {
+            for (final Habit habit : habitRepository.findAllById(habitIds)) {
+                habitRollupService.rebuild(habit);
+            }
+        });
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource.shard(from))).executeWithoutResult(status -> {
+            source.update(DELETE_TRACKINGS_SQL, (Object) userIdBytes);
+            source.update(DELETE_HABITS_SQL, (Object) userIdBytes);
+        });
+        log.info("Moved {} habits of user {} from shard {} to shard {}", habitIds.size(), userId, from, to);
+    }
+
+    private List<UUID> copyHabits(final JdbcTemplate source, final JdbcTemplate target, final byte[] userId) {
+        final Set<UUID> existing = new HashSet<>(target.query("select id from habits where user_id = ?",
+            (resultSet, rowNum) -> UuidBytes.fromBytes(resultSet.getBytes(1)), (Object) userId));
+        final List<UUID> habitIds = new ArrayList<>();
+        source.query(SELECT_HABITS_SQL, (RowCallbackHandler) resultSet -> {
+            final UUID habitId = UuidBytes.fromBytes(resultSet.getBytes(1));
+            habitIds.add(habitId);
+            if (!existing.contains(habitId)) {
+                target.update(INSERT_HABIT_SQL, resultSet.getBytes(1), resultSet.getBytes(2), resultSet.getString(3),
+                    resultSet.getString(4), resultSet.getString(5), resultSet.getDate(6), resultSet.getLong(7));
+            }
+        }, (Object) userId);
+        for (final UUID habitId : habitIds) {
+            copyTrackings(source, target, UuidBytes.toBytes(habitId));
+        }
+        return habitIds;
+    }
+
+    private void copyTrackings(final JdbcTemplate source, final JdbcTemplate target, final byte[] habitId) {
+        final Set<UUID> existing = new HashSet<>(target.query(SELECT_TRACKING_IDS_SQL,
+            (resultSet, rowNum) -> UuidBytes.fromBytes(resultSet.getBytes(1)), (Object) habitId));
+        final List<Object[]> batch = new ArrayList<>(properties.rebalanceBatchSize());
+        source.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(
+                SELECT_TRACKINGS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(properties.rebalanceBatchSize());
+            statement.setBytes(1, habitId);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> {
+            if (existing.contains(UuidBytes.fromBytes(resultSet.getBytes(1)))) {
+                return;
+            }
+            batch.add(new Object[] {
+                resultSet.getBytes(1), resultSet.getBytes(2), resultSet.getTimestamp(3), resultSet.getString(4)});
+            if (batch.size() == properties.rebalanceBatchSize()) {
+                target.batchUpdate(INSERT_TRACKING_SQL, batch);
+                batch.clear();
+            }
+        });
+        if (!batch.isEmpty()) {
+            target.batchUpdate(INSERT_TRACKING_SQL, batch);
+        }
+    }
+
+    private JdbcTemplate jdbcTemplate(final String shard) {
+        final DataSource shardDataSource = dataSource.shard(shard);
+        return new JdbcTemplate(shardDataSource);
+    }
+
+}
@@ -0,0 +1,185 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.archive.ArchiveTombstones;
+import org.netlight.habit_tracker.archive.TrackingSegment;
+import org.netlight.habit_tracker.config.ArchiveProperties;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Read side of the tracking archive: the immutable segment files in the archive directory,
+ * opened on startup and as the archival job adds them.
+ * <p>
+ * A tracking may briefly be both archived and live, between a segment being published and
+ * its rows being deleted, or twice archived after a crash in that window. Readers therefore
+ * drop archived trackings whose id they have already seen.
+ * <p>
+ * Segments are immutable, so trackings deleted after they were archived, one by one or with
+ * their habit, are recorded in {@link ArchiveTombstones} next to the segments and left out of
+ * every read. {@link TrackingArchiveService} rewrites the segments holding them without them.
+ */
+@Log4j2
+@Component
+public class TrackingArchive {
+
+    static final String SEGMENT_SUFFIX = ".seg";
+    static final String TOMBSTONES_FILE = "tombstones";
+
+    private static final Comparator<TrackingExportRow> ROW_ORDER = Comparator
+        .comparing(TrackingExportRow::timestamp)
+        .thenComparing(TrackingExportRow::id, UuidBytes::compare);
+
+    private final ArchiveProperties properties;
+    private final List<TrackingSegment> segments = new CopyOnWriteArrayList<>();
+    private final ArchiveTombstones tombstones;
+
+    public TrackingArchive(final ArchiveProperties properties, final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.tombstones = new ArchiveTombstones(properties.directory().resolve(TOMBSTONES_FILE));
+        Gauge.builder("habit_tracker.archive.segments", segments, List::size)
+            .description("Open tracking archive segments")
+            .register(meterRegistry);
+        Gauge.builder("habit_tracker.archive.rows", segments,
+                open -> open.stream().mapToLong(TrackingSegment::rowCount).sum())
+            .description("Trackings held in archive segments")
+            .register(meterRegistry);
+        Gauge.builder("habit_tracker.archive.size", segments,
+                open -> open.stream().mapToLong(TrackingSegment::sizeBytes).sum())
+            .description("Size of the archive segments")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        final Path directory = properties.directory();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        tombstones.load();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (final Path file : files.filter(f -> f.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList()) {
+                segments.add(TrackingSegment.open(file));
+            }
+        }
+        log.info("Opened {} tracking archive segments in {}", segments.size(), directory);
+    }
+
+    public void add(final TrackingSegment segment) {
+        segments.add(segment);
+    }
+
+    /**
+     * Puts a rewritten segment in place of the original, or drops the original when the
+     * rewrite is null.
+     */
+    public void replace(final TrackingSegment original, final TrackingSegment rewrite) {
+        if (rewrite != null) {
+            segments.add(rewrite);
+        }
+        segments.remove(original);
+    }
+
+    public List<TrackingSegment> segments() {
+        return List.copyOf(segments);
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * Returns the archived trackings of a habit with {@code from <= timestamp < to}, oldest first.
+     */
+    public List<TrackingExportRow> find(final UUID habitId, final LocalDateTime from, final LocalDateTime to) {
+        if (segments.isEmpty()) {
+            return List.of();
+        }
+        if (tombstones.coversHabit(habitId)) {
+            return List.of();
+        }
+        final List<TrackingExportRow> rows = new ArrayList<>();
+        final Set<UUID> seen = new HashSet<>();
+        for (final TrackingSegment segment : segments) {
+            for (final TrackingExportRow row : segment.read(habitId, from, to)) {
+                if (seen.add(row.id()) && !tombstones.covers(habitId, row.id())) {
+                    rows.add(row);
+                }
+            }
+        }
+        rows.sort(ROW_ORDER);
+        return rows;
+    }
+
+    /**
+     * Returns every archived tracking of a habit, oldest first.
+     */
+    public List<TrackingExportRow> findAll(final UUID habitId) {
+        return find(habitId, HabitService.EARLIEST_TIMESTAMP, HabitService.LATEST_TIMESTAMP);
+    }
+
+    public Optional<TrackingExportRow> findById(final UUID habitId, final UUID trackingId) {
+        return findAll(habitId).stream().filter(row -> row.id().equals(trackingId)).findFirst();
+    }
+
+    /**
+     * Records that the habit was deleted, so its archived trackings are gone from then on.
+     * Nothing is recorded while there are no segments and none are being written.
+     */
+    public void deleteHabit(final UUID habitId) {
+        if (segments.isEmpty() && !properties.enabled()) {
+            return;
+        }
+        try {
+            tombstones.addHabit(habitId);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not record the deletion of habit " + habitId + " in the archive", e);
+        }
+    }
+
+    /**
+     * Records that an archived tracking was deleted, so it is gone from then on.
+     */
+    public void deleteTracking(final UUID habitId, final UUID trackingId) {
+        try {
+            tombstones.addTracking(habitId, trackingId);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not record the deletion of tracking " + trackingId + " in the archive", e);
+        }
+    }
+
+    /**
+     * Returns the deletions recorded so far, for the segments holding them to be rewritten.
+     */
+    public ArchiveTombstones.Snapshot deletions() {
+        return tombstones.snapshot();
+    }
+
+    /**
+     * Forgets deletions whose trackings no segment holds any more.
+     */
+    public void forget(final ArchiveTombstones.Snapshot deletions) throws IOException {
+        tombstones.remove(deletions);
+    }
+
+}
@@ -0,0 +1,224 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.archive.ArchiveTombstones;
+import org.netlight.habit_tracker.archive.TrackingSegment;
+import org.netlight.habit_tracker.archive.TrackingSegmentWriter;
+import org.netlight.habit_tracker.config.ArchiveProperties;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.repository.TrackingJdbcRepository;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.SERVICE_TIMER;
+
+/**
+ * Moves trackings older than the archive horizon out of the database into segment files.
+ * Each segment is written to a temporary file, synced, renamed into place and opened by
+ * {@link TrackingArchive} before its rows are deleted, so every tracking stays readable
+ * throughout. A crash between the rename and the delete leaves rows that are archived again
+ * by the next run; readers drop the duplicates.
+ * <p>
+ * After archiving, each run rewrites the segments holding trackings deleted since they were
+ * archived without them, and then forgets those deletions. A crash during a rewrite leaves
+ * the original segment or both; the deletions are only forgotten once every rewrite is in
+ * place, so the deleted rows stay hidden either way.
+ */
+@Log4j2
+@Timed(SERVICE_TIMER)
+@Service
+public class TrackingArchiveService implements ApplicationRunner {
+
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private final TrackingJdbcRepository trackingJdbcRepository;
+    private final TrackingArchive trackingArchive;
+    private final ArchiveProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final Counter archivedRows;
+    private final ScheduledExecutorService scheduler;
+
+    public TrackingArchiveService(final TrackingJdbcRepository trackingJdbcRepository,
+                                  final TrackingArchive trackingArchive,
+                                  final ArchiveProperties properties,
+                                  final TransactionTemplate transactionTemplate,
+                                  final ShardRouter shardRouter,
+                                  final MeterRegistry meterRegistry) {
+        this.trackingJdbcRepository = trackingJdbcRepository;
+        this.trackingArchive = trackingArchive;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouter = shardRouter;
+        this.archivedRows = Counter.builder("habit_tracker.archive.archived")
+            .description("Trackings moved from the database into archive segments")
+            .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "tracking-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        if (properties.enabled()) {
+            scheduler.scheduleWithFixedDelay(() -> {
+                shardRouter.forEachShard(this::archiveExpired);
+                purgeDeletedTrackings();
+            }, 0, properties.interval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Archives every tracking of the current shard older than {@code cutoff} and returns how
+     * many were archived.
+     */
+    public long archive(final LocalDateTime cutoff) throws IOException {
+        Files.createDirectories(properties.directory());
+        long archived = 0;
+        int written;
+        do {
+            written = archiveSegment(cutoff);
+            archived += written;
+        } while (written == properties.segmentRows());
+        return archived;
+    }
+
+    /**
+     * Rewrites every segment holding deleted trackings without them and returns how many
+     * segments were rewritten.
+     */
+    public int purge() throws IOException {
+        final ArchiveTombstones.Snapshot deletions = trackingArchive.deletions();
+        if (deletions.isEmpty()) {
+            return 0;
+        }
+        int rewritten = 0;
+        for (final TrackingSegment segment : trackingArchive.segments()) {
+            if (segment.habitIds().stream().anyMatch(deletions::affects)) {
+                rewriteWithout(segment, deletions);
+                rewritten++;
+            }
+        }
+        trackingArchive.forget(deletions);
+        return rewritten;
+    }
+
+    private void archiveExpired(final String shard) {
+        try {
+            final long archived = archive(LocalDateTime.now().minus(properties.horizon()));
+            if (archived > 0) {
+                log.info("Archived {} trackings older than {} on shard {}", archived, properties.horizon(), shard);
+            }
+        } catch (final Exception e) {
+            log.error("Tracking archival failed on shard {}", shard, e);
+        }
+    }
+
+    private void purgeDeletedTrackings() {
+        try {
+            final int rewritten = purge();
+            if (rewritten > 0) {
+                log.info("Rewrote {} archive segments without deleted trackings", rewritten);
+            }
+        } catch (final Exception e) {
+            log.error("Purging deleted trackings from the archive failed", e);
+        }
+    }
+
+    private void rewriteWithout(final TrackingSegment segment, final ArchiveTombstones.Snapshot deletions) throws IOException {
+        final String name = "segment-" + TimeOrderedUuid.next();
+        final Path temporary = properties.directory().resolve(name + ".tmp");
+        final long kept;
+        try (TrackingSegmentWriter writer = TrackingSegmentWriter.create(temporary)) {
+            for (final UUID habitId : segment.habitIds()) {
+                for (final TrackingExportRow row : segment.readAll(habitId)) {
+                    if (!deletions.covers(habitId, row.id())) {
+                        writer.append(habitId, row);
+                    }
+                }
+            }
+            kept = writer.rowCount();
+            if (kept > 0) {
+                writer.finish();
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        if (kept == 0) {
+            Files.delete(temporary);
+            trackingArchive.replace(segment, null);
+        } else {
+            final Path segmentFile = Files.move(temporary,
+                properties.directory().resolve(name + TrackingArchive.SEGMENT_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+            trackingArchive.replace(segment, TrackingSegment.open(segmentFile));
+        }
+        Files.delete(segment.path());
+        log.info("Rewrote {} without {} deleted trackings", segment.path(), segment.rowCount() - kept);
+    }
+
+    private int archiveSegment(final LocalDateTime cutoff) throws IOException {
+        final String name = "segment-" + TimeOrderedUuid.next();
+        final Path temporary = properties.directory().resolve(name + ".tmp");
+        final List<UUID> ids = new ArrayList<>();
+        try (TrackingSegmentWriter writer = TrackingSegmentWriter.create(temporary)) {
+            trackingJdbcRepository.forEachOlderThan(cutoff, properties.segmentRows(), properties.fetchSize(),
+                (habitId, row) -> {
+                    try {
+                        writer.append(habitId, row);
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    ids.add(row.id());
+                });
+            if (!ids.isEmpty()) {
+                writer.finish();
+            }
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        if (ids.isEmpty()) {
+            Files.delete(temporary);
+            return 0;
+        }
+
+        // Segment names sort by creation, which is the order segments are opened in on startup
+        final Path segmentFile = Files.move(temporary, properties.directory().resolve(name + TrackingArchive.SEGMENT_SUFFIX),
+            StandardCopyOption.ATOMIC_MOVE);
+        trackingArchive.add(TrackingSegment.open(segmentFile));
+        transactionTemplate.executeWithoutResult(status -> trackingJdbcRepository.batchDelete(ids, DELETE_BATCH_SIZE));
+        archivedRows.increment(ids.size());
+        log.info("Archived {} trackings into {}", ids.size(), segmentFile);
+        return ids.size();
+    }
+
+}
@@ -0,0 +1,130 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.config.TrackingBatchProperties;
+import org.netlight.habit_tracker.dto.request.TrackingEntryRequest;
+import org.netlight.habit_tracker.dto.response.TrackingBatchResponse;
+import org.netlight.habit_tracker.dto.response.TrackingEntryResult;
+import org.netlight.habit_tracker.exception.TrackingBatchTooLargeException;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.SERVICE_TIMER;
+import static org.netlight.habit_tracker.dto.response.TrackingEntryResult.Status.HABIT_NOT_FOUND;
+import static org.netlight.habit_tracker.dto.response.TrackingEntryResult.Status.INVALID;
+
+/**
+ * Ingests many tracking entries, possibly for many habits, in a single transaction.
+ * Habits are looked up with one set-based query and the trackings are stored in batches,
+ * each with its change events.
+ */
+@Timed(SERVICE_TIMER)
+@Service
+@AllArgsConstructor
+public class TrackingBatchService {
+
+    static final int MAX_NOTE_LENGTH = 500;
+
+    @Autowired
+    private final HabitRepository habitRepository;
+
+    @Autowired
+    private final TrackingStore trackingStore;
+
+    @Autowired
+    private final TrackingBatchProperties trackingBatchProperties;
+
+    @Autowired
+    private final HabitRollupService habitRollupService;
+
+    @Autowired
+    private final ChangeEventOutbox changeEventOutbox;
+
+    @Transactional
+    public TrackingBatchResponse addTrackingEntries(final List<TrackingEntryRequest> entries) {
+        if (entries.size() > trackingBatchProperties.maxEntries()) {
+            throw new TrackingBatchTooLargeException("A batch may contain at most "
+                + trackingBatchProperties.maxEntries() + " entries, got " + entries.size());
+        }
+
+        final Set<UUID> requestedIds = entries.stream()
+            .map(TrackingEntryRequest::habitId)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet());
+        final Map<UUID, Habit> habits = requestedIds.isEmpty()
+            ? Map.of()
+            : habitRepository.findByUserIdAndIdIn(UserContext.currentUser(), requestedIds).stream()
+                .collect(Collectors.toMap(Habit::getId, Function.identity()));
+
+        final int batchSize = trackingBatchProperties.batchSize();
+
+        final LocalDateTime receivedAt = LocalDateTime.now();
+        final List<TrackingEntryResult> results = new ArrayList<>(entries.size());
+        final List<Tracking> pending = new ArrayList<>(batchSize);
+        int created = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            final TrackingEntryRequest entry = entries.get(i);
+            if (entry.habitId() == null) {
+                results.add(TrackingEntryResult.rejected(i, INVALID, "habitId is required"));
+                continue;
+            }
+            if (entry.note() != null && entry.note().length() > MAX_NOTE_LENGTH) {
+                results.add(TrackingEntryResult.rejected(i, INVALID,
+                    "note must be at most " + MAX_NOTE_LENGTH + " characters"));
+                continue;
+            }
+            final Habit habit = habits.get(entry.habitId());
+            if (habit == null) {
+                results.add(TrackingEntryResult.rejected(i, HABIT_NOT_FOUND, "No habit with id " + entry.habitId()));
+                continue;
+            }
+
+            final Tracking tracking = Tracking.builder()
+                .id(TimeOrderedUuid.next())
+                .habit(habit)
+                .timestamp(entry.timestamp() != null ? entry.timestamp() : receivedAt)
+                .note(entry.note())
+                .build();
+            pending.add(tracking);
+            results.add(TrackingEntryResult.created(i, tracking.getId()));
+            created++;
+
+            // Write every full batch, so only one batch is held in memory
+            if (pending.size() == batchSize) {
+                flush(pending);
+            }
+        }
+        flush(pending);
+
+        return new TrackingBatchResponse(created, entries.size() - created, results);
+    }
+
+    private void flush(final List<Tracking> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        trackingStore.saveAll(pending);
+        habitRollupService.recordTrackings(pending);
+        changeEventOutbox.trackingsAdded(pending);
+        pending.clear();
+    }
+
+}
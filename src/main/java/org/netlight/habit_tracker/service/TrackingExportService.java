@@ -0,0 +1,96 @@
+package org.netlight.habit_tracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.config.TrackingExportProperties;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.exception.HabitNotFoundException;
+import org.netlight.habit_tracker.export.TrackingExportFormat;
+import org.netlight.habit_tracker.export.TrackingExportWriter;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.UUID;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.SERVICE_TIMER;
+
+/**
+ * Exports the full tracking history of a habit. Archived rows are decoded from the habit's
+ * segment blocks up front; live rows go from the database cursor straight to the output
+ * stream, merged with the archived ones by timestamp, so they add nothing to memory use
+ * however long the history is.
+ */
+@Timed(SERVICE_TIMER)
+@Service
+@AllArgsConstructor
+public class TrackingExportService {
+
+    @Autowired
+    private final HabitRepository habitRepository;
+
+    @Autowired
+    private final TrackingStore trackingStore;
+
+    @Autowired
+    private final TrackingExportProperties trackingExportProperties;
+
+    @Autowired
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    private final TrackingArchive trackingArchive;
+
+    /**
+     * Fails with {@link HabitNotFoundException} for unknown habits. Call this before the
+     * export starts, while the error can still become the response status.
+     */
+    public void requireHabit(final UUID habitId) {
+        if (!habitRepository.existsByIdAndUserId(habitId, UserContext.currentUser())) {
+            throw new HabitNotFoundException("No habit with id " + habitId);
+        }
+    }
+
+    /**
+     * Writes every tracking of the habit, archived ones included, oldest first, to {@code out} and returns the
+     * number of exported trackings. The stream is flushed but not closed.
+     */
+    public long exportTrackings(final UUID habitId,
+                                final TrackingExportFormat format,
+                                final OutputStream out) throws IOException {
+        final long[] exported = {0};
+        // Both sources are oldest first; a tracking still live while it is archived is written once
+        final List<TrackingExportRow> archived = trackingArchive.findAll(habitId);
+        final int[] next = {0};
+        try (TrackingExportWriter writer = format.newWriter(out, objectMapper)) {
+            trackingStore.forEachByHabitId(habitId, trackingExportProperties.fetchSize(), row -> {
+                try {
+                    while (next[0] < archived.size() && HabitService.TRACKING_ORDER.compare(archived.get(next[0]), row) < 0) {
+                        writer.write(archived.get(next[0]++));
+                        exported[0]++;
+                    }
+                    if (next[0] < archived.size() && archived.get(next[0]).id().equals(row.id())) {
+                        next[0]++;
+                    }
+                    writer.write(row);
+                    exported[0]++;
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            while (next[0] < archived.size()) {
+                writer.write(archived.get(next[0]++));
+                exported[0]++;
+            }
+        }
+        return exported[0];
+    }
+
+}
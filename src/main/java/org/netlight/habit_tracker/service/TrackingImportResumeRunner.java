@@ -0,0 +1,31 @@
+package org.netlight.habit_tracker.service;
+
+import lombok.AllArgsConstructor;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resumes the imports that were queued or running when the application last stopped,
+ * on every shard, unless {@code habit-tracker.import.resume-on-startup=false}.
+ */
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(prefix = "habit-tracker.import", name = "resume-on-startup", havingValue = "true", matchIfMissing = true)
+public class TrackingImportResumeRunner implements ApplicationRunner {
+
+    @Autowired
+    private final TrackingImportService trackingImportService;
+
+    @Autowired
+    private final ShardRouter shardRouter;
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        shardRouter.forEachShard(shard -> trackingImportService.resumeInterrupted());
+    }
+
+}
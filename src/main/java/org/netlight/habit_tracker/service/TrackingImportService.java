@@ -0,0 +1,466 @@
+package org.netlight.habit_tracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.ImportProperties;
+import org.netlight.habit_tracker.dto.request.TrackingImportRecord;
+import org.netlight.habit_tracker.dto.response.ImportJobResponse;
+import org.netlight.habit_tracker.exception.ImportJobNotFoundException;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.importer.ImportFormat;
+import org.netlight.habit_tracker.importer.ImportRecordReader;
+import org.netlight.habit_tracker.importer.MalformedImportRecordException;
+import org.netlight.habit_tracker.mapper.ImportJobMapper;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.ImportJob;
+import org.netlight.habit_tracker.model.ImportJobStatus;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.repository.ImportJobRepository;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.netlight.habit_tracker.config.MetricsConfig.SERVICE_TIMER;
+import static org.netlight.habit_tracker.model.ImportJobStatus.COMPLETED;
+import static org.netlight.habit_tracker.model.ImportJobStatus.FAILED;
+import static org.netlight.habit_tracker.model.ImportJobStatus.QUEUED;
+import static org.netlight.habit_tracker.model.ImportJobStatus.RUNNING;
+
+/**
+ * Imports habits and trackings from uploaded CSV or NDJSON files in the background.
+ * <p>
+ * The upload is stored on disk and then read as a stream, one chunk of records at a time.
+ * Each chunk resolves all its habit names with one query, creates the missing habits,
+ * inserts its trackings as one JDBC batch, updates the rollups and records the change events.
+ * It commits in the same transaction as the job's progress. A failed import can therefore be resumed, and an
+ * interrupted one is resumed on startup, from the first record after the last committed
+ * chunk, without importing anything twice. Records that cannot be imported are counted as
+ * rejected and skipped.
+ * <p>
+ * A job belongs to the user who submitted it and runs on that user's behalf.
+ */
+@Log4j2
+@Timed(SERVICE_TIMER)
+@Service
+public class TrackingImportService {
+
+    private static final int MAX_HABIT_NAME_LENGTH = 255;
+    private static final int MAX_NOTE_LENGTH = 500;
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int MAX_REJECTION_LENGTH = 500;
+    private static final Set<ImportJobStatus> INTERRUPTED_STATUSES = EnumSet.of(QUEUED, RUNNING);
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final ImportJobRepository importJobRepository;
+    private final HabitRepository habitRepository;
+    private final TrackingStore trackingStore;
+    private final HabitRollupService habitRollupService;
+    private final HabitCache habitCache;
+    private final ChangeEventOutbox changeEventOutbox;
+    private final ImportProperties importProperties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter importedRows;
+    private final Counter rejectedRows;
+    private final Set<UUID> activeJobs = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "tracking-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Set on shutdown; imports stop after their current chunk and keep their status
+    private volatile boolean stopping;
+
+    public TrackingImportService(final ImportJobRepository importJobRepository,
+                                 final HabitRepository habitRepository,
+                                 final TrackingStore trackingStore,
+                                 final HabitRollupService habitRollupService,
+                                 final HabitCache habitCache,
+                                 final ChangeEventOutbox changeEventOutbox,
+                                 final ImportProperties importProperties,
+                                 final ObjectMapper objectMapper,
+                                 final TransactionTemplate transactionTemplate,
+                                 final MeterRegistry meterRegistry) {
+        this.importJobRepository = importJobRepository;
+        this.habitRepository = habitRepository;
+        this.trackingStore = trackingStore;
+        this.habitRollupService = habitRollupService;
+        this.habitCache = habitCache;
+        this.changeEventOutbox = changeEventOutbox;
+        this.importProperties = importProperties;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.importedRows = Counter.builder("habit_tracker.import.rows")
+            .description("Import records committed")
+            .tag("outcome", "imported")
+            .register(meterRegistry);
+        this.rejectedRows = Counter.builder("habit_tracker.import.rows")
+            .description("Import records committed")
+            .tag("outcome", "rejected")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Stores the uploaded file and queues its import. Fails right away when the file cannot
+     * be in the given format at all, e.g. because a CSV header lacks the habit column.
+     */
+    public ImportJobResponse submit(final ImportFormat format,
+                                    final String sourceName,
+                                    final InputStream content) throws IOException {
+        Files.createDirectories(importProperties.directory());
+        final Path file = Files.createTempFile(
+            importProperties.directory(), "import-", "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.copy(content, file, StandardCopyOption.REPLACE_EXISTING);
+            openReader(format, file).close();
+        } catch (final IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        final LocalDateTime now = LocalDateTime.now();
+        final ImportJob job = importJobRepository.save(ImportJob.builder()
+            .userId(UserContext.currentUser())
+            .format(format)
+            .status(QUEUED)
+            .sourceName(sourceName)
+            .filePath(file.toAbsolutePath().toString())
+            .createdAt(now)
+            .updatedAt(now)
+            .build());
+        schedule(job);
+        return ImportJobMapper.mapToImportJobResponse(job);
+    }
+
+    public ImportJobResponse getJob(final UUID jobId) {
+        return ImportJobMapper.mapToImportJobResponse(getJobById(jobId));
+    }
+
+    /**
+     * Continues a failed or interrupted import from its last committed chunk. Completed
+     * and currently running imports are returned unchanged.
+     */
+    public ImportJobResponse resume(final UUID jobId) {
+        final ImportJob job = getJobById(jobId);
+        if (job.getStatus() != COMPLETED && !activeJobs.contains(jobId)) {
+            job.setStatus(QUEUED);
+            job.setError(null);
+            job.setUpdatedAt(LocalDateTime.now());
+            importJobRepository.save(job);
+            schedule(job);
+        }
+        return ImportJobMapper.mapToImportJobResponse(job);
+    }
+
+    /**
+     * Queues every import that was queued or running when the application last stopped.
+     * Covers the jobs of all users on the current shard.
+     */
+    public void resumeInterrupted() {
+        for (final ImportJob job : importJobRepository.findByStatusInOrderByIdAsc(INTERRUPTED_STATUSES)) {
+            log.info("Resuming import {} after {} records", job.getId(), job.getProcessedRows());
+            schedule(job);
+        }
+    }
+
+    /**
+     * Lets a running import commit its current chunk and stops it there, leaving it RUNNING
+     * so that it is resumed on the next start. Queued imports are not started. Only when the
+     * chunk does not finish in time is the import interrupted, which rolls back that chunk
+     * but still leaves the job to be resumed.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stopping = true;
+        executor.shutdown();
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Import did not stop within {} seconds, interrupting it", SHUTDOWN_TIMEOUT_SECONDS);
+            executor.shutdownNow();
+        }
+    }
+
+    private void schedule(final ImportJob job) {
+        final UUID jobId = job.getId();
+        if (activeJobs.add(jobId)) {
+            executor.execute(() -> {
+                try {
+                    UserContext.runAs(job.getUserId(), () -> run(jobId));
+                } finally {
+                    activeJobs.remove(jobId);
+                }
+            });
+        }
+    }
+
+    private void run(final UUID jobId) {
+        if (stopping) {
+            return;
+        }
+        final ImportJob job = transactionTemplate.execute(status -> {
+            final ImportJob runningJob = getJobById(jobId);
+            runningJob.setStatus(RUNNING);
+            runningJob.setUpdatedAt(LocalDateTime.now());
+            return runningJob;
+        });
+        final Path file = Path.of(job.getFilePath());
+        long processedRows = job.getProcessedRows();
+
+        try (ImportRecordReader reader = openReader(job.getFormat(), file)) {
+            skip(reader, processedRows);
+            while (!stopping) {
+                final long startNanos = System.nanoTime();
+                final Chunk chunk = readChunk(reader, processedRows);
+                if (chunk.records() == 0) {
+                    finish(jobId, file);
+                    return;
+                }
+                transactionTemplate.executeWithoutResult(status -> writeChunk(jobId, chunk, startNanos));
+                processedRows += chunk.records();
+                importedRows.increment(chunk.trackings());
+                rejectedRows.increment(chunk.rejected());
+            }
+            log.info("Import {} interrupted after {} records, it resumes on the next start", jobId, processedRows);
+        } catch (final Exception e) {
+            if (stopping) {
+                log.warn("Import {} interrupted after {} records, it resumes on the next start", jobId, processedRows, e);
+                return;
+            }
+            log.error("Import {} failed after {} records", jobId, processedRows, e);
+            fail(jobId, e);
+        }
+    }
+
+    private ImportRecordReader openReader(final ImportFormat format, final Path file) throws IOException {
+        return format.newReader(Files.newBufferedReader(file, StandardCharsets.UTF_8), objectMapper);
+    }
+
+    private static void skip(final ImportRecordReader reader, final long records) throws IOException {
+        for (long skipped = 0; skipped < records; skipped++) {
+            try {
+                if (reader.next() == null) {
+                    return;
+                }
+            } catch (final MalformedImportRecordException e) {
+                // Counted as rejected when it was first read
+            }
+        }
+    }
+
+    /**
+     * Reads and validates up to one chunk of records. {@code offset} is the number of
+     * records before the chunk, used to number rejected records.
+     */
+    private Chunk readChunk(final ImportRecordReader reader, final long offset) throws IOException {
+        final List<ImportRow> rows = new ArrayList<>();
+        int records = 0;
+        int rejected = 0;
+        String lastRejection = null;
+        while (records < importProperties.chunkSize()) {
+            final TrackingImportRecord record;
+            try {
+                record = reader.next();
+            } catch (final MalformedImportRecordException e) {
+                records++;
+                rejected++;
+                lastRejection = rejection(offset + records, e.getMessage());
+                continue;
+            }
+            if (record == null) {
+                break;
+            }
+            records++;
+            try {
+                rows.add(ImportRow.of(record));
+            } catch (final IllegalArgumentException | DateTimeParseException e) {
+                rejected++;
+                lastRejection = rejection(offset + records, e.getMessage());
+            }
+        }
+        return new Chunk(rows, records, rejected, lastRejection);
+    }
+
+    private void writeChunk(final UUID jobId, final Chunk chunk, final long startNanos) {
+        final Map<String, Habit> habitsByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        final Set<String> names = chunk.rows().stream().map(ImportRow::habit).collect(Collectors.toSet());
+        habitRepository.findByUserIdAndNameIn(UserContext.currentUser(), names).forEach(habit -> habitsByName.put(habit.getName(), habit));
+
+        final List<Habit> createdHabits = new ArrayList<>();
+        for (final ImportRow row : chunk.rows()) {
+            final Habit habit = habitsByName.get(row.habit());
+            if (habit == null) {
+                final Habit created = row.newHabit();
+                habitsByName.put(created.getName(), created);
+                createdHabits.add(created);
+            } else if (habit.getId() == null && row.startDate() == null && row.timestamp() != null
+                && row.timestamp().toLocalDate().isBefore(habit.getStartDate())) {
+                // Habits created by this chunk start no later than their oldest tracking in it
+                habit.setStartDate(row.timestamp().toLocalDate());
+            }
+        }
+        habitRepository.saveAllAndFlush(createdHabits);
+        createdHabits.forEach(habit -> {
+            habitCache.invalidate(habit.getId());
+            changeEventOutbox.habitCreated(habit);
+        });
+
+        final List<Tracking> trackings = chunk.rows().stream()
+            .filter(row -> row.timestamp() != null)
+            .map(row -> Tracking.builder()
+                .id(TimeOrderedUuid.next())
+                .habit(habitsByName.get(row.habit()))
+                .timestamp(row.timestamp())
+                .note(row.note())
+                .build())
+            .toList();
+        if (!trackings.isEmpty()) {
+            trackingStore.saveAll(trackings);
+            habitRollupService.recordTrackings(trackings);
+            changeEventOutbox.trackingsAdded(trackings);
+        }
+
+        final ImportJob job = getJobById(jobId);
+        job.setProcessedRows(job.getProcessedRows() + chunk.records());
+        job.setImportedRows(job.getImportedRows() + trackings.size());
+        job.setRejectedRows(job.getRejectedRows() + chunk.rejected());
+        job.setCreatedHabits(job.getCreatedHabits() + createdHabits.size());
+        if (chunk.lastRejection() != null) {
+            job.setLastRejection(chunk.lastRejection());
+        }
+        job.setProcessingMillis(job.getProcessingMillis() + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        job.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private void finish(final UUID jobId, final Path file) throws IOException {
+        transactionTemplate.executeWithoutResult(status -> {
+            final ImportJob job = getJobById(jobId);
+            job.setStatus(COMPLETED);
+            job.setUpdatedAt(LocalDateTime.now());
+            log.info("Import {} completed: {} trackings imported, {} records rejected, {} habits created",
+                jobId, job.getImportedRows(), job.getRejectedRows(), job.getCreatedHabits());
+        });
+        Files.deleteIfExists(file);
+    }
+
+    private void fail(final UUID jobId, final Exception cause) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                final ImportJob job = getJobById(jobId);
+                job.setStatus(FAILED);
+                job.setError(truncate(String.valueOf(cause.getMessage()), MAX_ERROR_LENGTH));
+                job.setUpdatedAt(LocalDateTime.now());
+            });
+        } catch (final RuntimeException e) {
+            log.error("Could not mark import {} as failed, it resumes on the next start", jobId, e);
+        }
+    }
+
+    private ImportJob getJobById(final UUID jobId) {
+        return importJobRepository.findByIdAndUserId(jobId, UserContext.currentUser())
+            .orElseThrow(() -> new ImportJobNotFoundException("No import with id " + jobId));
+    }
+
+    private static String rejection(final long record, final String message) {
+        return truncate("Record " + record + ": " + message, MAX_REJECTION_LENGTH);
+    }
+
+    private static String truncate(final String value, final int maxLength) {
+        return value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+
+    /**
+     * A validated import record.
+     */
+    private record ImportRow(String habit, Frequency frequency, LocalDate startDate, LocalDateTime timestamp, String note) {
+
+        static ImportRow of(final TrackingImportRecord record) {
+            final String habit = blankToNull(record.habit());
+            if (habit == null) {
+                throw new IllegalArgumentException("Missing habit name");
+            }
+            if (habit.length() > MAX_HABIT_NAME_LENGTH) {
+                throw new IllegalArgumentException("Habit name longer than " + MAX_HABIT_NAME_LENGTH + " characters");
+            }
+            final String note = blankToNull(record.note());
+            if (note != null && note.length() > MAX_NOTE_LENGTH) {
+                throw new IllegalArgumentException("Note longer than " + MAX_NOTE_LENGTH + " characters");
+            }
+            final String frequency = blankToNull(record.frequency());
+            final String startDate = blankToNull(record.startDate());
+            return new ImportRow(
+                habit.trim(),
+                frequency != null ? Frequency.valueOf(frequency.trim().toUpperCase(Locale.ROOT)) : null,
+                startDate != null ? LocalDate.parse(startDate.trim()) : null,
+                parseTimestamp(blankToNull(record.timestamp())),
+                note);
+        }
+
+        Habit newHabit() {
+            return Habit.builder()
+                .userId(UserContext.currentUser())
+                .name(habit)
+                .frequency(frequency != null ? frequency : Frequency.DAILY)
+                .startDate(startDate != null ? startDate
+                    : timestamp != null ? timestamp.toLocalDate()
+                    : LocalDate.now())
+                .build();
+        }
+
+        /**
+         * Accepts ISO date-times and plain ISO dates, which stand for the start of the day.
+         */
+        private static LocalDateTime parseTimestamp(final String timestamp) {
+            if (timestamp == null) {
+                return null;
+            }
+            final String value = timestamp.trim();
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        }
+
+        private static String blankToNull(final String value) {
+            return value == null || value.isBlank() ? null : value;
+        }
+
+    }
+
+    /**
+     * Records read for one transaction. {@code records} includes the rejected ones.
+     */
+    private record Chunk(List<ImportRow> rows, int records, int rejected, String lastRejection) {
+
+        int trackings() {
+            return (int) rows.stream().filter(row -> row.timestamp() != null).count();
+        }
+
+    }
+
+}
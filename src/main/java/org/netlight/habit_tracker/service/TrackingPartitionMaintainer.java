@@ -0,0 +1,117 @@
+package org.netlight.habit_tracker.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.TrackingPartitionProperties;
+import org.netlight.habit_tracker.repository.TrackingPartitionRepository;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps monthly partitions of the trackings table ahead of the current month. The table is
+ * partitioned by {@code timestamp} into {@code p_history} for everything before the first
+ * managed month, one {@code pYYYYMM} partition per month and {@code p_future} for everything
+ * later. The changelog creates {@code p_history} and {@code p_future}, and new months are split
+ * off {@code p_future}, which only holds timestamps beyond the managed months and is cheap to
+ * reorganize.
+ * <p>
+ * Runs on startup and then daily, on every shard.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(prefix = "habit-tracker.tracking-partitions", name = "enabled", havingValue = "true")
+public class TrackingPartitionMaintainer implements ApplicationRunner {
+
+    static final String HISTORY_PARTITION = "p_history";
+    static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final TrackingPartitionRepository trackingPartitionRepository;
+    private final TrackingPartitionProperties properties;
+    private final ShardRouter shardRouter;
+    private final ScheduledExecutorService scheduler;
+
+    public TrackingPartitionMaintainer(final TrackingPartitionRepository trackingPartitionRepository,
+                                       final TrackingPartitionProperties properties,
+                                       final ShardRouter shardRouter) {
+        this.trackingPartitionRepository = trackingPartitionRepository;
+        this.properties = properties;
+        this.shardRouter = shardRouter;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "tracking-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void run(final ApplicationArguments args) {
+        shardRouter.forEachShard(this::addMissingPartitions);
+        scheduler.scheduleWithFixedDelay(() -> shardRouter.forEachShard(this::addMissingPartitions), 1, 1, TimeUnit.DAYS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    void addMissingPartitions(final String shard) {
+        try {
+            final List<String> partitions = trackingPartitionRepository.findPartitionNames();
+            if (!partitions.contains(HISTORY_PARTITION) || !partitions.get(partitions.size() - 1).equals(FUTURE_PARTITION)) {
+                log.warn("Trackings table on shard {} is not partitioned by month, partitions: {}", shard, partitions);
+                return;
+            }
+            final List<String> definitions = plan(partitions, properties.firstMonth(), YearMonth.now(), properties.monthsAhead());
+            if (!definitions.isEmpty()) {
+                trackingPartitionRepository.reorganizePartition(FUTURE_PARTITION, definitions);
+                log.info("Split {} into {} partitions on shard {}", FUTURE_PARTITION, definitions.size(), shard);
+            }
+        } catch (final RuntimeException e) {
+            log.error("Could not add tracking partitions on shard {}", shard, e);
+        }
+    }
+
+    /**
+     * Returns the definitions to split {@code p_future} into so that every month from
+     * {@code firstMonth} up to {@code monthsAhead} after the current one has its own partition,
+     * or an empty list if nothing is missing.
+     */
+    static List<String> plan(final List<String> partitions,
+                             final YearMonth firstMonth,
+                             final YearMonth currentMonth,
+                             final int monthsAhead) {
+        final YearMonth lastMonth = currentMonth.plusMonths(monthsAhead);
+        final List<String> definitions = new ArrayList<>();
+        YearMonth month = partitions.stream()
+            .filter(name -> name.matches("p\\d{6}"))
+            .map(name -> YearMonth.parse(name, MONTH_NAME))
+            .max(YearMonth::compareTo)
+            .map(latest -> latest.plusMonths(1))
+            .orElse(firstMonth);
+        for (; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            definitions.add(definition(month.format(MONTH_NAME), month.plusMonths(1)));
+        }
+        if (definitions.isEmpty()) {
+            return definitions;
+        }
+        definitions.add("partition " + FUTURE_PARTITION + " values less than (maxvalue)");
+        return definitions;
+    }
+
+    private static String definition(final String name, final YearMonth before) {
+        return "partition " + name + " values less than ('" + before.atDay(1) + "')";
+    }
+
+}
@@ -0,0 +1,229 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.config.TrackingWriteBehindProperties;
+import org.netlight.habit_tracker.exception.TrackingQueueFullException;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind pipeline for tracking entries. Producers add entries to a bounded queue and
+ * block for at most {@code offerTimeout} when it is full. A single writer thread drains the
+ * queue and commits each group of entries in one transaction with a JDBC batch insert, so the
+ * cost of a commit is shared by every entry in the group. With sharding, a group is split
+ * into one commit per shard.
+ * <p>
+ * Queued entries are only in memory until their group is committed. Entries that are still
+ * queued when the application shuts down gracefully are flushed before the datasource closes.
+ */
+@Log4j2
+@Component
+public class TrackingWriteBehindQueue implements SmartLifecycle {
+
+    private static final String METRIC_PREFIX = "habit_tracker.tracking.write_behind";
+
+    private final TrackingWriteBehindProperties properties;
+    private final TrackingStore trackingStore;
+    private final HabitRollupService habitRollupService;
+    private final ChangeEventOutbox changeEventOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardRouter shardRouter;
+    private final BlockingQueue<Tracking> queue;
+    private final Timer commitTimer;
+    private final DistributionSummary groupSize;
+    private final Counter failedEntries;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public TrackingWriteBehindQueue(final TrackingWriteBehindProperties properties,
+                                    final TrackingStore trackingStore,
+                                    final HabitRollupService habitRollupService,
+                                    final ChangeEventOutbox changeEventOutbox,
+                                    final PlatformTransactionManager transactionManager,
+                                    final ShardRouter shardRouter,
+                                    final MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.trackingStore = trackingStore;
+        this.habitRollupService = habitRollupService;
+        this.changeEventOutbox = changeEventOutbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.shardRouter = shardRouter;
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.commitTimer = Timer.builder(METRIC_PREFIX + ".commit")
+            .description("Time to commit one group of queued trackings")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.groupSize = DistributionSummary.builder(METRIC_PREFIX + ".group_size")
+            .description("Number of trackings committed per group")
+            .register(meterRegistry);
+        this.failedEntries = Counter.builder(METRIC_PREFIX + ".failed")
+            .description("Queued trackings that could not be committed")
+            .register(meterRegistry);
+        Gauge.builder(METRIC_PREFIX + ".queue_depth", queue, BlockingQueue::size)
+            .description("Trackings waiting to be committed")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Queues the tracking for the next group commit and returns it with its final id assigned.
+     *
+     * @throws TrackingQueueFullException when the queue stays full for longer than the offer
+     *                                    timeout, or the pipeline is shutting down
+     */
+    public Tracking enqueue(final Tracking tracking) {
+        if (!running) {
+            throw new TrackingQueueFullException("Tracking write-behind queue is not accepting entries");
+        }
+        if (tracking.getId() == null) {
+            tracking.setId(TimeOrderedUuid.next());
+        }
+        try {
+            if (!queue.offer(tracking, properties.offerTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new TrackingQueueFullException("Tracking write-behind queue is full");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TrackingQueueFullException("Interrupted while waiting for tracking write-behind queue");
+        }
+        return tracking;
+    }
+
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        if (!properties.enabled() || running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(this::drainLoop, "tracking-write-behind");
+        writer.start();
+        log.info("Started tracking write-behind queue (capacity {}, group size {}, linger {})",
+            properties.queueCapacity(), properties.maxBatchSize(), properties.maxLinger());
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(properties.shutdownTimeout().toMillis());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            log.error("Tracking write-behind writer did not finish within {}, {} entries not flushed",
+                properties.shutdownTimeout(), queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server, so requests still in flight during a graceful
+     * shutdown can queue their entries before the final flush.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        final int maxBatchSize = properties.maxBatchSize();
+        final long lingerNanos = properties.maxLinger().toNanos();
+        final List<Tracking> group = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                final Tracking first = queue.poll(lingerNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                final long deadline = System.nanoTime() + lingerNanos;
+                while (group.size() < maxBatchSize) {
+                    queue.drainTo(group, maxBatchSize - group.size());
+                    final long remaining = deadline - System.nanoTime();
+                    if (group.size() >= maxBatchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    final Tracking next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+            } catch (final InterruptedException e) {
+                // Shutdown is driven by the running flag; keep draining what is queued
+                Thread.interrupted();
+            }
+            if (!group.isEmpty()) {
+                commitByShard(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void commitByShard(final List<Tracking> group) {
+        if (!shardRouter.isSharded()) {
+            commit(group);
+            return;
+        }
+        group.stream()
+            .collect(Collectors.groupingBy(tracking -> shardRouter.shardFor(tracking.getHabit().getUserId())))
+            .forEach((shard, trackings) -> shardRouter.runOnShard(shard, () -> commit(trackings)));
+    }
+
+    private void commit(final List<Tracking> group) {
+        try {
+            commitTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                trackingStore.saveAll(group);
+                habitRollupService.recordTrackings(group);
+                changeEventOutbox.trackingsAdded(group);
+            }));
+            groupSize.record(group.size());
+        } catch (final RuntimeException e) {
+            if (group.size() == 1) {
+                failedEntries.increment();
+                log.error("Failed to commit tracking {} for habit {}",
+                    group.get(0).getId(), group.get(0).getHabit().getId(), e);
+                return;
+            }
+            // One bad entry (e.g. its habit was deleted meanwhile) must not drop the whole group
+            log.warn("Failed to commit group of {} trackings, retrying them one by one", group.size(), e);
+            for (final Tracking tracking : group) {
+                commit(List.of(tracking));
+            }
+        }
+    }
+
+}
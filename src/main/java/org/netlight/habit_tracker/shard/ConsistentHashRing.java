@@ -0,0 +1,61 @@
+package org.netlight.habit_tracker.shard;
+
+import org.netlight.habit_tracker.id.UuidBytes;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Consistent hash ring assigning user ids to shards. Every shard is placed on the ring at
+ * {@code virtualNodes} points derived from its name, and a user belongs to the first shard
+ * point at or after the hash of its id. Adding a shard therefore only moves the users that
+ * fall onto its new points, roughly {@code 1 / shards} of them, and no user moves between
+ * two existing shards.
+ * <p>
+ * Hashes are taken from SHA-256, so assignments are the same on every node and release.
+ */
+public final class ConsistentHashRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final List<String> shards;
+
+    public ConsistentHashRing(final Collection<String> shards, final int virtualNodes) {
+        if (shards.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("A hash ring needs at least one shard and one virtual node per shard");
+        }
+        this.shards = List.copyOf(shards);
+        for (final String shard : this.shards) {
+            for (int node = 0; node < virtualNodes; node++) {
+                // On the rare collision of two points, the lower shard name wins on every node
+                points.merge(hash((shard + "#" + node).getBytes(StandardCharsets.UTF_8)), shard,
+                    (existing, added) -> existing.compareTo(added) <= 0 ? existing : added);
+            }
+        }
+    }
+
+    public String shardFor(final UUID userId) {
+        final Map.Entry<Long, String> point = points.ceilingEntry(hash(UuidBytes.toBytes(userId)));
+        return point != null ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    public List<String> shards() {
+        return shards;
+    }
+
+    private static long hash(final byte[] bytes) {
+        try {
+            return ByteBuffer.wrap(MessageDigest.getInstance("SHA-256").digest(bytes)).getLong();
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package org.netlight.habit_tracker.shard;
+
+import org.netlight.habit_tracker.config.ShardProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Decides which shard the current thread's database work goes to. Normally that is the shard
+ * of the {@link UserContext current user}; jobs that work through whole tables instead pin
+ * each shard in turn with {@link #forEachShard}.
+ * <p>
+ * Without sharding there is a single {@link #DEFAULT_SHARD}, and pinning it has no effect.
+ */
+@Component
+public class ShardRouter {
+
+    public static final String DEFAULT_SHARD = "default";
+
+    private static final ThreadLocal<String> PINNED = new ThreadLocal<>();
+
+    private final ConsistentHashRing ring;
+
+    public ShardRouter(final ShardProperties properties) {
+        this.ring = properties.enabled()
+            ? new ConsistentHashRing(properties.instances().stream().map(ShardProperties.Shard::name).toList(),
+                properties.virtualNodes())
+            : null;
+    }
+
+    public boolean isSharded() {
+        return ring != null;
+    }
+
+    public List<String> shards() {
+        return ring != null ? ring.shards() : List.of(DEFAULT_SHARD);
+    }
+
+    public String shardFor(final UUID userId) {
+        return ring != null ? ring.shardFor(userId) : DEFAULT_SHARD;
+    }
+
+    /**
+     * The pinned shard, or else the shard of the current user.
+     */
+    public String currentShard() {
+        final String pinned = PINNED.get();
+        return pinned != null ? pinned : shardFor(UserContext.currentUser());
+    }
+
+    /**
+     * Runs the action with all database work routed to the given shard, regardless of the user.
+     */
+    public void runOnShard(final String shard, final Runnable action) {
+        final String previous = PINNED.get();
+        PINNED.set(shard);
+        try {
+            action.run();
+        } finally {
+            if (previous != null) {
+                PINNED.set(previous);
+            } else {
+                PINNED.remove();
+            }
+        }
+    }
+
+    /**
+     * Runs the action once per shard, with that shard pinned.
+     */
+    public void forEachShard(final Consumer<String> action) {
+        for (final String shard : shards()) {
+            runOnShard(shard, () -> action.accept(shard));
+        }
+    }
+
+}
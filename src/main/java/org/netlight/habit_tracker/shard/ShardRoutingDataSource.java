@@ -0,0 +1,61 @@
+package org.netlight.habit_tracker.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections of the shard chosen by the {@link ShardRouter}. The shard is decided
+ * when a connection is obtained, i.e. when a transaction begins or a statement runs outside
+ * of one, so a transaction never spans shards.
+ * <p>
+ * Work that runs before any user or shard is known, like schema validation at startup, goes
+ * to the first shard.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    private final ShardRouter shardRouter;
+    private final Map<String, DataSource> shards;
+
+    public ShardRoutingDataSource(final ShardRouter shardRouter, final Map<String, DataSource> shards) {
+        this.shardRouter = shardRouter;
+        this.shards = new LinkedHashMap<>(shards);
+        setTargetDataSources(new LinkedHashMap<>(shards));
+        setDefaultTargetDataSource(shards.values().iterator().next());
+        setLenientFallback(false);
+    }
+
+    /**
+     * The data source of a single shard, for tools that move data between shards.
+     */
+    public DataSource shard(final String name) {
+        final DataSource shard = shards.get(name);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown shard " + name);
+        }
+        return shard;
+    }
+
+    public Map<String, DataSource> shards() {
+        return Map.copyOf(shards);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return shardRouter.currentShard();
+    }
+
+    @Override
+    public void destroy() {
+        for (final DataSource shard : shards.values()) {
+            if (shard instanceof HikariDataSource pool) {
+                pool.close();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.netlight.habit_tracker.shard;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Applies the changelog to every shard in turn, in place of the single Liquibase run that
+ * Spring Boot would do against the primary data source.
+ */
+public class ShardedLiquibase extends SpringLiquibase {
+
+    private final List<DataSource> shards;
+
+    public ShardedLiquibase(final Collection<DataSource> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        for (final DataSource shard : shards) {
+            setDataSource(shard);
+            super.afterPropertiesSet();
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package org.netlight.habit_tracker.shard;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * The user the current thread acts for. Requests set it from the {@code X-User-Id} header;
+ * jobs set it for the user whose data they process. Habits are only visible to their user,
+ * and the user decides which shard a thread's database work is routed to.
+ * <p>
+ * Threads without a user act for {@link #DEFAULT_USER}, which owns all habits created before
+ * habits were scoped to users.
+ */
+public final class UserContext {
+
+    public static final UUID DEFAULT_USER = new UUID(0, 0);
+
+    private static final ThreadLocal<UUID> CURRENT = new ThreadLocal<>();
+
+    private UserContext() {}
+
+    public static UUID currentUser() {
+        final UUID userId = CURRENT.get();
+        return userId != null ? userId : DEFAULT_USER;
+    }
+
+    /**
+     * Acts for the given user until the returned scope is closed, which restores the
+     * previous user.
+     */
+    public static Scope actAs(final UUID userId) {
+        final UUID previous = CURRENT.get();
+        CURRENT.set(userId);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    public static void runAs(final UUID userId, final Runnable action) {
+        try (Scope scope = actAs(userId)) {
+            action.run();
+        }
+    }
+
+    public static <T> T callAs(final UUID userId, final Supplier<T> action) {
+        try (Scope scope = actAs(userId)) {
+            return action.get();
+        }
+    }
+
+    /**
+     * Wraps a task so that it runs for the user of the thread that submitted it.
+     */
+    public static Runnable propagate(final Runnable task) {
+        final UUID userId = CURRENT.get();
+        return userId == null ? task : () -> runAs(userId, task);
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+
+    }
+
+}
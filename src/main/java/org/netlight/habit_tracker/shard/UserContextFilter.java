@@ -0,0 +1,44 @@
+package org.netlight.habit_tracker.shard;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Runs every request for the user named by its {@code X-User-Id} header, as set by the
+ * gateway in front of the service. Requests without the header act for the
+ * {@link UserContext#DEFAULT_USER}.
+ */
+public class UserContextFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request,
+                                    final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        final String header = request.getHeader(USER_ID_HEADER);
+        final UUID userId;
+        try {
+            userId = header != null ? UUID.fromString(header.trim()) : UserContext.DEFAULT_USER;
+        } catch (final IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), USER_ID_HEADER + " must be a UUID");
+            return;
+        }
+        try (UserContext.Scope scope = UserContext.actAs(userId)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+}
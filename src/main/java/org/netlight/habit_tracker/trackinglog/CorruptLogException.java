@@ -0,0 +1,17 @@
+package org.netlight.habit_tracker.trackinglog;
+
+/**
+ * A tracking log file that does not have the expected layout, or a sealed segment with a
+ * damaged record.
+ */
+public class CorruptLogException extends RuntimeException {
+
+    public CorruptLogException(String message) {
+        super(message);
+    }
+
+    public CorruptLogException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -0,0 +1,125 @@
+package org.netlight.habit_tracker.trackinglog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Layout of the files of a {@link TrackingLog}. All numbers are big-endian.
+ * <pre>
+ * segment     header: magic "HTLG" (int), version (int), generation (long), then records
+ * record      body length (int), CRC32C of the body (int), body
+ * body        type (byte), then by type
+ *   APPEND          habit id (2 longs), tracking id (2 longs), timestamp (epoch seconds as long, nanos as
+ *                   int), note length (int, -1 for null), note (UTF-8)
+ *   DELETE          habit id, tracking id, segment and generation of the deleted APPEND (int, long)
+ *   DELETE_HABIT    habit id
+ * checkpoint  magic "HTCP" (int), version (int),
+ *             segments (int), per segment: id (int), generation (long), end of records (int),
+ *             dead bytes (long),
+ *             address to replay from (long),
+ *             deleted habits (int), their ids,
+ *             habits (int), per habit: id, trackings (int), per tracking: id, timestamp, address (long),
+ *             record length (int),
+ *             CRC32C of everything before (int)
+ * </pre>
+ * A record address is the segment id in the upper and the offset in the lower 32 bits.
+ * Segments are preallocated, so a zero body length marks the end of the records.
+ */
+final class LogLayout {
+
+    static final int SEGMENT_MAGIC = 0x48544C47;
+    static final int CHECKPOINT_MAGIC = 0x48544350;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_HEADER_SIZE = 8;
+
+    static final byte APPEND = 1;
+    static final byte DELETE = 2;
+    static final byte DELETE_HABIT = 3;
+
+    private LogLayout() {}
+
+    static long address(final int segment, final int offset) {
+        return (long) segment << 32 | offset & 0xFFFFFFFFL;
+    }
+
+    static int segmentOf(final long address) {
+        return (int) (address >>> 32);
+    }
+
+    static int offsetOf(final long address) {
+        return (int) address;
+    }
+
+    static byte[] append(final UUID habitId, final UUID trackingId, final LocalDateTime timestamp, final String note) {
+        final byte[] noteBytes = note != null ? note.getBytes(StandardCharsets.UTF_8) : null;
+        final ByteBuffer body = ByteBuffer.allocate(1 + 32 + 12 + 4 + (noteBytes != null ? noteBytes.length : 0))
+            .put(APPEND);
+        putUuid(body, habitId);
+        putUuid(body, trackingId);
+        body.putLong(timestamp.toEpochSecond(ZoneOffset.UTC)).putInt(timestamp.getNano());
+        if (noteBytes != null) {
+            body.putInt(noteBytes.length).put(noteBytes);
+        } else {
+            body.putInt(-1);
+        }
+        return record(body);
+    }
+
+    static byte[] delete(final UUID habitId, final UUID trackingId, final int segment, final long generation) {
+        final ByteBuffer body = ByteBuffer.allocate(1 + 32 + 12).put(DELETE);
+        putUuid(body, habitId);
+        putUuid(body, trackingId);
+        body.putInt(segment).putLong(generation);
+        return record(body);
+    }
+
+    static byte[] deleteHabit(final UUID habitId) {
+        final ByteBuffer body = ByteBuffer.allocate(1 + 16).put(DELETE_HABIT);
+        putUuid(body, habitId);
+        return record(body);
+    }
+
+    static int crc(final byte[] bytes, final int offset, final int length) {
+        final CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    static void putUuid(final ByteBuffer buffer, final UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    }
+
+    static UUID getUuid(final ByteBuffer buffer) {
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    static LocalDateTime getTimestamp(final ByteBuffer buffer) {
+        final long seconds = buffer.getLong();
+        return LocalDateTime.ofEpochSecond(seconds, buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    static String getNote(final ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        final byte[] note = new byte[length];
+        buffer.get(note);
+        return new String(note, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] record(final ByteBuffer body) {
+        final byte[] bytes = body.array();
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + bytes.length)
+            .putInt(bytes.length)
+            .putInt(crc(bytes, 0, bytes.length))
+            .put(bytes)
+            .array();
+    }
+
+}
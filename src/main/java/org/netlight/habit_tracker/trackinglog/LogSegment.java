@@ -0,0 +1,189 @@
+package org.netlight.habit_tracker.trackinglog;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.netlight.habit_tracker.trackinglog.LogLayout.*;
+
+/**
+ * One memory-mapped segment file of a {@link TrackingLog}. Only the last segment is written
+ * to; the others are sealed and only change when compaction replaces them as a whole. Not
+ * thread-safe on its own, the log guards it.
+ */
+final class LogSegment {
+
+    private static final String PREFIX = "segment-";
+    static final String SUFFIX = ".log";
+
+    private final int id;
+    private final long generation;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    // End of the records written so far
+    private int limit;
+    // Bytes of APPEND records whose tracking has since been deleted
+    private long deadBytes;
+
+    private LogSegment(final int id, final long generation, final Path path, final MappedByteBuffer buffer) {
+        this.id = id;
+        this.generation = generation;
+        this.path = path;
+        this.buffer = buffer;
+        this.limit = HEADER_SIZE;
+    }
+
+    /**
+     * Creates a new, empty segment of {@code capacity} bytes, zero-filled by the file system.
+     */
+    static LogSegment create(final Path directory, final int id, final int capacity) throws IOException {
+        final Path path = directory.resolve(fileName(id));
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, SEGMENT_MAGIC).putInt(4, VERSION).putLong(8, 0L);
+            return new LogSegment(id, 0L, path, buffer);
+        }
+    }
+
+    static LogSegment open(final Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new CorruptLogException("Segment " + path + " has an invalid size of " + channel.size());
+            }
+            // The mapping stays valid after the channel is closed
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (buffer.getInt(0) != SEGMENT_MAGIC) {
+                throw new CorruptLogException("Not a tracking log segment: " + path);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new CorruptLogException("Unsupported version " + buffer.getInt(4) + " of segment " + path);
+            }
+            return new LogSegment(idOf(path), buffer.getLong(8), path, buffer);
+        }
+    }
+
+    static String fileName(final int id) {
+        return String.format("%s%010d%s", PREFIX, id, SUFFIX);
+    }
+
+    static boolean isSegment(final Path path) {
+        final String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static int idOf(final Path path) {
+        final String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    int id() {
+        return id;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    void limit(final int limit) {
+        this.limit = limit;
+    }
+
+    long deadBytes() {
+        return deadBytes;
+    }
+
+    void deadBytes(final long deadBytes) {
+        this.deadBytes = deadBytes;
+    }
+
+    void addDeadBytes(final long bytes) {
+        deadBytes += bytes;
+    }
+
+    boolean fits(final int length) {
+        return limit + length <= buffer.capacity();
+    }
+
+    /**
+     * Writes a record at the end of the segment and returns its offset.
+     */
+    int write(final byte[] record) {
+        final int offset = limit;
+        buffer.put(offset, record);
+        limit += record.length;
+        return offset;
+    }
+
+    /**
+     * Returns the length of the record at {@code offset} including its header, or -1 when no
+     * intact record starts there: at the end of the records, or at a torn write.
+     */
+    int recordLength(final int offset) {
+        if (offset + RECORD_HEADER_SIZE > buffer.capacity()) {
+            return -1;
+        }
+        final int bodyLength = buffer.getInt(offset);
+        if (bodyLength <= 0 || offset + RECORD_HEADER_SIZE + (long) bodyLength > buffer.capacity()) {
+            return -1;
+        }
+        final byte[] body = new byte[bodyLength];
+        buffer.get(offset + RECORD_HEADER_SIZE, body);
+        return crc(body, 0, bodyLength) == buffer.getInt(offset + 4) ? RECORD_HEADER_SIZE + bodyLength : -1;
+    }
+
+    /**
+     * Whether the segment holds nothing but zeros from {@code offset} on, as it does after its
+     * last record unless a write was torn.
+     */
+    boolean isZeroFrom(final int offset) {
+        for (int i = offset; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void zeroFrom(final int offset) {
+        for (int i = offset; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * Returns the body of the record at {@code offset}, starting with its type byte.
+     */
+    ByteBuffer body(final int offset) {
+        final int bodyLength = buffer.getInt(offset);
+        return buffer.slice(offset + RECORD_HEADER_SIZE, bodyLength);
+    }
+
+    ByteBuffer record(final int offset, final int length) {
+        return buffer.slice(offset, length);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    void force(final int offset, final int length) {
+        buffer.force(offset, length);
+    }
+
+}
@@ -0,0 +1,712 @@
+package org.netlight.habit_tracker.trackinglog;
+
+import lombok.extern.log4j.Log4j2;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.model.Tracking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import static org.netlight.habit_tracker.trackinglog.LogLayout.*;
+
+/**
+ * An append-only log of trackings on local disk, split into memory-mapped segment files of
+ * a fixed size. Every change is a record appended to the last segment; deletes append a
+ * tombstone. An in-memory index holds, per habit, the id, timestamp and log address of each
+ * live tracking, so reads only touch the records they return.
+ * <p>
+ * On {@link #checkpoint()} the index is written to a checkpoint file together with the log
+ * position it covers. Opening the log loads the checkpoint and replays the records after
+ * it; without a usable checkpoint the whole log is replayed. A record torn by a crash at the
+ * end of the log is discarded. Records reach the page cache when appended, which survives a
+ * crash of the process; with {@code fsync} each append is also forced to disk.
+ * <p>
+ * {@link #compact} rewrites sealed segments that are mostly deleted trackings. Tombstones of
+ * deleted trackings go with the records they delete; tombstones of deleted habits are kept,
+ * and appends to a deleted habit are refused. Safe for concurrent use: reads share a lock
+ * that appends, deletes and compaction take exclusively, and checkpoints are written one at
+ * a time.
+ */
+@Log4j2
+public final class TrackingLog implements AutoCloseable {
+
+    static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator
+        .comparing(Entry::timestamp)
+        .thenComparing(Entry::id, UuidBytes::compare);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Checkpoints share the read lock with readers but write the same temporary file
+    private final Object checkpointLock = new Object();
+    private final NavigableMap<Integer, LogSegment> segments = new TreeMap<>();
+    private final Map<UUID, HabitEntries> habits = new HashMap<>();
+    private final Set<UUID> deletedHabits = new HashSet<>();
+    private LogSegment active;
+    private long trackingCount;
+
+    private TrackingLog(final Path directory, final int segmentSize, final boolean fsync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens the log in {@code directory}, creating it if needed, and recovers its index.
+     *
+     * @throws CorruptLogException when a segment is damaged other than at the end of the log
+     */
+    public static TrackingLog open(final Path directory, final int segmentSize, final boolean fsync) throws IOException {
+        if (segmentSize < HEADER_SIZE + 1024) {
+            throw new IllegalArgumentException("Segment size must be at least " + (HEADER_SIZE + 1024) + " bytes");
+        }
+        Files.createDirectories(directory);
+        final TrackingLog trackingLog = new TrackingLog(directory, segmentSize, fsync);
+        trackingLog.recover();
+        return trackingLog;
+    }
+
+    /**
+     * Appends trackings, which must carry their id. The batch is written in one go but is not
+     * atomic across a crash.
+     *
+     * @throws IllegalStateException when a tracking belongs to a deleted habit
+     */
+    public void append(final List<Tracking> trackings) {
+        final List<byte[]> records = new ArrayList<>(trackings.size());
+        for (final Tracking tracking : trackings) {
+            final byte[] record = LogLayout.append(
+                tracking.getHabit().getId(), tracking.getId(), tracking.getTimestamp(), tracking.getNote());
+            if (HEADER_SIZE + record.length > segmentSize) {
+                throw new IllegalArgumentException("Tracking " + tracking.getId() + " does not fit into a segment");
+            }
+            records.add(record);
+        }
+        lock.writeLock().lock();
+        try {
+            for (final Tracking tracking : trackings) {
+                if (deletedHabits.contains(tracking.getHabit().getId())) {
+                    throw new IllegalStateException("Habit " + tracking.getHabit().getId() + " was deleted");
+                }
+            }
+            int forceFrom = active.limit();
+            for (int i = 0; i < records.size(); i++) {
+                final byte[] record = records.get(i);
+                if (!active.fits(record.length)) {
+                    roll();
+                    forceFrom = active.limit();
+                }
+                final int offset = active.write(record);
+                final Tracking tracking = trackings.get(i);
+                index(tracking.getHabit().getId(), new Entry(
+                    tracking.getId(), tracking.getTimestamp(), address(active.id(), offset), record.length));
+            }
+            if (fsync) {
+                active.force(forceFrom, active.limit() - forceFrom);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes one tracking of a habit and returns whether it existed.
+     */
+    public boolean delete(final UUID habitId, final UUID trackingId) {
+        lock.writeLock().lock();
+        try {
+            final HabitEntries entries = habits.get(habitId);
+            final Entry entry = entries != null ? entries.byId.get(trackingId) : null;
+            if (entry == null) {
+                return false;
+            }
+            final LogSegment target = segments.get(segmentOf(entry.address()));
+            write(LogLayout.delete(habitId, trackingId, target.id(), target.generation()));
+            unindex(habitId, trackingId);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes every tracking of a habit and refuses later appends to it.
+     */
+    public void deleteHabit(final UUID habitId) {
+        lock.writeLock().lock();
+        try {
+            if (deletedHabits.contains(habitId)) {
+                return;
+            }
+            write(LogLayout.deleteHabit(habitId));
+            removeHabit(habitId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every tracking of a habit, oldest first.
+     */
+    public List<TrackingExportRow> find(final UUID habitId) {
+        lock.readLock().lock();
+        try {
+            final HabitEntries entries = habits.get(habitId);
+            return entries != null ? read(entries.byTime, Integer.MAX_VALUE) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the trackings of a habit with {@code from <= timestamp < to}, oldest first and at
+     * most {@code limit} of them.
+     */
+    public List<TrackingExportRow> find(final UUID habitId,
+                                        final LocalDateTime from,
+                                        final LocalDateTime to,
+                                        final int limit) {
+        if (!from.isBefore(to)) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            final HabitEntries entries = habits.get(habitId);
+            if (entries == null) {
+                return List.of();
+            }
+            // The nil UUID sorts before every other id with the same timestamp
+            return read(entries.byTime.subSet(probe(from), true, probe(to), false), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Optional<TrackingExportRow> find(final UUID habitId, final UUID trackingId) {
+        lock.readLock().lock();
+        try {
+            final HabitEntries entries = habits.get(habitId);
+            final Entry entry = entries != null ? entries.byId.get(trackingId) : null;
+            return Optional.ofNullable(entry).map(this::read);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the timestamps of every tracking of a habit, straight from the index.
+     */
+    public List<LocalDateTime> timestamps(final UUID habitId) {
+        lock.readLock().lock();
+        try {
+            final HabitEntries entries = habits.get(habitId);
+            return entries != null ? entries.byTime.stream().map(Entry::timestamp).toList() : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites every sealed segment in which deleted trackings take up at least
+     * {@code threshold} of the records, keeping only what is still needed, then writes a
+     * checkpoint. Returns the number of segments rewritten or removed.
+     */
+    public int compact(final double threshold) throws IOException {
+        final List<Integer> sealed;
+        lock.readLock().lock();
+        try {
+            sealed = List.copyOf(segments.headMap(active.id(), false).keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        int compacted = 0;
+        for (final int id : sealed) {
+            // One segment at a time, so appends and reads wait for at most one rewrite
+            lock.writeLock().lock();
+            try {
+                final LogSegment segment = segments.get(id);
+                if (segment != null && segment.deadBytes() > 0
+                    && segment.deadBytes() >= threshold * (segment.limit() - HEADER_SIZE)) {
+                    rewrite(segment);
+                    compacted++;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        checkpoint();
+        return compacted;
+    }
+
+    /**
+     * Forces the log to disk and writes the index to the checkpoint file, so that opening the
+     * log only needs to replay what is appended afterwards.
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            lock.readLock().lock();
+            try {
+                active.force();
+                final Path temp = directory.resolve(CHECKPOINT_FILE + TEMP_SUFFIX);
+                try (FileChannel channel = FileChannel.open(temp,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    final CRC32C crc = new CRC32C();
+                    final DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel)), crc));
+                    writeCheckpoint(out);
+                    out.flush();
+                    out.writeInt((int) crc.getValue());
+                    out.flush();
+                    channel.force(true);
+                }
+                Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    public long trackingCount() {
+        lock.readLock().lock();
+        try {
+            return trackingCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long sizeBytes() {
+        lock.readLock().lock();
+        try {
+            return segments.values().stream().mapToLong(LogSegment::capacity).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long deadBytes() {
+        lock.readLock().lock();
+        try {
+            return segments.values().stream().mapToLong(LogSegment::deadBytes).sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        checkpoint();
+    }
+
+    private void recover() throws IOException {
+        final List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.toList();
+        }
+        for (final Path path : paths) {
+            if (path.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                // Left behind by an interrupted compaction or checkpoint
+                Files.delete(path);
+            } else if (LogSegment.isSegment(path)) {
+                final LogSegment segment = LogSegment.open(path);
+                segments.put(segment.id(), segment);
+            }
+        }
+        if (segments.isEmpty()) {
+            active = LogSegment.create(directory, 0, segmentSize);
+            segments.put(active.id(), active);
+            return;
+        }
+        long replayFrom = loadCheckpoint();
+        if (replayFrom < 0) {
+            reset();
+            replayFrom = address(segments.firstKey(), HEADER_SIZE);
+        }
+        replay(replayFrom);
+        active = segments.lastEntry().getValue();
+        log.info("Opened tracking log {} with {} trackings in {} segments",
+            directory, trackingCount, segments.size());
+    }
+
+    private void replay(final long from) {
+        final LogSegment last = segments.lastEntry().getValue();
+        for (final LogSegment segment : segments.tailMap(segmentOf(from), true).values()) {
+            int offset = segment.id() == segmentOf(from) ? offsetOf(from) : HEADER_SIZE;
+            int length;
+            while ((length = segment.recordLength(offset)) > 0) {
+                apply(segment, offset, length);
+                offset += length;
+            }
+            if (!segment.isZeroFrom(offset)) {
+                if (segment != last) {
+                    throw new CorruptLogException("Damaged record at offset " + offset + " of sealed segment "
+                        + segment.path());
+                }
+                log.warn("Discarding a torn record at offset {} of {}", offset, segment.path());
+                segment.zeroFrom(offset);
+                segment.force();
+            }
+            segment.limit(offset);
+        }
+    }
+
+    private void apply(final LogSegment segment, final int offset, final int length) {
+        final ByteBuffer body = segment.body(offset);
+        final byte type = body.get();
+        final UUID habitId = getUuid(body);
+        switch (type) {
+            case APPEND -> {
+                if (deletedHabits.contains(habitId)) {
+                    segment.addDeadBytes(length);
+                    return;
+                }
+                final UUID trackingId = getUuid(body);
+                index(habitId, new Entry(trackingId, getTimestamp(body), address(segment.id(), offset), length));
+            }
+            case DELETE -> unindex(habitId, getUuid(body));
+            case DELETE_HABIT -> removeHabit(habitId);
+            default -> throw new CorruptLogException("Unknown record type " + type + " at offset " + offset
+                + " of " + segment.path());
+        }
+    }
+
+    private void index(final UUID habitId, final Entry entry) {
+        if (habits.computeIfAbsent(habitId, id -> new HabitEntries()).put(entry) == null) {
+            trackingCount++;
+        }
+    }
+
+    private void unindex(final UUID habitId, final UUID trackingId) {
+        final HabitEntries entries = habits.get(habitId);
+        final Entry entry = entries != null ? entries.remove(trackingId) : null;
+        if (entry == null) {
+            return;
+        }
+        segments.get(segmentOf(entry.address())).addDeadBytes(entry.length());
+        trackingCount--;
+        if (entries.byId.isEmpty()) {
+            habits.remove(habitId);
+        }
+    }
+
+    private void removeHabit(final UUID habitId) {
+        deletedHabits.add(habitId);
+        final HabitEntries entries = habits.remove(habitId);
+        if (entries != null) {
+            for (final Entry entry : entries.byTime) {
+                segments.get(segmentOf(entry.address())).addDeadBytes(entry.length());
+            }
+            trackingCount -= entries.byId.size();
+        }
+    }
+
+    private void reset() {
+        habits.clear();
+        deletedHabits.clear();
+        trackingCount = 0;
+        for (final LogSegment segment : segments.values()) {
+            segment.limit(HEADER_SIZE);
+            segment.deadBytes(0);
+        }
+    }
+
+    private void write(final byte[] record) {
+        if (!active.fits(record.length)) {
+            roll();
+        }
+        final int offset = active.write(record);
+        if (fsync) {
+            active.force(offset, record.length);
+        }
+    }
+
+    private void roll() {
+        // A sealed segment must be complete on disk before records follow in the next one
+        active.force();
+        try {
+            active = LogSegment.create(directory, active.id() + 1, segmentSize);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Could not create segment " + (active.id() + 1) + " in " + directory, e);
+        }
+        segments.put(active.id(), active);
+    }
+
+    private List<TrackingExportRow> read(final Iterable<Entry> entries, final int limit) {
+        final List<TrackingExportRow> rows = new ArrayList<>();
+        for (final Entry entry : entries) {
+            if (rows.size() == limit) {
+                break;
+            }
+            rows.add(read(entry));
+        }
+        return rows;
+    }
+
+    private TrackingExportRow read(final Entry entry) {
+        final ByteBuffer body = segments.get(segmentOf(entry.address())).body(offsetOf(entry.address()));
+        // Skip the type and habit id
+        body.position(1 + 16);
+        return new TrackingExportRow(getUuid(body), getTimestamp(body), getNote(body));
+    }
+
+    /**
+     * Copies the records of a sealed segment that are still needed into a new generation of
+     * it, or removes the segment when none are.
+     */
+    private void rewrite(final LogSegment segment) throws IOException {
+        final Path temp = directory.resolve(segment.path().getFileName() + TEMP_SUFFIX);
+        final Map<UUID, List<Entry>> moved = new HashMap<>();
+        int newOffset = HEADER_SIZE;
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(SEGMENT_MAGIC).putInt(VERSION).putLong(segment.generation() + 1)
+                .flip());
+            int offset = HEADER_SIZE;
+            while (offset < segment.limit()) {
+                final int length = segment.recordLength(offset);
+                if (length < 0) {
+                    throw new CorruptLogException("Damaged record at offset " + offset + " of " + segment.path());
+                }
+                final ByteBuffer body = segment.body(offset);
+                final byte type = body.get();
+                final UUID habitId = getUuid(body);
+                final UUID trackingId = type != DELETE_HABIT ? getUuid(body) : null;
+                final boolean keep = switch (type) {
+                    case APPEND -> isIndexedAt(habitId, trackingId, address(segment.id(), offset));
+                    case DELETE -> isStillNeeded(segment, body.getInt(), body.getLong());
+                    default -> true;
+                };
+                if (keep) {
+                    final ByteBuffer record = segment.record(offset, length);
+                    while (record.hasRemaining()) {
+                        channel.write(record);
+                    }
+                    if (type == APPEND) {
+                        final Entry entry = habits.get(habitId).byId.get(trackingId);
+                        moved.computeIfAbsent(habitId, id -> new ArrayList<>()).add(
+                            new Entry(trackingId, entry.timestamp(), address(segment.id(), newOffset), length));
+                    }
+                    newOffset += length;
+                }
+                offset += length;
+            }
+            channel.force(true);
+        }
+        if (newOffset == HEADER_SIZE) {
+            Files.delete(temp);
+            Files.delete(segment.path());
+            segments.remove(segment.id());
+            log.info("Removed tracking log segment {}, nothing in it was live", segment.path());
+            return;
+        }
+        Files.move(temp, segment.path(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        final LogSegment compacted = LogSegment.open(segment.path());
+        compacted.limit(newOffset);
+        segments.put(compacted.id(), compacted);
+        moved.forEach((habitId, entries) -> entries.forEach(entry -> habits.get(habitId).put(entry)));
+        log.info("Compacted tracking log segment {} from {} to {} bytes", segment.path(), segment.limit(), newOffset);
+    }
+
+    private boolean isIndexedAt(final UUID habitId, final UUID trackingId, final long address) {
+        final HabitEntries entries = habits.get(habitId);
+        final Entry entry = entries != null ? entries.byId.get(trackingId) : null;
+        return entry != null && entry.address() == address;
+    }
+
+    /**
+     * A tombstone of a tracking is needed as long as the record it deletes may still be
+     * replayed: until that record's segment is rewritten or removed.
+     */
+    private boolean isStillNeeded(final LogSegment tombstoneSegment, final int targetSegment, final long targetGeneration) {
+        final LogSegment target = segments.get(targetSegment);
+        return target != null && target != tombstoneSegment && target.generation() == targetGeneration;
+    }
+
+    private void writeCheckpoint(final DataOutputStream out) throws IOException {
+        out.writeInt(CHECKPOINT_MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(segments.size());
+        for (final LogSegment segment : segments.values()) {
+            out.writeInt(segment.id());
+            out.writeLong(segment.generation());
+            out.writeInt(segment.limit());
+            out.writeLong(segment.deadBytes());
+        }
+        out.writeLong(address(active.id(), active.limit()));
+        out.writeInt(deletedHabits.size());
+        for (final UUID habitId : deletedHabits) {
+            writeUuid(out, habitId);
+        }
+        out.writeInt(habits.size());
+        for (final Map.Entry<UUID, HabitEntries> habit : habits.entrySet()) {
+            writeUuid(out, habit.getKey());
+            out.writeInt(habit.getValue().byId.size());
+            for (final Entry entry : habit.getValue().byTime) {
+                writeUuid(out, entry.id());
+                out.writeLong(entry.timestamp().toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(entry.timestamp().getNano());
+                out.writeLong(entry.address());
+                out.writeInt(entry.length());
+            }
+        }
+    }
+
+    /**
+     * Loads the checkpoint and returns the log address to replay from, or -1 when there is no
+     * checkpoint or it does not match the segments, e.g. after a crash during compaction.
+     */
+    private long loadCheckpoint() {
+        final Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return -1;
+        }
+        final CRC32C crc = new CRC32C();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path)), crc))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != VERSION) {
+                log.warn("Ignoring checkpoint {} of an unknown format", path);
+                return -1;
+            }
+            final Set<Integer> covered = new HashSet<>();
+            final int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                final LogSegment segment = segments.get(in.readInt());
+                final long generation = in.readLong();
+                final int limit = in.readInt();
+                final long deadBytes = in.readLong();
+                if (segment == null || segment.generation() != generation) {
+                    log.warn("Ignoring checkpoint {}, the segments changed since it was written", path);
+                    return -1;
+                }
+                segment.limit(limit);
+                segment.deadBytes(deadBytes);
+                covered.add(segment.id());
+            }
+            final long replayFrom = in.readLong();
+            if (!covered.containsAll(segments.headMap(segmentOf(replayFrom), true).keySet())) {
+                log.warn("Ignoring checkpoint {}, it does not cover every segment before its replay position", path);
+                return -1;
+            }
+            final int deletedCount = in.readInt();
+            for (int i = 0; i < deletedCount; i++) {
+                deletedHabits.add(readUuid(in));
+            }
+            final int habitCount = in.readInt();
+            for (int i = 0; i < habitCount; i++) {
+                final UUID habitId = readUuid(in);
+                final int entryCount = in.readInt();
+                for (int j = 0; j < entryCount; j++) {
+                    final UUID trackingId = readUuid(in);
+                    final LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+                    index(habitId, new Entry(trackingId, timestamp, in.readLong(), in.readInt()));
+                }
+            }
+            final int expected = (int) crc.getValue();
+            if (in.readInt() != expected || in.read() != -1) {
+                log.warn("Ignoring checkpoint {}, its checksum does not match", path);
+                return -1;
+            }
+            return replayFrom;
+        } catch (final EOFException e) {
+            log.warn("Ignoring truncated checkpoint {}", path);
+            return -1;
+        } catch (final IOException e) {
+            log.warn("Ignoring unreadable checkpoint {}", path, e);
+            return -1;
+        }
+    }
+
+    private static void writeUuid(final DataOutputStream out, final UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(final DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static Entry probe(final LocalDateTime timestamp) {
+        return new Entry(new UUID(0, 0), timestamp, 0, 0);
+    }
+
+    /**
+     * A live tracking in the index: where its APPEND record is and how long it is.
+     */
+    private record Entry(UUID id, LocalDateTime timestamp, long address, int length) {}
+
+    private static final class HabitEntries {
+
+        private final Map<UUID, Entry> byId = new HashMap<>();
+        private final NavigableSet<Entry> byTime = new TreeSet<>(ENTRY_ORDER);
+
+        /**
+         * Adds or replaces an entry and returns the one it replaced.
+         */
+        Entry put(final Entry entry) {
+            final Entry previous = byId.put(entry.id(), entry);
+            if (previous != null) {
+                byTime.remove(previous);
+            }
+            byTime.add(entry);
+            return previous;
+        }
+
+        Entry remove(final UUID trackingId) {
+            final Entry entry = byId.remove(trackingId);
+            if (entry != null) {
+                byTime.remove(entry);
+            }
+            return entry;
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package org.netlight.habit_tracker.archive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrackingSegmentTest {
+
+    private static final LocalDateTime MIN = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX = LocalDateTime.of(9999, 1, 1, 0, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_readBackEachHabitsTrackings_oldestFirst() throws IOException {
+        UUID running = UUID.fromString("ffffffff-0000-7000-8000-000000000001");
+        UUID reading = UUID.fromString("00000000-0000-7000-8000-000000000002");
+        List<TrackingExportRow> runs = new ArrayList<>();
+        for (int day = 0; day < 500; day++) {
+            runs.add(row(LocalDateTime.of(2022, 1, 1, 7, 0, 0, day * 1_000).plusDays(day), day % 3 == 0 ? null : "Run " + day));
+        }
+        TrackingExportRow book = row(LocalDateTime.of(2022, 3, 1, 21, 0), "Finished \"Dune\", 5 ★");
+        TrackingExportRow earlierBook = row(LocalDateTime.of(2022, 2, 1, 21, 0), "");
+
+        Path file = directory.resolve("segment.seg");
+        try (TrackingSegmentWriter writer = TrackingSegmentWriter.create(file)) {
+            for (TrackingExportRow run : runs) {
+                writer.append(running, run);
+            }
+            // Rows of a habit are sorted by the writer
+            writer.append(reading, book);
+            writer.append(reading, earlierBook);
+            writer.finish();
+        }
+        TrackingSegment segment = TrackingSegment.open(file);
+
+        assertEquals(502, segment.rowCount());
+        assertEquals(runs, segment.read(running, MIN, MAX));
+        assertEquals(List.of(earlierBook, book), segment.read(reading, MIN, MAX));
+        assertEquals(List.of(), segment.read(UUID.randomUUID(), MIN, MAX));
+        assertTrue(segment.sizeBytes() < 500 * 16, "segment should compress, was " + segment.sizeBytes());
+    }
+
+    @Test
+    void should_onlyReturnTrackingsInRange() throws IOException {
+        UUID habitId = TimeOrderedUuid.next();
+        LocalDateTime start = LocalDateTime.of(2023, 1, 1, 7, 0);
+        Path file = directory.resolve("segment.seg");
+        try (TrackingSegmentWriter writer = TrackingSegmentWriter.create(file)) {
+            for (int day = 0; day < 30; day++) {
+                writer.append(habitId, row(start.plusDays(day), "Day " + day));
+            }
+            writer.finish();
+        }
+        TrackingSegment segment = TrackingSegment.open(file);
+
+        List<TrackingExportRow> week = segment.read(habitId, start.plusDays(7), start.plusDays(14));
+
+        assertEquals(7, week.size());
+        assertEquals("Day 7", week.get(0).note());
+        assertEquals("Day 13", week.get(6).note());
+        assertEquals(List.of(), segment.read(habitId, start.plusDays(30), MAX));
+        assertEquals(List.of(), segment.read(habitId, MIN, start));
+    }
+
+    @Test
+    void should_rejectHabitsThatAreNotContiguous() throws IOException {
+        UUID first = TimeOrderedUuid.next();
+        UUID second = TimeOrderedUuid.next();
+        try (TrackingSegmentWriter writer = TrackingSegmentWriter.create(directory.resolve("segment.seg"))) {
+            writer.append(first, row(LocalDateTime.of(2023, 1, 1, 7, 0), null));
+            writer.append(second, row(LocalDateTime.of(2023, 1, 1, 7, 0), null));
+
+            assertThrows(IllegalStateException.class,
+                    () -> writer.append(first, row(LocalDateTime.of(2023, 1, 2, 7, 0), null)));
+        }
+    }
+
+    @Test
+    void should_rejectFilesThatAreNotSegments() throws IOException {
+        Path file = Files.writeString(directory.resolve("notes.seg"), "habit,timestamp\nRunning,2024-01-01\n");
+
+        assertThrows(CorruptSegmentException.class, () -> TrackingSegment.open(file));
+    }
+
+    private static TrackingExportRow row(final LocalDateTime timestamp, final String note) {
+        return new TrackingExportRow(TimeOrderedUuid.next(), timestamp, note);
+    }
+
+}
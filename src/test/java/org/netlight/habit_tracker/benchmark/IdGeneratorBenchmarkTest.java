@@ -0,0 +1,74 @@
+package org.netlight.habit_tracker.benchmark;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Compares insert throughput into a {@code BINARY(16)} primary key for random (v4) ids
+ * and {@link TimeOrderedUuid} ids. Only runs when started with {@code -Dbenchmark=true}:
+ * <pre>
+ * mvn test -Dbenchmark=true -Dtest=IdGeneratorBenchmarkTest
+ * </pre>
+ * The difference is most visible against MariaDB with a table larger than the buffer pool.
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IdGeneratorBenchmarkTest {
+
+    private static final int ROWS = 500_000;
+    private static final int BATCH_SIZE = 1_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("create table id_benchmark (id binary(16) primary key, payload varchar(64) not null)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("drop table id_benchmark");
+    }
+
+    @Test
+    void should_compareInsertThroughput() {
+        insert(UUID::randomUUID, BATCH_SIZE * 10);
+        insert(TimeOrderedUuid::next, BATCH_SIZE * 10);
+        jdbcTemplate.execute("truncate table id_benchmark");
+
+        double random = insert(UUID::randomUUID, ROWS);
+        jdbcTemplate.execute("truncate table id_benchmark");
+        double timeOrdered = insert(TimeOrderedUuid::next, ROWS);
+
+        System.out.printf("Random UUID inserts:       %,.0f rows/s%n", random);
+        System.out.printf("Time-ordered UUID inserts: %,.0f rows/s (%.2fx)%n", timeOrdered, timeOrdered / random);
+    }
+
+    private double insert(Supplier<UUID> ids, int rows) {
+        long start = System.nanoTime();
+        for (int offset = 0; offset < rows; offset += BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(new Object[] {UuidBytes.toBytes(ids.get()), "row " + (offset + i)});
+            }
+            jdbcTemplate.batchUpdate("insert into id_benchmark (id, payload) values (?, ?)", batch);
+        }
+        return rows / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+
+}
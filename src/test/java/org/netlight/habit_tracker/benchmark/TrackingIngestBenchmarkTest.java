@@ -0,0 +1,103 @@
+package org.netlight.habit_tracker.benchmark;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.request.TrackingEntryRequest;
+import org.netlight.habit_tracker.dto.response.TrackingBatchResponse;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.service.HabitService;
+import org.netlight.habit_tracker.service.TrackingBatchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares ingest throughput of the single-entry tracking path with the batch endpoint.
+ * Runs against the embedded H2 database and only when started with {@code -Dbenchmark=true}:
+ * <pre>
+ * mvn test -Dbenchmark=true -Dtest=TrackingIngestBenchmarkTest
+ * </pre>
+ */
+@SpringBootTest
+@ActiveProfiles("h2")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TrackingIngestBenchmarkTest {
+
+    private static final int HABITS = 20;
+    private static final int ENTRIES = 10_000;
+    private static final int WARMUP_ENTRIES = 1_000;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private TrackingBatchService trackingBatchService;
+
+    private List<UUID> habitIds;
+
+    @BeforeEach
+    void setUp() {
+        habitIds = new ArrayList<>();
+        for (int i = 0; i < HABITS; i++) {
+            habitIds.add(habitService.createHabit(HabitRequest.builder()
+                .name("Benchmark habit " + UUID.randomUUID())
+                .frequency(Frequency.DAILY)
+                .startDate(LocalDate.now())
+                .build()).id());
+        }
+    }
+
+    @Test
+    void should_ingestFaster_withBatchEndpoint() {
+        // Warm up both paths so class loading and JIT do not skew the first measurement
+        singleEntryIngest(WARMUP_ENTRIES);
+        trackingBatchService.addTrackingEntries(entries(WARMUP_ENTRIES));
+
+        final double singleRowsPerSecond = singleEntryIngest(ENTRIES);
+
+        final List<TrackingEntryRequest> entries = entries(ENTRIES);
+        final long start = System.nanoTime();
+        final TrackingBatchResponse response = trackingBatchService.addTrackingEntries(entries);
+        final double batchRowsPerSecond = rowsPerSecond(ENTRIES, System.nanoTime() - start);
+
+        assertEquals(ENTRIES, response.created());
+        System.out.printf("Single-entry ingest: %,.0f rows/s%n", singleRowsPerSecond);
+        System.out.printf("Batch ingest:        %,.0f rows/s (%.1fx)%n",
+            batchRowsPerSecond, batchRowsPerSecond / singleRowsPerSecond);
+        assertTrue(batchRowsPerSecond > singleRowsPerSecond);
+    }
+
+    private double singleEntryIngest(final int count) {
+        final long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            habitService.addTrackingEntry(habitIds.get(i % HABITS), "Single entry " + i);
+        }
+        return rowsPerSecond(count, System.nanoTime() - start);
+    }
+
+    private List<TrackingEntryRequest> entries(final int count) {
+        final List<TrackingEntryRequest> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(TrackingEntryRequest.builder()
+                .habitId(habitIds.get(i % HABITS))
+                .note("Batch entry " + i)
+                .build());
+        }
+        return entries;
+    }
+
+    private static double rowsPerSecond(final int rows, final long nanos) {
+        return rows / (nanos / 1_000_000_000.0);
+    }
+
+}
@@ -0,0 +1,116 @@
+package org.netlight.habit_tracker.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional requests against the embedded H2 database, where versions are maintained by
+ * Hibernate for inserts and by the single-statement updates for PATCH.
+ */
+@SpringBootTest(properties =
+    "spring.datasource.url=jdbc:h2:mem:conditional;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class HabitConditionalRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void should_changeHabitETag_whenHabitIsUpdated() throws Exception {
+        final String id = createHabit("Conditional " + UUID.randomUUID());
+
+        mockMvc.perform(get("/api/habits/{id}", id))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+        mockMvc.perform(get("/api/habits/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isNotModified());
+
+        mockMvc.perform(patch("/api/habits/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"description\": \"Changed\"}"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/habits/{id}", id).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(get("/api/habits/{id}", UUID.randomUUID()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void should_failWrite_whenIfMatchIsStale() throws Exception {
+        final String id = createHabit("Guarded " + UUID.randomUUID());
+
+        mockMvc.perform(patch("/api/habits/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Renamed\", \"frequency\": \"WEEKLY\"}"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+            .andExpect(jsonPath("$.name").value("Renamed"))
+            .andExpect(jsonPath("$.frequency").value("WEEKLY"))
+            .andExpect(jsonPath("$.version").value(1));
+
+        mockMvc.perform(patch("/api/habits/{id}", id)
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Lost update\"}"))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/habits/{id}", id).header(HttpHeaders.IF_MATCH, "\"0\""))
+            .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/api/habits/{id}", id))
+            .andExpect(jsonPath("$.name").value("Renamed"));
+
+        mockMvc.perform(delete("/api/habits/{id}", id).header(HttpHeaders.IF_MATCH, "\"1\""))
+            .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/habits/{id}", id).header(HttpHeaders.IF_MATCH, "\"1\""))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void should_changePageETag_whenHabitIsAdded() throws Exception {
+        createHabit("Listed " + UUID.randomUUID());
+        final String tag = mockMvc.perform(get("/api/habits").param("limit", "1000"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/habits").param("limit", "1000").header(HttpHeaders.IF_NONE_MATCH, tag))
+            .andExpect(status().isNotModified());
+
+        createHabit("Listed " + UUID.randomUUID());
+        final String changedTag = mockMvc.perform(get("/api/habits").param("limit", "1000")
+                .header(HttpHeaders.IF_NONE_MATCH, tag))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(tag, changedTag);
+    }
+
+    private String createHabit(final String name) throws Exception {
+        final String habit = mockMvc.perform(post("/api/habits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"" + name + "\", \"frequency\": \"DAILY\", \"startDate\": \"2024-01-01\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(habit, "$.id");
+    }
+
+}
@@ -0,0 +1,55 @@
+package org.netlight.habit_tracker.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Streams habits from the embedded database, so the projection query itself is run.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:habit_stream;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class HabitStreamRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void should_streamHabitProjections_whenStreamingIsRequested() throws Exception {
+        final String habit = mockMvc.perform(post("/api/habits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Streamed " + UUID.randomUUID() + "\", \"frequency\": \"WEEKLY\", \"startDate\": \"2024-01-01\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        final String habitId = JsonPath.read(habit, "$.id");
+
+        final MvcResult result = mockMvc.perform(get("/api/habits").param("stream", "true"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        final String body = mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        assertTrue(body.contains("\"id\":\"" + habitId + "\""), body);
+        assertTrue(body.contains("\"frequency\":\"WEEKLY\""), body);
+    }
+
+}
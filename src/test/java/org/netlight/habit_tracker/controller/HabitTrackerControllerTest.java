@@ -3,33 +3,64 @@ package org.netlight.habit_tracker.controller;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.response.HabitCalendarResponse;
+import org.netlight.habit_tracker.dto.response.HabitPage;
 import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.dto.response.HabitStatsResponse;
+import org.netlight.habit_tracker.dto.response.TrackingBatchResponse;
+import org.netlight.habit_tracker.dto.response.TrackingResponse;
+import org.netlight.habit_tracker.dto.response.TrackingEntryResult;
+import org.netlight.habit_tracker.exception.HabitNotFoundException;
+import org.netlight.habit_tracker.exception.HabitVersionConflictException;
+import org.netlight.habit_tracker.export.TrackingExportFormat;
 import org.netlight.habit_tracker.model.Frequency;
 import org.netlight.habit_tracker.model.Habit;
 import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.pagination.HabitPageTag;
+import org.netlight.habit_tracker.service.HabitRollupService;
 import org.netlight.habit_tracker.service.HabitService;
+import org.netlight.habit_tracker.service.TrackingBatchService;
+import org.netlight.habit_tracker.service.TrackingExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyList;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(HabitTrackerController.class)
@@ -41,6 +72,15 @@ public class HabitTrackerControllerTest {
     @MockBean
     private HabitService habitService;
 
+    @MockBean
+    private TrackingBatchService trackingBatchService;
+
+    @MockBean
+    private HabitRollupService habitRollupService;
+
+    @MockBean
+    private TrackingExportService trackingExportService;
+
     private UUID habitId;
     private HabitResponse habitResponse;
     private Habit habit;
@@ -55,6 +95,7 @@ public class HabitTrackerControllerTest {
                 .description("This is a test habit")
                 .frequency(Frequency.DAILY)
                 .startDate(LocalDate.now())
+                .version(3L)
                 .build();
 
         habit = Habit.builder()
@@ -69,14 +110,98 @@ public class HabitTrackerControllerTest {
     @Test
     void should_getAllHabits_whenServiceReturnsHabits() throws Exception {
         // Mock the service layer to return a list of habits
-        when(habitService.getAllHabits()).thenReturn(Collections.singletonList(habitResponse));
+        when(habitService.getAllHabits(null, null))
+                .thenReturn(new HabitPage(Collections.singletonList(habitResponse), null));
 
         mockMvc.perform(get("/api/habits"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HabitTrackerController.NEXT_CURSOR_HEADER))
                 .andExpect(jsonPath("$[0].name").value("Test Habit"))
                 .andExpect(jsonPath("$[0].description").value("This is a test habit"));
 
-        verify(habitService, times(1)).getAllHabits(); // Verify service method is called
+        verify(habitService, times(1)).getAllHabits(null, null); // Verify service method is called
+    }
+
+    @Test
+    void should_returnNotModified_whenHabitPageTagMatches() throws Exception {
+        String tag = HabitPageTag.of(new HabitPage(Collections.singletonList(habitResponse), null));
+        when(habitService.getAllHabits(null, null))
+                .thenReturn(new HabitPage(Collections.singletonList(habitResponse), null));
+        when(habitService.getHabitPageTag(null, null)).thenReturn(tag);
+
+        mockMvc.perform(get("/api/habits"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + tag + "\""));
+        mockMvc.perform(get("/api/habits").header(HttpHeaders.IF_NONE_MATCH, "\"" + tag + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + tag + "\""))
+                .andExpect(content().string(""));
+
+        verify(habitService, times(1)).getAllHabits(null, null);
+    }
+
+    @Test
+    void should_returnNextCursorHeader_whenMoreHabitsFollow() throws Exception {
+        when(habitService.getAllHabits("abc", 1))
+                .thenReturn(new HabitPage(Collections.singletonList(habitResponse), "def"));
+
+        mockMvc.perform(get("/api/habits").param("cursor", "abc").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HabitTrackerController.NEXT_CURSOR_HEADER, "def"))
+                .andExpect(jsonPath("$[0].name").value("Test Habit"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_streamAllHabits_whenStreamingIsRequested() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<HabitResponse> consumer = invocation.getArgument(0);
+            consumer.accept(habitResponse);
+            consumer.accept(habitResponse.toBuilder().name("Other Habit").build());
+            return null;
+        }).when(habitService).streamAllHabits(any(Consumer.class));
+
+        var result = mockMvc.perform(get("/api/habits").param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"name\":\"Other Habit\"")));
+    }
+
+    @Test
+    void should_returnHabitVersionAsETag() throws Exception {
+        when(habitService.getHabitResponseById(habitId)).thenReturn(habitResponse);
+
+        mockMvc.perform(get("/api/habits/{id}", habitId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    void should_returnNotModified_withoutLoadingHabit_whenVersionMatches() throws Exception {
+        when(habitService.getHabitVersion(habitId)).thenReturn(3L);
+
+        mockMvc.perform(get("/api/habits/{id}", habitId).header(HttpHeaders.IF_NONE_MATCH, "\"2\", W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+
+        verify(habitService, never()).getHabitResponseById(habitId);
+    }
+
+    @Test
+    void should_returnHabit_whenIfNoneMatchIsStale() throws Exception {
+        when(habitService.getHabitVersion(habitId)).thenReturn(3L);
+        when(habitService.getHabitResponseById(habitId)).thenReturn(habitResponse);
+
+        mockMvc.perform(get("/api/habits/{id}", habitId).header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andExpect(jsonPath("$.name").value("Test Habit"));
     }
 
     @Test
@@ -147,7 +272,7 @@ public class HabitTrackerControllerTest {
                 .build();
 
         // Mock the service to return updated habit
-        when(habitService.updateHabit(eq(habitId), any(HabitRequest.class))).thenReturn(updatedResponse);
+        when(habitService.updateHabit(eq(habitId), any(HabitRequest.class), isNull())).thenReturn(updatedResponse);
 
         mockMvc.perform(patch("/api/habits/{id}", habitId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -163,17 +288,56 @@ public class HabitTrackerControllerTest {
                 .andExpect(jsonPath("$.name").value("Updated Habit"))
                 .andExpect(jsonPath("$.description").value("Updated description"));
 
-        verify(habitService, times(1)).updateHabit(eq(habitId), any(HabitRequest.class));
+        verify(habitService, times(1)).updateHabit(eq(habitId), any(HabitRequest.class), isNull());
     }
 
     @Test
     void should_deleteHabit_whenHabitExists() throws Exception {
-        doNothing().when(habitService).deleteHabit(habitId); // Mock the delete behavior
+        doNothing().when(habitService).deleteHabit(habitId, null); // Mock the delete behavior
 
         mockMvc.perform(delete("/api/habits/{id}", habitId))
                 .andExpect(status().isOk());
 
-        verify(habitService, times(1)).deleteHabit(habitId);
+        verify(habitService, times(1)).deleteHabit(habitId, null);
+    }
+
+    @Test
+    void should_passIfMatchVersion_whenUpdatingHabit() throws Exception {
+        HabitResponse updatedResponse = HabitResponse.builder()
+                .id(habitId)
+                .name("Updated Habit")
+                .version(4L)
+                .build();
+
+        when(habitService.updateHabit(eq(habitId), any(HabitRequest.class), eq(3L))).thenReturn(updatedResponse);
+
+        mockMvc.perform(patch("/api/habits/{id}", habitId)
+                        .header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Updated Habit\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void should_returnPreconditionFailed_whenIfMatchIsNotAVersion() throws Exception {
+        mockMvc.perform(delete("/api/habits/{id}", habitId)
+                        .header(HttpHeaders.IF_MATCH, "W/\"3\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/api/habits/{id}", habitId)
+                        .header(HttpHeaders.IF_MATCH, "\"3\", \"4\""))
+                .andExpect(status().isPreconditionFailed());
+
+        verify(habitService, never()).deleteHabit(any(UUID.class), any());
+    }
+
+    @Test
+    void should_returnPreconditionFailed_whenVersionIsStale() throws Exception {
+        doThrow(new HabitVersionConflictException("stale")).when(habitService).deleteHabit(habitId, 3L);
+
+        mockMvc.perform(delete("/api/habits/{id}", habitId)
+                        .header(HttpHeaders.IF_MATCH, "\"3\""))
+                .andExpect(status().isPreconditionFailed());
     }
 
     @Test
@@ -198,20 +362,194 @@ public class HabitTrackerControllerTest {
     }
 
     @Test
-    void should_getTrackings_whenHabitHasTrackings() throws Exception {
-        Tracking tracking = Tracking.builder()
+    void should_addTrackingDurably_whenDurableIsRequested() throws Exception {
+        String note = "Durable tracking entry";
+        Tracking trackingResponse = Tracking.builder()
                 .id(UUID.randomUUID())
                 .habit(habit)
                 .timestamp(LocalDateTime.now())
-                .note("First tracking entry")
+                .note(note)
                 .build();
 
+        when(habitService.addTrackingEntryDurably(eq(habitId), eq(note))).thenReturn(trackingResponse);
+
+        mockMvc.perform(post("/api/habits/{habitId}/tracking", habitId)
+                        .param("durable", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(note))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.note").value(note));
+
+        verify(habitService, times(1)).addTrackingEntryDurably(eq(habitId), eq(note));
+        verify(habitService, never()).addTrackingEntry(any(), any());
+    }
+
+    @Test
+    void should_getTrackings_whenHabitHasTrackings() throws Exception {
+        TrackingResponse tracking = new TrackingResponse(UUID.randomUUID(), habitResponse, LocalDateTime.now(), "First tracking entry");
+
         when(habitService.getAllTrackingsForHabit(habitId)).thenReturn(Collections.singletonList(tracking));
 
         mockMvc.perform(get("/api/habits/{habitId}/tracking", habitId))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].note").value("First tracking entry"));
+                .andExpect(jsonPath("$[0].note").value("First tracking entry"))
+                .andExpect(jsonPath("$[0].habit.name").value(habitResponse.name()));
 
         verify(habitService, times(1)).getAllTrackingsForHabit(habitId);
     }
+
+    @Test
+    void should_getTrackingsInRange_whenBoundsAreGiven() throws Exception {
+        TrackingResponse tracking = new TrackingResponse(UUID.randomUUID(), habitResponse, LocalDateTime.of(2024, 1, 3, 7, 0), "In range");
+
+        when(habitService.getTrackingsForHabit(habitId, LocalDateTime.of(2024, 1, 1, 0, 0),
+                LocalDateTime.of(2024, 1, 8, 0, 0), 20)).thenReturn(List.of(tracking));
+
+        mockMvc.perform(get("/api/habits/{habitId}/tracking", habitId)
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-01-08T00:00:00")
+                        .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].note").value("In range"));
+
+        verify(habitService, never()).getAllTrackingsForHabit(habitId);
+    }
+
+    @Test
+    void should_return400_whenTrackingBoundIsNotADateTime() throws Exception {
+        mockMvc.perform(get("/api/habits/{habitId}/tracking", habitId).param("from", "last week"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void should_reportResultPerEntry_whenAddingTrackingBatch() throws Exception {
+        UUID trackingId = UUID.randomUUID();
+        TrackingBatchResponse batchResponse = new TrackingBatchResponse(1, 1, List.of(
+                TrackingEntryResult.created(0, trackingId),
+                TrackingEntryResult.rejected(1, TrackingEntryResult.Status.HABIT_NOT_FOUND, "No habit")));
+
+        when(trackingBatchService.addTrackingEntries(anyList())).thenReturn(batchResponse);
+
+        mockMvc.perform(post("/api/habits/tracking/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                        [
+                            { "habitId": "%s", "note": "Offline check-in" },
+                            { "habitId": "%s", "timestamp": "2024-01-01T08:30:00" }
+                        ]
+                        """.formatted(habitId, UUID.randomUUID())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.results[0].trackingId").value(trackingId.toString()))
+                .andExpect(jsonPath("$.results[1].status").value("HABIT_NOT_FOUND"));
+
+        verify(trackingBatchService, times(1)).addTrackingEntries(anyList());
+    }
+
+    @Test
+    void should_getHabitStats_whenHabitExists() throws Exception {
+        HabitStatsResponse stats = HabitStatsResponse.builder()
+                .habitId(habitId)
+                .frequency(Frequency.DAILY)
+                .currentStreak(3)
+                .longestStreak(5)
+                .completedPeriods(8)
+                .elapsedPeriods(10)
+                .completionRate(0.8)
+                .build();
+
+        when(habitRollupService.getStats(habitId)).thenReturn(stats);
+
+        mockMvc.perform(get("/api/habits/{id}/stats", habitId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.currentStreak").value(3))
+                .andExpect(jsonPath("$.completionRate").value(0.8));
+    }
+
+    @Test
+    void should_deleteTracking_whenTrackingExists() throws Exception {
+        UUID trackingId = UUID.randomUUID();
+        doNothing().when(habitService).deleteTrackingEntry(habitId, trackingId);
+
+        mockMvc.perform(delete("/api/habits/{id}/tracking/{trackingId}", habitId, trackingId))
+                .andExpect(status().isOk());
+
+        verify(habitService, times(1)).deleteTrackingEntry(habitId, trackingId);
+    }
+
+    @Test
+    void should_getHabitCalendar_forRequestedRange() throws Exception {
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        HabitCalendarResponse calendar = new HabitCalendarResponse(
+                habitId, Frequency.DAILY, from, to, List.of(LocalDate.of(2024, 3, 1)));
+
+        when(habitRollupService.getCalendar(habitId, from, to)).thenReturn(calendar);
+
+        mockMvc.perform(get("/api/habits/{id}/calendar", habitId)
+                        .param("from", "2024-01-01")
+                        .param("to", "2024-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed[0]").value("2024-03-01"));
+    }
+
+    @Test
+    void should_exportTrackingsAsCsv_withGzip_whenClientAcceptsIt() throws Exception {
+        when(trackingExportService.exportTrackings(eq(habitId), eq(TrackingExportFormat.CSV), any(OutputStream.class)))
+                .thenAnswer(invocation -> {
+                    OutputStream out = invocation.getArgument(2);
+                    out.write("id,timestamp,note\r\n".getBytes(StandardCharsets.UTF_8));
+                    return 0L;
+                });
+
+        var result = mockMvc.perform(get("/api/habits/{id}/tracking/export", habitId)
+                        .param("format", "csv")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("trackings-" + habitId + ".csv")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("id,timestamp,note\r\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void should_exportTrackingsAsNdjson_uncompressed_byDefault() throws Exception {
+        var result = mockMvc.perform(get("/api/habits/{id}/tracking/export", habitId)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+
+        verify(trackingExportService, times(1))
+                .exportTrackings(eq(habitId), eq(TrackingExportFormat.NDJSON), any(OutputStream.class));
+    }
+
+    @Test
+    void should_returnNotFound_whenExportingTrackingsOfUnknownHabit() throws Exception {
+        doThrow(new HabitNotFoundException("No habit")).when(trackingExportService).requireHabit(habitId);
+
+        mockMvc.perform(get("/api/habits/{id}/tracking/export", habitId))
+                .andExpect(status().isNotFound());
+
+        verify(trackingExportService, never()).exportTrackings(any(), any(), any());
+    }
+
+    @Test
+    void should_returnBadRequest_forUnsupportedExportFormat() throws Exception {
+        mockMvc.perform(get("/api/habits/{id}/tracking/export", habitId).param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
 }
@@ -0,0 +1,134 @@
+package org.netlight.habit_tracker.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.idempotency.IdempotencyFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code Idempotency-Key} handling against the embedded H2 database.
+ */
+@SpringBootTest(properties =
+    "spring.datasource.url=jdbc:h2:mem:idempotency;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class IdempotentRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_storeTrackingOnce_whenRequestIsRetried() throws Exception {
+        final String habitId = createHabit();
+        final String key = UUID.randomUUID().toString();
+
+        final String first = addTracking(habitId, key, "Run")
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        final String retry = addTracking(habitId, key, "Run")
+            .andExpect(status().isOk())
+            .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+            .andReturn().getResponse().getContentAsString();
+
+        assertEquals(first, retry);
+        assertEquals(1, countTrackings(habitId));
+    }
+
+    @Test
+    void should_storeTrackingOnce_whenRetriesAreConcurrent() throws Exception {
+        final String habitId = createHabit();
+        final String key = UUID.randomUUID().toString();
+        final int retries = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(retries);
+        final List<Future<MockHttpServletResponse>> responses = new ArrayList<>();
+        try {
+            for (int i = 0; i < retries; i++) {
+                responses.add(executor.submit(() -> {
+                    start.await();
+                    return addTracking(habitId, key, "Swim").andReturn().getResponse();
+                }));
+            }
+            start.countDown();
+
+            final String body = responses.get(0).get().getContentAsString();
+            for (final Future<MockHttpServletResponse> response : responses) {
+                assertEquals(200, response.get().getStatus());
+                assertEquals(body, response.get().getContentAsString());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, countTrackings(habitId));
+    }
+
+    @Test
+    void should_rejectRequest_whenKeyIsReusedForAnotherRequest() throws Exception {
+        final String habitId = createHabit();
+        final String key = UUID.randomUUID().toString();
+
+        addTracking(habitId, key, "Read").andExpect(status().isOk());
+        addTracking(habitId, key, "Write").andExpect(status().isUnprocessableEntity());
+
+        assertEquals(1, countTrackings(habitId));
+    }
+
+    @Test
+    void should_replayErrorResponse_whenRequestIsRetried() throws Exception {
+        final String key = UUID.randomUUID().toString();
+        final String missingHabitId = UUID.randomUUID().toString();
+
+        addTracking(missingHabitId, key, "Nothing").andExpect(status().isNotFound());
+        addTracking(missingHabitId, key, "Nothing")
+            .andExpect(status().isNotFound())
+            .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"));
+    }
+
+    private ResultActions addTracking(final String habitId, final String key, final String note) throws Exception {
+        return mockMvc.perform(post("/api/habits/{id}/tracking", habitId)
+            .param("durable", "true")
+            .header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key)
+            .contentType(MediaType.TEXT_PLAIN)
+            .content(note));
+    }
+
+    private int countTrackings(final String habitId) {
+        return jdbcTemplate.queryForObject("select count(*) from trackings where habit_id = ?", Integer.class,
+            UuidBytes.toBytes(UUID.fromString(habitId)));
+    }
+
+    private String createHabit() throws Exception {
+        final String habit = mockMvc.perform(post("/api/habits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Idempotent " + UUID.randomUUID() + "\", \"frequency\": \"DAILY\", \"startDate\": \"2024-01-01\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(habit, "$.id");
+    }
+
+}
@@ -0,0 +1,146 @@
+package org.netlight.habit_tracker.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.service.HabitService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Trackings kept in the tracking log instead of the {@code trackings} table.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:tracking_log;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "habit-tracker.tracking-store.type=log",
+    "habit-tracker.tracking-store.directory=" + LogTrackingStoreRequestTest.DIRECTORY,
+    "habit-tracker.tracking-store.segment-size=1MB"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class LogTrackingStoreRequestTest {
+
+    static final String DIRECTORY = "target/tracking-log-request-test";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void removeLeftoverLog() throws IOException {
+        FileSystemUtils.deleteRecursively(Path.of(DIRECTORY));
+    }
+
+    @Test
+    void should_roundTripTrackings_whenStoredInLog() throws Exception {
+        final String habit = mockMvc.perform(post("/api/habits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Logged\", \"frequency\": \"DAILY\", \"startDate\": \"2024-01-01\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        final String habitId = JsonPath.read(habit, "$.id");
+
+        final String first = mockMvc.perform(post("/api/habits/{id}/tracking", habitId).content("First"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/api/habits/{id}/tracking", habitId).content("Second"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/habits/{id}/tracking", habitId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].note").value("First"))
+            .andExpect(jsonPath("$[1].note").value("Second"));
+        mockMvc.perform(get("/api/habits/{id}/tracking", habitId).param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].note").value("First"));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM trackings", Integer.class));
+
+        mockMvc.perform(delete("/api/habits/{id}/tracking/{trackingId}", habitId, JsonPath.read(first, "$.id")))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/habits/{id}/tracking", habitId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$[0].note").value("Second"));
+        mockMvc.perform(get("/api/habits/{id}/stats", habitId))
+            .andExpect(status().isOk());
+        assertEquals(1.0, meterRegistry.get("habit_tracker.tracking_log.trackings").gauge().value());
+    }
+
+    @Test
+    void should_leaveNoTrackings_whenHabitIsDeleted() throws Exception {
+        final String habit = mockMvc.perform(post("/api/habits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Deleted\", \"frequency\": \"DAILY\", \"startDate\": \"2024-01-01\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        final String habitId = JsonPath.read(habit, "$.id");
+        mockMvc.perform(post("/api/habits/{id}/tracking", habitId).content("Gone"))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/habits/{id}", habitId))
+            .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/habits/{id}/tracking", habitId))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void should_keepTrackings_whenHabitDeleteRollsBack() throws Exception {
+        final String habit = mockMvc.perform(post("/api/habits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Kept\", \"frequency\": \"DAILY\", \"startDate\": \"2024-01-01\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        final String habitId = JsonPath.read(habit, "$.id");
+        mockMvc.perform(post("/api/habits/{id}/tracking", habitId).content("Kept"))
+            .andExpect(status().isOk());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            habitService.deleteHabit(UUID.fromString(habitId));
+            status.setRollbackOnly();
+        });
+
+        mockMvc.perform(post("/api/habits/{id}/tracking", habitId).content("Added"))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/habits/{id}/tracking", habitId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].note").value("Kept"));
+        mockMvc.perform(delete("/api/habits/{id}", habitId))
+            .andExpect(status().isOk());
+    }
+
+}
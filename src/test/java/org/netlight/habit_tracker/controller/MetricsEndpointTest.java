@@ -0,0 +1,60 @@
+package org.netlight.habit_tracker.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("h2")
+class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void should_exposeEndpointServiceRepositoryAndPoolMetrics_whenScraped() throws Exception {
+        final String habit = mockMvc.perform(post("/api/habits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"name": "Metrics habit", "frequency": "DAILY", "startDate": "2024-01-01"}
+                    """))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        mockMvc.perform(post("/api/habits/{id}/tracking", JsonPath.<String>read(habit, "$.id"))
+                .contentType(MediaType.TEXT_PLAIN)
+                .content("Tracked"))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/habits/{id}", UUID.randomUUID()))
+            .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString(
+                "http_server_requests_seconds_bucket{error=\"none\",exception=\"none\",method=\"POST\"")))
+            .andExpect(content().string(containsString("uri=\"/api/habits/{id}\"")))
+            .andExpect(content().string(containsString(
+                "habit_tracker_service_seconds_count{class=\"org.netlight.habit_tracker.service.HabitService\","
+                    + "exception=\"HabitNotFoundException\",method=\"getHabitResponseById\"")))
+            .andExpect(content().string(containsString(
+                "habit_tracker_repository_seconds_bucket{class=\"org.netlight.habit_tracker.repository.HabitRollupRepository\"")))
+            .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket")))
+            .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")));
+    }
+
+}
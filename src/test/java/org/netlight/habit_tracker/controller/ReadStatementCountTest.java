@@ -0,0 +1,154 @@
+package org.netlight.habit_tracker.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL statements Hibernate issues per request, so that read paths stay at a fixed
+ * number of queries however many habits and trackings they return. The near-cache is off
+ * so every request reaches the database.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:read_statements;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "org.netlight.habit_tracker.controller.ReadStatementCountTest$StatementCounter",
+    "habit-tracker.cache.enabled=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ReadStatementCountTest {
+
+    private static final int TRACKINGS = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TrackingStore trackingStore;
+
+    private String habitId;
+    private final List<Tracking> trackings = new ArrayList<>();
+
+    @BeforeEach
+    void createHabitWithTrackings() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            final String habit = mockMvc.perform(post("/api/habits")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"name\": \"Counted " + UUID.randomUUID() + "\", \"frequency\": \"DAILY\", \"startDate\": \"2024-01-01\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+            habitId = JsonPath.read(habit, "$.id");
+        }
+        final Habit habit = Habit.builder().id(UUID.fromString(habitId)).build();
+        final LocalDateTime start = LocalDateTime.of(2024, 1, 1, 7, 0);
+        trackings.clear();
+        for (int day = 0; day < TRACKINGS; day++) {
+            trackings.add(Tracking.builder()
+                .id(TimeOrderedUuid.next())
+                .habit(habit)
+                .timestamp(start.plusDays(day))
+                .note("Day " + day)
+                .build());
+        }
+        trackingStore.saveAll(trackings);
+    }
+
+    @Test
+    void should_readHabitPageInOneQuery_whenCacheIsOff() throws Exception {
+        assertStatements(1, get("/api/habits").param("limit", "50"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void should_readHabitInOneQuery_whenCacheIsOff() throws Exception {
+        assertStatements(1, get("/api/habits/{id}", habitId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(habitId));
+    }
+
+    @Test
+    void should_readAllTrackingsInTwoQueries_whenNoRangeIsGiven() throws Exception {
+        assertStatements(2, get("/api/habits/{id}/tracking", habitId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(TRACKINGS))
+            .andExpect(jsonPath("$[0].note").value("Day 0"))
+            .andExpect(jsonPath("$[" + (TRACKINGS - 1) + "].habit.id").value(habitId));
+    }
+
+    @Test
+    void should_readTrackingRangeInTwoQueries_whenRangeIsGiven() throws Exception {
+        assertStatements(2, get("/api/habits/{id}/tracking", habitId)
+                .param("from", "2024-01-05T00:00:00")
+                .param("limit", "10"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(10))
+            .andExpect(jsonPath("$[0].note").value("Day 4"));
+    }
+
+    @Test
+    void should_fetchHabitWithTracking_whenTrackingIsDeleted() throws Exception {
+        // Habit, tracking with its habit, delete
+        assertStatements(3, delete("/api/habits/{id}/tracking/{trackingId}", habitId, trackings.get(0).getId()))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void should_returnTrackingResponse_whenTrackingIsAdded() throws Exception {
+        mockMvc.perform(post("/api/habits/{id}/tracking", habitId).param("durable", "true").content("Added"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.note").value("Added"))
+            .andExpect(jsonPath("$.habit.id").value(habitId))
+            .andExpect(jsonPath("$.habit.userId").doesNotExist());
+    }
+
+    private ResultActions assertStatements(final int expected, final RequestBuilder request) throws Exception {
+        StatementCounter.STATEMENTS.get().clear();
+        final ResultActions result = mockMvc.perform(request);
+        final List<String> statements = StatementCounter.STATEMENTS.get();
+        assertEquals(expected, statements.size(), String.join("\n", statements));
+        return result;
+    }
+
+    /**
+     * Records the statements Hibernate prepares on the calling thread, the one MockMvc
+     * handles the request on.
+     */
+    public static class StatementCounter implements StatementInspector {
+
+        static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+        @Override
+        public String inspect(final String sql) {
+            STATEMENTS.get().add(sql);
+            return sql;
+        }
+
+    }
+
+}
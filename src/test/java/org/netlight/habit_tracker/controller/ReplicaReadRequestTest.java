@@ -0,0 +1,79 @@
+package org.netlight.habit_tracker.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.shard.UserContextFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reads through a replica that is a second, read-only pool on the primary's embedded database.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:replica_reads;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "habit-tracker.replicas.enabled=true",
+    "habit-tracker.replicas.instances[0].name=r1",
+    "habit-tracker.replicas.instances[0].url=jdbc:h2:mem:replica_reads;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "habit-tracker.replicas.instances[0].username=sa"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ReplicaReadRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void should_readFromReplica_whenReplicaIsHealthy() throws Exception {
+        final double before = reads("replica");
+
+        mockMvc.perform(get("/api/habits").header(UserContextFilter.USER_ID_HEADER, UUID.randomUUID()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+
+        assertEquals(before + 1, reads("replica"));
+    }
+
+    @Test
+    void should_readFromPrimary_whenUserHasJustWritten() throws Exception {
+        final UUID userId = UUID.randomUUID();
+        final String habit = mockMvc.perform(post("/api/habits")
+                .header(UserContextFilter.USER_ID_HEADER, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Read my writes\", \"frequency\": \"DAILY\", \"startDate\": \"2024-01-01\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        final String habitId = JsonPath.read(habit, "$.id");
+        final double replicaReads = reads("replica");
+        final double primaryReads = reads("primary_recent_write");
+
+        mockMvc.perform(get("/api/habits/{id}/tracking", habitId).header(UserContextFilter.USER_ID_HEADER, userId))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/habits/{id}/tracking", habitId).header(UserContextFilter.USER_ID_HEADER, UUID.randomUUID()))
+            .andExpect(status().isNotFound());
+
+        assertEquals(primaryReads + 1, reads("primary_recent_write"));
+        assertEquals(replicaReads + 1, reads("replica"));
+    }
+
+    private double reads(final String route) {
+        return meterRegistry.get("habit_tracker.replica.reads").tag("route", route).counter().count();
+    }
+
+}
@@ -0,0 +1,163 @@
+package org.netlight.habit_tracker.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.service.ShardRebalancer;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.netlight.habit_tracker.shard.ShardRoutingDataSource;
+import org.netlight.habit_tracker.shard.UserContextFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Habits spread over three embedded H2 shards.
+ */
+@SpringBootTest(properties = {
+    "habit-tracker.shards.enabled=true",
+    "habit-tracker.shards.instances[0].name=a",
+    "habit-tracker.shards.instances[0].url=jdbc:h2:mem:shard_a;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "habit-tracker.shards.instances[0].username=sa",
+    "habit-tracker.shards.instances[1].name=b",
+    "habit-tracker.shards.instances[1].url=jdbc:h2:mem:shard_b;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "habit-tracker.shards.instances[1].username=sa",
+    "habit-tracker.shards.instances[2].name=c",
+    "habit-tracker.shards.instances[2].url=jdbc:h2:mem:shard_c;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+    "habit-tracker.shards.instances[2].username=sa"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("h2")
+class ShardedHabitRequestTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private ShardRoutingDataSource dataSource;
+
+    @Autowired
+    private ShardRebalancer shardRebalancer;
+
+    @Test
+    void should_storeHabitOnlyOnItsUsersShard_whenCreated() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            final UUID userId = UUID.randomUUID();
+            final UUID habitId = createHabit(userId, "Sharded habit");
+
+            for (final String shard : shardRouter.shards()) {
+                final int expected = shard.equals(shardRouter.shardFor(userId)) ? 1 : 0;
+                assertEquals(expected, countHabits(shard, habitId), "shard " + shard);
+            }
+        }
+    }
+
+    @Test
+    void should_hideHabit_whenReadByAnotherUser() throws Exception {
+        final UUID owner = UUID.randomUUID();
+        final UUID other = UUID.randomUUID();
+        final UUID habitId = createHabit(owner, "Private habit");
+
+        mockMvc.perform(get("/api/habits/{id}", habitId).header(UserContextFilter.USER_ID_HEADER, owner))
+            .andExpect(status().isOk());
+        mockMvc.perform(get("/api/habits/{id}", habitId).header(UserContextFilter.USER_ID_HEADER, other))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/habits/{id}/stats", habitId).header(UserContextFilter.USER_ID_HEADER, other))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/habits").header(UserContextFilter.USER_ID_HEADER, other))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void should_allowSameHabitName_whenUsersDiffer() throws Exception {
+        createHabit(UUID.randomUUID(), "Meditate");
+        createHabit(UUID.randomUUID(), "Meditate");
+    }
+
+    @Test
+    void should_returnConflict_whenUserReusesHabitName() throws Exception {
+        final UUID userId = UUID.randomUUID();
+        createHabit(userId, "Journal");
+
+        mockMvc.perform(post("/api/habits")
+                .header(UserContextFilter.USER_ID_HEADER, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Journal\", \"frequency\": \"DAILY\", \"startDate\": \"2024-01-01\"}"))
+            .andExpect(status().isConflict());
+        mockMvc.perform(get("/api/habits").header(UserContextFilter.USER_ID_HEADER, userId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void should_rejectRequest_whenUserIdIsInvalid() throws Exception {
+        mockMvc.perform(get("/api/habits").header(UserContextFilter.USER_ID_HEADER, "not-a-uuid"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void should_moveUsersToTheirAssignedShard_whenRebalancing() throws Exception {
+        final UUID userId = UUID.randomUUID();
+        final String assigned = shardRouter.shardFor(userId);
+        final String misplaced = shardRouter.shards().stream()
+            .filter(shard -> !shard.equals(assigned))
+            .findFirst().orElseThrow();
+        final UUID habitId = TimeOrderedUuid.next();
+        final JdbcTemplate source = new JdbcTemplate(dataSource.shard(misplaced));
+        source.update("insert into habits (id, user_id, name, frequency, start_date, version) values (?, ?, ?, ?, ?, ?)",
+            UuidBytes.toBytes(habitId), UuidBytes.toBytes(userId), "Misplaced", "DAILY",
+            Date.valueOf(LocalDate.now().minusWeeks(1)), 0L);
+        for (int day = 0; day < 3; day++) {
+            source.update("insert into trackings (id, habit_id, timestamp, note) values (?, ?, ?, ?)",
+                UuidBytes.toBytes(TimeOrderedUuid.next()), UuidBytes.toBytes(habitId),
+                Timestamp.valueOf(LocalDateTime.now().minusDays(day)), null);
+        }
+        mockMvc.perform(get("/api/habits/{id}", habitId).header(UserContextFilter.USER_ID_HEADER, userId))
+            .andExpect(status().isNotFound());
+
+        shardRebalancer.rebalance();
+
+        assertEquals(0, countHabits(misplaced, habitId));
+        assertEquals(1, countHabits(assigned, habitId));
+        mockMvc.perform(get("/api/habits/{id}/stats", habitId).header(UserContextFilter.USER_ID_HEADER, userId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.currentStreak").value(3));
+    }
+
+    private UUID createHabit(final UUID userId, final String name) throws Exception {
+        final String habit = mockMvc.perform(post("/api/habits")
+                .header(UserContextFilter.USER_ID_HEADER, userId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"" + name + "\", \"frequency\": \"DAILY\", \"startDate\": \"2024-01-01\"}"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        return UUID.fromString(JsonPath.read(habit, "$.id"));
+    }
+
+    private int countHabits(final String shard, final UUID habitId) {
+        return new JdbcTemplate(dataSource.shard(shard))
+            .queryForObject("select count(*) from habits where id = ?", Integer.class, UuidBytes.toBytes(habitId));
+    }
+
+}
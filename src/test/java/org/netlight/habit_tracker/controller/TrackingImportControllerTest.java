@@ -0,0 +1,120 @@
+package org.netlight.habit_tracker.controller;
+
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.dto.response.ImportJobResponse;
+import org.netlight.habit_tracker.exception.ImportJobNotFoundException;
+import org.netlight.habit_tracker.importer.ImportFormat;
+import org.netlight.habit_tracker.model.ImportJobStatus;
+import org.netlight.habit_tracker.service.TrackingImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TrackingImportController.class)
+class TrackingImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private TrackingImportService trackingImportService;
+
+    private final UUID jobId = UUID.randomUUID();
+
+    @Test
+    void should_acceptImport_whenFileIsSubmitted() throws Exception {
+        when(trackingImportService.submit(eq(ImportFormat.CSV), eq("history.csv"), any(InputStream.class)))
+            .thenReturn(job(ImportJobStatus.QUEUED));
+
+        mockMvc.perform(post("/api/imports")
+                .param("format", "CSV")
+                .param("name", "history.csv")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content("habit,timestamp\nRunning,2024-01-01\n"))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/api/imports/" + jobId))
+            .andExpect(jsonPath("$.id").value(jobId.toString()))
+            .andExpect(jsonPath("$.status").value("QUEUED"));
+    }
+
+    @Test
+    void should_takeFormatFromContentType_whenNoFormatIsGiven() throws Exception {
+        when(trackingImportService.submit(eq(ImportFormat.NDJSON), eq(null), any(InputStream.class)))
+            .thenReturn(job(ImportJobStatus.QUEUED));
+
+        mockMvc.perform(post("/api/imports")
+                .contentType("application/x-ndjson")
+                .content("{\"habit\": \"Running\"}\n"))
+            .andExpect(status().isAccepted());
+
+        verify(trackingImportService).submit(eq(ImportFormat.NDJSON), eq(null), any(InputStream.class));
+    }
+
+    @Test
+    void should_rejectImport_whenFormatIsUnsupported() throws Exception {
+        mockMvc.perform(post("/api/imports")
+                .contentType(MediaType.APPLICATION_XML)
+                .content("<habits/>"))
+            .andExpect(status().isBadRequest());
+
+        verify(trackingImportService, never()).submit(any(), any(), any());
+    }
+
+    @Test
+    void should_returnImportJob_whenJobExists() throws Exception {
+        when(trackingImportService.getJob(jobId)).thenReturn(job(ImportJobStatus.RUNNING));
+
+        mockMvc.perform(get("/api/imports/{id}", jobId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("RUNNING"))
+            .andExpect(jsonPath("$.importedRows").value(2));
+    }
+
+    @Test
+    void should_returnNotFound_whenJobIsUnknown() throws Exception {
+        when(trackingImportService.getJob(jobId)).thenThrow(new ImportJobNotFoundException("Import job not found with id: " + jobId));
+
+        mockMvc.perform(get("/api/imports/{id}", jobId))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void should_resumeImport_whenJobIsResumed() throws Exception {
+        when(trackingImportService.resume(jobId)).thenReturn(job(ImportJobStatus.QUEUED));
+
+        mockMvc.perform(post("/api/imports/{id}/resume", jobId))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        verify(trackingImportService).resume(jobId);
+    }
+
+    private ImportJobResponse job(final ImportJobStatus status) {
+        return ImportJobResponse.builder()
+            .id(jobId)
+            .format(ImportFormat.CSV)
+            .status(status)
+            .processedRows(3)
+            .importedRows(2)
+            .rejectedRows(1)
+            .build();
+    }
+
+}
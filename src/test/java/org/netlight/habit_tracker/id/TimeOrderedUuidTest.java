@@ -0,0 +1,91 @@
+package org.netlight.habit_tracker.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedUuidTest {
+
+    @Test
+    void should_setVersionAndVariant() {
+        UUID uuid = TimeOrderedUuid.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    void should_encodeCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uuid = TimeOrderedUuid.next();
+        long after = System.currentTimeMillis();
+
+        long timestamp = TimeOrderedUuid.timestamp(uuid);
+        assertTrue(timestamp >= before, "timestamp should not be in the past");
+        // The sequence counter may carry into the timestamp under heavy load
+        assertTrue(timestamp <= after + 1, "timestamp should not run far ahead");
+    }
+
+    @Test
+    void should_increaseWithinTheSameMillisecond() {
+        long millis = System.currentTimeMillis();
+
+        long first = TimeOrderedUuid.nextState(millis);
+        long second = TimeOrderedUuid.nextState(millis);
+
+        assertTrue(Long.compareUnsigned(second, first) > 0);
+        assertTrue(compareBytes(TimeOrderedUuid.fromState(second, 0), TimeOrderedUuid.fromState(first, -1)) > 0);
+    }
+
+    @Test
+    void should_generateUniqueIncreasingIds_acrossThreads() throws Exception {
+        int threads = 8;
+        int idsPerThread = 20_000;
+        ConcurrentLinkedQueue<List<UUID>> perThread = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                List<UUID> ids = new ArrayList<>(idsPerThread);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < idsPerThread; i++) {
+                    ids.add(TimeOrderedUuid.next());
+                }
+                perThread.add(ids);
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        List<UUID> all = new ArrayList<>();
+        for (List<UUID> ids : perThread) {
+            // Ids issued by one thread must be strictly increasing in storage byte order
+            for (int i = 1; i < ids.size(); i++) {
+                assertTrue(compareBytes(ids.get(i), ids.get(i - 1)) > 0);
+            }
+            all.addAll(ids);
+        }
+        assertEquals(threads * idsPerThread, all.stream().distinct().count());
+    }
+
+    private static int compareBytes(UUID a, UUID b) {
+        return Arrays.compareUnsigned(UuidBytes.toBytes(a), UuidBytes.toBytes(b));
+    }
+
+}
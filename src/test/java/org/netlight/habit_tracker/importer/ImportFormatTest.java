@@ -0,0 +1,78 @@
+package org.netlight.habit_tracker.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.dto.request.TrackingImportRecord;
+import org.netlight.habit_tracker.exception.InvalidImportFileException;
+import org.netlight.habit_tracker.exception.UnsupportedFormatException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ImportFormatTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void should_readCsvColumnsByName_withQuotedFields() throws IOException {
+        ImportRecordReader reader = csv("\uFEFFNote,Timestamp,HABIT,Start_Date\r\n"
+                + "\"Ran, slowly\",2024-01-01T08:00:00,Running,2024-01-01\r\n"
+                + "\r\n"
+                + "\"Said \"\"hi\"\"\nthen left\",2024-01-02,Running,\n"
+                + ",,Reading");
+
+        assertEquals(TrackingImportRecord.builder()
+                .habit("Running").startDate("2024-01-01").timestamp("2024-01-01T08:00:00").note("Ran, slowly").build(),
+                reader.next());
+        assertEquals(TrackingImportRecord.builder()
+                .habit("Running").timestamp("2024-01-02").note("Said \"hi\"\nthen left").build(),
+                reader.next());
+        assertEquals(TrackingImportRecord.builder().habit("Reading").build(), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void should_rejectCsv_withoutHabitColumn() {
+        assertThrows(InvalidImportFileException.class, () -> csv("name,timestamp\nRunning,2024-01-01\n"));
+    }
+
+    @Test
+    void should_reportUnterminatedQuote_andThenEndOfFile() throws IOException {
+        ImportRecordReader reader = csv("habit,note\nRunning,\"open quote\n");
+
+        assertThrows(MalformedImportRecordException.class, reader::next);
+        assertNull(reader.next());
+    }
+
+    @Test
+    void should_continueAfterMalformedNdjsonLine() throws IOException {
+        ImportRecordReader reader = ImportFormat.NDJSON.newReader(new BufferedReader(new StringReader("""
+                {"habit": "Running", "timestamp": "2024-01-01T08:00:00", "extra": 1}
+
+                {"habit": "Running", "timestamp":
+                {"habit": "Reading", "frequency": "weekly"}
+                """)), objectMapper);
+
+        assertEquals("Running", reader.next().habit());
+        assertThrows(MalformedImportRecordException.class, reader::next);
+        assertEquals(TrackingImportRecord.builder().habit("Reading").frequency("weekly").build(), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void should_resolveFormat_fromNameOrMediaType() {
+        assertEquals(ImportFormat.CSV, ImportFormat.fromName("csv"));
+        assertEquals(ImportFormat.NDJSON, ImportFormat.fromMediaType("application/x-ndjson;charset=UTF-8"));
+        assertThrows(UnsupportedFormatException.class, () -> ImportFormat.fromMediaType("application/json"));
+    }
+
+    private ImportRecordReader csv(final String content) throws IOException {
+        return ImportFormat.CSV.newReader(new BufferedReader(new StringReader(content)), objectMapper);
+    }
+
+}
@@ -0,0 +1,67 @@
+package org.netlight.habit_tracker.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HabitCalendarTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void should_markCompletedPeriods() {
+        HabitCalendar calendar = HabitCalendar.empty(Frequency.DAILY, START)
+                .withCompleted(List.of(0, 63, 64, 200), 16);
+
+        assertTrue(calendar.isCompleted(0));
+        assertTrue(calendar.isCompleted(63));
+        assertTrue(calendar.isCompleted(64));
+        assertTrue(calendar.isCompleted(200));
+        assertFalse(calendar.isCompleted(1));
+        assertFalse(calendar.isCompleted(-1));
+        assertEquals(List.of(63, 64), calendar.completedPeriods(1, 199));
+        assertEquals(4, calendar.completedCount(500));
+        assertEquals(3, calendar.completedCount(199));
+    }
+
+    @Test
+    void should_notChangeOriginal_whenMarkingPeriods() {
+        HabitCalendar original = HabitCalendar.empty(Frequency.DAILY, START).withCompleted(List.of(1), 16);
+
+        original.withCompleted(List.of(2), 16);
+
+        assertFalse(original.isCompleted(2));
+    }
+
+    @Test
+    void should_countStreaks_acrossWordBoundaries() {
+        HabitCalendar calendar = HabitCalendar.empty(Frequency.DAILY, START)
+                .withCompleted(IntStream.rangeClosed(10, 139).boxed().toList(), 16)
+                .withCompleted(List.of(150, 151, 152), 16);
+
+        assertEquals(130, calendar.longestStreak(200));
+        assertEquals(3, calendar.currentStreak(152));
+        assertEquals(3, calendar.currentStreak(153));
+        assertEquals(0, calendar.currentStreak(154));
+        assertEquals(130, calendar.currentStreak(139));
+        assertEquals(64, calendar.longestStreak(73));
+    }
+
+    @Test
+    void should_dropOldestWords_whenWindowIsFull() {
+        HabitCalendar calendar = HabitCalendar.empty(Frequency.DAILY, START)
+                .withCompleted(List.of(0, 70), 2)
+                .withCompleted(List.of(130), 2);
+
+        assertFalse(calendar.coversFromStart());
+        assertFalse(calendar.isCompleted(0));
+        assertTrue(calendar.isCompleted(70));
+        assertTrue(calendar.isCompleted(130));
+        assertEquals(16 + 64, calendar.memoryBytes());
+    }
+
+}
@@ -0,0 +1,99 @@
+package org.netlight.habit_tracker.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+
+    private static final long TICK = 1_000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void should_expireEveryKey_onTheFirstTickAtOrAfterItsDeadline() {
+        // 30 days reach the third level of 512-slot wheels
+        assertExpiresOnTime(new TimingWheel<>(TICK, 9, 3, START), 30L * 24 * 3600 * TICK, new Random(1));
+    }
+
+    @Test
+    void should_parkDeadlinesBeyondItsRange_untilTheyComeInReach() {
+        // Two levels of four slots only reach 16 ticks ahead
+        assertExpiresOnTime(new TimingWheel<>(TICK, 2, 2, START), 200 * TICK, new Random(2));
+    }
+
+    @Test
+    void should_replaceDeadline_whenRescheduled_andForgetCancelledKeys() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 9, 3, START);
+        wheel.schedule("moved", START + 10 * TICK);
+        wheel.schedule("cancelled", START + 10 * TICK);
+        wheel.schedule("moved", START + 5_000 * TICK);
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("cancelled"));
+
+        assertEquals(List.of(), advance(wheel, START + 4_999 * TICK));
+        assertEquals(START + 5_000 * TICK, wheel.deadline("moved"));
+        assertEquals(List.of("moved"), advance(wheel, START + 5_000 * TICK));
+        assertEquals(0, wheel.size());
+        assertEquals(-1, wheel.deadline("moved"));
+    }
+
+    @Test
+    void should_expirePassedDeadlines_onNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 9, 3, START);
+        advance(wheel, START + 100 * TICK);
+        wheel.schedule("overdue", START);
+        wheel.schedule("partial", START + 100 * TICK + 1);
+
+        assertEquals(List.of("overdue"), advance(wheel, START + 100 * TICK + 1));
+        assertEquals(List.of("partial"), advance(wheel, START + 101 * TICK));
+    }
+
+    private static void assertExpiresOnTime(final TimingWheel<Integer> wheel, final long horizon, final Random random) {
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int key = 0; key < 10_000; key++) {
+            long deadline = START + (long) (random.nextDouble() * horizon);
+            deadlines.put(key, deadline);
+            wheel.schedule(key, deadline);
+        }
+        // Move some keys, including some that cascaded already
+        for (int key = 0; key < 10_000; key += 7) {
+            long deadline = START + (long) (random.nextDouble() * horizon);
+            deadlines.put(key, deadline);
+            wheel.schedule(key, deadline);
+        }
+
+        // Each key must expire on the first advance that reaches its deadline
+        Map<Integer, long[]> expiredBetween = new HashMap<>();
+        long now = START;
+        while (now < START + horizon + TICK) {
+            long previous = now;
+            now += 1 + (long) (random.nextDouble() * TICK * 50);
+            long[] window = {previous, now};
+            wheel.advance(now, key -> assertEquals(null, expiredBetween.put(key, window), "expired twice: " + key));
+        }
+
+        assertEquals(deadlines.keySet(), expiredBetween.keySet());
+        assertEquals(0, wheel.size());
+        deadlines.forEach((key, deadline) -> {
+            long[] window = expiredBetween.get(key);
+            long due = -Math.floorDiv(-deadline, TICK) * TICK;
+            assertTrue(window[0] < due && due <= window[1],
+                "key " + key + " due at " + due + " expired between " + window[0] + " and " + window[1]);
+        });
+    }
+
+    private static List<String> advance(final TimingWheel<String> wheel, final long now) {
+        List<String> expired = new ArrayList<>();
+        wheel.advance(now, expired::add);
+        return expired;
+    }
+
+}
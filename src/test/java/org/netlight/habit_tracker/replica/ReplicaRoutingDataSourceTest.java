@@ -0,0 +1,162 @@
+package org.netlight.habit_tracker.replica;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.config.ReplicaProperties;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicaRoutingDataSourceTest {
+
+    private static final String PRIMARY = "replica_test_primary";
+    private static final String REPLICA = "replica_test_replica";
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRouter router;
+    private DataSource dataSource;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primaryJdbc = new JdbcTemplate(database(PRIMARY));
+        replicaJdbc = new JdbcTemplate(database(REPLICA));
+        for (final JdbcTemplate jdbc : List.of(primaryJdbc, replicaJdbc)) {
+            jdbc.execute("drop table if exists replication_heartbeat");
+            jdbc.execute("create table replication_heartbeat (id int primary key, beat bigint not null)");
+            jdbc.update("insert into replication_heartbeat (id, beat) values (1, 0)");
+        }
+        final ReplicaProperties properties = new ReplicaProperties(true, Duration.ofSeconds(2), Duration.ofSeconds(1),
+            Duration.ofSeconds(5), Duration.ofSeconds(10), 1000,
+            List.of(new ReplicaProperties.Replica("r1", "default", url(REPLICA), "sa", "")));
+        meterRegistry = new SimpleMeterRegistry();
+        router = new ReplicaRouter(properties, new MockEnvironment(), meterRegistry);
+        dataSource = router.withReplicas("default", database(PRIMARY));
+        routing = dataSource.unwrap(ReplicaRoutingDataSource.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.shutdown();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void should_readFromPrimary_untilReplicaPassedHealthCheck() throws SQLException {
+        assertEquals(PRIMARY, readOnlyDatabase(UUID.randomUUID()));
+
+        router.checkReplicas();
+
+        assertEquals(REPLICA, readOnlyDatabase(UUID.randomUUID()));
+        assertEquals(1, reads("replica"));
+        assertEquals(1, reads("primary_no_replica"));
+    }
+
+    @Test
+    void should_writeToPrimary_andReadOwnWritesFromPrimary() throws SQLException {
+        router.checkReplicas();
+        final UUID writer = UUID.randomUUID();
+        try (UserContext.Scope ignored = UserContext.actAs(writer);
+             Connection connection = routing.getConnection()) {
+            assertEquals(PRIMARY, databaseOf(connection));
+            connection.createStatement().executeUpdate("update replication_heartbeat set beat = beat where id = 1");
+        }
+
+        assertEquals(PRIMARY, readOnlyDatabase(writer));
+        assertEquals(REPLICA, readOnlyDatabase(UUID.randomUUID()));
+        assertEquals(1, reads("primary_recent_write"));
+    }
+
+    @Test
+    void should_notRecordWrite_forQueries() throws SQLException {
+        router.checkReplicas();
+        final UUID reader = UUID.randomUUID();
+        try (UserContext.Scope ignored = UserContext.actAs(reader);
+             Connection connection = routing.getConnection()) {
+            connection.createStatement().executeQuery("select beat from replication_heartbeat");
+            connection.createStatement().execute("select beat from replication_heartbeat");
+        }
+
+        assertEquals(REPLICA, readOnlyDatabase(reader));
+    }
+
+    @Test
+    void should_skipReplica_whileItLagsBehind() throws SQLException {
+        router.checkReplicas();
+        final ReplicaRoutingDataSource.Replica replica = routing.replicas().get(0);
+        assertEquals(0, replica.lagMillis());
+
+        // The first check wrote a heartbeat to the primary that never reached the replica
+        router.checkReplicas();
+        assertTrue(replica.isHealthy());
+        assertTrue(replica.lagMillis() > Duration.ofSeconds(5).toMillis());
+        assertEquals(PRIMARY, readOnlyDatabase(UUID.randomUUID()));
+        assertEquals(replica.lagMillis(), meterRegistry.get("habit_tracker.replica.lag").gauge().value());
+
+        // Replication catches up
+        final long beat = primaryJdbc.queryForObject(ReplicaRoutingDataSource.READ_HEARTBEAT_SQL, Long.class);
+        replicaJdbc.update(ReplicaRoutingDataSource.WRITE_HEARTBEAT_SQL, beat);
+        router.checkReplicas();
+        assertEquals(0, replica.lagMillis());
+        assertEquals(REPLICA, readOnlyDatabase(UUID.randomUUID()));
+    }
+
+    @Test
+    void should_fallBackToPrimary_whenReplicaFails() throws SQLException {
+        router.checkReplicas();
+        final ReplicaRoutingDataSource.Replica replica = routing.replicas().get(0);
+        replica.pool().close();
+
+        assertEquals(PRIMARY, readOnlyDatabase(UUID.randomUUID()));
+        assertFalse(replica.isHealthy());
+        assertEquals(0, meterRegistry.get("habit_tracker.replica.healthy").gauge().value());
+
+        router.checkReplicas();
+        assertFalse(replica.isHealthy());
+    }
+
+    private String readOnlyDatabase(final UUID userId) throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (UserContext.Scope ignored = UserContext.actAs(userId);
+             Connection connection = routing.getConnection()) {
+            return databaseOf(connection);
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    private double reads(final String route) {
+        return meterRegistry.get("habit_tracker.replica.reads").tag("route", route).counter().count();
+    }
+
+    private static String databaseOf(final Connection connection) throws SQLException {
+        final String url = connection.getMetaData().getURL();
+        return url.contains(REPLICA) ? REPLICA : url.contains(PRIMARY) ? PRIMARY : url;
+    }
+
+    private static DataSource database(final String name) {
+        return new DriverManagerDataSource(url(name), "sa", "");
+    }
+
+    private static String url(final String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    }
+
+}
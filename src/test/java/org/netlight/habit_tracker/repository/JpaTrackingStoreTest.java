@@ -0,0 +1,53 @@
+package org.netlight.habit_tracker.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.netlight.habit_tracker.config.TrackingPartitionProperties;
+
+import java.util.UUID;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JpaTrackingStoreTest {
+
+    @Mock
+    private TrackingRepository trackingRepository;
+
+    @Mock
+    private TrackingJdbcRepository trackingJdbcRepository;
+
+    @Spy
+    private TrackingPartitionProperties trackingPartitionProperties = new TrackingPartitionProperties(false, null, 3);
+
+    @InjectMocks
+    private JpaTrackingStore trackingStore;
+
+    @Test
+    void should_leaveDeleteToForeignKey_whenTrackingsAreNotPartitioned() {
+        UUID habitId = UUID.randomUUID();
+
+        trackingStore.deleteByHabitId(habitId);
+
+        verify(trackingRepository, never()).deleteByHabitId(habitId);
+    }
+
+    @Test
+    void should_deleteTrackingsExplicitly_whenTrackingsArePartitioned() {
+        UUID habitId = UUID.randomUUID();
+
+        when(trackingPartitionProperties.enabled()).thenReturn(true);
+
+        trackingStore.deleteByHabitId(habitId);
+
+        verify(trackingRepository, times(1)).deleteByHabitId(habitId);
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.netlight.habit_tracker.repository;
+
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the time-range query against the schema created by Liquibase on H2.
+ */
+@SpringBootTest(properties =
+    "spring.datasource.url=jdbc:h2:mem:trackings;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("h2")
+class TrackingRepositoryTest {
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private TrackingRepository trackingRepository;
+
+    @Autowired
+    private TrackingJdbcRepository trackingJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_returnOnlyTrackingsInRange_oldestFirst() {
+        Habit habit = habitRepository.save(Habit.builder()
+                .userId(UserContext.DEFAULT_USER)
+                .name("Range " + UUID.randomUUID())
+                .frequency(Frequency.DAILY)
+                .startDate(LocalDate.of(2022, 1, 1))
+                .build());
+        // Two years of daily check-ins, written newest first
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 7, 0);
+        List<Tracking> trackings = new ArrayList<>();
+        for (int day = 730; day >= 0; day--) {
+            trackings.add(Tracking.builder()
+                    .id(TimeOrderedUuid.next())
+                    .habit(habit)
+                    .timestamp(start.plusDays(day))
+                    .build());
+        }
+        trackingJdbcRepository.batchInsert(trackings);
+
+        LocalDateTime to = LocalDateTime.of(2023, 12, 31, 0, 0);
+        List<TrackingExportRow> lastWeek = trackingRepository.findRowsByHabitIdInRange(
+                habit.getId(), to.minusDays(7), to, Limit.unlimited());
+        List<TrackingExportRow> firstThree = trackingRepository.findRowsByHabitIdInRange(
+                habit.getId(), to.minusDays(7), to, Limit.of(3));
+
+        assertEquals(7, lastWeek.size());
+        assertEquals(LocalDateTime.of(2023, 12, 24, 7, 0), lastWeek.get(0).timestamp());
+        assertEquals(LocalDateTime.of(2023, 12, 30, 7, 0), lastWeek.get(6).timestamp());
+        assertEquals(lastWeek.subList(0, 3), firstThree);
+    }
+
+    @Test
+    void should_planRangeQueryOnCompositeIndex() {
+        String plan = jdbcTemplate.queryForObject(
+                "explain select id, timestamp, note from trackings"
+                        + " where habit_id = X'00000000000070008000000000000001'"
+                        + " and timestamp >= TIMESTAMP '2024-01-01 00:00:00'"
+                        + " and timestamp < TIMESTAMP '2024-01-08 00:00:00'"
+                        + " order by timestamp, id limit 100",
+                String.class);
+
+        assertTrue(plan.contains("idx_trackings_habit_timestamp"), plan);
+    }
+
+}
@@ -0,0 +1,162 @@
+package org.netlight.habit_tracker.service;
+
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.request.TrackingEntryRequest;
+import org.netlight.habit_tracker.importer.ImportFormat;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.ImportJobStatus;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.outbox.ChangeEvent;
+import org.netlight.habit_tracker.outbox.ChangeEventSink;
+import org.netlight.habit_tracker.outbox.ChangeEventType;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Relays the outbox by hand against the embedded H2 database, in batches of three over two
+ * publisher threads. The periodic relay is an hour apart, so it stays out of the way.
+ */
+@SpringBootTest(properties = {
+    "habit-tracker.outbox.enabled=true",
+    "habit-tracker.outbox.relay-enabled=true",
+    "habit-tracker.outbox.batch-size=3",
+    "habit-tracker.outbox.parallelism=2",
+    "habit-tracker.outbox.linger=1h",
+    "habit-tracker.outbox.sink=memory",
+    "habit-tracker.import.directory=target/test-imports",
+    "spring.datasource.url=jdbc:h2:mem:outbox;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("h2")
+class ChangeEventRelayTest {
+
+    private static final List<ChangeEvent> PUBLISHED = new CopyOnWriteArrayList<>();
+    private static final AtomicBoolean FAILING = new AtomicBoolean();
+
+    @TestConfiguration
+    static class MemorySinkConfig {
+        @Bean
+        ChangeEventSink memoryChangeEventSink() {
+            return events -> {
+                if (FAILING.get()) {
+                    throw new IOException("Broker unavailable");
+                }
+                PUBLISHED.addAll(events);
+            };
+        }
+    }
+
+    @Autowired
+    private ChangeEventRelay changeEventRelay;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private TrackingBatchService trackingBatchService;
+
+    @Autowired
+    private TrackingImportService trackingImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_publishEveryChange_inOrderPerHabit_andPurgeTheOutbox() throws IOException {
+        UUID running = create("Running");
+        UUID reading = create("Reading");
+        habitService.updateHabit(running, HabitRequest.builder().description("Every morning").build());
+        Tracking first = habitService.addTrackingEntryDurably(running, "5 km");
+        habitService.addTrackingEntryDurably(reading, "Chapter 1");
+        habitService.addTrackingEntryDurably(running, "10 km");
+        habitService.deleteTrackingEntry(running, first.getId());
+        habitService.deleteHabit(reading);
+
+        FAILING.set(true);
+        assertThrows(IOException.class, () -> changeEventRelay.relay(ShardRouter.DEFAULT_SHARD));
+        assertEquals(8, outboxSize());
+        assertTrue(changeEventRelay.lag().toNanos() >= 0);
+
+        FAILING.set(false);
+        assertEquals(8, changeEventRelay.relay(ShardRouter.DEFAULT_SHARD));
+
+        assertEquals(List.of(ChangeEventType.HABIT_CREATED, ChangeEventType.HABIT_UPDATED,
+                ChangeEventType.TRACKING_ADDED, ChangeEventType.TRACKING_ADDED, ChangeEventType.TRACKING_DELETED),
+            typesOf(running));
+        assertEquals(List.of(ChangeEventType.HABIT_CREATED, ChangeEventType.TRACKING_ADDED,
+                ChangeEventType.HABIT_DELETED),
+            typesOf(reading));
+        ChangeEvent deleted = PUBLISHED.stream()
+            .filter(event -> event.type() == ChangeEventType.TRACKING_DELETED)
+            .findFirst().orElseThrow();
+        assertTrue(deleted.payload().contains(first.getId().toString()), deleted.payload());
+        assertEquals(0, outboxSize());
+        assertEquals(0, changeEventRelay.lag().toMillis());
+    }
+
+    @Test
+    void should_publishBulkWrites_whenTrackingsAreBatchedOrImported() throws Exception {
+        UUID running = create("Running");
+        trackingBatchService.addTrackingEntries(List.of(
+            new TrackingEntryRequest(running, null, "5 km"),
+            new TrackingEntryRequest(running, null, "10 km")));
+        String imported = "Imported " + UUID.randomUUID();
+        UUID jobId = trackingImportService.submit(ImportFormat.NDJSON, "history.ndjson", new ByteArrayInputStream(
+            "{\"habit\": \"%s\", \"timestamp\": \"2024-01-01\"}\n".formatted(imported).getBytes(StandardCharsets.UTF_8))).id();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (trackingImportService.getJob(jobId).status() != ImportJobStatus.COMPLETED
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(ImportJobStatus.COMPLETED, trackingImportService.getJob(jobId).status());
+
+        changeEventRelay.relay(ShardRouter.DEFAULT_SHARD);
+
+        assertEquals(List.of(ChangeEventType.HABIT_CREATED, ChangeEventType.TRACKING_ADDED, ChangeEventType.TRACKING_ADDED),
+            typesOf(running));
+        UUID importedHabit = PUBLISHED.stream()
+            .filter(event -> event.type() == ChangeEventType.HABIT_CREATED && event.payload().contains(imported))
+            .map(ChangeEvent::habitId)
+            .findFirst().orElseThrow();
+        assertEquals(List.of(ChangeEventType.HABIT_CREATED, ChangeEventType.TRACKING_ADDED), typesOf(importedHabit));
+        assertEquals(0, outboxSize());
+    }
+
+    private List<ChangeEventType> typesOf(final UUID habitId) {
+        return PUBLISHED.stream()
+            .filter(event -> event.habitId().equals(habitId))
+            .map(ChangeEvent::type)
+            .toList();
+    }
+
+    private int outboxSize() {
+        return jdbcTemplate.queryForObject("select count(*) from change_events", Integer.class);
+    }
+
+    private UUID create(final String name) {
+        return habitService.createHabit(HabitRequest.builder()
+            .name(name + " " + UUID.randomUUID())
+            .frequency(Frequency.DAILY)
+            .startDate(LocalDate.now())
+            .build()).id();
+    }
+
+}
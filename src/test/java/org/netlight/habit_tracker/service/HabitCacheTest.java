@@ -0,0 +1,107 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.config.HabitCacheProperties;
+import org.netlight.habit_tracker.dto.response.HabitPage;
+import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.pagination.HabitCursor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HabitCacheTest {
+
+    private HabitCache habitCache;
+
+    @BeforeEach
+    void setUp() {
+        habitCache = new HabitCache(
+            new HabitCacheProperties(true, 100, 100, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void should_loadHabitOnce_untilItIsInvalidated() {
+        final UUID id = TimeOrderedUuid.next();
+        final AtomicInteger loads = new AtomicInteger();
+
+        habitCache.getHabit(id, () -> habit(id, loads));
+        habitCache.getHabit(id, () -> habit(id, loads));
+        assertEquals(1, loads.get());
+
+        habitCache.invalidate(id);
+        habitCache.getHabit(id, () -> habit(id, loads));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void should_notCacheHabit_whenLoadOverlapsAChange() {
+        final UUID id = TimeOrderedUuid.next();
+        final AtomicInteger loads = new AtomicInteger();
+
+        habitCache.getHabit(id, () -> {
+            // The habit is updated while it is being read
+            habitCache.invalidate(id);
+            return habit(id, loads);
+        });
+        habitCache.getHabit(id, () -> habit(id, loads));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void should_dropOnlyPagesCoveringTheHabit_whenHabitIsInvalidated() {
+        final UUID first = TimeOrderedUuid.next();
+        final UUID second = TimeOrderedUuid.next();
+        final UUID third = TimeOrderedUuid.next();
+        final String secondPageCursor = HabitCursor.encode(second);
+        final AtomicInteger firstPageLoads = new AtomicInteger();
+        final AtomicInteger secondPageLoads = new AtomicInteger();
+
+        habitCache.getPage(null, 2, () -> page(firstPageLoads, secondPageCursor, first, second));
+        habitCache.getPage(secondPageCursor, 2, () -> page(secondPageLoads, null, third));
+
+        habitCache.invalidate(third);
+        habitCache.getPage(null, 2, () -> page(firstPageLoads, secondPageCursor, first, second));
+        habitCache.getPage(secondPageCursor, 2, () -> page(secondPageLoads, null, third));
+
+        assertEquals(1, firstPageLoads.get());
+        assertEquals(2, secondPageLoads.get());
+    }
+
+    @Test
+    void should_notCachePage_whenLoadOverlapsAChange() {
+        final UUID id = TimeOrderedUuid.next();
+        final AtomicInteger loads = new AtomicInteger();
+
+        habitCache.getPage(null, 2, () -> {
+            // A writer commits while the page is being read
+            habitCache.invalidate(TimeOrderedUuid.next());
+            return page(loads, null, id);
+        });
+        habitCache.getPage(null, 2, () -> page(loads, null, id));
+
+        assertEquals(2, loads.get());
+    }
+
+    private static HabitResponse habit(final UUID id, final AtomicInteger loads) {
+        loads.incrementAndGet();
+        return HabitResponse.builder().id(id).name("Habit").build();
+    }
+
+    private static HabitPage page(final AtomicInteger loads, final String nextCursor, final UUID... ids) {
+        loads.incrementAndGet();
+        final List<HabitResponse> habits = Arrays.stream(ids)
+            .map(id -> HabitResponse.builder().id(id).build())
+            .toList();
+        return new HabitPage(habits, nextCursor);
+    }
+
+}
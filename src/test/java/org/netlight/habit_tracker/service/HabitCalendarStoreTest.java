@@ -0,0 +1,72 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.config.CalendarProperties;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.repository.HabitRollupRepository;
+import org.netlight.habit_tracker.shard.UserContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HabitCalendarStoreTest {
+
+    private final UUID habitId = UUID.randomUUID();
+    private final HabitRepository habitRepository = mock(HabitRepository.class);
+    private final HabitRollupRepository habitRollupRepository = mock(HabitRollupRepository.class);
+    private HabitCalendarStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new HabitCalendarStore(
+                habitRepository, habitRollupRepository, new CalendarProperties(64), new SimpleMeterRegistry());
+        when(habitRepository.findByIdAndUserId(habitId, UserContext.DEFAULT_USER)).thenReturn(Optional.of(Habit.builder()
+                .id(habitId)
+                .frequency(Frequency.DAILY)
+                .startDate(LocalDate.of(2024, 1, 1))
+                .build()));
+    }
+
+    @Test
+    void should_keepLoadedCalendar_andApplyLaterChanges() {
+        when(habitRollupRepository.findCompletedPeriods(habitId)).thenReturn(List.of(0, 1));
+
+        store.getCalendar(habitId);
+        store.recordCompleted(habitId, List.of(2));
+
+        assertTrue(store.getCalendar(habitId).isCompleted(2));
+        assertSame(store.getCalendar(habitId), store.getCalendar(habitId));
+        verify(habitRollupRepository, times(1)).findCompletedPeriods(habitId);
+        assertTrue(store.memoryBytes() > 0);
+    }
+
+    @Test
+    void should_notKeepCalendar_whenChangeCommitsDuringLoad() {
+        when(habitRollupRepository.findCompletedPeriods(habitId)).thenAnswer(invocation -> {
+            // A tracking commits after its rollup was read but before the calendar is published
+            store.recordCompleted(habitId, List.of(1));
+            return List.of(0);
+        }).thenReturn(List.of(0, 1));
+
+        store.getCalendar(habitId);
+
+        assertTrue(store.getCalendar(habitId).isCompleted(1));
+        verify(habitRollupRepository, times(2)).findCompletedPeriods(habitId);
+        assertEquals(store.getCalendar(habitId).memoryBytes(), store.memoryBytes());
+    }
+
+}
@@ -0,0 +1,115 @@
+package org.netlight.habit_tracker.service;
+
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.reminder.Reminder;
+import org.netlight.habit_tracker.reminder.ReminderSink;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Drives the reminder scheduler by hand against the embedded H2 database. The periodic tick
+ * and scan are an hour apart, so they stay out of the way.
+ */
+@SpringBootTest(properties = {
+    "habit-tracker.reminders.enabled=true",
+    "habit-tracker.reminders.tick=1h",
+    "habit-tracker.reminders.catch-up-interval=1h",
+    "habit-tracker.reminders.lead-time=6h",
+    "habit-tracker.reminders.sink=memory",
+    "spring.datasource.url=jdbc:h2:mem:reminders;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("h2")
+class HabitReminderSchedulerTest {
+
+    private static final List<Reminder> SENT = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class MemorySinkConfig {
+        @Bean
+        ReminderSink memoryReminderSink() {
+            return SENT::addAll;
+        }
+    }
+
+    @Autowired
+    private HabitReminderScheduler habitReminderScheduler;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Test
+    void should_remindOnlyOfOpenPeriods_andMoveOnToTheNextOne() {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now(zone);
+        UUID untracked = create("Untracked", today);
+        UUID tracked = create("Tracked", today);
+        UUID notStarted = create("Not started", today.plusDays(30));
+        UUID deleted = create("Deleted", today);
+        habitService.addTrackingEntryDurably(tracked, "Done");
+        habitService.deleteHabit(deleted);
+        // Created without the write path, as by another instance
+        UUID elsewhere = habitRepository.save(Habit.builder()
+            .userId(UserContext.DEFAULT_USER)
+            .name("Elsewhere " + UUID.randomUUID())
+            .frequency(Frequency.DAILY)
+            .startDate(today)
+            .build()).getId();
+        habitReminderScheduler.catchUp();
+
+        habitReminderScheduler.dispatchDue(today.atTime(23, 59).atZone(zone).toInstant());
+
+        Instant dueToday = today.atTime(18, 0).atZone(zone).toInstant();
+        List<Reminder> sent = SENT.stream()
+            .filter(reminder -> Set.of(untracked, tracked, notStarted, deleted, elsewhere).contains(reminder.habitId()))
+            .toList();
+        assertEquals(Set.of(untracked, elsewhere), sent.stream().map(Reminder::habitId).collect(Collectors.toSet()));
+        sent.forEach(reminder -> {
+            assertEquals(dueToday, reminder.due());
+            assertEquals(today, reminder.periodStart());
+            assertEquals(UserContext.DEFAULT_USER, reminder.userId());
+        });
+
+        Instant dueTomorrow = today.plusDays(1).atTime(18, 0).atZone(zone).toInstant();
+        assertEquals(dueTomorrow, habitReminderScheduler.nextDue(untracked));
+        assertEquals(dueTomorrow, habitReminderScheduler.nextDue(tracked));
+        assertEquals(today.plusDays(30).atTime(18, 0).atZone(zone).toInstant(),
+            habitReminderScheduler.nextDue(notStarted));
+        assertNull(habitReminderScheduler.nextDue(deleted));
+
+        int sentBefore = SENT.size();
+        habitReminderScheduler.dispatchDue(today.atTime(23, 59).atZone(zone).toInstant());
+        assertEquals(sentBefore, SENT.size());
+    }
+
+    private UUID create(final String name, final LocalDate startDate) {
+        return habitService.createHabit(HabitRequest.builder()
+            .name(name + " " + UUID.randomUUID())
+            .frequency(Frequency.DAILY)
+            .startDate(startDate)
+            .build()).id();
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.netlight.habit_tracker.service;
+
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.dto.response.HabitStatsResponse;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.HabitCalendar;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HabitRollupServiceTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1); // a Monday
+
+    @Test
+    void should_bucketDatesByFrequency() {
+        assertEquals(0, Frequency.DAILY.periodIndex(START, START));
+        assertEquals(31, Frequency.DAILY.periodIndex(START, LocalDate.of(2024, 2, 1)));
+        assertEquals(0, Frequency.WEEKLY.periodIndex(START, LocalDate.of(2024, 1, 7)));
+        assertEquals(1, Frequency.WEEKLY.periodIndex(START, LocalDate.of(2024, 1, 8)));
+        assertEquals(0, Frequency.WEEKLY.periodIndex(LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 1)));
+        assertEquals(0, Frequency.MONTHLY.periodIndex(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 1, 1)));
+        assertEquals(13, Frequency.MONTHLY.periodIndex(START, LocalDate.of(2025, 2, 28)));
+        assertEquals(-1, Frequency.DAILY.periodIndex(START, LocalDate.of(2023, 12, 31)));
+    }
+
+    @Test
+    void should_computeStreaks_whenCurrentPeriodIsCompleted() {
+        HabitStatsResponse stats = HabitRollupService.computeStats(
+                habit(Frequency.DAILY), List.of(0, 1, 2, 3, 5, 8, 9), START.plusDays(9));
+
+        assertEquals(2, stats.currentStreak());
+        assertEquals(4, stats.longestStreak());
+        assertEquals(7, stats.completedPeriods());
+        assertEquals(10, stats.elapsedPeriods());
+        assertEquals(0.7, stats.completionRate(), 1e-9);
+    }
+
+    @Test
+    void should_keepStreakCurrent_whileCurrentPeriodIsStillOpen() {
+        HabitStatsResponse stats = HabitRollupService.computeStats(
+                habit(Frequency.WEEKLY), List.of(1, 2, 3), START.plusWeeks(4));
+
+        assertEquals(3, stats.currentStreak());
+        assertEquals(3, stats.longestStreak());
+    }
+
+    @Test
+    void should_resetCurrentStreak_whenPreviousPeriodWasMissed() {
+        HabitStatsResponse stats = HabitRollupService.computeStats(
+                habit(Frequency.MONTHLY), List.of(0, 1, 2), START.plusMonths(4));
+
+        assertEquals(0, stats.currentStreak());
+        assertEquals(3, stats.longestStreak());
+        assertEquals(5, stats.elapsedPeriods());
+    }
+
+    @Test
+    void should_ignoreFuturePeriods_andHabitsNotStartedYet() {
+        HabitStatsResponse stats = HabitRollupService.computeStats(
+                habit(Frequency.DAILY), List.of(0, 7), START.minusDays(1));
+
+        assertEquals(0, stats.currentStreak());
+        assertEquals(0, stats.completedPeriods());
+        assertEquals(0, stats.elapsedPeriods());
+        assertEquals(0.0, stats.completionRate());
+    }
+
+    @Test
+    void should_computeSameStats_fromCalendarAndFromRollups() {
+        Random random = new Random(42);
+        Habit habit = habit(Frequency.DAILY);
+        for (int round = 0; round < 200; round++) {
+            List<Integer> periods = new ArrayList<>();
+            for (int period = 0; period < 400; period++) {
+                if (random.nextInt(10) < 8) {
+                    periods.add(period);
+                }
+            }
+            HabitCalendar calendar = HabitCalendar.empty(habit.getFrequency(), habit.getStartDate())
+                    .withCompleted(periods, 64);
+            LocalDate today = START.plusDays(random.nextInt(420));
+
+            HabitStatsResponse fromRollups = HabitRollupService.computeStats(habit, periods, today);
+            HabitStatsResponse fromCalendar = HabitRollupService.computeStats(habit.getId(), calendar, today);
+
+            assertEquals(fromRollups, fromCalendar);
+        }
+    }
+
+    private static Habit habit(Frequency frequency) {
+        return Habit.builder()
+                .id(UUID.randomUUID())
+                .name("Test Habit")
+                .frequency(frequency)
+                .startDate(START)
+                .build();
+    }
+
+}
@@ -6,15 +6,38 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.Tuple;
+import org.netlight.habit_tracker.config.HabitCacheProperties;
+import org.netlight.habit_tracker.config.PaginationProperties;
 import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.response.HabitPage;
 import org.netlight.habit_tracker.dto.response.HabitResponse;
+import org.netlight.habit_tracker.dto.response.HabitVersion;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.dto.response.TrackingResponse;
+import org.netlight.habit_tracker.exception.HabitConflictException;
 import org.netlight.habit_tracker.exception.HabitNotFoundException;
+import org.netlight.habit_tracker.exception.HabitVersionConflictException;
+import org.netlight.habit_tracker.exception.InvalidCursorException;
+import org.netlight.habit_tracker.exception.InvalidTrackingRangeException;
+import org.netlight.habit_tracker.exception.TrackingNotFoundException;
+import org.netlight.habit_tracker.mapper.HabitMapper;
 import org.netlight.habit_tracker.model.Frequency;
 import org.netlight.habit_tracker.model.Habit;
 import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.pagination.HabitCursor;
+import org.netlight.habit_tracker.pagination.HabitPageTag;
+import org.netlight.habit_tracker.repository.HabitJdbcRepository;
 import org.netlight.habit_tracker.repository.HabitRepository;
-import org.netlight.habit_tracker.repository.TrackingRepository;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -23,6 +46,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
+import static org.netlight.habit_tracker.shard.UserContext.DEFAULT_USER;
 
 class HabitServiceTest {
 
@@ -30,7 +54,35 @@ class HabitServiceTest {
     private HabitRepository habitRepository;
 
     @Mock
-    private TrackingRepository trackingRepository;
+    private HabitJdbcRepository habitJdbcRepository;
+
+    @Mock
+    private TrackingStore trackingStore;
+
+    @Mock
+    private TrackingWriteBehindQueue trackingWriteBehindQueue;
+
+    @Mock
+    private HabitRollupService habitRollupService;
+
+    @Mock
+    private TrackingArchive trackingArchive;
+
+    @Mock
+    private HabitReminderScheduler habitReminderScheduler;
+
+    @Mock
+    private ChangeEventOutbox changeEventOutbox;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private HabitCache habitCache = new HabitCache(
+            new HabitCacheProperties(false, 100, 100, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+
+    @Spy
+    private PaginationProperties paginationProperties = new PaginationProperties(2, 10);
 
     @InjectMocks
     private HabitService habitService;
@@ -38,6 +90,9 @@ class HabitServiceTest {
     private Habit testHabit;
     private HabitRequest testHabitRequest;
     private Tracking testTracking;
+    private HabitResponse testHabitResponse;
+    private TrackingExportRow testTrackingRow;
+    private Tuple testHabitTuple;
 
     @BeforeEach
     void setUp() {
@@ -64,37 +119,74 @@ class HabitServiceTest {
                 .timestamp(LocalDateTime.now())
                 .note("Test tracking note")
                 .build();
+
+        testHabitResponse = HabitMapper.mapToHabitResponse(testHabit);
+        testHabitTuple = tuple(testHabitResponse);
+        testTrackingRow = new TrackingExportRow(testTracking.getId(), testTracking.getTimestamp(), testTracking.getNote());
     }
 
     @Test
     void should_getAllHabits() {
-        when(habitRepository.findAll()).thenReturn(List.of(testHabit));
+        when(habitRepository.findAllResponses(DEFAULT_USER, Limit.of(3))).thenReturn(List.of(testHabitTuple));
 
-        List<HabitResponse> habits = habitService.getAllHabits();
+        HabitPage page = habitService.getAllHabits(null, null);
 
-        assertEquals(1, habits.size());
-        assertEquals("Test Habit", habits.get(0).name());
-        verify(habitRepository, times(1)).findAll();
+        assertEquals(1, page.habits().size());
+        assertEquals("Test Habit", page.habits().get(0).name());
+        assertNull(page.nextCursor());
+        verify(habitRepository, times(1)).findAllResponses(DEFAULT_USER, Limit.of(3));
+        verify(habitRepository, never()).findAll();
+    }
+
+    @Test
+    void should_returnNextCursor_whenMoreHabitsFollow() {
+        HabitResponse second = testHabitResponse.toBuilder().id(UUID.randomUUID()).name("Second").build();
+        HabitResponse third = testHabitResponse.toBuilder().id(UUID.randomUUID()).name("Third").build();
+        List<Tuple> habits = List.of(testHabitTuple, tuple(second), tuple(third));
+        when(habitRepository.findAllResponses(DEFAULT_USER, Limit.of(3))).thenReturn(habits);
+
+        HabitPage page = habitService.getAllHabits(null, null);
+
+        assertEquals(2, page.habits().size());
+        assertEquals(HabitCursor.encode(second.id()), page.nextCursor());
+    }
+
+    @Test
+    void should_continueAfterCursor_whenCursorIsProvided() {
+        UUID lastId = UUID.randomUUID();
+        when(habitRepository.findResponsesAfter(DEFAULT_USER, lastId, Limit.of(6))).thenReturn(List.of(testHabitTuple));
+
+        HabitPage page = habitService.getAllHabits(HabitCursor.encode(lastId), 5);
+
+        assertEquals(1, page.habits().size());
+        assertNull(page.nextCursor());
+        verify(habitRepository, times(1)).findResponsesAfter(DEFAULT_USER, lastId, Limit.of(6));
+    }
+
+    @Test
+    void should_throwInvalidCursorException_whenCursorIsMalformed() {
+        assertThrows(InvalidCursorException.class, () -> habitService.getAllHabits("not-a-cursor", null));
     }
 
     @Test
     void should_getHabitResponseById_whenHabitExists() {
-        when(habitRepository.findById(testHabit.getId())).thenReturn(Optional.of(testHabit));
+        when(habitRepository.findResponseByIdAndUserId(testHabit.getId(), DEFAULT_USER)).thenReturn(Optional.of(testHabitTuple));
 
         HabitResponse habitResponse = habitService.getHabitResponseById(testHabit.getId());
 
         assertNotNull(habitResponse);
         assertEquals("Test Habit", habitResponse.name());
-        verify(habitRepository, times(1)).findById(testHabit.getId());
+        verify(habitRepository, times(1)).findResponseByIdAndUserId(testHabit.getId(), DEFAULT_USER);
+        verify(habitRepository, never()).findByIdAndUserId(any(), any());
     }
 
     @Test
     void should_throwHabitNotFoundException_whenHabitDoesNotExist() {
         UUID invalidId = UUID.randomUUID();
-        when(habitRepository.findById(invalidId)).thenReturn(Optional.empty());
+        when(habitRepository.findResponseByIdAndUserId(invalidId, DEFAULT_USER)).thenReturn(Optional.empty());
 
         assertThrows(HabitNotFoundException.class, () -> habitService.getHabitResponseById(invalidId));
-        verify(habitRepository, times(1)).findById(invalidId);
+        verify(habitRepository, times(1)).findResponseByIdAndUserId(invalidId, DEFAULT_USER);
     }
 
     @Test
@@ -113,66 +205,123 @@ class HabitServiceTest {
         assertEquals(Frequency.DAILY, savedHabit.getFrequency());
     }
 
+    @Test
+    void should_throwConflict_whenHabitNameIsTaken() {
+        when(habitRepository.save(any(Habit.class))).thenThrow(new DataIntegrityViolationException("uq_habits_user_name"));
+
+        assertThrows(HabitConflictException.class, () -> habitService.createHabit(testHabitRequest));
+        verifyNoInteractions(habitCache);
+    }
+
     @Test
     void should_updateHabit_whenHabitExists() {
         UUID habitId = testHabit.getId();
 
-        when(habitRepository.findById(habitId)).thenReturn(Optional.of(testHabit));
-
-        Habit updatedHabit = Habit.builder()
-                .id(habitId)
+        HabitRequest updatedRequest = HabitRequest.builder()
                 .name("Updated Habit")
                 .description("Updated description")
                 .frequency(Frequency.WEEKLY)
                 .startDate(LocalDate.now())
                 .build();
 
-        when(habitRepository.save(any(Habit.class))).thenReturn(updatedHabit);
-
-        HabitRequest updatedRequest = HabitRequest.builder()
+        Habit updatedHabit = Habit.builder()
+                .id(habitId)
                 .name("Updated Habit")
                 .description("Updated description")
                 .frequency(Frequency.WEEKLY)
                 .startDate(LocalDate.now())
                 .build();
 
+        when(habitJdbcRepository.update(habitId, DEFAULT_USER, updatedRequest, null)).thenReturn(1);
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(updatedHabit));
+
         HabitResponse updatedHabitResponse = habitService.updateHabit(habitId, updatedRequest);
 
         assertNotNull(updatedHabitResponse);
-        assertEquals("Updated Habit", updatedHabitResponse.name());
-
-        verify(habitRepository, times(1)).save(updatedHabit);
+        verify(habitJdbcRepository, times(1)).update(habitId, DEFAULT_USER, updatedRequest, null);
+        verify(habitRepository, never()).save(any(Habit.class));
+        verify(habitCache, times(1)).invalidate(habitId);
         assertEquals("Updated Habit", updatedHabitResponse.name());
         assertEquals(Frequency.WEEKLY, updatedHabitResponse.frequency());
     }
 
+    @Test
+    void should_throwHabitNotFoundException_whenUpdatingNonexistentHabit() {
+        UUID habitId = testHabit.getId();
+        HabitRequest request = HabitRequest.builder().name("Updated Habit").build();
+
+        when(habitJdbcRepository.update(habitId, DEFAULT_USER, request, null)).thenReturn(0);
+
+        assertThrows(HabitNotFoundException.class, () -> habitService.updateHabit(habitId, request));
+        verify(habitCache, never()).invalidate(habitId);
+    }
+
+    @Test
+    void should_throwVersionConflict_whenUpdatingStaleVersion() {
+        UUID habitId = testHabit.getId();
+        HabitRequest request = HabitRequest.builder().name("Updated Habit").build();
+
+        when(habitJdbcRepository.update(habitId, DEFAULT_USER, request, 3L)).thenReturn(0);
+        when(habitRepository.existsByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(true);
+
+        assertThrows(HabitVersionConflictException.class, () -> habitService.updateHabit(habitId, request, 3L));
+        verify(habitRollupService, never()).rebuild(any(Habit.class));
+    }
+
+    @Test
+    void should_checkVersionWithoutWriting_whenUpdateIsEmpty() {
+        UUID habitId = testHabit.getId();
+        testHabit.setVersion(2L);
+
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabit));
+
+        assertEquals(testHabit.getName(), habitService.updateHabit(habitId, HabitRequest.builder().build(), 2L).name());
+        assertThrows(HabitVersionConflictException.class,
+                () -> habitService.updateHabit(habitId, HabitRequest.builder().build(), 1L));
+        verifyNoInteractions(habitJdbcRepository);
+    }
+
     @Test
     void should_deleteHabit_whenHabitExists() {
         UUID habitId = testHabit.getId();
 
-        when(habitRepository.existsById(habitId)).thenReturn(true);
+        when(habitJdbcRepository.delete(habitId, DEFAULT_USER, null)).thenReturn(1);
 
         habitService.deleteHabit(habitId);
 
-        verify(habitRepository, times(1)).deleteById(habitId);
+        verify(habitJdbcRepository, times(1)).delete(habitId, DEFAULT_USER, null);
+        verify(trackingStore, times(1)).deleteByHabitId(habitId);
+        verify(habitRollupService, times(1)).removeHabit(habitId);
+        verify(habitCache, times(1)).invalidate(habitId);
     }
 
     @Test
     void should_throwHabitNotFoundException_whenDeletingNonexistentHabit() {
         UUID habitId = testHabit.getId();
 
-        when(habitRepository.existsById(habitId)).thenReturn(false);
+        when(habitJdbcRepository.delete(habitId, DEFAULT_USER, null)).thenReturn(0);
 
         assertThrows(HabitNotFoundException.class, () -> habitService.deleteHabit(habitId));
-        verify(habitRepository, never()).deleteById(habitId);
+        verify(habitRollupService, never()).removeHabit(habitId);
+    }
+
+    @Test
+    void should_throwVersionConflict_whenDeletingStaleVersion() {
+        UUID habitId = testHabit.getId();
+
+        when(habitJdbcRepository.delete(habitId, DEFAULT_USER, 3L)).thenReturn(0);
+        when(habitRepository.existsByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(true);
+
+        assertThrows(HabitVersionConflictException.class, () -> habitService.deleteHabit(habitId, 3L));
+        verify(habitRollupService, never()).removeHabit(habitId);
     }
 
     @Test
     void should_addTrackingEntry_whenHabitExists() {
         UUID habitId = testHabit.getId();
 
-        when(habitRepository.findById(habitId)).thenReturn(Optional.of(testHabit));
-        when(trackingRepository.save(any(Tracking.class))).thenReturn(testTracking);
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabit));
+        when(trackingStore.save(any(Tracking.class))).thenReturn(testTracking);
 
         Tracking tracking = habitService.addTrackingEntry(habitId, "Test tracking note");
 
@@ -180,20 +329,101 @@ class HabitServiceTest {
         assertEquals("Test tracking note", tracking.getNote());
 
         ArgumentCaptor<Tracking> trackingCaptor = ArgumentCaptor.forClass(Tracking.class);
-        verify(trackingRepository, times(1)).save(trackingCaptor.capture());
+        verify(trackingStore, times(1)).save(trackingCaptor.capture());
         Tracking savedTracking = trackingCaptor.getValue();
         assertEquals("Test tracking note", savedTracking.getNote());
         assertEquals(habitId, savedTracking.getHabit().getId());
     }
 
+    @Test
+    void should_recordRollup_whenAddingTrackingEntry() {
+        UUID habitId = testHabit.getId();
+
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabit));
+        when(trackingStore.save(any(Tracking.class))).thenReturn(testTracking);
+
+        habitService.addTrackingEntry(habitId, "Test tracking note");
+
+        verify(habitRollupService, times(1)).recordTrackings(anyList());
+    }
+
+    @Test
+    void should_deleteTrackingEntryAndRollup_whenTrackingExists() {
+        UUID habitId = testHabit.getId();
+
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabit));
+        when(trackingStore.findById(testHabit, testTracking.getId())).thenReturn(Optional.of(testTracking));
+
+        habitService.deleteTrackingEntry(habitId, testTracking.getId());
+
+        verify(trackingStore, times(1)).delete(testTracking);
+        verify(habitRollupService, times(1)).removeTracking(testTracking);
+    }
+
+    @Test
+    void should_throwTrackingNotFoundException_whenDeletingNonexistentTracking() {
+        UUID habitId = testHabit.getId();
+        UUID trackingId = UUID.randomUUID();
+
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabit));
+        when(trackingStore.findById(testHabit, trackingId)).thenReturn(Optional.empty());
+
+        assertThrows(TrackingNotFoundException.class, () -> habitService.deleteTrackingEntry(habitId, trackingId));
+        verify(habitRollupService, never()).removeTracking(any(Tracking.class));
+    }
+
+    @Test
+    void should_rebuildRollups_whenFrequencyChanges() {
+        UUID habitId = testHabit.getId();
+
+        HabitRequest request = HabitRequest.builder().frequency(Frequency.MONTHLY).build();
+
+        when(habitJdbcRepository.update(habitId, DEFAULT_USER, request, null)).thenReturn(1);
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabit));
+
+        habitService.updateHabit(habitId, request);
+
+        verify(habitRollupService, times(1)).rebuild(testHabit);
+    }
+
+    @Test
+    void should_queueTrackingEntry_whenWriteBehindIsEnabled() {
+        UUID habitId = testHabit.getId();
+
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabit));
+        when(trackingWriteBehindQueue.isEnabled()).thenReturn(true);
+        when(trackingWriteBehindQueue.enqueue(any(Tracking.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Tracking tracking = habitService.addTrackingEntry(habitId, "Queued note");
+
+        assertEquals("Queued note", tracking.getNote());
+        verify(trackingWriteBehindQueue, times(1)).enqueue(any(Tracking.class));
+        verify(trackingStore, never()).save(any(Tracking.class));
+    }
+
+    @Test
+    void should_saveTrackingEntryImmediately_whenDurabilityIsRequested() {
+        UUID habitId = testHabit.getId();
+
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabit));
+        when(trackingWriteBehindQueue.isEnabled()).thenReturn(true);
+        when(trackingStore.save(any(Tracking.class))).thenReturn(testTracking);
+
+        Tracking tracking = habitService.addTrackingEntryDurably(habitId, "Test tracking note");
+
+        assertEquals("Test tracking note", tracking.getNote());
+        verify(trackingStore, times(1)).save(any(Tracking.class));
+        verify(trackingWriteBehindQueue, never()).enqueue(any(Tracking.class));
+    }
+
     @Test
     void should_throwHabitNotFoundException_whenAddingTrackingForNonexistentHabit() {
         UUID habitId = testHabit.getId();
 
-        when(habitRepository.existsById(habitId)).thenReturn(false);
+        when(habitRepository.findByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.empty());
 
-        assertThrows(HabitNotFoundException.class, () -> habitService.addTrackingEntry(habitId, any()));
-        verify(trackingRepository, never()).save(any(Tracking.class));
+        assertThrows(HabitNotFoundException.class, () -> habitService.addTrackingEntry(habitId, "Note"));
+        verify(trackingStore, never()).save(any(Tracking.class));
     }
 
 
@@ -201,15 +431,117 @@ class HabitServiceTest {
     void should_getAllTrackingsForHabit_whenHabitExists() {
         UUID habitId = testHabit.getId();
 
-        when(habitRepository.findById(habitId)).thenReturn(Optional.of(testHabit));
-        when(trackingRepository.findByHabitId(habitId)).thenReturn(List.of(testTracking));
+        when(habitRepository.findResponseByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabitTuple));
+        when(trackingStore.findByHabitId(habitId)).thenReturn(List.of(testTrackingRow));
 
-        List<Tracking> trackings = habitService.getAllTrackingsForHabit(habitId);
+        List<TrackingResponse> trackings = habitService.getAllTrackingsForHabit(habitId);
 
         assertEquals(1, trackings.size());
-        assertEquals("Test tracking note", trackings.get(0).getNote());
+        assertEquals("Test tracking note", trackings.get(0).note());
+        assertEquals(testHabitResponse, trackings.get(0).habit());
+
+        verify(trackingStore, times(1)).findByHabitId(habitId);
+    }
+
+    @Test
+    void should_getTrackingsInRange_withLimitCappedAtMaxPageSize() {
+        UUID habitId = testHabit.getId();
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 8, 0, 0);
+
+        when(habitRepository.findResponseByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabitTuple));
+        when(trackingStore.findByHabitIdInRange(habitId, from, to, 10)).thenReturn(List.of(testTrackingRow));
+
+        List<TrackingResponse> trackings = habitService.getTrackingsForHabit(habitId, from, to, 50);
+
+        assertEquals(List.of(testTracking.getId()), trackings.stream().map(TrackingResponse::id).toList());
+        verify(trackingStore, never()).findByHabitId(any());
+    }
+
+    @Test
+    void should_getTrackingsInRange_withOpenBoundsAndDefaultLimit() {
+        UUID habitId = testHabit.getId();
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        when(habitRepository.findResponseByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabitTuple));
+
+        habitService.getTrackingsForHabit(habitId, from, null, null);
+
+        ArgumentCaptor<LocalDateTime> toCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(trackingStore, times(1))
+                .findByHabitIdInRange(eq(habitId), eq(from), toCaptor.capture(), eq(2));
+        assertEquals(9999, toCaptor.getValue().getYear());
+    }
+
+    @Test
+    void should_throwInvalidTrackingRangeException_whenFromIsNotBeforeTo() {
+        UUID habitId = testHabit.getId();
+        LocalDateTime from = LocalDateTime.of(2024, 1, 8, 0, 0);
+
+        assertThrows(InvalidTrackingRangeException.class,
+                () -> habitService.getTrackingsForHabit(habitId, from, from.minusDays(7), null));
+        verify(trackingStore, never()).findByHabitIdInRange(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void should_mergeArchivedTrackings_oldestFirstAndWithoutDuplicates() {
+        UUID habitId = testHabit.getId();
+        TrackingExportRow archived = new TrackingExportRow(UUID.randomUUID(), LocalDateTime.of(2020, 1, 1, 7, 0), "Archived");
+        // Still live because its archival has not finished yet
+        TrackingExportRow alsoLive = new TrackingExportRow(testTracking.getId(), testTracking.getTimestamp(), testTracking.getNote());
+
+        when(habitRepository.findResponseByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.of(testHabitTuple));
+        when(trackingStore.findByHabitId(habitId)).thenReturn(List.of(testTrackingRow));
+        when(trackingArchive.findAll(habitId)).thenReturn(List.of(archived, alsoLive));
+
+        List<TrackingResponse> trackings = habitService.getAllTrackingsForHabit(habitId);
+
+        assertEquals(List.of(archived.id(), testTracking.getId()), trackings.stream().map(TrackingResponse::id).toList());
+        assertEquals(testHabitResponse, trackings.get(0).habit());
+    }
+
+    @Test
+    void should_computeSamePageTag_fromVersionsAsFromLoadedPage() {
+        testHabit.setVersion(4L);
+        Tuple habit = tuple(HabitMapper.mapToHabitResponse(testHabit));
+        when(habitRepository.findAllResponses(DEFAULT_USER, Limit.of(3))).thenReturn(List.of(habit));
+        when(habitRepository.findAllVersions(DEFAULT_USER, Limit.of(3))).thenReturn(List.of(new HabitVersion(testHabit.getId(), 4L)));
+
+        String tag = habitService.getHabitPageTag(null, null);
+
+        assertEquals(HabitPageTag.of(habitService.getAllHabits(null, null)), tag);
+        verify(habitRepository, times(1)).findAllVersions(DEFAULT_USER, Limit.of(3));
+    }
+
+    @Test
+    void should_changePageTag_whenAnotherPageStartsToFollow() {
+        HabitVersion version = new HabitVersion(testHabit.getId(), 0L);
+        when(habitRepository.findAllVersions(DEFAULT_USER, Limit.of(3))).thenReturn(List.of(version, version));
+        String beforeAppend = habitService.getHabitPageTag(null, null);
+
+        when(habitRepository.findAllVersions(DEFAULT_USER, Limit.of(3)))
+                .thenReturn(List.of(version, version, new HabitVersion(UUID.randomUUID(), 0L)));
+
+        assertNotEquals(beforeAppend, habitService.getHabitPageTag(null, null));
+    }
+
+    @Test
+    void should_throwHabitNotFoundException_whenVersionOfUnknownHabitIsRequested() {
+        UUID habitId = UUID.randomUUID();
+        when(habitRepository.findVersionByIdAndUserId(habitId, DEFAULT_USER)).thenReturn(Optional.empty());
+
+        assertThrows(HabitNotFoundException.class, () -> habitService.getHabitVersion(habitId));
+    }
 
-        verify(trackingRepository, times(1)).findByHabitId(habitId);
+    private static Tuple tuple(HabitResponse habit) {
+        Tuple tuple = mock(Tuple.class);
+        when(tuple.get("id", UUID.class)).thenReturn(habit.id());
+        when(tuple.get("name", String.class)).thenReturn(habit.name());
+        when(tuple.get("description", String.class)).thenReturn(habit.description());
+        when(tuple.get("frequency", Frequency.class)).thenReturn(habit.frequency());
+        when(tuple.get("startDate", LocalDate.class)).thenReturn(habit.startDate());
+        when(tuple.get("version", Long.class)).thenReturn(habit.version());
+        return tuple;
     }
 
 }
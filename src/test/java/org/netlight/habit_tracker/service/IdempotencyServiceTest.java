@@ -0,0 +1,150 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.config.IdempotencyProperties;
+import org.netlight.habit_tracker.config.ShardProperties;
+import org.netlight.habit_tracker.exception.IdempotencyKeyInProgressException;
+import org.netlight.habit_tracker.exception.IdempotencyKeyReusedException;
+import org.netlight.habit_tracker.idempotency.IdempotentResponse;
+import org.netlight.habit_tracker.repository.IdempotencyKeyRepository;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private static final byte[] FINGERPRINT = {1, 2, 3};
+
+    private IdempotencyKeyRepository repository;
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyKeyRepository.class);
+        idempotencyService = new IdempotencyService(repository,
+            new IdempotencyProperties(true, Duration.ofHours(1), DataSize.ofMegabytes(1),
+                Duration.ofMillis(200), Duration.ofHours(1)),
+            new ShardRouter(new ShardProperties(false, 128, false, 1000, List.of())),
+            new SimpleMeterRegistry());
+    }
+
+    @Test
+    void should_replayFromMemory_withoutReachingTheDatabase() {
+        when(repository.insert(eq("key"), eq(FINGERPRINT), any(LocalDateTime.class))).thenReturn(true);
+        final IdempotentResponse response = response(FINGERPRINT);
+
+        assertNull(idempotencyService.claim("key", FINGERPRINT));
+        idempotencyService.complete("key", response);
+
+        assertSame(response, idempotencyService.claim("key", FINGERPRINT));
+        verify(repository, times(1)).insert(eq("key"), eq(FINGERPRINT), any(LocalDateTime.class));
+        verify(repository, times(1)).complete("key", response);
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void should_replayFromTheDatabase_whenKeyIsNotInMemory() {
+        final IdempotentResponse response = response(FINGERPRINT);
+        when(repository.insert(eq("key"), eq(FINGERPRINT), any(LocalDateTime.class))).thenReturn(false);
+        when(repository.findCompleted(eq("key"), any(LocalDateTime.class))).thenReturn(Optional.of(response));
+
+        assertSame(response, idempotencyService.claim("key", FINGERPRINT));
+        assertSame(response, idempotencyService.claim("key", FINGERPRINT));
+        verify(repository, times(1)).findCompleted(eq("key"), any(LocalDateTime.class));
+    }
+
+    @Test
+    void should_reject_whenKeyIsReusedForAnotherRequest() {
+        when(repository.insert(eq("key"), eq(FINGERPRINT), any(LocalDateTime.class))).thenReturn(true);
+        idempotencyService.claim("key", FINGERPRINT);
+        idempotencyService.complete("key", response(FINGERPRINT));
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.claim("key", new byte[] {9}));
+    }
+
+    @Test
+    void should_reject_whenKeyIsInProgressOnAnotherNode() {
+        when(repository.insert(eq("key"), eq(FINGERPRINT), any(LocalDateTime.class))).thenReturn(false);
+        when(repository.findCompleted(eq("key"), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(repository.deleteExpired(eq("key"), any(LocalDateTime.class))).thenReturn(false);
+
+        assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyService.claim("key", FINGERPRINT));
+        // The failed claim is not remembered
+        assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyService.claim("key", FINGERPRINT));
+        verify(repository, times(2)).findCompleted(eq("key"), any(LocalDateTime.class));
+    }
+
+    @Test
+    void should_reclaimExpiredKey() {
+        when(repository.insert(eq("key"), eq(FINGERPRINT), any(LocalDateTime.class))).thenReturn(false, true);
+        when(repository.findCompleted(eq("key"), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(repository.deleteExpired(eq("key"), any(LocalDateTime.class))).thenReturn(true);
+
+        assertNull(idempotencyService.claim("key", FINGERPRINT));
+    }
+
+    @Test
+    void should_waitForConcurrentRequest_andReplayItsResponse() throws Exception {
+        when(repository.insert(eq("key"), eq(FINGERPRINT), any(LocalDateTime.class))).thenReturn(true);
+        final IdempotentResponse response = response(FINGERPRINT);
+        assertNull(idempotencyService.claim("key", FINGERPRINT));
+
+        final CompletableFuture<IdempotentResponse> retry =
+            CompletableFuture.supplyAsync(() -> idempotencyService.claim("key", FINGERPRINT));
+        Thread.sleep(50);
+        assertFalse(retry.isDone());
+        idempotencyService.complete("key", response);
+
+        assertSame(response, retry.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void should_letWaitingRetryClaimTheKey_whenOriginalIsReleased() throws Exception {
+        when(repository.insert(eq("key"), eq(FINGERPRINT), any(LocalDateTime.class))).thenReturn(true);
+        assertNull(idempotencyService.claim("key", FINGERPRINT));
+
+        final CompletableFuture<IdempotentResponse> retry =
+            CompletableFuture.supplyAsync(() -> idempotencyService.claim("key", FINGERPRINT));
+        Thread.sleep(50);
+        idempotencyService.release("key");
+
+        assertNull(retry.get(1, TimeUnit.SECONDS));
+        verify(repository, times(1)).delete("key");
+    }
+
+    @Test
+    void should_giveUpWaiting_afterTimeout() {
+        when(repository.insert(eq("key"), eq(FINGERPRINT), any(LocalDateTime.class))).thenReturn(true);
+        assertNull(idempotencyService.claim("key", FINGERPRINT));
+
+        assertThrows(IdempotencyKeyInProgressException.class, () -> idempotencyService.claim("key", FINGERPRINT));
+    }
+
+    private static IdempotentResponse response(final byte[] fingerprint) {
+        return new IdempotentResponse(fingerprint, 200, "application/json",
+            "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8));
+    }
+
+}
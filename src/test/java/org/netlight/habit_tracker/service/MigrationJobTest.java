@@ -0,0 +1,39 @@
+package org.netlight.habit_tracker.service;
+
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.config.MigrationProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MigrationJobTest {
+
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<SpringLiquibase> liquibase = mock(ObjectProvider.class);
+    private final ConfigurableApplicationContext applicationContext = mock(ConfigurableApplicationContext.class);
+
+    @Test
+    void should_leaveTheApplicationRunning_unlessItIsTheJob() {
+        new MigrationJob(new MigrationProperties(false), applicationContext, liquibase, true)
+            .run(new DefaultApplicationArguments());
+
+        verifyNoInteractions(liquibase, applicationContext);
+    }
+
+    @Test
+    void should_fail_whenLiquibaseIsDisabled() {
+        when(liquibase.getIfAvailable()).thenReturn(null);
+
+        assertThrows(IllegalStateException.class, () ->
+            new MigrationJob(new MigrationProperties(true), applicationContext, liquibase, false)
+                .run(new DefaultApplicationArguments()));
+        verifyNoInteractions(applicationContext);
+    }
+
+}
@@ -0,0 +1,54 @@
+package org.netlight.habit_tracker.service;
+
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.exception.HabitNotFoundException;
+import org.netlight.habit_tracker.id.UuidBytes;
+import org.netlight.habit_tracker.model.Frequency;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Deletes a habit through the service with tracking partitioning enabled, where its
+ * trackings are deleted by a statement of the application instead of the foreign key.
+ */
+@SpringBootTest(properties = {
+    "habit-tracker.tracking-partitions.enabled=true",
+    "habit-tracker.tracking-partitions.first-month=2026-11",
+    "spring.datasource.url=jdbc:h2:mem:partitioned_delete;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("h2")
+class PartitionedHabitDeleteTest {
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_deleteHabitAndItsTrackings_whenTrackingsArePartitioned() {
+        UUID habitId = habitService.createHabit(HabitRequest.builder()
+            .name("Partitioned " + UUID.randomUUID())
+            .frequency(Frequency.DAILY)
+            .startDate(LocalDate.now())
+            .build()).id();
+        habitService.addTrackingEntryDurably(habitId, "First");
+        habitService.addTrackingEntryDurably(habitId, "Second");
+
+        habitService.deleteHabit(habitId);
+
+        assertThrows(HabitNotFoundException.class, () -> habitService.getHabitResponseById(habitId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+            "select count(*) from trackings where habit_id = ?", Integer.class, UuidBytes.toBytes(habitId)));
+    }
+
+}
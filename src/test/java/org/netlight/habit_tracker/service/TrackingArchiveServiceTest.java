@@ -0,0 +1,167 @@
+package org.netlight.habit_tracker.service;
+
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.config.ArchiveProperties;
+import org.netlight.habit_tracker.dto.request.HabitRequest;
+import org.netlight.habit_tracker.dto.response.TrackingResponse;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.repository.TrackingJdbcRepository;
+import org.netlight.habit_tracker.repository.TrackingRepository;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archives trackings from the embedded H2 database into segments of at most 50 rows.
+ */
+@SpringBootTest(properties = {
+    "habit-tracker.archive.directory=target/test-archive/${random.uuid}",
+    "habit-tracker.archive.segment-rows=50",
+    "spring.datasource.url=jdbc:h2:mem:archive;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("h2")
+class TrackingArchiveServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 7, 0);
+    private static final LocalDateTime CUTOFF = START.plusDays(100);
+
+    @Autowired
+    private TrackingArchiveService trackingArchiveService;
+
+    @Autowired
+    private HabitService habitService;
+
+    @Autowired
+    private HabitRollupService habitRollupService;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private TrackingRepository trackingRepository;
+
+    @Autowired
+    private TrackingJdbcRepository trackingJdbcRepository;
+
+    @Autowired
+    private TrackingArchive trackingArchive;
+
+    @Autowired
+    private ArchiveProperties archiveProperties;
+
+    @Test
+    void should_moveOldTrackingsToSegments_andKeepServingThem() throws Exception {
+        Habit habit = habitRepository.save(Habit.builder()
+                .userId(UserContext.DEFAULT_USER)
+                .name("Archived " + UUID.randomUUID())
+                .frequency(Frequency.DAILY)
+                .startDate(START.toLocalDate())
+                .build());
+        List<Tracking> trackings = new ArrayList<>();
+        for (int day = 0; day < 120; day++) {
+            trackings.add(Tracking.builder()
+                    .id(TimeOrderedUuid.next())
+                    .habit(habit)
+                    .timestamp(START.plusDays(day))
+                    .note("Day " + day)
+                    .build());
+        }
+        trackingJdbcRepository.batchInsert(trackings);
+
+        assertEquals(100, trackingArchiveService.archive(CUTOFF));
+        assertEquals(0, trackingArchiveService.archive(CUTOFF));
+
+        assertEquals(20, trackingRepository.findByHabitId(habit.getId()).size());
+        List<TrackingResponse> all = habitService.getAllTrackingsForHabit(habit.getId());
+        assertEquals(trackings.stream().map(Tracking::getId).toList(), all.stream().map(TrackingResponse::id).toList());
+        assertEquals("Day 0", all.get(0).note());
+
+        // A range across the horizon is served from both the archive and the database
+        List<TrackingResponse> acrossHorizon = habitService.getTrackingsForHabit(
+                habit.getId(), CUTOFF.minusDays(3), CUTOFF.plusDays(3), 5);
+        assertEquals(List.of("Day 97", "Day 98", "Day 99", "Day 100", "Day 101"),
+                acrossHorizon.stream().map(TrackingResponse::note).toList());
+    }
+
+    @Test
+    void should_dropDeletedTrackings_fromReadsAndThenFromSegments() throws Exception {
+        Habit kept = saveHabit("Kept " + UUID.randomUUID());
+        Habit deleted = saveHabit("Deleted " + UUID.randomUUID());
+        List<Tracking> trackings = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            trackings.add(Tracking.builder().id(TimeOrderedUuid.next()).habit(kept).timestamp(START.plusDays(day)).note("Day " + day).build());
+            trackings.add(Tracking.builder().id(TimeOrderedUuid.next()).habit(deleted).timestamp(START.plusDays(day)).build());
+        }
+        trackingJdbcRepository.batchInsert(trackings);
+        assertEquals(20, trackingArchiveService.archive(CUTOFF));
+
+        habitService.deleteTrackingEntry(kept.getId(), trackings.get(0).getId());
+        habitService.deleteHabit(deleted.getId());
+
+        List<TrackingResponse> remaining = habitService.getAllTrackingsForHabit(kept.getId());
+        assertEquals(9, remaining.size());
+        assertEquals("Day 1", remaining.get(0).note());
+        assertTrue(trackingArchive.findAll(deleted.getId()).isEmpty());
+
+        assertTrue(trackingArchiveService.purge() > 0);
+
+        assertEquals(0, trackingArchiveService.purge());
+        assertFalse(Files.exists(archiveProperties.directory().resolve(TrackingArchive.TOMBSTONES_FILE)));
+        assertTrue(trackingArchive.segments().stream().noneMatch(segment -> segment.contains(deleted.getId())));
+        assertEquals(9, trackingArchive.segments().stream()
+                .mapToLong(segment -> segment.readAll(kept.getId()).size())
+                .sum());
+        assertEquals(9, habitService.getAllTrackingsForHabit(kept.getId()).size());
+    }
+
+    @Test
+    void should_rebuildRollupsFromArchivedTrackings() throws Exception {
+        Habit habit = habitRepository.save(Habit.builder()
+                .userId(UserContext.DEFAULT_USER)
+                .name("Rebuilt " + UUID.randomUUID())
+                .frequency(Frequency.DAILY)
+                .startDate(LocalDate.of(2022, 1, 1))
+                .build());
+        List<Tracking> trackings = new ArrayList<>();
+        for (int day = 0; day < 10; day++) {
+            trackings.add(Tracking.builder()
+                    .id(TimeOrderedUuid.next())
+                    .habit(habit)
+                    .timestamp(LocalDateTime.of(2022, 1, 1, 7, 0).plusDays(day))
+                    .build());
+        }
+        trackingJdbcRepository.batchInsert(trackings);
+        trackingArchiveService.archive(LocalDateTime.of(2022, 2, 1, 0, 0));
+
+        habitService.updateHabit(habit.getId(), HabitRequest.builder().frequency(Frequency.WEEKLY).build());
+
+        // Ten days from Saturday, January 1st touch three calendar weeks
+        assertEquals(3, habitRollupService.getStats(habit.getId()).completedPeriods());
+    }
+
+    private Habit saveHabit(final String name) {
+        return habitRepository.save(Habit.builder()
+                .userId(UserContext.DEFAULT_USER)
+                .name(name)
+                .frequency(Frequency.DAILY)
+                .startDate(START.toLocalDate())
+                .build());
+    }
+
+}
@@ -0,0 +1,108 @@
+package org.netlight.habit_tracker.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.config.TrackingExportProperties;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.exception.HabitNotFoundException;
+import org.netlight.habit_tracker.export.TrackingExportFormat;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TrackingExportServiceTest {
+
+    private final UUID habitId = UUID.randomUUID();
+    private final UUID firstId = UUID.fromString("00000000-0000-7000-8000-000000000001");
+    private final UUID secondId = UUID.fromString("00000000-0000-7000-8000-000000000002");
+    private final HabitRepository habitRepository = mock(HabitRepository.class);
+    private final TrackingStore trackingStore = mock(TrackingStore.class);
+    private final TrackingArchive trackingArchive = mock(TrackingArchive.class);
+    private TrackingExportService trackingExportService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        trackingExportService = new TrackingExportService(
+                habitRepository, trackingStore, new TrackingExportProperties(100), objectMapper, trackingArchive);
+        doAnswer(invocation -> {
+            Consumer<TrackingExportRow> consumer = invocation.getArgument(2);
+            consumer.accept(new TrackingExportRow(firstId, LocalDateTime.of(2024, 1, 1, 8, 0), "Ran 5km"));
+            consumer.accept(new TrackingExportRow(secondId, LocalDateTime.of(2024, 1, 2, 8, 30, 15), "Tired, \"short\" run"));
+            return null;
+        }).when(trackingStore).forEachByHabitId(eq(habitId), eq(100), any(Consumer.class));
+    }
+
+    @Test
+    void should_writeOneJsonObjectPerLine_forNdjson() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = trackingExportService.exportTrackings(habitId, TrackingExportFormat.NDJSON, out);
+
+        assertEquals(2, exported);
+        assertEquals("""
+                {"id":"%s","timestamp":"2024-01-01T08:00:00","note":"Ran 5km"}
+                {"id":"%s","timestamp":"2024-01-02T08:30:15","note":"Tired, \\"short\\" run"}"""
+                        .formatted(firstId, secondId),
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void should_quoteFieldsAsNeeded_forCsv() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        trackingExportService.exportTrackings(habitId, TrackingExportFormat.CSV, out);
+
+        assertEquals("id,timestamp,note\r\n"
+                        + firstId + ",2024-01-01T08:00:00,Ran 5km\r\n"
+                        + secondId + ",2024-01-02T08:30:15,\"Tired, \"\"short\"\" run\"\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void should_mergeArchivedTrackingsByTimestamp_whenTheyInterleaveWithLiveOnes() throws Exception {
+        UUID archivedId = UUID.fromString("00000000-0000-7000-8000-000000000003");
+        when(trackingArchive.findAll(habitId)).thenReturn(List.of(
+                new TrackingExportRow(firstId, LocalDateTime.of(2024, 1, 1, 8, 0), "Ran 5km"),
+                new TrackingExportRow(archivedId, LocalDateTime.of(2024, 1, 1, 20, 0), null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = trackingExportService.exportTrackings(habitId, TrackingExportFormat.CSV, out);
+
+        assertEquals(3, exported);
+        assertEquals("id,timestamp,note\r\n"
+                        + firstId + ",2024-01-01T08:00:00,Ran 5km\r\n"
+                        + archivedId + ",2024-01-01T20:00:00,\r\n"
+                        + secondId + ",2024-01-02T08:30:15,\"Tired, \"\"short\"\" run\"\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void should_throwHabitNotFound_forUnknownHabit() {
+        when(habitRepository.existsByIdAndUserId(habitId, UserContext.DEFAULT_USER)).thenReturn(false);
+
+        assertThrows(HabitNotFoundException.class, () -> trackingExportService.requireHabit(habitId));
+    }
+
+}
@@ -0,0 +1,213 @@
+package org.netlight.habit_tracker.service;
+
+import org.junit.jupiter.api.Test;
+import org.netlight.habit_tracker.dto.response.ImportJobResponse;
+import org.netlight.habit_tracker.importer.ImportFormat;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.ImportJob;
+import org.netlight.habit_tracker.model.ImportJobStatus;
+import org.netlight.habit_tracker.repository.HabitRepository;
+import org.netlight.habit_tracker.repository.ImportJobRepository;
+import org.netlight.habit_tracker.repository.TrackingRepository;
+import org.netlight.habit_tracker.shard.UserContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Runs imports against their own embedded H2 database with chunks of three records.
+ */
+@SpringBootTest(properties = {
+    "habit-tracker.import.chunk-size=3",
+    "habit-tracker.import.directory=target/test-imports",
+    "spring.datasource.url=jdbc:h2:mem:imports;MODE=MariaDB;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("h2")
+class TrackingImportServiceTest {
+
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @Autowired
+    private TrackingImportService trackingImportService;
+
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private HabitRepository habitRepository;
+
+    @Autowired
+    private TrackingRepository trackingRepository;
+
+    @SpyBean
+    private HabitRollupService habitRollupService;
+
+    @Test
+    void should_importCsvInChunks_creatingHabitsAndRejectingInvalidRecords() throws Exception {
+        String running = "Running " + UUID.randomUUID();
+        String reading = "Reading " + UUID.randomUUID();
+        String csv = """
+                habit,frequency,timestamp,note
+                %1$s,,2024-01-02T07:00:00,second day
+                %1$s,,2024-01-01T07:00:00,first day
+                %2$s,weekly,,
+                %1$s,,not a date,
+                ,,2024-01-03,
+                %1$s,,2024-01-03,"third, and last"
+                %2$s,,2024-01-08,
+                """.formatted(running, reading);
+
+        ImportJobResponse job = awaitCompletion(trackingImportService.submit(ImportFormat.CSV, "history.csv",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))).id());
+
+        assertEquals(7, job.processedRows());
+        assertEquals(4, job.importedRows());
+        assertEquals(2, job.rejectedRows());
+        assertEquals(2, job.createdHabits());
+        assertTrue(job.lastRejection().startsWith("Record 5:"));
+        assertTrue(job.rowsPerSecond() > 0);
+
+        Habit runningHabit = habitRepository.findByUserIdAndNameIn(UserContext.DEFAULT_USER, List.of(running)).get(0);
+        assertEquals(Frequency.DAILY, runningHabit.getFrequency());
+        // Created from the oldest tracking of its chunk, not the first one read
+        assertEquals(LocalDate.of(2024, 1, 1), runningHabit.getStartDate());
+        assertEquals(3, trackingRepository.findByHabitId(runningHabit.getId()).size());
+        assertEquals(3, habitRollupService.getStats(runningHabit.getId()).longestStreak());
+
+        Habit readingHabit = habitRepository.findByUserIdAndNameIn(UserContext.DEFAULT_USER, List.of(reading)).get(0);
+        assertEquals(Frequency.WEEKLY, readingHabit.getFrequency());
+        assertEquals(1, trackingRepository.findByHabitId(readingHabit.getId()).size());
+        assertFalse(importJobRepository.findAll().stream()
+                .filter(importJob -> importJob.getId().equals(job.id()))
+                .map(importJob -> Files.exists(Path.of(importJob.getFilePath())))
+                .findFirst().orElseThrow());
+    }
+
+    @Test
+    void should_resumeAfterLastCommittedChunk() throws Exception {
+        String habitName = "Meditation " + UUID.randomUUID();
+        Habit habit = habitRepository.save(Habit.builder()
+                .userId(UserContext.DEFAULT_USER)
+                .name(habitName)
+                .frequency(Frequency.DAILY)
+                .startDate(LocalDate.of(2024, 1, 1))
+                .build());
+        StringBuilder ndjson = new StringBuilder();
+        for (int day = 1; day <= 8; day++) {
+            ndjson.append("{\"habit\": \"%s\", \"timestamp\": \"2024-01-%02d\"}\n".formatted(habitName, day));
+        }
+        Path file = Files.createTempFile(Files.createDirectories(Path.of("target/test-imports")), "resume-", ".ndjson");
+        Files.writeString(file, ndjson);
+        // As left behind by a run that failed after committing its first chunk
+        ImportJob failed = importJobRepository.save(ImportJob.builder()
+                .userId(UserContext.DEFAULT_USER)
+                .format(ImportFormat.NDJSON)
+                .status(ImportJobStatus.FAILED)
+                .filePath(file.toString())
+                .processedRows(3)
+                .importedRows(3)
+                .processingMillis(1)
+                .error("Connection reset")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build());
+
+        trackingImportService.resume(failed.getId());
+        ImportJobResponse job = awaitCompletion(failed.getId());
+
+        assertEquals(8, job.processedRows());
+        assertEquals(8, job.importedRows());
+        assertNull(job.error());
+        assertEquals(5, trackingRepository.findByHabitId(habit.getId()).size());
+        assertEquals(LocalDateTime.of(2024, 1, 4, 0, 0),
+                trackingRepository.findByHabitId(habit.getId()).stream()
+                        .map(tracking -> tracking.getTimestamp())
+                        .min(LocalDateTime::compareTo).orElseThrow());
+    }
+
+    @Test
+    @DirtiesContext
+    void should_leaveImportRunningAfterItsLastChunk_whenShutDown() throws Exception {
+        String habitName = "Stretching " + UUID.randomUUID();
+        StringBuilder ndjson = new StringBuilder();
+        for (int record = 0; record < 12; record++) {
+            ndjson.append("{\"habit\": \"%s\", \"timestamp\": \"2024-01-01T07:00:00\"}\n".formatted(habitName));
+        }
+        // Holds the second chunk inside its transaction until the shutdown has begun
+        CountDownLatch secondChunkWriting = new CountDownLatch(1);
+        CountDownLatch shutdownStarted = new CountDownLatch(1);
+        AtomicInteger chunks = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (chunks.incrementAndGet() == 2) {
+                secondChunkWriting.countDown();
+                assertTrue(shutdownStarted.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+            }
+            return invocation.callRealMethod();
+        }).when(AopTestUtils.<HabitRollupService>getUltimateTargetObject(habitRollupService)).recordTrackings(any());
+        UUID jobId = trackingImportService.submit(ImportFormat.NDJSON, "stretching.ndjson",
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8))).id();
+        assertTrue(secondChunkWriting.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+
+        Thread shutdown = new Thread(() -> {
+            try {
+                trackingImportService.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        shutdown.start();
+        // Waiting for the import to stop, so it has been told to
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (shutdown.getState() != Thread.State.TIMED_WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        shutdownStarted.countDown();
+        shutdown.join(TIMEOUT_MILLIS);
+
+        ImportJobResponse job = trackingImportService.getJob(jobId);
+        assertEquals(ImportJobStatus.RUNNING, job.status());
+        assertNull(job.error());
+        assertEquals(6, job.processedRows());
+        assertEquals(6, job.importedRows());
+        Habit habit = habitRepository.findByUserIdAndNameIn(UserContext.DEFAULT_USER, List.of(habitName)).get(0);
+        assertEquals(6, trackingRepository.findByHabitId(habit.getId()).size());
+        // Or the next context resumes it on startup, ahead of the other tests' imports
+        importJobRepository.deleteById(jobId);
+    }
+
+    private ImportJobResponse awaitCompletion(final UUID jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        ImportJobResponse job = trackingImportService.getJob(jobId);
+        while (job.status() != ImportJobStatus.COMPLETED && System.currentTimeMillis() < deadline) {
+            assertFalse(job.status() == ImportJobStatus.FAILED, job.error());
+            Thread.sleep(20);
+            job = trackingImportService.getJob(jobId);
+        }
+        assertEquals(ImportJobStatus.COMPLETED, job.status());
+        return job;
+    }
+
+}
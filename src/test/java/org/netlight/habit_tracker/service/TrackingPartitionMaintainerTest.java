@@ -0,0 +1,43 @@
+package org.netlight.habit_tracker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrackingPartitionMaintainerTest {
+
+    @Test
+    void should_splitMonthsFromTheFirstMonth_offAnUnsplitTable() {
+        List<String> definitions = TrackingPartitionMaintainer.plan(List.of("p_history", "p_future"),
+                YearMonth.of(2026, 11), YearMonth.of(2026, 11), 2);
+
+        assertEquals(List.of(
+                "partition p202611 values less than ('2026-12-01')",
+                "partition p202612 values less than ('2027-01-01')",
+                "partition p202701 values less than ('2027-02-01')",
+                "partition p_future values less than (maxvalue)"), definitions);
+    }
+
+    @Test
+    void should_onlyAddMonthsAfterTheLatestPartition() {
+        List<String> partitions = List.of("p_history", "p202611", "p202612", "p202701", "p_future");
+
+        List<String> definitions = TrackingPartitionMaintainer.plan(partitions, YearMonth.of(2026, 11), YearMonth.of(2026, 12), 2);
+
+        assertEquals(List.of(
+                "partition p202702 values less than ('2027-03-01')",
+                "partition p_future values less than (maxvalue)"), definitions);
+    }
+
+    @Test
+    void should_addNothing_whenMonthsAreCovered() {
+        List<String> partitions = List.of("p_history", "p202611", "p202612", "p202701", "p_future");
+
+        assertTrue(TrackingPartitionMaintainer.plan(partitions, YearMonth.of(2026, 11), YearMonth.of(2026, 11), 2).isEmpty());
+    }
+
+}
@@ -0,0 +1,160 @@
+package org.netlight.habit_tracker.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.netlight.habit_tracker.config.ShardProperties;
+import org.netlight.habit_tracker.config.TrackingWriteBehindProperties;
+import org.netlight.habit_tracker.exception.TrackingQueueFullException;
+import org.netlight.habit_tracker.model.Frequency;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+import org.netlight.habit_tracker.repository.TrackingStore;
+import org.netlight.habit_tracker.shard.ShardRouter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TrackingWriteBehindQueueTest {
+
+    @Mock
+    private TrackingStore trackingStore;
+
+    @Mock
+    private HabitRollupService habitRollupService;
+
+    @Mock
+    private ChangeEventOutbox changeEventOutbox;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TrackingWriteBehindQueue queue;
+    private Habit habit;
+    private List<List<Tracking>> committedGroups;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        committedGroups = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> committedGroups.add(List.copyOf(invocation.getArgument(0))))
+                .when(trackingStore).saveAll(anyList());
+
+        habit = Habit.builder()
+                .id(UUID.randomUUID())
+                .name("Test Habit")
+                .frequency(Frequency.DAILY)
+                .startDate(LocalDate.now())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void should_flushQueuedEntriesInGroups_onStop() {
+        queue = newQueue(1_000, 10, Duration.ofSeconds(5));
+        queue.start();
+
+        List<Tracking> queued = new ArrayList<>();
+        for (int i = 0; i < 35; i++) {
+            queued.add(queue.enqueue(tracking("Entry " + i)));
+        }
+        queue.stop();
+
+        List<Tracking> committed = committedGroups.stream().flatMap(List::stream).toList();
+        assertEquals(queued, committed);
+        assertTrue(committedGroups.stream().allMatch(group -> group.size() <= 10));
+        assertTrue(committedGroups.size() <= 35);
+        assertTrue(queued.stream().allMatch(tracking -> tracking.getId() != null));
+        assertEquals(0, queue.queueDepth());
+        verify(habitRollupService, times(committedGroups.size())).recordTrackings(anyList());
+        assertEquals(committedGroups.size(),
+                meterRegistry.get("habit_tracker.tracking.write_behind.commit").timer().count());
+    }
+
+    @Test
+    void should_rejectEntries_whenQueueStaysFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(trackingStore).saveAll(anyList());
+        queue = newQueue(1, 1, Duration.ofMillis(1));
+        queue.start();
+
+        assertThrows(TrackingQueueFullException.class, () -> {
+            for (int i = 0; i < 10; i++) {
+                queue.enqueue(tracking("Entry " + i));
+            }
+        });
+        release.countDown();
+    }
+
+    @Test
+    void should_retryEntriesOneByOne_whenGroupCommitFails() {
+        Tracking bad = tracking("Bad entry");
+        doAnswer(invocation -> {
+            List<Tracking> group = invocation.getArgument(0);
+            if (group.contains(bad)) {
+                throw new IllegalStateException("constraint violation");
+            }
+            committedGroups.add(List.copyOf(group));
+            return null;
+        }).when(trackingStore).saveAll(anyList());
+        queue = newQueue(100, 10, Duration.ofSeconds(5));
+        queue.start();
+
+        queue.enqueue(tracking("Good entry"));
+        queue.enqueue(bad);
+        queue.enqueue(tracking("Other good entry"));
+        queue.stop();
+
+        assertEquals(2, committedGroups.stream().mapToInt(List::size).sum());
+        assertEquals(1.0, meterRegistry.get("habit_tracker.tracking.write_behind.failed").counter().count());
+    }
+
+    @Test
+    void should_rejectEntries_whenNotRunning() {
+        queue = newQueue(10, 10, Duration.ofMillis(10));
+
+        assertThrows(TrackingQueueFullException.class, () -> queue.enqueue(tracking("Entry")));
+        verifyNoInteractions(trackingStore);
+    }
+
+    private TrackingWriteBehindQueue newQueue(int capacity, int maxBatchSize, Duration linger) {
+        TrackingWriteBehindProperties properties = new TrackingWriteBehindProperties(
+                true, capacity, maxBatchSize, linger, Duration.ofMillis(50), Duration.ofSeconds(10));
+        return new TrackingWriteBehindQueue(
+                properties, trackingStore, habitRollupService, changeEventOutbox, transactionManager,
+                new ShardRouter(new ShardProperties(false, 128, false, 1000, List.of())), meterRegistry);
+    }
+
+    private Tracking tracking(String note) {
+        return Tracking.builder()
+                .habit(habit)
+                .timestamp(LocalDateTime.now())
+                .note(note)
+                .build();
+    }
+
+}
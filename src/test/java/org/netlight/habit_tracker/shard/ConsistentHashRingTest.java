@@ -0,0 +1,65 @@
+package org.netlight.habit_tracker.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConsistentHashRingTest {
+
+    private static final int USERS = 30_000;
+
+    @Test
+    void should_spreadUsersEvenly_overAllShards() {
+        final ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        final Map<String, Integer> counts = new HashMap<>();
+        users().forEach(user -> counts.merge(ring.shardFor(user), 1, Integer::sum));
+
+        assertEquals(3, counts.size());
+        // Within 20% of an even share
+        counts.values().forEach(count -> assertTrue(Math.abs(count - USERS / 3) < USERS / 15, counts::toString));
+    }
+
+    @Test
+    void should_onlyMoveUsersToTheNewShard_whenAShardIsAdded() {
+        final ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+        final ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+        int moved = 0;
+        for (final UUID user : users()) {
+            final String shard = after.shardFor(user);
+            if (!shard.equals(before.shardFor(user))) {
+                assertEquals("d", shard);
+                moved++;
+            }
+        }
+        assertTrue(Math.abs(moved - USERS / 4) < USERS / 20, "moved " + moved);
+    }
+
+    @Test
+    void should_assignTheSameShard_regardlessOfShardOrder() {
+        final ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c"), 16);
+        final ConsistentHashRing reordered = new ConsistentHashRing(List.of("c", "a", "b"), 16);
+
+        users().forEach(user -> assertEquals(ring.shardFor(user), reordered.shardFor(user)));
+    }
+
+    @Test
+    void should_rejectEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of(), 128));
+    }
+
+    private static List<UUID> users() {
+        return IntStream.range(0, USERS)
+            .mapToObj(i -> UUID.nameUUIDFromBytes(("user-" + i).getBytes()))
+            .toList();
+    }
+
+}
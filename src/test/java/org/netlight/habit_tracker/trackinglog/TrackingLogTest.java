@@ -0,0 +1,290 @@
+package org.netlight.habit_tracker.trackinglog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.netlight.habit_tracker.dto.response.TrackingExportRow;
+import org.netlight.habit_tracker.id.TimeOrderedUuid;
+import org.netlight.habit_tracker.model.Habit;
+import org.netlight.habit_tracker.model.Tracking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrackingLogTest {
+
+    private static final int SEGMENT_SIZE = 16 * 1024;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 7, 0, 0, 123_456_789);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_readBackTrackings_oldestFirst() throws IOException {
+        Habit running = habit();
+        Habit reading = habit();
+        try (TrackingLog log = open()) {
+            List<Tracking> runs = trackings(running, 3);
+            log.append(List.of(runs.get(2), runs.get(0)));
+            log.append(List.of(runs.get(1)));
+            log.append(List.of(tracking(reading, START, "Finished \"Dune\", 5 ★")));
+
+            assertEquals(rows(runs), log.find(running.getId()));
+            assertEquals("Finished \"Dune\", 5 ★", log.find(reading.getId()).get(0).note());
+            assertEquals(rows(runs.subList(1, 2)), List.of(log.find(running.getId(), runs.get(1).getId()).orElseThrow()));
+            assertEquals(List.of(), log.find(UUID.randomUUID()));
+            assertEquals(4, log.trackingCount());
+        }
+    }
+
+    @Test
+    void should_onlyReturnTrackingsInRange() throws IOException {
+        Habit habit = habit();
+        List<Tracking> trackings = trackings(habit, 10);
+        try (TrackingLog log = open()) {
+            log.append(trackings);
+
+            assertEquals(rows(trackings.subList(2, 5)), log.find(habit.getId(),
+                trackings.get(2).getTimestamp(), trackings.get(5).getTimestamp(), 100));
+            assertEquals(rows(trackings.subList(2, 4)), log.find(habit.getId(),
+                trackings.get(2).getTimestamp(), trackings.get(5).getTimestamp(), 2));
+            assertEquals(List.of(), log.find(habit.getId(), START, START, 100));
+        }
+    }
+
+    @Test
+    void should_rollOverSegments_andRecoverEverythingByReplay() throws IOException {
+        Habit habit = habit();
+        List<Tracking> trackings = trackings(habit, 1_000);
+        try (TrackingLog log = open()) {
+            log.append(trackings);
+            assertTrue(log.segmentCount() > 1, "expected several segments, got " + log.segmentCount());
+        }
+        Files.delete(directory.resolve(TrackingLog.CHECKPOINT_FILE));
+
+        try (TrackingLog log = open()) {
+            assertEquals(rows(trackings), log.find(habit.getId()));
+        }
+    }
+
+    @Test
+    void should_replayRecordsAfterCheckpoint() throws IOException {
+        Habit habit = habit();
+        List<Tracking> trackings = trackings(habit, 300);
+        TrackingLog log = open();
+        log.append(trackings.subList(0, 200));
+        log.checkpoint();
+        log.append(trackings.subList(200, 300));
+        log.delete(habit.getId(), trackings.get(0).getId());
+        // Crash: no checkpoint on close
+
+        try (TrackingLog reopened = open()) {
+            assertEquals(rows(trackings.subList(1, 300)), reopened.find(habit.getId()));
+            assertEquals(299, reopened.trackingCount());
+        }
+    }
+
+    @Test
+    void should_writeCheckpoints_whenRequestedConcurrently() throws Exception {
+        Habit habit = habit();
+        List<Tracking> trackings = trackings(habit, 200);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (TrackingLog log = open()) {
+            List<Future<?>> checkpoints = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                log.append(trackings.subList(i, i + 1));
+                checkpoints.add(executor.submit(() -> {
+                    log.checkpoint();
+                    return null;
+                }));
+            }
+            for (Future<?> checkpoint : checkpoints) {
+                checkpoint.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (TrackingLog reopened = open()) {
+            assertEquals(rows(trackings), reopened.find(habit.getId()));
+        }
+    }
+
+    @Test
+    void should_discardTornRecord_atEndOfLog() throws IOException {
+        Habit habit = habit();
+        List<Tracking> trackings = trackings(habit, 3);
+        Path segment;
+        try (TrackingLog log = open()) {
+            log.append(trackings);
+        }
+        Files.delete(directory.resolve(TrackingLog.CHECKPOINT_FILE));
+        try (var files = Files.list(directory)) {
+            segment = files.filter(LogSegment::isSegment).findFirst().orElseThrow();
+        }
+        // Overwrite the last record's note with garbage, as a torn write would leave it
+        int lastRecord = LogLayout.HEADER_SIZE;
+        for (Tracking tracking : trackings.subList(0, 2)) {
+            lastRecord += LogLayout.append(habit.getId(), tracking.getId(), tracking.getTimestamp(), tracking.getNote()).length;
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), lastRecord + LogLayout.RECORD_HEADER_SIZE + 50);
+        }
+
+        try (TrackingLog log = open()) {
+            assertEquals(rows(trackings.subList(0, 2)), log.find(habit.getId()));
+            Tracking next = tracking(habit, START.plusDays(10), "After recovery");
+            log.append(List.of(next));
+            assertEquals(next.getId(), log.find(habit.getId()).get(2).id());
+        }
+    }
+
+    @Test
+    void should_refuseToOpen_whenSealedSegmentIsDamaged() throws IOException {
+        Habit habit = habit();
+        try (TrackingLog log = open()) {
+            log.append(trackings(habit, 1_000));
+        }
+        Files.delete(directory.resolve(TrackingLog.CHECKPOINT_FILE));
+        try (FileChannel channel = FileChannel.open(directory.resolve(LogSegment.fileName(0)), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), LogLayout.HEADER_SIZE + 40);
+        }
+
+        assertThrows(CorruptLogException.class, this::open);
+    }
+
+    @Test
+    void should_deleteHabit_andRefuseLaterAppends() throws IOException {
+        Habit deleted = habit();
+        Habit kept = habit();
+        try (TrackingLog log = open()) {
+            log.append(trackings(deleted, 5));
+            log.append(trackings(kept, 1));
+            log.deleteHabit(deleted.getId());
+
+            assertEquals(List.of(), log.find(deleted.getId()));
+            assertEquals(1, log.trackingCount());
+            assertThrows(IllegalStateException.class, () -> log.append(trackings(deleted, 1)));
+        }
+        try (TrackingLog log = open()) {
+            assertEquals(List.of(), log.find(deleted.getId()));
+            assertEquals(1, log.find(kept.getId()).size());
+        }
+    }
+
+    @Test
+    void should_compactSegmentsOfDeletedHabits() throws IOException {
+        Habit deleted = habit();
+        Habit kept = habit();
+        List<Tracking> keptTrackings = new ArrayList<>();
+        try (TrackingLog log = open()) {
+            for (int day = 0; day < 1_000; day++) {
+                Tracking keptTracking = tracking(kept, START.plusDays(day), "Kept " + day);
+                keptTrackings.add(keptTracking);
+                log.append(List.of(tracking(deleted, START.plusDays(day), "Deleted " + day), keptTracking));
+            }
+            log.delete(kept.getId(), keptTrackings.remove(0).getId());
+            log.deleteHabit(deleted.getId());
+            long sizeBefore = log.sizeBytes();
+            int segmentsBefore = log.segmentCount();
+
+            assertTrue(log.compact(0.4) > 0);
+            assertEquals(segmentsBefore, log.segmentCount());
+            assertTrue(log.sizeBytes() < sizeBefore, log.sizeBytes() + " < " + sizeBefore);
+            assertEquals(rows(keptTrackings), log.find(kept.getId()));
+            assertEquals(0, log.compact(0.4));
+        }
+        // From the checkpoint written by compaction
+        try (TrackingLog log = open()) {
+            assertEquals(rows(keptTrackings), log.find(kept.getId()));
+        }
+        // And by replaying the compacted segments
+        Files.delete(directory.resolve(TrackingLog.CHECKPOINT_FILE));
+        try (TrackingLog log = open()) {
+            assertEquals(rows(keptTrackings), log.find(kept.getId()));
+            assertEquals(List.of(), log.find(deleted.getId()));
+        }
+    }
+
+    @Test
+    void should_removeSegments_withNothingLive() throws IOException {
+        Habit habit = habit();
+        try (TrackingLog log = open()) {
+            log.append(trackings(habit, 1_000));
+            log.deleteHabit(habit.getId());
+            int segmentsBefore = log.segmentCount();
+
+            log.compact(0.5);
+
+            assertTrue(segmentsBefore > 1);
+            assertEquals(1, log.segmentCount());
+            assertEquals(0, log.trackingCount());
+        }
+        try (TrackingLog log = open()) {
+            assertThrows(IllegalStateException.class, () -> log.append(trackings(habit, 1)));
+        }
+    }
+
+    @Test
+    void should_ignoreStaleCheckpoint_afterInterruptedCompaction() throws IOException {
+        Habit deleted = habit();
+        Habit kept = habit();
+        List<Tracking> keptTrackings = trackings(kept, 200);
+        TrackingLog log = open();
+        log.append(trackings(deleted, 500));
+        log.append(keptTrackings);
+        log.checkpoint();
+        Path checkpoint = directory.resolve(TrackingLog.CHECKPOINT_FILE);
+        byte[] staleCheckpoint = Files.readAllBytes(checkpoint);
+        log.deleteHabit(deleted.getId());
+        log.compact(0.5);
+        // Crash after a segment was rewritten but before the checkpoint was replaced
+        Files.write(checkpoint, staleCheckpoint);
+
+        try (TrackingLog reopened = open()) {
+            assertEquals(rows(keptTrackings), reopened.find(kept.getId()));
+            assertEquals(List.of(), reopened.find(deleted.getId()));
+        }
+    }
+
+    private TrackingLog open() throws IOException {
+        return TrackingLog.open(directory, SEGMENT_SIZE, false);
+    }
+
+    private static Habit habit() {
+        return Habit.builder().id(TimeOrderedUuid.next()).build();
+    }
+
+    private static List<Tracking> trackings(final Habit habit, final int days) {
+        return IntStream.range(0, days)
+            .mapToObj(day -> tracking(habit, START.plusDays(day), day % 3 == 0 ? null : "Day " + day))
+            .toList();
+    }
+
+    private static Tracking tracking(final Habit habit, final LocalDateTime timestamp, final String note) {
+        return Tracking.builder().id(TimeOrderedUuid.next()).habit(habit).timestamp(timestamp).note(note).build();
+    }
+
+    private static List<TrackingExportRow> rows(final List<Tracking> trackings) {
+        return trackings.stream()
+            .map(tracking -> new TrackingExportRow(tracking.getId(), tracking.getTimestamp(), tracking.getNote()))
+            .toList();
+    }
+
+}